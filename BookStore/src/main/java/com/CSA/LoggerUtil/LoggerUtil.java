@@ -1,5 +1,7 @@
 package com.CSA.LoggerUtil;
 
+import com.CSA.diagnostics.LogEvent;
+
 import java.io.IOException;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.FileHandler;
@@ -46,7 +48,10 @@ public class LoggerUtil {
      * @param message The message to log
      */
     public static void logInfo(String message) {
+        LogEvent event = new LogEvent();
+        event.begin();
         LOGGER.info(message);
+        event.complete("INFO", message);
     }
     
     /**
@@ -55,7 +60,10 @@ public class LoggerUtil {
      * @param message The message to log
      */
     public static void logWarning(String message) {
+        LogEvent event = new LogEvent();
+        event.begin();
         LOGGER.warning(message);
+        event.complete("WARNING", message);
     }
     
     /**
@@ -64,6 +72,9 @@ public class LoggerUtil {
      * @param message The message to log
      */
     public static void logSevere(String message) {
+        LogEvent event = new LogEvent();
+        event.begin();
         LOGGER.severe(message);
+        event.complete("SEVERE", message);
     }
 }
@@ -0,0 +1,102 @@
+package com.CSA.analytics;
+
+/**
+ * Represents one book on a bestseller list.
+ */
+public class BestsellerEntry {
+    private int bookId;
+    private String title;
+    private long unitsSold;
+    private long maxOverestimate;
+
+    /**
+     * Default constructor for BestsellerEntry.
+     */
+    public BestsellerEntry() {
+    }
+
+    /**
+     * Parameterized constructor for BestsellerEntry.
+     * 
+     * @param bookId The ID of the book
+     * @param unitsSold The counted units sold
+     * @param maxOverestimate How much unitsSold may exceed the true count
+     */
+    public BestsellerEntry(int bookId, long unitsSold, long maxOverestimate) {
+        this.bookId = bookId;
+        this.unitsSold = unitsSold;
+        this.maxOverestimate = maxOverestimate;
+    }
+
+    /**
+     * Gets the ID of the book.
+     * 
+     * @return The book ID
+     */
+    public int getBookId() {
+        return bookId;
+    }
+
+    /**
+     * Sets the ID of the book.
+     * 
+     * @param bookId The book ID to set
+     */
+    public void setBookId(int bookId) {
+        this.bookId = bookId;
+    }
+
+    /**
+     * Gets the title of the book.
+     * 
+     * @return The book title, or null if the book has been deleted
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Sets the title of the book.
+     * 
+     * @param title The book title to set
+     */
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    /**
+     * Gets the counted units sold.
+     * 
+     * @return The units sold
+     */
+    public long getUnitsSold() {
+        return unitsSold;
+    }
+
+    /**
+     * Sets the counted units sold.
+     * 
+     * @param unitsSold The units sold to set
+     */
+    public void setUnitsSold(long unitsSold) {
+        this.unitsSold = unitsSold;
+    }
+
+    /**
+     * Gets how much unitsSold may exceed the true count; 0 means the count is exact.
+     * 
+     * @return The maximum overestimate
+     */
+    public long getMaxOverestimate() {
+        return maxOverestimate;
+    }
+
+    /**
+     * Sets the maximum overestimate.
+     * 
+     * @param maxOverestimate The maximum overestimate to set
+     */
+    public void setMaxOverestimate(long maxOverestimate) {
+        this.maxOverestimate = maxOverestimate;
+    }
+}
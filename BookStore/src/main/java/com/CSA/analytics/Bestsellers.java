@@ -0,0 +1,95 @@
+package com.CSA.analytics;
+
+import com.CSA.model.Book;
+import com.CSA.storage.PackedOrder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live bestseller lists maintained incrementally as orders are placed.
+ * Keeps an all-time list, one per author, and one per sliding window, so serving a list never
+ * looks at past orders.
+ */
+public class Bestsellers {
+
+    /** Window name for the all-time list. */
+    public static final String ALL_TIME = "all";
+
+    private static final int OVERALL_CAPACITY = Integer.getInteger("bookstore.bestsellers.capacity", 1000);
+    private static final int AUTHOR_CAPACITY = Integer.getInteger("bookstore.bestsellers.authorCapacity", 100);
+    private static final int WINDOW_BUCKETS = 60;
+    private static final long HOUR_MILLIS = 3_600_000L;
+
+    private static final HeavyHitters overall = new HeavyHitters(OVERALL_CAPACITY);
+    private static final ConcurrentHashMap<Integer, HeavyHitters> byAuthor = new ConcurrentHashMap<>();
+    private static final Map<String, SlidingWindowTopK> windows = new LinkedHashMap<>();
+
+    static {
+        windows.put("1h", new SlidingWindowTopK(HOUR_MILLIS, WINDOW_BUCKETS));
+        windows.put("24h", new SlidingWindowTopK(24 * HOUR_MILLIS, WINDOW_BUCKETS));
+        windows.put("7d", new SlidingWindowTopK(7 * 24 * HOUR_MILLIS, WINDOW_BUCKETS));
+    }
+
+    /**
+     * Counts the lines of a newly placed order.
+     *
+     * @param order The placed order
+     * @param orderedBooks The ordered books as they were at checkout
+     */
+    public static void record(PackedOrder order, Map<Integer, Book> orderedBooks) {
+        long now = System.currentTimeMillis();
+        for (int line = 0; line < order.getLineCount(); line++) {
+            int bookId = order.getBookId(line);
+            int quantity = order.getQuantity(line);
+            overall.add(bookId, quantity);
+            Book book = orderedBooks.get(bookId);
+            if (book != null && book.getAuthorId() > 0) {
+                byAuthor.computeIfAbsent(book.getAuthorId(), id -> new HeavyHitters(AUTHOR_CAPACITY))
+                        .add(bookId, quantity);
+            }
+            for (SlidingWindowTopK window : windows.values()) {
+                window.add(bookId, quantity, now);
+            }
+        }
+    }
+
+    /**
+     * Checks whether a window name is supported.
+     *
+     * @param window The window name
+     * @return true for "all" and each sliding window
+     */
+    public static boolean isKnownWindow(String window) {
+        return ALL_TIME.equals(window) || windows.containsKey(window);
+    }
+
+    /**
+     * Gets the best-selling books for a window.
+     *
+     * @param window The window name: all, 1h, 24h or 7d
+     * @param k The maximum number of entries
+     * @return The top entries, highest count first
+     */
+    public static List<BestsellerEntry> top(String window, int k) {
+        if (ALL_TIME.equals(window)) {
+            return overall.top(k);
+        }
+        return windows.get(window).top(k, System.currentTimeMillis());
+    }
+
+    /**
+     * Gets an author's all-time best-selling books.
+     *
+     * @param authorId The ID of the author
+     * @param k The maximum number of entries
+     * @return The top entries, highest count first
+     */
+    public static List<BestsellerEntry> topForAuthor(int authorId, int k) {
+        HeavyHitters counter = byAuthor.get(authorId);
+        return counter == null ? new ArrayList<>() : counter.top(k);
+    }
+}
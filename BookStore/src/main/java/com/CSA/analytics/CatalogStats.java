@@ -0,0 +1,289 @@
+package com.CSA.analytics;
+
+import com.CSA.model.Book;
+import com.CSA.storage.CatalogSnapshot;
+import com.CSA.storage.DataStore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Catalog-wide book totals, maintained incrementally: book count, total stock, inventory value
+ * (price × stock, kept in cents), low-stock and out-of-stock counts, and book counts per
+ * publication year and per author. Every book write in DataStore adds the old and new book to a
+ * {@link Delta}, which is applied when its transaction commits, so reads cost the same whatever
+ * the catalog size and rolled-back writes are never counted. A parallel full recompute from a
+ * snapshot checks the maintained totals.
+ */
+public class CatalogStats {
+
+    /** Books with at most this much stock, but some, count as low on stock. */
+    public static final int LOW_STOCK_THRESHOLD = Integer.getInteger("bookstore.stats.lowStockThreshold", 5);
+
+    private static final int RECOMPUTE_LEAF_SIZE = 4096;
+
+    // Guarded by itself; deltas are applied in commit order, under the catalog commit lock
+    private static final Totals current = new Totals(64, 1024);
+    private static long version;
+
+    /**
+     * Gets the maintained totals.
+     *
+     * @param includeAuthors Whether to include the per-author book counts
+     * @return A map of statistic names to values
+     */
+    public static Map<String, Object> get(boolean includeAuthors) {
+        synchronized (current) {
+            Map<String, Object> stats = current.toMap(includeAuthors);
+            stats.put("version", version);
+            return stats;
+        }
+    }
+
+    /**
+     * Recomputes the totals from a snapshot of every book, in parallel, and compares them with the
+     * maintained ones as of the same version.
+     *
+     * @return A map with whether the totals agree, the statistics that differ, the version
+     *         compared and the recompute time
+     */
+    public static Map<String, Object> verify() {
+        Totals[] maintained = new Totals[1];
+        long start = System.nanoTime();
+        Totals recomputed;
+        long snapshotVersion;
+        // Deltas are applied under the commit lock, so none can land between the copy and the pin
+        try (CatalogSnapshot snapshot = DataStore.catalogClock.openSnapshot(() -> {
+            synchronized (current) {
+                maintained[0] = current.copy();
+            }
+        })) {
+            snapshotVersion = snapshot.version();
+            List<Book> books = DataStore.books.values(snapshot);
+            recomputed = ForkJoinPool.commonPool().invoke(new RecomputeTask(books, 0, books.size()));
+        }
+        List<String> differences = maintained[0].differencesFrom(recomputed);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("consistent", differences.isEmpty());
+        result.put("differences", differences);
+        result.put("version", snapshotVersion);
+        result.put("books", recomputed.books);
+        result.put("recomputeMillis", (System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    /**
+     * The effect of one transaction's book writes on the totals.
+     */
+    public static final class Delta {
+        private final Totals change = new Totals(4, 4);
+
+        /**
+         * Records that a book was added, replaced or removed.
+         *
+         * @param previous The book before the write, or null if it was added
+         * @param updated The book after the write, or null if it was removed
+         */
+        public void add(Book previous, Book updated) {
+            if (previous != null && updated != null && !countsDiffer(previous, updated)) {
+                // Only fields the totals do not count changed, such as the title
+                return;
+            }
+            if (previous != null) {
+                change.add(previous, -1);
+            }
+            if (updated != null) {
+                change.add(updated, 1);
+            }
+        }
+
+        /**
+         * Applies the change to the maintained totals. Must be called in commit order.
+         *
+         * @param committedVersion The version of the transaction that made the change
+         */
+        public void apply(long committedVersion) {
+            synchronized (current) {
+                current.merge(change);
+                version = committedVersion;
+            }
+        }
+    }
+
+    private static boolean countsDiffer(Book previous, Book updated) {
+        return previous.getStockQuantity() != updated.getStockQuantity()
+                || previous.getPrice() != updated.getPrice()
+                || previous.getPublicationYear() != updated.getPublicationYear()
+                || previous.getAuthorId() != updated.getAuthorId();
+    }
+
+    private static final class Totals {
+        long books;
+        long totalStock;
+        long inventoryCents;
+        long lowStock;
+        long outOfStock;
+        long orphaned;
+        final IntIntHashMap byYear;
+        final IntIntHashMap byAuthor;
+
+        Totals(int expectedYears, int expectedAuthors) {
+            byYear = new IntIntHashMap(expectedYears);
+            byAuthor = new IntIntHashMap(expectedAuthors);
+        }
+
+        void add(Book book, int sign) {
+            int stock = book.getStockQuantity();
+            books += sign;
+            totalStock += (long) sign * stock;
+            inventoryCents += sign * Math.round(book.getPrice() * 100) * stock;
+            if (stock == 0) {
+                outOfStock += sign;
+            } else if (stock <= LOW_STOCK_THRESHOLD) {
+                lowStock += sign;
+            }
+            if (book.getPublicationYear() > 0) {
+                addCount(byYear, book.getPublicationYear(), sign);
+            }
+            if (book.getAuthorId() > 0) {
+                addCount(byAuthor, book.getAuthorId(), sign);
+            } else {
+                orphaned += sign;
+            }
+        }
+
+        void merge(Totals other) {
+            books += other.books;
+            totalStock += other.totalStock;
+            inventoryCents += other.inventoryCents;
+            lowStock += other.lowStock;
+            outOfStock += other.outOfStock;
+            orphaned += other.orphaned;
+            for (int year : other.byYear.keys()) {
+                addCount(byYear, year, other.byYear.get(year));
+            }
+            for (int authorId : other.byAuthor.keys()) {
+                addCount(byAuthor, authorId, other.byAuthor.get(authorId));
+            }
+        }
+
+        Totals copy() {
+            Totals copy = new Totals(byYear.size(), byAuthor.size());
+            copy.merge(this);
+            return copy;
+        }
+
+        List<String> differencesFrom(Totals other) {
+            List<String> differences = new ArrayList<>();
+            if (books != other.books) {
+                differences.add("books");
+            }
+            if (totalStock != other.totalStock) {
+                differences.add("totalStock");
+            }
+            if (inventoryCents != other.inventoryCents) {
+                differences.add("inventoryValue");
+            }
+            if (lowStock != other.lowStock) {
+                differences.add("lowStockBooks");
+            }
+            if (outOfStock != other.outOfStock) {
+                differences.add("outOfStockBooks");
+            }
+            if (orphaned != other.orphaned) {
+                differences.add("orphanedBooks");
+            }
+            if (!sameCounts(byYear, other.byYear)) {
+                differences.add("booksByYear");
+            }
+            if (!sameCounts(byAuthor, other.byAuthor)) {
+                differences.add("booksByAuthor");
+            }
+            return differences;
+        }
+
+        Map<String, Object> toMap(boolean includeAuthors) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("books", books);
+            stats.put("totalStock", totalStock);
+            stats.put("inventoryValue", inventoryCents / 100.0);
+            stats.put("lowStockThreshold", LOW_STOCK_THRESHOLD);
+            stats.put("lowStockBooks", lowStock);
+            stats.put("outOfStockBooks", outOfStock);
+            stats.put("orphanedBooks", orphaned);
+            stats.put("authorsWithBooks", byAuthor.size());
+            stats.put("booksByYear", sorted(byYear));
+            if (includeAuthors) {
+                stats.put("booksByAuthor", sorted(byAuthor));
+            }
+            return stats;
+        }
+
+        private static void addCount(IntIntHashMap counts, int key, int delta) {
+            if (counts.addTo(key, delta) == 0) {
+                counts.remove(key);
+            }
+        }
+
+        private static boolean sameCounts(IntIntHashMap counts, IntIntHashMap other) {
+            if (counts.size() != other.size()) {
+                return false;
+            }
+            for (int key : counts.keys()) {
+                if (counts.get(key) != other.get(key)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static Map<Integer, Integer> sorted(IntIntHashMap counts) {
+            int[] keys = counts.keys();
+            Arrays.sort(keys);
+            Map<Integer, Integer> result = new TreeMap<>();
+            for (int key : keys) {
+                result.put(key, counts.get(key));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Totals a range of books, splitting until ranges are small.
+     */
+    private static final class RecomputeTask extends RecursiveTask<Totals> {
+        private final List<Book> books;
+        private final int from;
+        private final int to;
+
+        RecomputeTask(List<Book> books, int from, int to) {
+            this.books = books;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (to - from <= RECOMPUTE_LEAF_SIZE) {
+                Totals partial = new Totals(64, to - from);
+                for (int i = from; i < to; i++) {
+                    partial.add(books.get(i), 1);
+                }
+                return partial;
+            }
+            int middle = (from + to) >>> 1;
+            RecomputeTask left = new RecomputeTask(books, from, middle);
+            left.fork();
+            Totals right = new RecomputeTask(books, middle, to).compute();
+            Totals merged = left.join();
+            merged.merge(right);
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.CSA.analytics;
+
+import com.CSA.storage.PackedOrder;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sparse book-by-book co-purchase counts, updated as orders are placed.
+ * Each book has a row of primitive counts of how many orders contained it together with each
+ * other book, plus a small sorted list of its strongest neighbours that is kept current on every
+ * increment, so "also bought" lookups never sort a row. Rows that grow past a bound drop their
+ * weakest half, keeping memory proportional to the catalog rather than to order history.
+ */
+public class CoPurchaseIndex {
+
+    /** Largest neighbour list kept per book. */
+    public static final int MAX_TOP = 20;
+
+    private static final int MAX_NEIGHBOURS = Integer.getInteger("bookstore.alsoBought.maxNeighbours", 512);
+    // Larger baskets add little signal and cost quadratic updates
+    private static final int MAX_BASKET = 50;
+
+    private static final ConcurrentHashMap<Integer, Row> rows = new ConcurrentHashMap<>();
+
+    /**
+     * Counts every pair of distinct books in a newly placed order.
+     *
+     * @param order The placed order
+     */
+    public static void record(PackedOrder order) {
+        int count = Math.min(order.getLineCount(), MAX_BASKET);
+        int[] bookIds = new int[count];
+        for (int line = 0; line < count; line++) {
+            bookIds[line] = order.getBookId(line);
+        }
+        for (int i = 0; i < count; i++) {
+            Row row = rows.computeIfAbsent(bookIds[i], id -> new Row());
+            for (int j = 0; j < count; j++) {
+                if (i != j) {
+                    row.increment(bookIds[j]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the books most often bought together with a book, strongest first.
+     *
+     * @param bookId The ID of the book
+     * @param k The maximum number of neighbours, at most {@link #MAX_TOP}
+     * @return Neighbour book IDs
+     */
+    public static int[] alsoBought(int bookId, int k) {
+        Row row = rows.get(bookId);
+        return row == null ? new int[0] : row.top(k);
+    }
+
+    private static final class Row {
+        private final IntIntHashMap counts = new IntIntHashMap(16);
+        private final int[] topIds = new int[MAX_TOP];
+        private final int[] topCounts = new int[MAX_TOP];
+        private int topSize;
+
+        synchronized void increment(int neighbourId) {
+            int count = counts.addTo(neighbourId, 1);
+            updateTop(neighbourId, count);
+            if (counts.size() > MAX_NEIGHBOURS) {
+                prune();
+            }
+        }
+
+        synchronized int[] top(int k) {
+            return Arrays.copyOf(topIds, Math.min(k, topSize));
+        }
+
+        private void updateTop(int neighbourId, int count) {
+            int position = -1;
+            for (int i = 0; i < topSize; i++) {
+                if (topIds[i] == neighbourId) {
+                    position = i;
+                    break;
+                }
+            }
+            if (position < 0) {
+                if (topSize < MAX_TOP) {
+                    position = topSize++;
+                } else if (count > topCounts[MAX_TOP - 1]) {
+                    position = MAX_TOP - 1;
+                } else {
+                    return;
+                }
+                topIds[position] = neighbourId;
+            }
+            topCounts[position] = count;
+            // Counts only grow, so the entry can only move towards the front
+            while (position > 0 && topCounts[position - 1] < topCounts[position]) {
+                swap(position - 1, position);
+                position--;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int id = topIds[a];
+            topIds[a] = topIds[b];
+            topIds[b] = id;
+            int count = topCounts[a];
+            topCounts[a] = topCounts[b];
+            topCounts[b] = count;
+        }
+
+        private void prune() {
+            int[] values = counts.values();
+            Arrays.sort(values);
+            int median = values[values.length / 2];
+            counts.removeAtMost(median, Arrays.copyOf(topIds, topSize));
+        }
+    }
+}
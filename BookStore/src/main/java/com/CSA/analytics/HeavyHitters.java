@@ -0,0 +1,116 @@
+package com.CSA.analytics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Top-K counter over book IDs using the Space-Saving algorithm.
+ * At most {@code capacity} books are tracked; when a new book arrives at capacity it replaces the
+ * book with the smallest count and inherits that count as its possible overestimate. Books that
+ * sell more than total/capacity copies are always tracked. Counters are kept in a tree ordered by
+ * count, so updates cost O(log capacity) and reading the top k costs O(k).
+ */
+public class HeavyHitters {
+
+    private final int capacity;
+    private final Map<Integer, Counter> counters = new HashMap<>();
+    private final TreeSet<Counter> ranking = new TreeSet<>((a, b) -> {
+        int byCount = Long.compare(a.count, b.count);
+        // Lower book IDs rank first among equal counts when iterated from the top
+        return byCount != 0 ? byCount : Integer.compare(b.bookId, a.bookId);
+    });
+
+    /**
+     * Creates a counter.
+     *
+     * @param capacity The maximum number of books tracked
+     */
+    public HeavyHitters(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Adds sold copies of a book.
+     *
+     * @param bookId The ID of the book
+     * @param quantity The number of copies, positive
+     */
+    public synchronized void add(int bookId, long quantity) {
+        Counter counter = counters.get(bookId);
+        if (counter != null) {
+            ranking.remove(counter);
+            counter.count += quantity;
+        } else if (counters.size() < capacity) {
+            counter = new Counter(bookId, quantity, 0);
+            counters.put(bookId, counter);
+        } else {
+            Counter evicted = ranking.pollFirst();
+            counters.remove(evicted.bookId);
+            counter = new Counter(bookId, evicted.count + quantity, evicted.count);
+            counters.put(bookId, counter);
+        }
+        ranking.add(counter);
+    }
+
+    /**
+     * Removes previously added copies of a book. Exact only while nothing has been evicted,
+     * so it is meant for counters whose capacity covers every book they see.
+     *
+     * @param bookId The ID of the book
+     * @param quantity The number of copies, positive
+     */
+    public synchronized void subtract(int bookId, long quantity) {
+        Counter counter = counters.get(bookId);
+        if (counter == null) {
+            return;
+        }
+        ranking.remove(counter);
+        counter.count -= quantity;
+        if (counter.count <= 0) {
+            counters.remove(bookId);
+        } else {
+            ranking.add(counter);
+        }
+    }
+
+    /**
+     * Gets the k best-selling books, highest count first.
+     *
+     * @param k The maximum number of entries
+     * @return The top entries
+     */
+    public synchronized List<BestsellerEntry> top(int k) {
+        List<BestsellerEntry> result = new ArrayList<>(Math.min(k, counters.size()));
+        Iterator<Counter> iterator = ranking.descendingIterator();
+        while (result.size() < k && iterator.hasNext()) {
+            Counter counter = iterator.next();
+            result.add(new BestsellerEntry(counter.bookId, counter.count, counter.error));
+        }
+        return result;
+    }
+
+    /**
+     * Gets the number of books currently tracked.
+     *
+     * @return The tracked book count
+     */
+    public synchronized int size() {
+        return counters.size();
+    }
+
+    private static final class Counter {
+        final int bookId;
+        long count;
+        final long error;
+
+        Counter(int bookId, long count, long error) {
+            this.bookId = bookId;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
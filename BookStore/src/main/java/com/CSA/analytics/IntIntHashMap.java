@@ -0,0 +1,183 @@
+package com.CSA.analytics;
+
+/**
+ * Open-addressing hash map from positive int keys to int values, with no boxing.
+ * Uses linear probing and backward-shift deletion, so removals leave no tombstones.
+ * Not thread-safe.
+ */
+public class IntIntHashMap {
+
+    private static final int EMPTY = 0;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    /**
+     * Creates a map sized for the given number of entries.
+     *
+     * @param expectedSize The number of entries expected
+     */
+    public IntIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) * 2 - 1);
+        keys = new int[capacity];
+        values = new int[capacity];
+    }
+
+    /**
+     * Adds to the value of a key, inserting it with the delta if absent.
+     *
+     * @param key The key, which must be positive
+     * @param delta The amount to add
+     * @return The new value
+     */
+    public int addTo(int key, int delta) {
+        int slot = slotOf(key);
+        if (keys[slot] == key) {
+            values[slot] += delta;
+            return values[slot];
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size > keys.length * LOAD_FACTOR) {
+            resize();
+        }
+        return delta;
+    }
+
+    /**
+     * Gets the value of a key.
+     *
+     * @param key The key
+     * @return The value, or 0 if absent
+     */
+    public int get(int key) {
+        int slot = slotOf(key);
+        return keys[slot] == key ? values[slot] : 0;
+    }
+
+    /**
+     * Removes a key.
+     *
+     * @param key The key
+     */
+    public void remove(int key) {
+        int slot = slotOf(key);
+        if (keys[slot] != key) {
+            return;
+        }
+        size--;
+        // Shift later entries of the probe run back so lookups never stop at a false gap
+        int mask = keys.length - 1;
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = mix(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        values[gap] = 0;
+    }
+
+    /**
+     * Gets the number of entries.
+     *
+     * @return The size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Copies all keys into a new array, in no particular order.
+     *
+     * @return The keys
+     */
+    public int[] keys() {
+        int[] result = new int[size];
+        int next = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                result[next++] = keys[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Copies all values into a new array, in no particular order.
+     *
+     * @return The values
+     */
+    public int[] values() {
+        int[] result = new int[size];
+        int next = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                result[next++] = values[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes every entry whose value is at most the threshold, except the protected keys.
+     *
+     * @param threshold The largest value to remove
+     * @param protectedKeys Keys that must be kept regardless of value
+     */
+    public void removeAtMost(int threshold, int[] protectedKeys) {
+        int[] doomed = new int[size];
+        int count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY && values[i] <= threshold && !contains(protectedKeys, keys[i])) {
+                doomed[count++] = keys[i];
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            remove(doomed[i]);
+        }
+    }
+
+    private static boolean contains(int[] array, int key) {
+        for (int candidate : array) {
+            if (candidate == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int slotOf(int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                addTo(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
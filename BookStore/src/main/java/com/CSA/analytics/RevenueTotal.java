@@ -0,0 +1,84 @@
+package com.CSA.analytics;
+
+/**
+ * Represents the revenue and order count accumulated under one key of a sales view,
+ * such as an author, a customer or a day.
+ */
+public class RevenueTotal {
+    private String key;
+    private double revenue;
+    private long orderCount;
+
+    /**
+     * Default constructor for RevenueTotal.
+     */
+    public RevenueTotal() {
+    }
+
+    /**
+     * Parameterized constructor for RevenueTotal.
+     * 
+     * @param key The author ID, customer ID or date the total belongs to
+     * @param revenueCents The revenue in cents
+     * @param orderCount The number of orders contributing to the revenue
+     */
+    public RevenueTotal(String key, long revenueCents, long orderCount) {
+        this.key = key;
+        this.revenue = revenueCents / 100.0;
+        this.orderCount = orderCount;
+    }
+
+    /**
+     * Gets the key the total belongs to.
+     * 
+     * @return The key
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Sets the key the total belongs to.
+     * 
+     * @param key The key to set
+     */
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    /**
+     * Gets the revenue.
+     * 
+     * @return The revenue
+     */
+    public double getRevenue() {
+        return revenue;
+    }
+
+    /**
+     * Sets the revenue.
+     * 
+     * @param revenue The revenue to set
+     */
+    public void setRevenue(double revenue) {
+        this.revenue = revenue;
+    }
+
+    /**
+     * Gets the number of orders contributing to the revenue.
+     * 
+     * @return The order count
+     */
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    /**
+     * Sets the number of orders contributing to the revenue.
+     * 
+     * @param orderCount The order count to set
+     */
+    public void setOrderCount(long orderCount) {
+        this.orderCount = orderCount;
+    }
+}
@@ -0,0 +1,241 @@
+package com.CSA.analytics;
+
+import com.CSA.model.Book;
+import com.CSA.storage.CatalogSnapshot;
+import com.CSA.storage.DataStore;
+import com.CSA.storage.PackedOrder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Materialized revenue views per author, per customer and per day.
+ * Each placed order updates the views in O(order lines); reads are single map lookups.
+ * Revenue is kept in cents. Line revenue is the book's price times quantity, scaled so the lines
+ * of an order add up to its totalAmount; when rebuilding from stored orders the current catalog
+ * price is used, since orders do not keep unit prices.
+ */
+public class SalesAnalytics {
+
+    private static final int REBUILD_LEAF_SIZE = 256;
+
+    private static volatile Views views = new Views();
+    // Orders placed while a rebuild is running, merged into the rebuilt views before they go live
+    private static Views pendingDuringRebuild;
+    private static final ReentrantReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+
+    /**
+     * Stores a newly placed order and records it in the views, atomically with respect to a
+     * rebuild, so the order is counted exactly once whether or not a rebuild sees it.
+     *
+     * @param store The action that makes the order visible in DataStore.ordersByCustomer
+     * @param order The placed order
+     * @param bookLookup The ordered books as priced at checkout
+     */
+    public static void storeAndRecord(Runnable store, PackedOrder order, Function<Integer, Book> bookLookup) {
+        rebuildLock.readLock().lock();
+        try {
+            store.run();
+            views.record(order, bookLookup);
+            Views pending = pendingDuringRebuild;
+            if (pending != null) {
+                pending.record(order, bookLookup);
+            }
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuilds every view from the stored orders on a fork-join pool and swaps the result in.
+     * Orders placed while the rebuild runs are carried over.
+     *
+     * @return The number of orders processed
+     */
+    public static synchronized long rebuild() {
+        List<PackedOrder[]> orderLists;
+        rebuildLock.writeLock().lock();
+        try {
+            orderLists = new ArrayList<>(DataStore.ordersByCustomer.values());
+            pendingDuringRebuild = new Views();
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+
+        Views rebuilt;
+        try (CatalogSnapshot snapshot = DataStore.catalogClock.openSnapshot()) {
+            Function<Integer, Book> lookup = bookId -> DataStore.books.get(bookId, snapshot);
+            rebuilt = ForkJoinPool.commonPool().invoke(new RebuildTask(orderLists, 0, orderLists.size(), lookup));
+        }
+
+        rebuildLock.writeLock().lock();
+        try {
+            rebuilt.mergeFrom(pendingDuringRebuild);
+            pendingDuringRebuild = null;
+            views = rebuilt;
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+        return rebuilt.overall.orders.sum();
+    }
+
+    /**
+     * Gets total revenue across all orders.
+     *
+     * @return The overall total
+     */
+    public static RevenueTotal getOverall() {
+        return views.overall.toRevenueTotal("all");
+    }
+
+    /**
+     * Gets revenue attributed to an author's books.
+     *
+     * @param authorId The ID of the author
+     * @return The author's total, zero if nothing has sold
+     */
+    public static RevenueTotal getByAuthor(int authorId) {
+        return totalOf(views.byAuthor.get(authorId), String.valueOf(authorId));
+    }
+
+    /**
+     * Gets revenue from a customer's orders.
+     *
+     * @param customerId The ID of the customer
+     * @return The customer's total, zero if they have not ordered
+     */
+    public static RevenueTotal getByCustomer(int customerId) {
+        return totalOf(views.byCustomer.get(customerId), String.valueOf(customerId));
+    }
+
+    /**
+     * Gets revenue from orders placed on a day.
+     *
+     * @param day The day
+     * @return The day's total, zero if nothing was ordered
+     */
+    public static RevenueTotal getByDay(LocalDate day) {
+        return totalOf(views.byDay.get(day), day.toString());
+    }
+
+    /**
+     * Gets revenue for every author with sales.
+     *
+     * @return One total per author
+     */
+    public static List<RevenueTotal> getAllAuthors() {
+        List<RevenueTotal> result = new ArrayList<>();
+        views.byAuthor.forEach((authorId, totals) -> result.add(totals.toRevenueTotal(String.valueOf(authorId))));
+        return result;
+    }
+
+    private static RevenueTotal totalOf(Totals totals, String key) {
+        return totals == null ? new RevenueTotal(key, 0, 0) : totals.toRevenueTotal(key);
+    }
+
+    private static final class Totals {
+        final LongAdder cents = new LongAdder();
+        final LongAdder orders = new LongAdder();
+
+        void add(long amountCents, long orderCount) {
+            cents.add(amountCents);
+            orders.add(orderCount);
+        }
+
+        RevenueTotal toRevenueTotal(String key) {
+            return new RevenueTotal(key, cents.sum(), orders.sum());
+        }
+    }
+
+    private static final class Views {
+        final Totals overall = new Totals();
+        final ConcurrentHashMap<Integer, Totals> byAuthor = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<Integer, Totals> byCustomer = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<LocalDate, Totals> byDay = new ConcurrentHashMap<>();
+
+        void record(PackedOrder order, Function<Integer, Book> bookLookup) {
+            long totalCents = order.getTotalCents();
+            overall.add(totalCents, 1);
+            byCustomer.computeIfAbsent(order.getCustomerId(), id -> new Totals()).add(totalCents, 1);
+            byDay.computeIfAbsent(order.getOrderDate().toLocalDate(), day -> new Totals()).add(totalCents, 1);
+
+            // Weight each line by price × quantity, then scale the weights to the order total
+            int lines = order.getLineCount();
+            Book[] books = new Book[lines];
+            double weightSum = 0;
+            for (int line = 0; line < lines; line++) {
+                books[line] = bookLookup.apply(order.getBookId(line));
+                weightSum += (books[line] == null ? 0 : books[line].getPrice()) * order.getQuantity(line);
+            }
+            if (weightSum <= 0) {
+                return;
+            }
+            Set<Integer> countedAuthors = new HashSet<>();
+            for (int line = 0; line < lines; line++) {
+                Book book = books[line];
+                if (book == null || book.getAuthorId() <= 0) {
+                    continue;
+                }
+                long lineCents = Math.round(totalCents * (book.getPrice() * order.getQuantity(line) / weightSum));
+                int orderCount = countedAuthors.add(book.getAuthorId()) ? 1 : 0;
+                byAuthor.computeIfAbsent(book.getAuthorId(), id -> new Totals()).add(lineCents, orderCount);
+            }
+        }
+
+        void mergeFrom(Views other) {
+            overall.add(other.overall.cents.sum(), other.overall.orders.sum());
+            other.byAuthor.forEach((key, totals) ->
+                    byAuthor.computeIfAbsent(key, k -> new Totals()).add(totals.cents.sum(), totals.orders.sum()));
+            other.byCustomer.forEach((key, totals) ->
+                    byCustomer.computeIfAbsent(key, k -> new Totals()).add(totals.cents.sum(), totals.orders.sum()));
+            other.byDay.forEach((key, totals) ->
+                    byDay.computeIfAbsent(key, k -> new Totals()).add(totals.cents.sum(), totals.orders.sum()));
+        }
+    }
+
+    /**
+     * Builds views for a range of customers' order lists, splitting until ranges are small.
+     */
+    private static final class RebuildTask extends RecursiveTask<Views> {
+        private final List<PackedOrder[]> orderLists;
+        private final int from;
+        private final int to;
+        private final Function<Integer, Book> bookLookup;
+
+        RebuildTask(List<PackedOrder[]> orderLists, int from, int to, Function<Integer, Book> bookLookup) {
+            this.orderLists = orderLists;
+            this.from = from;
+            this.to = to;
+            this.bookLookup = bookLookup;
+        }
+
+        @Override
+        protected Views compute() {
+            if (to - from <= REBUILD_LEAF_SIZE) {
+                Views partial = new Views();
+                for (int i = from; i < to; i++) {
+                    for (PackedOrder order : orderLists.get(i)) {
+                        partial.record(order, bookLookup);
+                    }
+                }
+                return partial;
+            }
+            int middle = (from + to) >>> 1;
+            RebuildTask left = new RebuildTask(orderLists, from, middle, bookLookup);
+            left.fork();
+            Views right = new RebuildTask(orderLists, middle, to, bookLookup).compute();
+            Views merged = left.join();
+            merged.mergeFrom(right);
+            return merged;
+        }
+    }
+}
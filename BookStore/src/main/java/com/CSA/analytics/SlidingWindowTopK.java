@@ -0,0 +1,97 @@
+package com.CSA.analytics;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Top-K counter over a sliding time window.
+ * The window is split into a ring of buckets; sales are added to the current bucket and to a
+ * running aggregate, and when a bucket falls out of the window its counts are subtracted again.
+ * Memory is bounded by the books sold within the window, never by the number of orders.
+ */
+public class SlidingWindowTopK {
+
+    private final long bucketMillis;
+    private final Map<Integer, Long>[] buckets;
+    private final long[] bucketStarts;
+    private final HeavyHitters aggregate = new HeavyHitters(Integer.MAX_VALUE);
+
+    /**
+     * Creates a window.
+     *
+     * @param windowMillis The window length
+     * @param bucketCount The number of buckets; more buckets slide more smoothly
+     */
+    public SlidingWindowTopK(long windowMillis, int bucketCount) {
+        this.bucketMillis = Math.max(1, windowMillis / bucketCount);
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        Map<Integer, Long>[] created = new Map[bucketCount];
+        this.buckets = created;
+        this.bucketStarts = new long[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new HashMap<>();
+            bucketStarts[i] = Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Adds sold copies of a book at the given time.
+     *
+     * @param bookId The ID of the book
+     * @param quantity The number of copies, positive
+     * @param timeMillis When the sale happened, in epoch milliseconds
+     */
+    public synchronized void add(int bookId, long quantity, long timeMillis) {
+        Map<Integer, Long> bucket = bucketFor(timeMillis);
+        if (bucket == null) {
+            return; // Older than the window
+        }
+        bucket.merge(bookId, quantity, Long::sum);
+        aggregate.add(bookId, quantity);
+    }
+
+    /**
+     * Gets the k best-selling books within the window ending now.
+     *
+     * @param k The maximum number of entries
+     * @param nowMillis The current time in epoch milliseconds
+     * @return The top entries
+     */
+    public synchronized List<BestsellerEntry> top(int k, long nowMillis) {
+        bucketFor(nowMillis);
+        return aggregate.top(k);
+    }
+
+    /**
+     * Returns the bucket for a time, first expiring any bucket slot that held an older period.
+     * Returns null if the time is older than the period the slot now holds.
+     */
+    private Map<Integer, Long> bucketFor(long timeMillis) {
+        long start = timeMillis - Math.floorMod(timeMillis, bucketMillis);
+        int slot = (int) Math.floorMod(start / bucketMillis, (long) buckets.length);
+        if (bucketStarts[slot] > start) {
+            return null;
+        }
+        if (bucketStarts[slot] != start) {
+            expire(slot);
+            bucketStarts[slot] = start;
+        }
+        // Expire every slot whose period has left the window, even if no sale has reused it yet
+        long oldestLive = start - bucketMillis * (buckets.length - 1);
+        for (int i = 0; i < buckets.length; i++) {
+            if (bucketStarts[i] != Long.MIN_VALUE && bucketStarts[i] < oldestLive) {
+                expire(i);
+                bucketStarts[i] = Long.MIN_VALUE;
+            }
+        }
+        return buckets[slot];
+    }
+
+    private void expire(int slot) {
+        for (Map.Entry<Integer, Long> entry : buckets[slot].entrySet()) {
+            aggregate.subtract(entry.getKey(), entry.getValue());
+        }
+        buckets[slot].clear();
+    }
+}
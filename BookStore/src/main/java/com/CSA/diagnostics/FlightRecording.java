@@ -0,0 +1,100 @@
+package com.CSA.diagnostics;
+
+import com.CSA.LoggerUtil.LoggerUtil;
+
+import jakarta.ws.rs.ext.Provider;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+
+/**
+ * Starts a continuous flight recording with the bundled bookstore.jfc profile when the
+ * application starts, if bookstore.jfr.continuous=true. The recording keeps the last
+ * bookstore.jfr.maxAgeMinutes (default 60) and at most bookstore.jfr.maxSizeMB (default 250) on
+ * disk, and is written to bookstore.jfr.file (default bookstore.jfr) when the application stops.
+ * While running it can be dumped with {@code jcmd <pid> JFR.dump name=bookstore}.
+ */
+@Provider
+public class FlightRecording implements ApplicationEventListener {
+
+    private static final String PROFILE = "/bookstore.jfc";
+
+    private Recording recording;
+
+    @Override
+    public void onEvent(ApplicationEvent event) {
+        switch (event.getType()) {
+            case INITIALIZATION_FINISHED:
+                if (Boolean.getBoolean("bookstore.jfr.continuous")) {
+                    start();
+                }
+                break;
+            case DESTROY_FINISHED:
+                stop();
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public RequestEventListener onRequest(RequestEvent requestEvent) {
+        return null;
+    }
+
+    private synchronized void start() {
+        if (recording != null) {
+            return;
+        }
+        try (InputStream in = FlightRecording.class.getResourceAsStream(PROFILE)) {
+            if (in == null) {
+                LoggerUtil.logWarning("Flight recorder profile " + PROFILE + " not found; not recording");
+                return;
+            }
+            Configuration configuration;
+            try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                configuration = Configuration.create(reader);
+            }
+            Path destination = Paths.get(System.getProperty("bookstore.jfr.file", "bookstore.jfr"));
+            Recording started = new Recording(configuration);
+            started.setName("bookstore");
+            started.setToDisk(true);
+            started.setMaxAge(Duration.ofMinutes(Long.getLong("bookstore.jfr.maxAgeMinutes", 60L)));
+            started.setMaxSize(Long.getLong("bookstore.jfr.maxSizeMB", 250L) << 20);
+            started.setDestination(destination);
+            started.start();
+            recording = started;
+            LoggerUtil.logInfo("Continuous flight recording started; dumps to " + destination.toAbsolutePath());
+        } catch (IOException | ParseException | IllegalStateException | SecurityException e) {
+            LoggerUtil.logWarning("Could not start flight recording: " + e.getMessage());
+        }
+    }
+
+    private synchronized void stop() {
+        if (recording == null) {
+            return;
+        }
+        try {
+            // Stopping writes the recording to its destination
+            recording.stop();
+        } catch (IllegalStateException e) {
+            LoggerUtil.logWarning("Could not write flight recording: " + e.getMessage());
+        } finally {
+            recording.close();
+            recording = null;
+        }
+    }
+}
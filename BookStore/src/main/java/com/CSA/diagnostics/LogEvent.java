@@ -0,0 +1,42 @@
+package com.CSA.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for one LoggerUtil call, so time spent formatting and writing log
+ * records shows up next to the work being logged.
+ */
+@Name("com.CSA.Log")
+@Label("Log Record")
+@Category({"BookStore", "Logging"})
+@Description("Publishing a record through LoggerUtil to its handlers")
+@StackTrace(false)
+@Threshold("5 ms")
+public final class LogEvent extends Event {
+
+    @Label("Level")
+    String level;
+
+    @Label("Message Length")
+    int messageLength;
+
+    /**
+     * Ends the call and commits the event if it is over its threshold.
+     *
+     * @param level The log level
+     * @param message The logged message
+     */
+    public void complete(String level, String message) {
+        if (shouldCommit()) {
+            this.level = level;
+            this.messageLength = message == null ? 0 : message.length();
+            commit();
+        }
+    }
+}
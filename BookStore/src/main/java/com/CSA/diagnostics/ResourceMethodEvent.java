@@ -0,0 +1,59 @@
+package com.CSA.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event spanning a matched resource method, from the end of request filtering
+ * to the start of response filtering. Serialization of the result is a separate event.
+ */
+@Name("com.CSA.ResourceMethod")
+@Label("Resource Method")
+@Category({"BookStore", "HTTP"})
+@Description("Execution of a JAX-RS resource method")
+@StackTrace(false)
+@Threshold("10 ms")
+public final class ResourceMethodEvent extends Event {
+
+    @Label("HTTP Method")
+    String httpMethod;
+
+    @Label("Path")
+    String path;
+
+    @Label("Resource")
+    String resource;
+
+    @Label("Status")
+    int status;
+
+    /**
+     * Sets the request details that are known when the method is matched.
+     *
+     * @param httpMethod The HTTP method
+     * @param path The request path
+     * @param resource The resource class and method, as Class.method
+     */
+    public void describe(String httpMethod, String path, String resource) {
+        this.httpMethod = httpMethod;
+        this.path = path;
+        this.resource = resource;
+    }
+
+    /**
+     * Ends the method and commits the event if it is over its threshold.
+     *
+     * @param status The response status
+     */
+    public void complete(int status) {
+        if (shouldCommit()) {
+            this.status = status;
+            commit();
+        }
+    }
+}
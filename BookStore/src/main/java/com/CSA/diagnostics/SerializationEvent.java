@@ -0,0 +1,55 @@
+package com.CSA.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for writing one response entity, including any compression applied
+ * while it is written.
+ */
+@Name("com.CSA.Serialization")
+@Label("Entity Serialization")
+@Category({"BookStore", "HTTP"})
+@Description("Writing a response entity through its message body writer")
+@StackTrace(false)
+@Threshold("5 ms")
+public final class SerializationEvent extends Event {
+
+    @Label("Entity Type")
+    String entityType;
+
+    @Label("Media Type")
+    String mediaType;
+
+    @Label("Content Encoding")
+    String contentEncoding;
+
+    @Label("Bytes")
+    @Description("Entity bytes before compression")
+    @DataAmount
+    long bytes;
+
+    /**
+     * Ends the write and commits the event if it is over its threshold.
+     *
+     * @param entityType The simple name of the entity class
+     * @param mediaType The response media type
+     * @param contentEncoding The content coding, or null
+     * @param bytes The number of entity bytes written before compression
+     */
+    public void complete(String entityType, String mediaType, String contentEncoding, long bytes) {
+        if (shouldCommit()) {
+            this.entityType = entityType;
+            this.mediaType = mediaType;
+            this.contentEncoding = contentEncoding;
+            this.bytes = bytes;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.CSA.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for one operation on a DataStore map.
+ * Usage is {@code new StorageEvent()}, {@code begin()}, the operation, then {@link #complete};
+ * when the event is disabled the JIT removes the allocation and the timing entirely.
+ */
+@Name("com.CSA.Storage")
+@Label("Storage Operation")
+@Category({"BookStore", "Storage"})
+@Description("A get, write, remove or scan on a DataStore map")
+@StackTrace(false)
+@Threshold("1 ms")
+public final class StorageEvent extends Event {
+
+    /** Marks an operation on no particular key, such as a scan. */
+    public static final int NO_KEY = -1;
+
+    @Label("Map")
+    String map;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Key")
+    int key;
+
+    @Label("Result Size")
+    @Description("Entries returned or written")
+    int resultSize;
+
+    @Label("Tier")
+    @Description("Where a tiered map found the value: hot, cold or miss")
+    String tier;
+
+    /**
+     * Ends the operation and commits the event if it is enabled and over its threshold.
+     *
+     * @param map The name of the map
+     * @param operation The operation, such as get, put, remove or scan
+     * @param key The entity ID, or {@link #NO_KEY}
+     * @param resultSize The number of entries returned or written
+     */
+    public void complete(String map, String operation, int key, int resultSize) {
+        complete(map, operation, key, resultSize, null);
+    }
+
+    /**
+     * Ends the operation and commits the event if it is enabled and over its threshold.
+     *
+     * @param map The name of the map
+     * @param operation The operation, such as get, put, remove or scan
+     * @param key The entity ID, or {@link #NO_KEY}
+     * @param resultSize The number of entries returned or written
+     * @param tier The tier that served a read, or null
+     */
+    public void complete(String map, String operation, int key, int resultSize, String tier) {
+        if (shouldCommit()) {
+            this.map = map;
+            this.operation = operation;
+            this.key = key;
+            this.resultSize = resultSize;
+            this.tier = tier;
+            commit();
+        }
+    }
+}
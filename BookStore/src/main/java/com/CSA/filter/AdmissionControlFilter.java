@@ -0,0 +1,179 @@
+package com.CSA.filter;
+
+import com.CSA.LoggerUtil.LoggerUtil;
+
+import jakarta.annotation.Priority;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.PreMatching;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admission control for every request, applied before routing.
+ * Each client (session customer, configured API key, or remote address; see {@link ClientKeys})
+ * gets a token bucket per endpoint class, and each endpoint class has a global in-flight limit. Requests over either limit
+ * are shed with 429 and Retry-After before they queue or allocate a response. The in-flight slot
+ * is held until the response entity has been written, since serializing large collections is
+ * where the memory goes. At most bookstore.admission.maxClients buckets are tracked; while the
+ * table is full, new clients share one overflow bucket per endpoint class until idle buckets are
+ * swept, which happens at most once a second.
+ */
+@Provider
+@PreMatching
+@Priority(Priorities.AUTHENTICATION - 500)
+public class AdmissionControlFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+    /** Header identifying an API client that does not use session tokens. */
+    public static final String API_KEY_HEADER = "X-API-Key";
+
+    private static final String CLASS_PROPERTY = "bookstore.admission.class";
+    private static final String START_PROPERTY = "bookstore.admission.start";
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int MAX_TRACKED_CLIENTS = Integer.getInteger("bookstore.admission.maxClients", 100000);
+
+    private static final boolean ADAPTIVE = Boolean.getBoolean("bookstore.admission.adaptive");
+    private static final long TARGET_LATENCY_MILLIS = Long.getLong("bookstore.admission.targetLatencyMillis", 250L);
+
+    private static final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private static final Map<EndpointClass, TokenBucket> overflowBuckets = new EnumMap<>(EndpointClass.class);
+    private static final AtomicLong lastSweep = new AtomicLong(System.nanoTime() - SWEEP_INTERVAL_NANOS);
+    private static final Map<EndpointClass, ConcurrencyLimiter> limiters = new EnumMap<>(EndpointClass.class);
+    private static final Map<EndpointClass, LongAdder> admitted = new EnumMap<>(EndpointClass.class);
+    private static final Map<EndpointClass, LongAdder> rateLimited = new EnumMap<>(EndpointClass.class);
+    private static final Map<EndpointClass, LongAdder> concurrencyLimited = new EnumMap<>(EndpointClass.class);
+
+    static {
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            limiters.put(endpointClass,
+                    new ConcurrencyLimiter(endpointClass.concurrency(), ADAPTIVE, TARGET_LATENCY_MILLIS));
+            overflowBuckets.put(endpointClass, new TokenBucket(endpointClass.rate(), endpointClass.burst()));
+            admitted.put(endpointClass, new LongAdder());
+            rateLimited.put(endpointClass, new LongAdder());
+            concurrencyLimited.put(endpointClass, new LongAdder());
+        }
+    }
+
+    @Context
+    private HttpServletRequest servletRequest;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        EndpointClass endpointClass = EndpointClass.of(requestContext.getMethod(),
+                requestContext.getUriInfo().getPath());
+
+        long waitNanos = bucketFor(ClientKeys.of(requestContext, servletRequest), endpointClass).tryAcquire();
+        if (waitNanos > 0) {
+            rateLimited.get(endpointClass).increment();
+            reject(requestContext, "Rate limit exceeded", TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1);
+            return;
+        }
+
+        if (!limiters.get(endpointClass).tryAcquire()) {
+            concurrencyLimited.get(endpointClass).increment();
+            LoggerUtil.logWarning("Shedding " + endpointClass + " request: concurrency limit reached");
+            reject(requestContext, "Server is busy", 1);
+            return;
+        }
+
+        admitted.get(endpointClass).increment();
+        requestContext.setProperty(CLASS_PROPERTY, endpointClass);
+        requestContext.setProperty(START_PROPERTY, System.nanoTime());
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        // With an entity the slot is released once it has been written, in aroundWriteTo
+        if (!responseContext.hasEntity()) {
+            release(requestContext.getProperty(CLASS_PROPERTY), requestContext.getProperty(START_PROPERTY));
+            requestContext.removeProperty(CLASS_PROPERTY);
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        try {
+            context.proceed();
+        } finally {
+            Object endpointClass = context.getProperty(CLASS_PROPERTY);
+            if (endpointClass != null) {
+                context.removeProperty(CLASS_PROPERTY);
+                release(endpointClass, context.getProperty(START_PROPERTY));
+            }
+        }
+    }
+
+    /**
+     * Gets the admission counters and current limits per endpoint class.
+     *
+     * @return A map of endpoint class names to their counters
+     */
+    public static Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            ConcurrencyLimiter limiter = limiters.get(endpointClass);
+            Map<String, Object> classStats = new LinkedHashMap<>();
+            classStats.put("admitted", admitted.get(endpointClass).sum());
+            classStats.put("rejectedRateLimit", rateLimited.get(endpointClass).sum());
+            classStats.put("rejectedConcurrency", concurrencyLimited.get(endpointClass).sum());
+            classStats.put("inFlight", limiter.getInFlight());
+            classStats.put("concurrencyLimit", limiter.getLimit());
+            stats.put(endpointClass.name().toLowerCase(), classStats);
+        }
+        stats.put("trackedClients", buckets.size());
+        return stats;
+    }
+
+    private static void release(Object endpointClass, Object start) {
+        if (endpointClass instanceof EndpointClass && start instanceof Long) {
+            limiters.get(endpointClass).release(System.nanoTime() - (Long) start);
+        }
+    }
+
+    private static TokenBucket bucketFor(String clientKey, EndpointClass endpointClass) {
+        String key = endpointClass.name() + '|' + clientKey;
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= MAX_TRACKED_CLIENTS) {
+            // A refilled bucket is indistinguishable from a new one, so idle ones can go. One thread
+            // sweeps at most once per interval; until there is room, new clients share a bucket
+            long last = lastSweep.get();
+            long now = System.nanoTime();
+            if (now - last >= SWEEP_INTERVAL_NANOS && lastSweep.compareAndSet(last, now)) {
+                buckets.values().removeIf(TokenBucket::isIdle);
+            }
+            if (buckets.size() >= MAX_TRACKED_CLIENTS) {
+                return overflowBuckets.get(endpointClass);
+            }
+        }
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(endpointClass.rate(), endpointClass.burst()));
+    }
+
+    private static void reject(ContainerRequestContext requestContext, String message, long retryAfterSeconds) {
+        requestContext.abortWith(Response.status(Response.Status.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds)
+                .type(MediaType.APPLICATION_JSON)
+                .entity("{\"error\": \"" + message + "\"}")
+                .build());
+    }
+}
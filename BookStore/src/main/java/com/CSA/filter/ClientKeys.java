@@ -0,0 +1,72 @@
+package com.CSA.filter;
+
+import com.CSA.security.Session;
+import com.CSA.security.TokenService;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.core.HttpHeaders;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Identifies the client a request comes from, for per-client rate limits and idempotency keys:
+ * the customer of a valid session token, an API key listed in bookstore.admission.apiKeys
+ * (comma-separated), or else the remote address. Credentials that do not verify never select an
+ * identity of their own, so sending made-up keys cannot buy a client fresh rate-limit buckets.
+ */
+class ClientKeys {
+
+    private static final String CLIENT_PROPERTY = "bookstore.client";
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final Set<String> API_KEYS = loadApiKeys();
+
+    /**
+     * Gets the key of the client making a request, computing it once per request.
+     *
+     * @param requestContext The request
+     * @param servletRequest The underlying servlet request, or null outside a servlet container
+     * @return The client key
+     */
+    static String of(ContainerRequestContext requestContext, HttpServletRequest servletRequest) {
+        Object known = requestContext.getProperty(CLIENT_PROPERTY);
+        if (known instanceof String) {
+            return (String) known;
+        }
+        String clientKey = identify(requestContext, servletRequest);
+        requestContext.setProperty(CLIENT_PROPERTY, clientKey);
+        return clientKey;
+    }
+
+    private static String identify(ContainerRequestContext requestContext, HttpServletRequest servletRequest) {
+        String authorization = requestContext.getHeaderString(HttpHeaders.AUTHORIZATION);
+        if (authorization != null && authorization.startsWith(BEARER_PREFIX)) {
+            Session session = TokenService.verify(authorization.substring(BEARER_PREFIX.length()).trim());
+            if (session != null) {
+                return "customer:" + session.getCustomerId();
+            }
+        }
+        String apiKey = requestContext.getHeaderString(AdmissionControlFilter.API_KEY_HEADER);
+        if (apiKey != null && API_KEYS.contains(apiKey)) {
+            return "key:" + apiKey;
+        }
+        if (servletRequest != null) {
+            return "address:" + servletRequest.getRemoteAddr();
+        }
+        return "anonymous";
+    }
+
+    private static Set<String> loadApiKeys() {
+        String configured = System.getProperty("bookstore.admission.apiKeys", "");
+        Set<String> keys = new HashSet<>();
+        for (String key : Arrays.asList(configured.split(","))) {
+            if (!key.trim().isEmpty()) {
+                keys.add(key.trim());
+            }
+        }
+        return Collections.unmodifiableSet(keys);
+    }
+}
@@ -0,0 +1,235 @@
+package com.CSA.filter;
+
+import jakarta.annotation.Priority;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses response entities with gzip or deflate, as negotiated from Accept-Encoding.
+ * Responses that already carry a Content-Encoding, such as precompressed cached payloads, are
+ * passed through untouched. Entities smaller than bookstore.compression.minBytes, such as error
+ * messages, are not worth compressing and are sent as is: byte-array and string entities are
+ * measured up front, and others are buffered as they are written until they reach the threshold,
+ * so Content-Encoding is only decided once the serialized size is known to be large enough.
+ * Server-sent event streams are never compressed.
+ */
+@Provider
+@Priority(Priorities.ENTITY_CODER)
+public class CompressionFilter implements ContainerResponseFilter, WriterInterceptor {
+
+    /** The gzip content coding. */
+    public static final String GZIP = "gzip";
+
+    /** The deflate (zlib) content coding. */
+    public static final String DEFLATE = "deflate";
+
+    private static final String ENCODING_PROPERTY = "bookstore.compression.encoding";
+    private static final int MIN_COMPRESS_BYTES = Integer.getInteger("bookstore.compression.minBytes", 1024);
+    private static final int BUFFER_SIZE = 8192;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        if (!responseContext.hasEntity()) {
+            return;
+        }
+        // Event streams are flushed event by event; a compressor would hold events back until it closes
+        if (MediaType.SERVER_SENT_EVENTS_TYPE.isCompatible(responseContext.getMediaType())) {
+            return;
+        }
+        responseContext.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (responseContext.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            return;
+        }
+        Object entity = responseContext.getEntity();
+        if (entity instanceof byte[] && ((byte[]) entity).length < MIN_COMPRESS_BYTES
+                || entity instanceof String && ((String) entity).length() < MIN_COMPRESS_BYTES) {
+            return;
+        }
+        String encoding = negotiate(requestContext.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+        if (encoding != null) {
+            responseContext.getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+            requestContext.setProperty(ENCODING_PROPERTY, encoding);
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        Object encoding = context.getProperty(ENCODING_PROPERTY);
+        if (encoding == null) {
+            context.proceed();
+            return;
+        }
+        ThresholdOutputStream threshold = new ThresholdOutputStream(context, (String) encoding);
+        context.setOutputStream(threshold);
+        try {
+            context.proceed();
+        } finally {
+            threshold.finish();
+        }
+    }
+
+    /**
+     * Picks the content coding to use for an Accept-Encoding header. gzip is preferred over
+     * deflate at equal quality; codings with q=0 are refused.
+     *
+     * @param acceptEncoding The Accept-Encoding header value, may be null
+     * @return {@link #GZIP}, {@link #DEFLATE}, or null to send the entity uncompressed
+     */
+    public static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return null;
+        }
+        double gzip = -1;
+        double deflate = -1;
+        double wildcard = -1;
+        for (String part : acceptEncoding.split(",")) {
+            String[] fields = part.split(";");
+            String coding = fields[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1;
+            for (int i = 1; i < fields.length; i++) {
+                String parameter = fields[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (GZIP.equals(coding) || "x-gzip".equals(coding)) {
+                gzip = quality;
+            } else if (DEFLATE.equals(coding)) {
+                deflate = quality;
+            } else if ("*".equals(coding)) {
+                wildcard = quality;
+            }
+        }
+        if (gzip < 0) {
+            gzip = wildcard;
+        }
+        if (deflate < 0) {
+            deflate = wildcard;
+        }
+        if (gzip > 0 && gzip >= deflate) {
+            return GZIP;
+        }
+        return deflate > 0 ? DEFLATE : null;
+    }
+
+    /**
+     * Holds back the first {@code MIN_COMPRESS_BYTES} of an entity. If the entity ends within
+     * them it is written uncompressed; otherwise Content-Encoding is set, while the headers are
+     * still uncommitted, and everything from the start is written through the compressor.
+     */
+    private static final class ThresholdOutputStream extends OutputStream {
+        private final WriterInterceptorContext context;
+        private final String encoding;
+        private final OutputStream original;
+        private byte[] pending = new byte[Math.min(MIN_COMPRESS_BYTES, BUFFER_SIZE)];
+        private int pendingLength;
+        private Deflater deflater;
+        private DeflaterOutputStream compressed;
+
+        ThresholdOutputStream(WriterInterceptorContext context, String encoding) {
+            this.context = context;
+            this.encoding = encoding;
+            // Closing the compressor frees its native memory; the entity stream itself stays open
+            this.original = new FilterOutputStream(context.getOutputStream()) {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            };
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (compressed != null) {
+                compressed.write(b, off, len);
+                return;
+            }
+            if (pendingLength + len < MIN_COMPRESS_BYTES) {
+                if (pendingLength + len > pending.length) {
+                    pending = Arrays.copyOf(pending, Math.min(MIN_COMPRESS_BYTES, Math.max(pending.length * 2, pendingLength + len)));
+                }
+                System.arraycopy(b, off, pending, pendingLength, len);
+                pendingLength += len;
+                return;
+            }
+            startCompressing();
+            compressed.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            // Flushing while still below the threshold would commit the headers undecided
+            if (compressed != null) {
+                compressed.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+        }
+
+        /**
+         * Ends the entity: writes a short one as is, or closes the compressor.
+         */
+        void finish() throws IOException {
+            if (compressed == null) {
+                if (pending != null) {
+                    original.write(pending, 0, pendingLength);
+                    pending = null;
+                }
+                return;
+            }
+            try {
+                compressed.close();
+            } finally {
+                if (deflater != null) {
+                    deflater.end();
+                    deflater = null;
+                }
+            }
+        }
+
+        private void startCompressing() throws IOException {
+            context.getHeaders().putSingle(HttpHeaders.CONTENT_ENCODING, encoding);
+            if (GZIP.equals(encoding)) {
+                compressed = new GZIPOutputStream(original, BUFFER_SIZE);
+            } else {
+                deflater = new Deflater();
+                compressed = new DeflaterOutputStream(original, deflater, BUFFER_SIZE);
+            }
+            compressed.write(pending, 0, pendingLength);
+            pending = null;
+        }
+    }
+}
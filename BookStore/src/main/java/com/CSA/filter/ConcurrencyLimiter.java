@@ -0,0 +1,92 @@
+package com.CSA.filter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free cap on in-flight requests for one endpoint class.
+ * When adaptive, the limit follows observed latency with additive increase and multiplicative
+ * decrease: it shrinks when latency exceeds the target and grows back slowly while it does not.
+ */
+public class ConcurrencyLimiter {
+
+    private static final int MIN_LIMIT = 1;
+
+    private final int maxLimit;
+    private final boolean adaptive;
+    private final long targetLatencyNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger limit;
+    private final AtomicLong lastDecrease = new AtomicLong();
+
+    /**
+     * Creates a limiter.
+     *
+     * @param maxLimit The configured (and, when adaptive, the maximum) in-flight limit
+     * @param adaptive Whether the limit should follow observed latency
+     * @param targetLatencyMillis The latency above which an adaptive limit backs off
+     */
+    public ConcurrencyLimiter(int maxLimit, boolean adaptive, long targetLatencyMillis) {
+        this.maxLimit = maxLimit;
+        this.adaptive = adaptive;
+        this.targetLatencyNanos = targetLatencyMillis * 1_000_000L;
+        this.limit = new AtomicInteger(maxLimit);
+    }
+
+    /**
+     * Tries to take an in-flight slot.
+     *
+     * @return true if admitted; the caller must then call {@link #release(long)}
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases an in-flight slot and feeds the request latency to the adaptive limit.
+     *
+     * @param latencyNanos How long the request held the slot
+     */
+    public void release(long latencyNanos) {
+        inFlight.decrementAndGet();
+        if (!adaptive) {
+            return;
+        }
+        if (latencyNanos > targetLatencyNanos) {
+            // Back off at most once per target interval so one slow burst does not collapse the limit
+            long now = System.nanoTime();
+            long last = lastDecrease.get();
+            if (now - last > targetLatencyNanos && lastDecrease.compareAndSet(last, now)) {
+                limit.updateAndGet(l -> Math.max(MIN_LIMIT, (int) (l * 0.9)));
+            }
+        } else {
+            limit.updateAndGet(l -> l < maxLimit && inFlight.get() >= l - 1 ? l + 1 : l);
+        }
+    }
+
+    /**
+     * Gets the current number of in-flight requests.
+     *
+     * @return The in-flight count
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Gets the current in-flight limit.
+     *
+     * @return The limit
+     */
+    public int getLimit() {
+        return limit.get();
+    }
+}
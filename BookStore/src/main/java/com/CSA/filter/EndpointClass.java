@@ -0,0 +1,82 @@
+package com.CSA.filter;
+
+/**
+ * Cost classes of endpoints, each with its own rate and concurrency limits.
+ */
+public enum EndpointClass {
+    /** Reads that serialize a whole collection, such as GET /books, and read batches. */
+    BULK_READ(20, 40, 16),
+    /** Reads of a single entity. */
+    READ(200, 400, 128),
+    /** Requests that change data. */
+    WRITE(50, 100, 32);
+
+    private final double defaultRate;
+    private final int defaultBurst;
+    private final int defaultConcurrency;
+
+    EndpointClass(double defaultRate, int defaultBurst, int defaultConcurrency) {
+        this.defaultRate = defaultRate;
+        this.defaultBurst = defaultBurst;
+        this.defaultConcurrency = defaultConcurrency;
+    }
+
+    /**
+     * Gets the per-client sustained request rate, overridable with
+     * {@code -Dbookstore.admission.<class>.rate}.
+     *
+     * @return Requests per second
+     */
+    public double rate() {
+        return Double.parseDouble(System.getProperty(property("rate"), String.valueOf(defaultRate)));
+    }
+
+    /**
+     * Gets the per-client burst size, overridable with {@code -Dbookstore.admission.<class>.burst}.
+     *
+     * @return The burst size
+     */
+    public int burst() {
+        return Integer.getInteger(property("burst"), defaultBurst);
+    }
+
+    /**
+     * Gets the global in-flight request limit, overridable with
+     * {@code -Dbookstore.admission.<class>.concurrency}.
+     *
+     * @return The maximum concurrent requests
+     */
+    public int concurrency() {
+        return Integer.getInteger(property("concurrency"), defaultConcurrency);
+    }
+
+    /**
+     * Classifies a request by method and path.
+     *
+     * @param method The HTTP method
+     * @param path The request path relative to the application root
+     * @return The endpoint class
+     */
+    public static EndpointClass of(String method, String path) {
+        String normalized = path.startsWith("/") ? path.substring(1) : path;
+        if (normalized.endsWith("/")) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+        if ("POST".equals(method) && normalized.equals("batch")) {
+            // A batch only reads, but up to a whole page of entities at once
+            return BULK_READ;
+        }
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return WRITE;
+        }
+        if (normalized.equals("books") || normalized.equals("authors")
+                || (normalized.startsWith("authors/") && normalized.endsWith("/books"))) {
+            return BULK_READ;
+        }
+        return READ;
+    }
+
+    private String property(String name) {
+        return "bookstore.admission." + name().toLowerCase() + "." + name;
+    }
+}
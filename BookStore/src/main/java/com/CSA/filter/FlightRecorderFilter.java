@@ -0,0 +1,102 @@
+package com.CSA.filter;
+
+import com.CSA.diagnostics.ResourceMethodEvent;
+import com.CSA.diagnostics.SerializationEvent;
+
+import jakarta.annotation.Priority;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+import jdk.jfr.EventType;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Emits flight recorder events for resource method execution and entity serialization.
+ * Runs last among request filters and first among response filters, so the method event covers
+ * only the resource method, and innermost among writer interceptors, so the serialization event
+ * sees entity bytes before compression. When an event type is not enabled in any recording
+ * nothing is allocated or wrapped.
+ */
+@Provider
+@Priority(Priorities.USER + 1000)
+public class FlightRecorderFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+    private static final String EVENT_PROPERTY = "bookstore.jfr.resourceMethod";
+    private static final EventType RESOURCE_METHOD_TYPE = EventType.getEventType(ResourceMethodEvent.class);
+    private static final EventType SERIALIZATION_TYPE = EventType.getEventType(SerializationEvent.class);
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        if (!RESOURCE_METHOD_TYPE.isEnabled()) {
+            return;
+        }
+        ResourceMethodEvent event = new ResourceMethodEvent();
+        String resource = resourceInfo.getResourceMethod() == null ? null
+                : resourceInfo.getResourceClass().getSimpleName() + "." + resourceInfo.getResourceMethod().getName();
+        event.describe(requestContext.getMethod(), requestContext.getUriInfo().getPath(), resource);
+        requestContext.setProperty(EVENT_PROPERTY, event);
+        event.begin();
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        Object event = requestContext.getProperty(EVENT_PROPERTY);
+        if (event instanceof ResourceMethodEvent) {
+            requestContext.removeProperty(EVENT_PROPERTY);
+            ((ResourceMethodEvent) event).complete(responseContext.getStatus());
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        if (!SERIALIZATION_TYPE.isEnabled()) {
+            context.proceed();
+            return;
+        }
+        CountingOutputStream counter = new CountingOutputStream(context.getOutputStream());
+        context.setOutputStream(counter);
+        SerializationEvent event = new SerializationEvent();
+        event.begin();
+        try {
+            context.proceed();
+        } finally {
+            Object encoding = context.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+            event.complete(context.getType().getSimpleName(), String.valueOf(context.getMediaType()),
+                    encoding == null ? null : encoding.toString(), counter.count);
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package com.CSA.filter;
+
+import jakarta.annotation.Priority;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.PreMatching;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.Provider;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Makes POST requests carrying an {@value #IDEMPOTENCY_KEY_HEADER} header safe to retry.
+ * The first request with a key, per client, executes normally and its final response is kept;
+ * a retry is answered from the kept response without reaching the resource, and a duplicate that
+ * arrives while the first is still running waits for it instead of executing again. Reusing a key
+ * for a different request body is refused with 422. Runs before routing and admission control, so
+ * replays cost neither a rate-limit token nor a concurrency slot.
+ * Server errors, 401, 403, 408, 409 and 429 are not kept, since a retry of those may rightly
+ * succeed once credentials, permissions or conflicting state change. Request bodies over
+ * bookstore.idempotency.maxRequestKB are refused with 413 rather than buffered for hashing.
+ * {@link IdempotencyRecorder} captures the response body before it is content-coded, so a
+ * replay is compressed anew for the retrying client's Accept-Encoding. Kept responses expire
+ * after bookstore.idempotency.ttlSeconds and the cache is bounded by
+ * bookstore.idempotency.maxEntries and bookstore.idempotency.maxMB, oldest first.
+ */
+@Provider
+@PreMatching
+@Priority(Priorities.AUTHENTICATION - 600)
+public class IdempotencyFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    /** Header carrying the client-chosen key of a retryable request. */
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    /** Header marking a response replayed from the cache. */
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    static final String CLAIM_PROPERTY = "bookstore.idempotency.claim";
+    static final String STATUS_PROPERTY = "bookstore.idempotency.status";
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final int UNPROCESSABLE_ENTITY = 422;
+    private static final long DISCHARGED = -1;
+
+    private static final long TTL_MILLIS = Long.getLong("bookstore.idempotency.ttlSeconds", 86400L) * 1000L;
+    private static final int MAX_ENTRIES = Integer.getInteger("bookstore.idempotency.maxEntries", 10000);
+    private static final long MAX_BYTES = Long.getLong("bookstore.idempotency.maxMB", 32L) << 20;
+    private static final int MAX_REQUEST_BYTES = Integer.getInteger("bookstore.idempotency.maxRequestKB", 1024) << 10;
+    private static final long WAIT_MILLIS = Long.getLong("bookstore.idempotency.waitSeconds", 30L) * 1000L;
+    // Most claims an eviction pass looks at, so a claim never pays for the whole queue
+    private static final int EVICTION_BUDGET = 64;
+
+    private static final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    // Claims in creation order; with a fixed TTL this is also expiry order. A claim whose entry was
+    // since replaced is stale and simply dropped when it reaches the head.
+    private static final ConcurrentLinkedQueue<Claim> creationOrder = new ConcurrentLinkedQueue<>();
+    // ConcurrentLinkedQueue.size() walks the whole queue, so its length is counted here
+    private static final AtomicInteger creationOrderSize = new AtomicInteger();
+    private static final AtomicLong storedBytes = new AtomicLong();
+
+    private static final LongAdder executed = new LongAdder();
+    private static final LongAdder replayed = new LongAdder();
+    private static final LongAdder waited = new LongAdder();
+    private static final LongAdder mismatched = new LongAdder();
+    private static final LongAdder evicted = new LongAdder();
+
+    @Context
+    private HttpServletRequest servletRequest;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+        String key = requestContext.getHeaderString(IDEMPOTENCY_KEY_HEADER);
+        if (key == null || !"POST".equals(requestContext.getMethod())) {
+            return;
+        }
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            abort(requestContext, Response.Status.BAD_REQUEST.getStatusCode(),
+                    IDEMPOTENCY_KEY_HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+
+        byte[] fingerprint = fingerprint(requestContext);
+        if (fingerprint == null) {
+            abort(requestContext, Response.Status.REQUEST_ENTITY_TOO_LARGE.getStatusCode(),
+                    "Requests with an " + IDEMPOTENCY_KEY_HEADER + " may carry at most " + (MAX_REQUEST_BYTES >> 10) + " KB");
+            return;
+        }
+        String cacheKey = ClientKeys.of(requestContext, servletRequest) + '|'
+                + requestContext.getUriInfo().getPath() + '|' + key;
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (true) {
+            Entry claim = new Entry(fingerprint);
+            Entry existing = entries.putIfAbsent(cacheKey, claim);
+            if (existing == null || existing.isExpired() || existing.isAbandoned()) {
+                if (existing != null) {
+                    if (!entries.replace(cacheKey, existing, claim)) {
+                        continue;
+                    }
+                    existing.discharge();
+                }
+                Claim owner = new Claim(cacheKey, claim);
+                creationOrder.add(owner);
+                creationOrderSize.incrementAndGet();
+                evictIfNeeded();
+                executed.increment();
+                requestContext.setProperty(CLAIM_PROPERTY, owner);
+                return;
+            }
+            if (!Arrays.equals(existing.fingerprint, fingerprint)) {
+                mismatched.increment();
+                abort(requestContext, UNPROCESSABLE_ENTITY,
+                        IDEMPOTENCY_KEY_HEADER + " was already used for a different request");
+                return;
+            }
+            if (!existing.response.isDone()) {
+                waited.increment();
+            }
+            StoredResponse stored;
+            try {
+                stored = existing.response.get(Math.max(1, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                requestContext.abortWith(Response.status(Response.Status.CONFLICT)
+                        .header(HttpHeaders.RETRY_AFTER, 1)
+                        .type(MediaType.APPLICATION_JSON)
+                        .entity("{\"error\": \"A request with this " + IDEMPOTENCY_KEY_HEADER + " is still in progress\"}")
+                        .build());
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                abort(requestContext, Response.Status.SERVICE_UNAVAILABLE.getStatusCode(), "Interrupted while waiting for the original request");
+                return;
+            } catch (ExecutionException e) {
+                // The original request produced nothing worth keeping; try to claim the key again
+                continue;
+            }
+            replayed.increment();
+            requestContext.abortWith(stored.toResponse());
+            return;
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        Object claim = requestContext.getProperty(CLAIM_PROPERTY);
+        if (!(claim instanceof Claim)) {
+            return;
+        }
+        int status = responseContext.getStatus();
+        if (!isKept(status)) {
+            requestContext.removeProperty(CLAIM_PROPERTY);
+            ((Claim) claim).release();
+            return;
+        }
+        if (!responseContext.hasEntity()) {
+            requestContext.removeProperty(CLAIM_PROPERTY);
+            ((Claim) claim).complete(new StoredResponse(status, keptHeaders(responseContext.getStringHeaders()), null));
+            return;
+        }
+        requestContext.setProperty(STATUS_PROPERTY, status);
+    }
+
+    /**
+     * Gets cache counters: requests executed under a new key, retries replayed, duplicates that
+     * waited for an in-flight original, key reuse refused, evictions, and the cache size.
+     *
+     * @return A map of counter names to values
+     */
+    public static Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("executed", executed.sum());
+        stats.put("replayed", replayed.sum());
+        stats.put("waited", waited.sum());
+        stats.put("mismatched", mismatched.sum());
+        stats.put("evicted", evicted.sum());
+        stats.put("entries", entries.size());
+        stats.put("storedBytes", storedBytes.get());
+        return stats;
+    }
+
+    private static boolean isKept(int status) {
+        return status < 500 && status != 401 && status != 403 && status != 408 && status != 409 && status != 429;
+    }
+
+    static Map<String, String> keptHeaders(MultivaluedMap<String, ?> headers) {
+        Map<String, String> kept = new LinkedHashMap<>();
+        for (String name : new String[] { HttpHeaders.LOCATION, HttpHeaders.ETAG, HttpHeaders.CONTENT_TYPE }) {
+            Object value = headers.getFirst(name);
+            if (value != null) {
+                kept.put(name, value.toString());
+            }
+        }
+        return kept;
+    }
+
+    // Null if the body is larger than is worth buffering to compare retries
+    private static byte[] fingerprint(ContainerRequestContext requestContext) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        if (requestContext.hasEntity()) {
+            // Read the body once to hash it, then hand the resource an identical stream
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            try (InputStream in = requestContext.getEntityStream()) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    if (body.size() + read > MAX_REQUEST_BYTES) {
+                        return null;
+                    }
+                    body.write(buffer, 0, read);
+                }
+            }
+            byte[] bytes = body.toByteArray();
+            digest.update(bytes);
+            requestContext.setEntityStream(new ByteArrayInputStream(bytes));
+        }
+        return digest.digest();
+    }
+
+    private static void evictIfNeeded() {
+        // Bounded pass: entries still in flight go back to the end instead of being dropped. Each
+        // claim adds one entry and may check several, so the queue is still drained over time.
+        for (int checked = Math.min(creationOrderSize.get(), EVICTION_BUDGET); checked > 0; checked--) {
+            Claim oldest = creationOrder.peek();
+            if (oldest == null) {
+                return;
+            }
+            Entry entry = oldest.entry;
+            boolean stale = entries.get(oldest.cacheKey) != entry;
+            boolean overBudget = entries.size() > MAX_ENTRIES || storedBytes.get() > MAX_BYTES;
+            if (!stale && !entry.isExpired() && !overBudget) {
+                return;
+            }
+            if (creationOrder.poll() == null) {
+                return;
+            }
+            creationOrderSize.decrementAndGet();
+            if (stale) {
+                continue;
+            }
+            if (!entry.response.isDone() && !entry.isExpired()) {
+                creationOrder.add(oldest);
+                creationOrderSize.incrementAndGet();
+                continue;
+            }
+            if (entries.remove(oldest.cacheKey, entry)) {
+                entry.discharge();
+                evicted.increment();
+            }
+        }
+    }
+
+    private static void abort(ContainerRequestContext requestContext, int status, String message) {
+        requestContext.abortWith(Response.status(status)
+                .type(MediaType.APPLICATION_JSON)
+                .entity("{\"error\": \"" + message + "\"}")
+                .build());
+    }
+
+    private static final class Entry {
+        final byte[] fingerprint;
+        final long createdMillis = System.currentTimeMillis();
+        final CompletableFuture<StoredResponse> response = new CompletableFuture<>();
+        // Bytes counted in storedBytes, or DISCHARGED once the entry has left the cache
+        final AtomicLong charged = new AtomicLong();
+
+        Entry(byte[] fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() - createdMillis > TTL_MILLIS;
+        }
+
+        // An original that never produced a response within the wait time is taken over
+        boolean isAbandoned() {
+            return !response.isDone() && System.currentTimeMillis() - createdMillis > WAIT_MILLIS;
+        }
+
+        // Counts the kept response, unless the entry already left the cache while it was running
+        void charge(long bytes) {
+            if (charged.compareAndSet(0, bytes)) {
+                storedBytes.addAndGet(bytes);
+            }
+        }
+
+        // Called once the entry is out of the map, by whichever path removed or replaced it
+        void discharge() {
+            long bytes = charged.getAndSet(DISCHARGED);
+            if (bytes > 0) {
+                storedBytes.addAndGet(-bytes);
+            }
+        }
+    }
+
+    /**
+     * The key a request claimed, completed with its response or released if nothing is kept.
+     */
+    static final class Claim {
+        final String cacheKey;
+        final Entry entry;
+
+        Claim(String cacheKey, Entry entry) {
+            this.cacheKey = cacheKey;
+            this.entry = entry;
+        }
+
+        void complete(StoredResponse stored) {
+            entry.charge(stored.size());
+            entry.response.complete(stored);
+        }
+
+        void release() {
+            if (entries.remove(cacheKey, entry)) {
+                entry.discharge();
+            }
+            // Waiting duplicates wake up and compete to claim the key again
+            entry.response.completeExceptionally(new IllegalStateException("Response not kept"));
+        }
+    }
+
+    static final class StoredResponse {
+        final int status;
+        final Map<String, String> headers;
+        final byte[] body;
+
+        StoredResponse(int status, Map<String, String> headers, byte[] body) {
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        long size() {
+            return 256 + (body == null ? 0 : body.length);
+        }
+
+        Response toResponse() {
+            Response.ResponseBuilder builder = Response.status(status).header(REPLAYED_HEADER, "true");
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                builder.header(header.getKey(), header.getValue());
+            }
+            if (body != null) {
+                builder.entity(body);
+            }
+            return builder.build();
+        }
+    }
+}
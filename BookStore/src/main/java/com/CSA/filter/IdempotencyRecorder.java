@@ -0,0 +1,90 @@
+package com.CSA.filter;
+
+import jakarta.annotation.Priority;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * Keeps the body of a response whose {@link IdempotencyFilter} key was claimed, so retries can be
+ * replayed. Runs inside {@link CompressionFilter} among writer interceptors, so it records the
+ * entity before content coding and a replay is encoded afresh for the retrying client. Bodies
+ * over bookstore.idempotency.maxBodyKB are streamed as usual but not kept.
+ */
+@Provider
+@Priority(Priorities.ENTITY_CODER + 500)
+public class IdempotencyRecorder implements WriterInterceptor {
+
+    private static final int MAX_BODY_BYTES = Integer.getInteger("bookstore.idempotency.maxBodyKB", 64) << 10;
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        Object claim = context.getProperty(IdempotencyFilter.CLAIM_PROPERTY);
+        if (!(claim instanceof IdempotencyFilter.Claim)) {
+            context.proceed();
+            return;
+        }
+        context.removeProperty(IdempotencyFilter.CLAIM_PROPERTY);
+        CapturingOutputStream capture = new CapturingOutputStream(context.getOutputStream());
+        context.setOutputStream(capture);
+        boolean written = false;
+        try {
+            context.proceed();
+            written = true;
+        } finally {
+            IdempotencyFilter.Claim owner = (IdempotencyFilter.Claim) claim;
+            if (written && !capture.overflowed) {
+                Map<String, String> headers = IdempotencyFilter.keptHeaders(context.getHeaders());
+                headers.put(HttpHeaders.CONTENT_TYPE, String.valueOf(context.getMediaType()));
+                owner.complete(new IdempotencyFilter.StoredResponse(
+                        (Integer) context.getProperty(IdempotencyFilter.STATUS_PROPERTY), headers,
+                        capture.captured.toByteArray()));
+            } else {
+                owner.release();
+            }
+        }
+    }
+
+    /**
+     * Copies what is written into a buffer, up to the largest body worth keeping.
+     */
+    private static final class CapturingOutputStream extends FilterOutputStream {
+        final ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        boolean overflowed;
+
+        CapturingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            capture(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            capture(b, off, len);
+        }
+
+        private void capture(byte[] b, int off, int len) {
+            if (overflowed) {
+                return;
+            }
+            if (captured.size() + len > MAX_BODY_BYTES) {
+                overflowed = true;
+                return;
+            }
+            captured.write(b, off, len);
+        }
+    }
+}
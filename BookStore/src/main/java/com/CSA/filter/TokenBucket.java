@@ -0,0 +1,56 @@
+package com.CSA.filter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket implemented as a generic cell rate algorithm.
+ * The whole bucket state is one "theoretical arrival time" updated by compare-and-swap:
+ * a request is admitted if that time is no further ahead of now than the burst allows.
+ */
+public class TokenBucket {
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * Creates a bucket that starts full.
+     *
+     * @param tokensPerSecond The sustained refill rate
+     * @param burst The maximum number of tokens that can be spent at once
+     */
+    public TokenBucket(double tokensPerSecond, int burst) {
+        this.nanosPerToken = (long) (1_000_000_000L / tokensPerSecond);
+        this.burstNanos = nanosPerToken * Math.max(burst - 1, 0);
+        this.theoreticalArrival = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Tries to take one token.
+     *
+     * @return 0 if a token was taken, otherwise the nanoseconds until one becomes available
+     */
+    public long tryAcquire() {
+        while (true) {
+            long now = System.nanoTime();
+            long arrival = theoreticalArrival.get();
+            long start = arrival - now > 0 ? arrival : now;
+            long waitNanos = start - burstNanos - now;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, start + nanosPerToken)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Checks whether the bucket has fully refilled, meaning it holds no state worth keeping.
+     *
+     * @return true if the bucket is full
+     */
+    public boolean isIdle() {
+        return theoreticalArrival.get() - System.nanoTime() <= 0;
+    }
+}
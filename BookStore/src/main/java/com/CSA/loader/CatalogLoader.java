@@ -0,0 +1,502 @@
+package com.CSA.loader;
+
+import com.CSA.LoggerUtil.LoggerUtil;
+import com.CSA.model.Author;
+import com.CSA.model.Book;
+import com.CSA.storage.DataStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Loads catalog dumps of authors and books, as CSV with a header line (.csv) or newline-delimited
+ * JSON (.ndjson, .jsonl), into the DataStore far faster than REST ingestion.
+ * Each file is split into byte ranges aligned to line starts, and the ranges are parsed in
+ * parallel on a fork-join pool with one reusable parser per range. Books are checked against the
+ * loaded and already stored authors while they are parsed. Valid rows are then inserted in batched
+ * catalog transactions, each of which also adds its new books to the author index.
+ * Duplicate IDs after the first are rejected; books without an ID get fresh ones.
+ *
+ * Tuning: bookstore.loader.parallelism (default: processors), bookstore.loader.chunkMB (8),
+ * bookstore.loader.batchSize (50000 rows per transaction), bookstore.loader.progressSeconds (5).
+ */
+public class CatalogLoader {
+
+    private static final int PARALLELISM = Integer.getInteger("bookstore.loader.parallelism",
+            Runtime.getRuntime().availableProcessors());
+    private static final long CHUNK_BYTES = Long.getLong("bookstore.loader.chunkMB", 8L) << 20;
+    private static final int BATCH_SIZE = Integer.getInteger("bookstore.loader.batchSize", 50000);
+    private static final long PROGRESS_SECONDS = Long.getLong("bookstore.loader.progressSeconds", 5L);
+    private static final int READ_BUFFER_BYTES = 1 << 20;
+    private static final int MAX_HEADER_BYTES = 64 * 1024;
+
+    /**
+     * Loads authors and then books. Either file may be null.
+     *
+     * @param authorsFile The author dump, or null
+     * @param booksFile The book dump, or null
+     * @param apply true to write to the DataStore; false to parse and validate only
+     * @return The load report
+     * @throws IOException If a file cannot be read or its format is not recognised
+     */
+    public static LoadReport load(Path authorsFile, Path booksFile, boolean apply) throws IOException {
+        LoadReport report = new LoadReport();
+        report.setApplied(apply);
+        ForkJoinPool pool = new ForkJoinPool(PARALLELISM);
+        Progress progress = new Progress();
+        try {
+            BitSet authorIds = new BitSet();
+            List<Author> authors = Collections.emptyList();
+            if (authorsFile != null) {
+                authors = parse(pool, authorsFile, new AuthorMapper(), report, progress, "parseAuthors");
+                authors = dropDuplicates(authors, Author::getId, authorIds, authorsFile, report);
+            }
+            report.setAuthorsLoaded(authors.size());
+
+            List<Book> books = Collections.emptyList();
+            int missingIds = 0;
+            if (booksFile != null) {
+                IntPredicate authorExists = apply
+                        ? id -> authorIds.get(id) || DataStore.authors.containsKey(id)
+                        : authorIds::get;
+                books = parse(pool, booksFile, new BookMapper(authorExists), report, progress, "parseBooks");
+                BitSet bookIds = new BitSet();
+                books = dropDuplicates(books, Book::getId, bookIds, booksFile, report);
+                missingIds = (int) books.stream().filter(book -> book.getId() == 0).count();
+            }
+            report.setBooksLoaded(books.size());
+
+            if (apply) {
+                insert(authors, books, missingIds, report, progress);
+            }
+        } finally {
+            progress.close();
+            pool.shutdown();
+        }
+        LoggerUtil.logInfo("Catalog load finished: " + report);
+        return report;
+    }
+
+    private static void insert(List<Author> authors, List<Book> books, int missingIds, LoadReport report,
+                               Progress progress) {
+        int maxAuthorId = 0;
+        for (Author author : authors) {
+            maxAuthorId = Math.max(maxAuthorId, author.getId());
+        }
+        int maxBookId = 0;
+        for (Book book : books) {
+            maxBookId = Math.max(maxBookId, book.getId());
+        }
+        DataStore.advanceIdsPast(maxBookId, maxAuthorId);
+        if (missingIds > 0) {
+            int nextId = DataStore.reserveBookIds(missingIds);
+            for (Book book : books) {
+                if (book.getId() == 0) {
+                    book.setId(nextId++);
+                }
+            }
+        }
+
+        progress.start("insertAuthors");
+        for (int from = 0; from < authors.size(); from += BATCH_SIZE) {
+            List<Author> batch = authors.subList(from, Math.min(authors.size(), from + BATCH_SIZE));
+            DataStore.bulkSaveAuthors(batch);
+            progress.add(batch.size());
+        }
+        progress.finish(report);
+
+        progress.start("insertBooks");
+        for (int from = 0; from < books.size(); from += BATCH_SIZE) {
+            List<Book> batch = books.subList(from, Math.min(books.size(), from + BATCH_SIZE));
+            DataStore.bulkSaveBooks(batch);
+            progress.add(batch.size());
+        }
+        progress.finish(report);
+    }
+
+    private static <T> List<T> parse(ForkJoinPool pool, Path file, RowMapper<T> mapper, LoadReport report,
+                                     Progress progress, String phase) throws IOException {
+        progress.start(phase);
+        String name = file.getFileName().toString();
+        String lowerName = name.toLowerCase(Locale.ROOT);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long bodyStart = 0;
+            Supplier<RecordParser> parsers;
+            if (lowerName.endsWith(".csv")) {
+                byte[] header = readHeader(channel);
+                bodyStart = header.length;
+                int headerEnd = header.length;
+                while (headerEnd > 0 && (header[headerEnd - 1] == '\n' || header[headerEnd - 1] == '\r')) {
+                    headerEnd--;
+                }
+                int end = headerEnd;
+                parsers = () -> CsvRecordParser.forHeader(mapper.columns(), header, 0, end);
+            } else if (lowerName.endsWith(".ndjson") || lowerName.endsWith(".jsonl")) {
+                parsers = () -> new JsonLinesRecordParser(mapper.columns());
+            } else {
+                throw new IOException("Unrecognised catalog file type (expected .csv, .ndjson or .jsonl): " + name);
+            }
+
+            List<ForkJoinTask<ChunkResult<T>>> tasks = new ArrayList<>();
+            long start = bodyStart;
+            while (start < size) {
+                long end = Math.min(size, alignToLine(channel, start + CHUNK_BYTES, size));
+                tasks.add(pool.submit(new ParseChunk<>(channel, start, end, parsers.get(), mapper, name, progress)));
+                start = end;
+            }
+
+            List<ChunkResult<T>> results = new ArrayList<>(tasks.size());
+            int total = 0;
+            for (ForkJoinTask<ChunkResult<T>> task : tasks) {
+                ChunkResult<T> result = task.join();
+                results.add(result);
+                total += result.entities.size();
+                report.addRejections(result.rejected, result.reasons);
+            }
+            List<T> entities = new ArrayList<>(total);
+            for (ChunkResult<T> result : results) {
+                entities.addAll(result.entities);
+                result.entities.clear();
+            }
+            progress.finish(report);
+            return entities;
+        } catch (UncheckedIOException e) {
+            // A failed chunk's exception may arrive re-wrapped by the fork-join pool
+            Throwable cause = e;
+            while (cause instanceof UncheckedIOException) {
+                cause = cause.getCause();
+            }
+            throw (IOException) cause;
+        }
+    }
+
+    private static <T> List<T> dropDuplicates(List<T> entities, ToIntFunction<T> idOf,
+                                              BitSet seen, Path file, LoadReport report) {
+        int kept = 0;
+        List<String> reasons = new ArrayList<>();
+        for (T entity : entities) {
+            int id = idOf.applyAsInt(entity);
+            // ID 0 means "assign one", so it is never a duplicate
+            if (id != 0 && seen.get(id)) {
+                if (reasons.size() < 20) {
+                    reasons.add(file.getFileName() + ": duplicate ID " + id);
+                }
+                continue;
+            }
+            if (id != 0) {
+                seen.set(id);
+            }
+            entities.set(kept++, entity);
+        }
+        int dropped = entities.size() - kept;
+        if (dropped > 0) {
+            report.addRejections(dropped, reasons);
+            entities.subList(kept, entities.size()).clear();
+        }
+        return entities;
+    }
+
+    private static byte[] readHeader(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(MAX_HEADER_BYTES, channel.size()));
+        channel.read(buffer, 0);
+        byte[] bytes = buffer.array();
+        for (int i = 0; i < buffer.position(); i++) {
+            if (bytes[i] == '\n') {
+                return Arrays.copyOf(bytes, i + 1);
+            }
+        }
+        if (buffer.position() < MAX_HEADER_BYTES) {
+            return Arrays.copyOf(bytes, buffer.position());
+        }
+        throw new IOException("CSV header line is longer than " + MAX_HEADER_BYTES + " bytes");
+    }
+
+    /**
+     * Moves a position forward to the start of the next line, unless it already is one.
+     */
+    private static long alignToLine(FileChannel channel, long position, long size) throws IOException {
+        if (position >= size) {
+            return size;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        long offset = position - 1;
+        while (offset < size) {
+            buffer.clear();
+            int read = channel.read(buffer, offset);
+            if (read <= 0) {
+                return size;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return size;
+    }
+
+    private static final class ChunkResult<T> {
+        final List<T> entities;
+        final long rejected;
+        final List<String> reasons;
+
+        ChunkResult(List<T> entities, long rejected, List<String> reasons) {
+            this.entities = entities;
+            this.rejected = rejected;
+            this.reasons = reasons;
+        }
+    }
+
+    /**
+     * Parses the lines starting in one byte range of a file.
+     */
+    private static final class ParseChunk<T> extends RecursiveTask<ChunkResult<T>> {
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+        private final RecordParser parser;
+        private final RowMapper<T> mapper;
+        private final String fileName;
+        private final Progress progress;
+
+        ParseChunk(FileChannel channel, long start, long end, RecordParser parser, RowMapper<T> mapper,
+                   String fileName, Progress progress) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.parser = parser;
+            this.mapper = mapper;
+            this.fileName = fileName;
+            this.progress = progress;
+        }
+
+        @Override
+        protected ChunkResult<T> compute() {
+            List<T> entities = new ArrayList<>();
+            List<String> reasons = new ArrayList<>();
+            long rejected = 0;
+            byte[] buffer = new byte[(int) Math.min(READ_BUFFER_BYTES, end - start)];
+            int filled = 0;
+            long bufferOffset = start;
+            long next = start;
+            int unreported = 0;
+            try {
+                while (true) {
+                    if (next < end && filled < buffer.length) {
+                        ByteBuffer target = ByteBuffer.wrap(buffer, filled,
+                                (int) Math.min(buffer.length - filled, end - next));
+                        int read = channel.read(target, next);
+                        if (read < 0) {
+                            throw new IOException("File shrank while loading: " + fileName);
+                        }
+                        filled += read;
+                        next += read;
+                    }
+                    boolean atEnd = next >= end;
+                    int lineStart = 0;
+                    for (int i = 0; i < filled; i++) {
+                        if (buffer[i] != '\n') {
+                            continue;
+                        }
+                        rejected += parseLine(buffer, lineStart, i, bufferOffset + lineStart, entities, reasons);
+                        lineStart = i + 1;
+                        if (++unreported == 4096) {
+                            progress.add(unreported);
+                            unreported = 0;
+                        }
+                    }
+                    if (atEnd) {
+                        if (lineStart < filled) {
+                            rejected += parseLine(buffer, lineStart, filled, bufferOffset + lineStart, entities, reasons);
+                            unreported++;
+                        }
+                        break;
+                    }
+                    // Keep the partial last line; grow the buffer if one line fills it
+                    int remaining = filled - lineStart;
+                    if (lineStart == 0 && remaining == buffer.length) {
+                        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    } else {
+                        System.arraycopy(buffer, lineStart, buffer, 0, remaining);
+                    }
+                    filled = remaining;
+                    bufferOffset += lineStart;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            progress.add(unreported);
+            return new ChunkResult<>(entities, rejected, reasons);
+        }
+
+        private int parseLine(byte[] buffer, int from, int to, long fileOffset, List<T> entities, List<String> reasons) {
+            if (to > from && buffer[to - 1] == '\r') {
+                to--;
+            }
+            if (to == from) {
+                return 0;
+            }
+            try {
+                parser.parse(buffer, from, to);
+                entities.add(mapper.map(parser));
+                return 0;
+            } catch (RowException e) {
+                if (reasons.size() < 20) {
+                    reasons.add(fileName + "@" + fileOffset + ": " + e.getMessage());
+                }
+                return 1;
+            }
+        }
+    }
+
+    private static final class AuthorMapper implements RowMapper<Author> {
+        private static final String[] COLUMNS = { "id", "name", "biography" };
+
+        @Override
+        public String[] columns() {
+            return COLUMNS;
+        }
+
+        @Override
+        public Author map(RecordParser row) throws RowException {
+            int id = row.integer(0, 0);
+            if (id <= 0) {
+                throw new RowException("Valid author ID is required");
+            }
+            String name = row.text(1);
+            if (name == null) {
+                throw new RowException("Name cannot be null or empty");
+            }
+            String biography = row.text(2);
+            if (biography == null) {
+                throw new RowException("Biography cannot be null or empty");
+            }
+            return new Author(id, name, biography);
+        }
+    }
+
+    private static final class BookMapper implements RowMapper<Book> {
+        private static final String[] COLUMNS = {
+            "id", "title", "authorId", "isbn", "publicationYear", "price", "stockQuantity"
+        };
+
+        private final IntPredicate authorExists;
+
+        BookMapper(IntPredicate authorExists) {
+            this.authorExists = authorExists;
+        }
+
+        @Override
+        public String[] columns() {
+            return COLUMNS;
+        }
+
+        @Override
+        public Book map(RecordParser row) throws RowException {
+            int id = row.integer(0, 0);
+            if (id < 0) {
+                throw new RowException("Book ID cannot be negative");
+            }
+            String title = row.text(1);
+            if (title == null) {
+                throw new RowException("Book title is required");
+            }
+            int authorId = row.integer(2, 0);
+            if (authorId <= 0) {
+                throw new RowException("Valid author ID is required");
+            }
+            if (!authorExists.test(authorId)) {
+                throw new RowException("Author not found with ID: " + authorId);
+            }
+            String isbn = row.text(3);
+            if (isbn == null) {
+                throw new RowException("ISBN is required");
+            }
+            int publicationYear = row.integer(4, 0);
+            if (publicationYear <= 0) {
+                throw new RowException("Valid publication year is required");
+            }
+            double price = row.decimal(5, 0);
+            if (price <= 0) {
+                throw new RowException("Valid price is required");
+            }
+            int stockQuantity = row.integer(6, 0);
+            if (stockQuantity < 0) {
+                throw new RowException("Stock quantity cannot be negative");
+            }
+            return new Book(id, title, authorId, isbn, publicationYear, price, stockQuantity);
+        }
+    }
+
+    /**
+     * Counts rows for the current phase and logs the rate periodically and when the phase ends.
+     */
+    private static final class Progress {
+        private final LongAdder rows = new LongAdder();
+        private final ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-load-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        private volatile String phase;
+        private volatile long phaseStart;
+
+        Progress() {
+            reporter.scheduleAtFixedRate(this::log, PROGRESS_SECONDS, PROGRESS_SECONDS, TimeUnit.SECONDS);
+        }
+
+        void start(String name) {
+            rows.reset();
+            phaseStart = System.nanoTime();
+            phase = name;
+        }
+
+        void add(long count) {
+            rows.add(count);
+        }
+
+        void finish(LoadReport report) {
+            long nanos = System.nanoTime() - phaseStart;
+            long count = rows.sum();
+            report.recordPhase(phase, count, nanos);
+            LoggerUtil.logInfo("Catalog load " + phase + ": " + count + " rows in " + nanos / 1_000_000 + " ms ("
+                    + LoadReport.rowsPerSecond(count, nanos) + " rows/s)");
+            phase = null;
+        }
+
+        void close() {
+            reporter.shutdownNow();
+        }
+
+        private void log() {
+            String current = phase;
+            if (current != null) {
+                long count = rows.sum();
+                LoggerUtil.logInfo("Catalog load " + current + ": " + count + " rows so far ("
+                        + LoadReport.rowsPerSecond(count, System.nanoTime() - phaseStart) + " rows/s)");
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.CSA.loader;
+
+import com.CSA.LoggerUtil.LoggerUtil;
+
+import jakarta.ws.rs.ext.Provider;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Seeds the catalog at startup from the dumps named by bookstore.seed.authors and
+ * bookstore.seed.books, if set. Loading finishes before the application starts serving, so no
+ * request sees a partially seeded catalog.
+ */
+@Provider
+public class CatalogSeeder implements ApplicationEventListener {
+
+    @Override
+    public void onEvent(ApplicationEvent event) {
+        if (event.getType() != ApplicationEvent.Type.INITIALIZATION_APP_FINISHED) {
+            return;
+        }
+        Path authors = pathProperty("bookstore.seed.authors");
+        Path books = pathProperty("bookstore.seed.books");
+        if (authors == null && books == null) {
+            return;
+        }
+        try {
+            LoggerUtil.logInfo("Seeding catalog from authors=" + authors + ", books=" + books);
+            CatalogLoader.load(authors, books, true);
+        } catch (IOException | RuntimeException e) {
+            LoggerUtil.logSevere("Catalog seeding failed: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public RequestEventListener onRequest(RequestEvent requestEvent) {
+        return null;
+    }
+
+    private static Path pathProperty(String name) {
+        String value = System.getProperty(name);
+        return value == null || value.isEmpty() ? null : Paths.get(value);
+    }
+}
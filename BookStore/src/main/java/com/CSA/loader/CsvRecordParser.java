@@ -0,0 +1,133 @@
+package com.CSA.loader;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses comma-separated rows whose fields are laid out as named in a header line.
+ * Fields may be quoted with double quotes, with a doubled quote standing for a quote; quoted
+ * fields must not span lines. Header fields that are not known columns are ignored.
+ */
+class CsvRecordParser extends RecordParser {
+
+    private final int[] columnOfField;
+
+    private CsvRecordParser(String[] columns, int[] columnOfField) {
+        super(columns);
+        this.columnOfField = columnOfField;
+    }
+
+    /**
+     * Creates a parser for rows laid out as in a header line.
+     *
+     * @param columns The known column names
+     * @param header The buffer holding the header line
+     * @param from The offset of the header line
+     * @param to The offset just past the header line
+     * @return The parser
+     */
+    static CsvRecordParser forHeader(String[] columns, byte[] header, int from, int to) {
+        CsvRecordParser headerParser = new CsvRecordParser(columns, new int[0]);
+        List<int[]> spans = headerParser.fields(header, from, to);
+        int[] columnOfField = new int[spans.size()];
+        for (int field = 0; field < spans.size(); field++) {
+            int[] span = spans.get(field);
+            int start = span[0];
+            int end = span[1];
+            while (start < end && header[start] == ' ') {
+                start++;
+            }
+            while (end > start && header[end - 1] == ' ') {
+                end--;
+            }
+            columnOfField[field] = headerParser.columnIndex(header, start, end);
+        }
+        return new CsvRecordParser(columns, columnOfField);
+    }
+
+    @Override
+    protected void split(int from, int to) throws RowException {
+        int field = 0;
+        int position = from;
+        while (true) {
+            int column = field < columnOfField.length ? columnOfField[field] : -1;
+            int end;
+            if (position < to && line[position] == '"') {
+                int start = position + 1;
+                boolean quotes = false;
+                int index = start;
+                while (true) {
+                    if (index >= to) {
+                        throw new RowException("Unterminated quoted field");
+                    }
+                    if (line[index] == '"') {
+                        if (index + 1 < to && line[index + 1] == '"') {
+                            quotes = true;
+                            index += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    index++;
+                }
+                if (column >= 0) {
+                    starts[column] = start;
+                    ends[column] = index;
+                    escaped[column] = quotes;
+                }
+                end = index + 1;
+                if (end < to && line[end] != ',') {
+                    throw new RowException("Unexpected character after quoted field");
+                }
+            } else {
+                end = position;
+                while (end < to && line[end] != ',') {
+                    end++;
+                }
+                if (column >= 0) {
+                    starts[column] = position;
+                    ends[column] = end;
+                    escaped[column] = false;
+                }
+            }
+            if (end >= to) {
+                return;
+            }
+            position = end + 1;
+            field++;
+        }
+    }
+
+    @Override
+    protected int unescape(int from, int to, byte[] target) {
+        int length = 0;
+        for (int index = from; index < to; index++) {
+            target[length++] = line[index];
+            if (line[index] == '"') {
+                index++;
+            }
+        }
+        return length;
+    }
+
+    private List<int[]> fields(byte[] buffer, int from, int to) {
+        List<int[]> spans = new ArrayList<>();
+        line = buffer;
+        int position = from;
+        while (true) {
+            int end = position;
+            while (end < to && buffer[end] != ',') {
+                end++;
+            }
+            if (end > position + 1 && buffer[position] == '"' && buffer[end - 1] == '"') {
+                spans.add(new int[] { position + 1, end - 1 });
+            } else {
+                spans.add(new int[] { position, end });
+            }
+            if (end >= to) {
+                return spans;
+            }
+            position = end + 1;
+        }
+    }
+}
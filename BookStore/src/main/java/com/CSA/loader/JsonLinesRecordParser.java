@@ -0,0 +1,194 @@
+package com.CSA.loader;
+
+/**
+ * Parses newline-delimited JSON, one flat object per line, keyed by the JSON property names of
+ * the entity. Values of unknown keys are skipped, including nested objects and arrays; null
+ * counts as absent.
+ */
+class JsonLinesRecordParser extends RecordParser {
+
+    /**
+     * Creates a parser for objects with the given property names.
+     *
+     * @param columns The known property names
+     */
+    JsonLinesRecordParser(String[] columns) {
+        super(columns);
+    }
+
+    @Override
+    protected void split(int from, int to) throws RowException {
+        int position = skipWhitespace(from, to);
+        if (position >= to || line[position] != '{') {
+            throw new RowException("Expected a JSON object");
+        }
+        position = skipWhitespace(position + 1, to);
+        if (position < to && line[position] == '}') {
+            return;
+        }
+        while (true) {
+            if (position >= to || line[position] != '"') {
+                throw new RowException("Expected a property name");
+            }
+            int keyEnd = endOfString(position + 1, to);
+            int column = columnIndex(line, position + 1, keyEnd);
+            position = skipWhitespace(keyEnd + 1, to);
+            if (position >= to || line[position] != ':') {
+                throw new RowException("Expected ':' after property name");
+            }
+            position = skipWhitespace(position + 1, to);
+            if (position >= to) {
+                throw new RowException("Missing property value");
+            }
+            int valueEnd;
+            byte first = line[position];
+            if (first == '"') {
+                valueEnd = endOfString(position + 1, to);
+                if (column >= 0) {
+                    starts[column] = position + 1;
+                    ends[column] = valueEnd;
+                    escaped[column] = containsBackslash(position + 1, valueEnd);
+                }
+                valueEnd++;
+            } else if (first == '{' || first == '[') {
+                valueEnd = endOfNested(position, to);
+            } else {
+                valueEnd = position;
+                while (valueEnd < to && line[valueEnd] != ',' && line[valueEnd] != '}'
+                        && line[valueEnd] != ' ' && line[valueEnd] != '\t') {
+                    valueEnd++;
+                }
+                boolean isNull = valueEnd - position == 4 && first == 'n';
+                if (column >= 0 && !isNull) {
+                    starts[column] = position;
+                    ends[column] = valueEnd;
+                    escaped[column] = false;
+                }
+            }
+            position = skipWhitespace(valueEnd, to);
+            if (position >= to) {
+                throw new RowException("Unterminated JSON object");
+            }
+            if (line[position] == '}') {
+                return;
+            }
+            if (line[position] != ',') {
+                throw new RowException("Expected ',' or '}'");
+            }
+            position = skipWhitespace(position + 1, to);
+        }
+    }
+
+    @Override
+    protected int unescape(int from, int to, byte[] target) throws RowException {
+        int length = 0;
+        for (int index = from; index < to; index++) {
+            byte b = line[index];
+            if (b != '\\') {
+                target[length++] = b;
+                continue;
+            }
+            index++;
+            switch (line[index]) {
+                case 'b': target[length++] = '\b'; break;
+                case 'f': target[length++] = '\f'; break;
+                case 'n': target[length++] = '\n'; break;
+                case 'r': target[length++] = '\r'; break;
+                case 't': target[length++] = '\t'; break;
+                case 'u':
+                    int codePoint = hex(index + 1, to);
+                    index += 4;
+                    // A surrogate pair is two escapes; combine them into one code point
+                    if (Character.isHighSurrogate((char) codePoint) && index + 6 < to
+                            && line[index + 1] == '\\' && line[index + 2] == 'u') {
+                        int low = hex(index + 3, to);
+                        if (Character.isLowSurrogate((char) low)) {
+                            codePoint = Character.toCodePoint((char) codePoint, (char) low);
+                            index += 6;
+                        }
+                    }
+                    length = writeUtf8(codePoint, target, length);
+                    break;
+                default: target[length++] = line[index]; break;
+            }
+        }
+        return length;
+    }
+
+    private int hex(int from, int to) throws RowException {
+        if (from + 4 > to) {
+            throw new RowException("Truncated unicode escape");
+        }
+        int value = 0;
+        for (int index = from; index < from + 4; index++) {
+            int digit = Character.digit(line[index], 16);
+            if (digit < 0) {
+                throw new RowException("Invalid unicode escape");
+            }
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+
+    private static int writeUtf8(int codePoint, byte[] target, int length) {
+        // An escape takes at least as many bytes as its UTF-8 encoding, so the target is large enough
+        if (codePoint < 0x80) {
+            target[length++] = (byte) codePoint;
+        } else if (codePoint < 0x800) {
+            target[length++] = (byte) (0xC0 | codePoint >> 6);
+            target[length++] = (byte) (0x80 | codePoint & 0x3F);
+        } else if (codePoint < 0x10000) {
+            target[length++] = (byte) (0xE0 | codePoint >> 12);
+            target[length++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+            target[length++] = (byte) (0x80 | codePoint & 0x3F);
+        } else {
+            target[length++] = (byte) (0xF0 | codePoint >> 18);
+            target[length++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+            target[length++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+            target[length++] = (byte) (0x80 | codePoint & 0x3F);
+        }
+        return length;
+    }
+
+    private int skipWhitespace(int from, int to) {
+        while (from < to && (line[from] == ' ' || line[from] == '\t' || line[from] == '\r')) {
+            from++;
+        }
+        return from;
+    }
+
+    private int endOfString(int from, int to) throws RowException {
+        for (int index = from; index < to; index++) {
+            if (line[index] == '\\') {
+                index++;
+            } else if (line[index] == '"') {
+                return index;
+            }
+        }
+        throw new RowException("Unterminated string");
+    }
+
+    private int endOfNested(int from, int to) throws RowException {
+        int depth = 0;
+        for (int index = from; index < to; index++) {
+            byte b = line[index];
+            if (b == '"') {
+                index = endOfString(index + 1, to);
+            } else if (b == '{' || b == '[') {
+                depth++;
+            } else if ((b == '}' || b == ']') && --depth == 0) {
+                return index + 1;
+            }
+        }
+        throw new RowException("Unterminated nested value");
+    }
+
+    private boolean containsBackslash(int from, int to) {
+        for (int index = from; index < to; index++) {
+            if (line[index] == '\\') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
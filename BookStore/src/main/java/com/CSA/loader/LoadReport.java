@@ -0,0 +1,120 @@
+package com.CSA.loader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a catalog load: row counts, rejected rows with their first few reasons, and the
+ * time and throughput of each phase.
+ */
+public class LoadReport {
+
+    private static final int MAX_REJECTIONS_KEPT = 20;
+
+    private long authorsLoaded;
+    private long booksLoaded;
+    private long rowsRejected;
+    private final List<String> rejections = new ArrayList<>();
+    private final Map<String, Long> phaseNanos = new LinkedHashMap<>();
+    private final Map<String, Long> phaseRows = new LinkedHashMap<>();
+    private boolean applied;
+
+    synchronized void addRejections(long count, List<String> reasons) {
+        rowsRejected += count;
+        for (String reason : reasons) {
+            if (rejections.size() >= MAX_REJECTIONS_KEPT) {
+                break;
+            }
+            rejections.add(reason);
+        }
+    }
+
+    synchronized void recordPhase(String phase, long rows, long nanos) {
+        phaseRows.put(phase, rows);
+        phaseNanos.put(phase, nanos);
+    }
+
+    void setAuthorsLoaded(long authorsLoaded) {
+        this.authorsLoaded = authorsLoaded;
+    }
+
+    void setBooksLoaded(long booksLoaded) {
+        this.booksLoaded = booksLoaded;
+    }
+
+    void setApplied(boolean applied) {
+        this.applied = applied;
+    }
+
+    /**
+     * Gets the number of valid author rows, loaded into the store unless this was a dry run.
+     *
+     * @return The author count
+     */
+    public long getAuthorsLoaded() {
+        return authorsLoaded;
+    }
+
+    /**
+     * Gets the number of valid book rows, loaded into the store unless this was a dry run.
+     *
+     * @return The book count
+     */
+    public long getBooksLoaded() {
+        return booksLoaded;
+    }
+
+    /**
+     * Gets the number of rows rejected as malformed or invalid.
+     *
+     * @return The rejected row count
+     */
+    public synchronized long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    /**
+     * Gets the reasons for the first rejected rows, with the file and byte offset of each row.
+     *
+     * @return Up to twenty rejection messages
+     */
+    public synchronized List<String> getRejections() {
+        return Collections.unmodifiableList(new ArrayList<>(rejections));
+    }
+
+    /**
+     * Gets the report as a map: counts, then per phase the rows handled, milliseconds taken and
+     * rows per second.
+     *
+     * @return A map of names to values
+     */
+    public synchronized Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("applied", applied);
+        map.put("authorsLoaded", authorsLoaded);
+        map.put("booksLoaded", booksLoaded);
+        map.put("rowsRejected", rowsRejected);
+        for (Map.Entry<String, Long> phase : phaseNanos.entrySet()) {
+            long rows = phaseRows.get(phase.getKey());
+            Map<String, Object> phaseStats = new LinkedHashMap<>();
+            phaseStats.put("rows", rows);
+            phaseStats.put("millis", phase.getValue() / 1_000_000);
+            phaseStats.put("rowsPerSecond", rowsPerSecond(rows, phase.getValue()));
+            map.put(phase.getKey(), phaseStats);
+        }
+        map.put("rejections", new ArrayList<>(rejections));
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+
+    static long rowsPerSecond(long rows, long nanos) {
+        return nanos <= 0 ? 0 : Math.round(rows * 1e9 / nanos);
+    }
+}
@@ -0,0 +1,196 @@
+package com.CSA.loader;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Splits one line of a catalog dump into column values without creating intermediate objects.
+ * A parse records, for each known column, where its raw value lies in the line buffer; numbers
+ * are then read straight from the bytes and only text columns become Strings. One parser is used
+ * by one thread and reused for every line of its chunk.
+ */
+abstract class RecordParser {
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    protected final String[] columns;
+    protected final int[] starts;
+    protected final int[] ends;
+    protected final boolean[] escaped;
+    protected byte[] line;
+
+    private byte[] scratch = new byte[256];
+
+    /**
+     * Creates a parser for the given columns.
+     *
+     * @param columns The column names, in the order callers refer to them by index
+     */
+    RecordParser(String[] columns) {
+        this.columns = columns;
+        this.starts = new int[columns.length];
+        this.ends = new int[columns.length];
+        this.escaped = new boolean[columns.length];
+    }
+
+    /**
+     * Parses one line, replacing the values of the previous line.
+     *
+     * @param buffer The buffer holding the line
+     * @param from The offset of the first byte of the line
+     * @param to The offset just past the line, excluding the line terminator
+     * @throws RowException If the line is malformed
+     */
+    final void parse(byte[] buffer, int from, int to) throws RowException {
+        line = buffer;
+        for (int column = 0; column < columns.length; column++) {
+            starts[column] = -1;
+        }
+        split(from, to);
+    }
+
+    /**
+     * Records the value spans of the line in {@link #starts}, {@link #ends} and {@link #escaped}.
+     */
+    protected abstract void split(int from, int to) throws RowException;
+
+    /**
+     * Removes the escaping of a value into the scratch buffer.
+     *
+     * @return The number of unescaped bytes
+     */
+    protected abstract int unescape(int from, int to, byte[] target) throws RowException;
+
+    /**
+     * Checks whether a column has a non-empty value in the current line.
+     */
+    final boolean has(int column) {
+        return starts[column] >= 0 && ends[column] > starts[column];
+    }
+
+    /**
+     * Reads a text column.
+     *
+     * @return The value, or null if absent or empty
+     */
+    final String text(int column) throws RowException {
+        if (!has(column)) {
+            return null;
+        }
+        int from = starts[column];
+        int to = ends[column];
+        if (!escaped[column]) {
+            return new String(line, from, to - from, StandardCharsets.UTF_8);
+        }
+        if (scratch.length < to - from) {
+            scratch = new byte[Math.max(to - from, scratch.length * 2)];
+        }
+        int length = unescape(from, to, scratch);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads an integer column.
+     *
+     * @param missing The value to return if the column is absent or empty
+     * @return The value
+     */
+    final int integer(int column, int missing) throws RowException {
+        if (!has(column)) {
+            return missing;
+        }
+        int from = starts[column];
+        int to = ends[column];
+        boolean negative = line[from] == '-';
+        int index = negative || line[from] == '+' ? from + 1 : from;
+        if (index == to) {
+            throw new RowException(columns[column] + " is not a number");
+        }
+        long value = 0;
+        for (; index < to; index++) {
+            int digit = line[index] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new RowException(columns[column] + " is not a whole number");
+            }
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE + 1L) {
+                throw new RowException(columns[column] + " is out of range");
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new RowException(columns[column] + " is out of range");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Reads a decimal column. Plain decimals of up to 15 significant digits are converted
+     * exactly without allocating; anything else falls back to Double.parseDouble.
+     *
+     * @param missing The value to return if the column is absent or empty
+     * @return The value
+     */
+    final double decimal(int column, double missing) throws RowException {
+        if (!has(column)) {
+            return missing;
+        }
+        int from = starts[column];
+        int to = ends[column];
+        boolean negative = line[from] == '-';
+        int index = negative || line[from] == '+' ? from + 1 : from;
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean seenPoint = false;
+        boolean plain = index < to;
+        for (; index < to && plain; index++) {
+            byte b = line[index];
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (seenPoint) {
+                    fractionDigits++;
+                }
+            } else if (b == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                plain = false;
+            }
+        }
+        // Both the mantissa and the power of ten are exact doubles, so one division rounds correctly
+        if (plain && digits > 0 && digits <= 15 && fractionDigits < POWERS_OF_TEN.length) {
+            double value = mantissa / POWERS_OF_TEN[fractionDigits];
+            return negative ? -value : value;
+        }
+        try {
+            return Double.parseDouble(new String(line, from, to - from, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            throw new RowException(columns[column] + " is not a number");
+        }
+    }
+
+    /**
+     * Finds the column with the given name.
+     *
+     * @return The column index, or -1 if the name is not a known column
+     */
+    final int columnIndex(byte[] buffer, int from, int to) {
+        for (int column = 0; column < columns.length; column++) {
+            String name = columns[column];
+            if (name.length() != to - from) {
+                continue;
+            }
+            boolean equal = true;
+            for (int i = 0; i < name.length() && equal; i++) {
+                equal = buffer[from + i] == name.charAt(i);
+            }
+            if (equal) {
+                return column;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,19 @@
+package com.CSA.loader;
+
+/**
+ * Thrown when one row of a catalog dump is malformed or invalid. The row is rejected and
+ * loading continues. Carries no stack trace, since rejected rows can be numerous.
+ */
+class RowException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates an exception for a rejected row.
+     *
+     * @param message Why the row was rejected
+     */
+    RowException(String message) {
+        super(message, null, false, false);
+    }
+}
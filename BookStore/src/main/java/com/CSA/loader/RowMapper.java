@@ -0,0 +1,25 @@
+package com.CSA.loader;
+
+/**
+ * Turns the values of one parsed row into an entity, validating them as the REST API would.
+ *
+ * @param <T> The entity type
+ */
+interface RowMapper<T> {
+
+    /**
+     * Gets the column names, which are the entity's JSON property names.
+     *
+     * @return The columns, in the order {@link #map} refers to them by index
+     */
+    String[] columns();
+
+    /**
+     * Builds the entity for the current row of a parser.
+     *
+     * @param row The parser positioned on the row
+     * @return The entity
+     * @throws RowException If a value is missing or invalid
+     */
+    T map(RecordParser row) throws RowException;
+}
@@ -0,0 +1,84 @@
+package com.CSA.model;
+
+/**
+ * Represents one sub-request of a batch: a method and a path relative to the API root, with an
+ * optional client-chosen ID that is echoed back with its result.
+ */
+public class BatchOperation {
+    private String id;
+    private String method;
+    private String path;
+
+    /**
+     * Default constructor for BatchOperation.
+     */
+    public BatchOperation() {
+    }
+
+    /**
+     * Parameterized constructor for BatchOperation.
+     * 
+     * @param id The client-chosen ID of the sub-request
+     * @param method The HTTP method
+     * @param path The path relative to the API root, such as /books/12
+     */
+    public BatchOperation(String id, String method, String path) {
+        this.id = id;
+        this.method = method;
+        this.path = path;
+    }
+
+    /**
+     * Gets the client-chosen ID of the sub-request.
+     * 
+     * @return The ID, or null if none was given
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Sets the client-chosen ID of the sub-request.
+     * 
+     * @param id The ID to set
+     */
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Gets the HTTP method.
+     * 
+     * @return The method
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Sets the HTTP method.
+     * 
+     * @param method The method to set
+     */
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    /**
+     * Gets the path relative to the API root.
+     * 
+     * @return The path, possibly with a query string
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Sets the path relative to the API root.
+     * 
+     * @param path The path to set
+     */
+    public void setPath(String path) {
+        this.path = path;
+    }
+}
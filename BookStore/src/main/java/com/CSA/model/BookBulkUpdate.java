@@ -0,0 +1,169 @@
+package com.CSA.model;
+
+import java.util.List;
+
+/**
+ * Represents a bulk change to the books matching all of the given criteria: an author, a range of
+ * publication years, a list of IDs, or every book. The change sets or scales the price, adjusts
+ * the stock, or both.
+ */
+public class BookBulkUpdate {
+    private Boolean all;
+    private Integer authorId;
+    private Integer fromYear;
+    private Integer toYear;
+    private List<Integer> ids;
+    private Double setPrice;
+    private Double scalePrice;
+    private Integer adjustStock;
+
+    /**
+     * Default constructor for BookBulkUpdate.
+     */
+    public BookBulkUpdate() {
+    }
+
+    /**
+     * Gets whether the change is meant for every book, such as a catalog-wide sale.
+     * 
+     * @return Whether every book matches
+     */
+    public Boolean getAll() {
+        return all;
+    }
+
+    /**
+     * Sets whether the change is meant for every book, such as a catalog-wide sale.
+     * 
+     * @param all The value to set
+     */
+    public void setAll(Boolean all) {
+        this.all = all;
+    }
+
+    /**
+     * Gets the ID of the author whose books match.
+     * 
+     * @return The author ID, or null for any author
+     */
+    public Integer getAuthorId() {
+        return authorId;
+    }
+
+    /**
+     * Sets the ID of the author whose books match.
+     * 
+     * @param authorId The value to set
+     */
+    public void setAuthorId(Integer authorId) {
+        this.authorId = authorId;
+    }
+
+    /**
+     * Gets the earliest matching publication year.
+     * 
+     * @return The earliest year, or null for no lower bound
+     */
+    public Integer getFromYear() {
+        return fromYear;
+    }
+
+    /**
+     * Sets the earliest matching publication year.
+     * 
+     * @param fromYear The value to set
+     */
+    public void setFromYear(Integer fromYear) {
+        this.fromYear = fromYear;
+    }
+
+    /**
+     * Gets the latest matching publication year.
+     * 
+     * @return The latest year, or null for no upper bound
+     */
+    public Integer getToYear() {
+        return toYear;
+    }
+
+    /**
+     * Sets the latest matching publication year.
+     * 
+     * @param toYear The value to set
+     */
+    public void setToYear(Integer toYear) {
+        this.toYear = toYear;
+    }
+
+    /**
+     * Gets the IDs of the matching books.
+     * 
+     * @return The book IDs, or null for any book
+     */
+    public List<Integer> getIds() {
+        return ids;
+    }
+
+    /**
+     * Sets the IDs of the matching books.
+     * 
+     * @param ids The value to set
+     */
+    public void setIds(List<Integer> ids) {
+        this.ids = ids;
+    }
+
+    /**
+     * Gets the new price of every matching book.
+     * 
+     * @return The new price, or null to leave prices alone or scale them
+     */
+    public Double getSetPrice() {
+        return setPrice;
+    }
+
+    /**
+     * Sets the new price of every matching book.
+     * 
+     * @param setPrice The value to set
+     */
+    public void setSetPrice(Double setPrice) {
+        this.setPrice = setPrice;
+    }
+
+    /**
+     * Gets the factor every matching price is multiplied by, such as 0.9 for 10% off.
+     * 
+     * @return The factor, or null to leave prices alone or set them
+     */
+    public Double getScalePrice() {
+        return scalePrice;
+    }
+
+    /**
+     * Sets the factor every matching price is multiplied by, such as 0.9 for 10% off.
+     * 
+     * @param scalePrice The value to set
+     */
+    public void setScalePrice(Double scalePrice) {
+        this.scalePrice = scalePrice;
+    }
+
+    /**
+     * Gets the amount added to the stock of every matching book, negative to remove stock.
+     * 
+     * @return The stock adjustment, or null to leave stock alone
+     */
+    public Integer getAdjustStock() {
+        return adjustStock;
+    }
+
+    /**
+     * Sets the amount added to the stock of every matching book, negative to remove stock.
+     * 
+     * @param adjustStock The value to set
+     */
+    public void setAdjustStock(Integer adjustStock) {
+        this.adjustStock = adjustStock;
+    }
+}
@@ -1,5 +1,7 @@
 package com.CSA.model;
 
+import jakarta.json.bind.annotation.JsonbTransient;
+
 import java.util.HashMap;
 import java.util.Map;
 
@@ -9,12 +11,15 @@ import java.util.Map;
 public class Cart {
     private int customerId;
     private Map<Integer, Integer> items; // Maps bookId → quantity
+    private long lastTouchedMillis; // Guarded by the cart's lock, like items
+    private boolean expired;
 
     /**
      * Default constructor for Cart.
      */
     public Cart() {
         this.items = new HashMap<>();
+        this.lastTouchedMillis = System.currentTimeMillis();
     }
 
     /**
@@ -25,6 +30,7 @@ public class Cart {
     public Cart(int customerId) {
         this.customerId = customerId;
         this.items = new HashMap<>();
+        this.lastTouchedMillis = System.currentTimeMillis();
     }
 
     /**
@@ -91,6 +97,40 @@ public class Cart {
         return items;
     }
 
+    /**
+     * Gets the time the cart was last used.
+     * 
+     * @return The last use as epoch milliseconds
+     */
+    @JsonbTransient
+    public long getLastTouchedMillis() {
+        return lastTouchedMillis;
+    }
+
+    /**
+     * Records that the cart is being used now.
+     */
+    public void touch() {
+        this.lastTouchedMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Checks whether the cart has expired and been removed from the store.
+     * 
+     * @return true if the cart must no longer be used
+     */
+    @JsonbTransient
+    public boolean isExpired() {
+        return expired;
+    }
+
+    /**
+     * Marks the cart as expired.
+     */
+    public void markExpired() {
+        this.expired = true;
+    }
+
     /**
      * Returns a string representation of the Cart object.
      * 
@@ -0,0 +1,75 @@
+package com.CSA.model;
+
+/**
+ * Represents a book and quantity sent when adding to or updating a cart.
+ */
+public class CartItem {
+    private int bookId;
+    private int quantity;
+
+    /**
+     * Default constructor for CartItem.
+     */
+    public CartItem() {
+    }
+
+    /**
+     * Parameterized constructor for CartItem.
+     * 
+     * @param bookId The ID of the book
+     * @param quantity The quantity of the book
+     */
+    public CartItem(int bookId, int quantity) {
+        this.bookId = bookId;
+        this.quantity = quantity;
+    }
+
+    /**
+     * Gets the ID of the book.
+     * 
+     * @return The book ID
+     */
+    public int getBookId() {
+        return bookId;
+    }
+
+    /**
+     * Sets the ID of the book.
+     * 
+     * @param bookId The book ID to set
+     */
+    public void setBookId(int bookId) {
+        this.bookId = bookId;
+    }
+
+    /**
+     * Gets the quantity of the book.
+     * 
+     * @return The quantity
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * Sets the quantity of the book.
+     * 
+     * @param quantity The quantity to set
+     */
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    /**
+     * Returns a string representation of the CartItem object.
+     * 
+     * @return String representation of the CartItem
+     */
+    @Override
+    public String toString() {
+        return "CartItem{" +
+                "bookId=" + bookId +
+                ", quantity=" + quantity +
+                '}';
+    }
+}
@@ -1,5 +1,7 @@
 package com.CSA.model;
 
+import jakarta.json.bind.annotation.JsonbTransient;
+
 /**
  * Represents a customer in the bookstore system.
  */
@@ -85,10 +87,11 @@ public class Customer {
     }
 
     /**
-     * Gets the password of the customer.
+     * Gets the password of the customer. Never serialized, so responses cannot leak it.
      * 
      * @return The customer password
      */
+    @JsonbTransient
     public String getPassword() {
         return password;
     }
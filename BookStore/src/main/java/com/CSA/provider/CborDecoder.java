@@ -0,0 +1,293 @@
+package com.CSA.provider;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal streaming CBOR (RFC 8949) decoder matching {@link CborEncoder}.
+ * Accepts integers, float16/32/64, text strings, null, and definite-length arrays and maps;
+ * anything else is rejected as malformed input. Lengths and counts come from the wire, so each is
+ * checked against the bytes the input can still hold before anything is sized from it, and
+ * nesting is bounded; a hostile header cannot make the decoder allocate or recurse without limit.
+ */
+public class CborDecoder {
+
+    /** Marker returned by {@link #readHeader()} when the next item is null. */
+    public static final int TYPE_NULL = -1;
+    /** Major type of unsigned integers. */
+    public static final int TYPE_UNSIGNED = 0;
+    /** Major type of negative integers. */
+    public static final int TYPE_NEGATIVE = 1;
+    /** Major type of text strings. */
+    public static final int TYPE_TEXT = 3;
+    /** Major type of arrays. */
+    public static final int TYPE_ARRAY = 4;
+    /** Major type of maps. */
+    public static final int TYPE_MAP = 5;
+    /** Major type of floats and simple values. */
+    public static final int TYPE_FLOAT = 7;
+
+    private static final int MAX_DEPTH = 64;
+    private static final int CHUNK_SIZE = 8192;
+
+    private final InputStream in;
+    private final long limit;
+    private long position;
+    private int depth;
+    private int peekedType = Integer.MIN_VALUE;
+    private long peekedArgument;
+
+    /**
+     * Creates a decoder reading from a stream.
+     *
+     * @param in The stream to read from; it is not closed by this decoder
+     * @param limit The most bytes the input may hold, at most {@link Integer#MAX_VALUE}; reading
+     *        past it, or a length or count that would need more than is left, is malformed input
+     */
+    public CborDecoder(InputStream in, long limit) {
+        this.in = in;
+        this.limit = Math.min(limit, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads the header of the next item without consuming its content.
+     * For floats the argument holds the raw bits widened to a double's bits.
+     *
+     * @return The major type, or {@link #TYPE_NULL}
+     * @throws IOException If the input is malformed or ends early
+     */
+    public int readHeader() throws IOException {
+        if (peekedType != Integer.MIN_VALUE) {
+            return peekedType;
+        }
+        int initial = readByte();
+        int major = initial >>> 5;
+        int info = initial & 0x1f;
+        if (initial == 0xf6) {
+            peekedType = TYPE_NULL;
+            return peekedType;
+        }
+        if (major == TYPE_FLOAT) {
+            peekedArgument = readFloatBits(info);
+        } else if (major == TYPE_UNSIGNED || major == TYPE_NEGATIVE) {
+            peekedArgument = readArgument(info);
+        } else if (major == TYPE_TEXT || major == TYPE_ARRAY || major == TYPE_MAP) {
+            // Every character, item or key and value takes at least one byte of what is left
+            long length = readArgument(info);
+            long needed = major == TYPE_MAP ? length * 2 : length;
+            if (length < 0 || needed < 0 || needed > limit - position) {
+                throw new IOException("CBOR length " + Long.toUnsignedString(length) + " exceeds the input");
+            }
+            peekedArgument = length;
+        } else {
+            throw new IOException("Unsupported CBOR major type " + major);
+        }
+        peekedType = major;
+        return peekedType;
+    }
+
+    /**
+     * Reads an array header.
+     *
+     * @return The number of items
+     * @throws IOException If the next item is not an array
+     */
+    public int readArrayHeader() throws IOException {
+        return (int) expect(TYPE_ARRAY);
+    }
+
+    /**
+     * Reads a map header.
+     *
+     * @return The number of key/value pairs
+     * @throws IOException If the next item is not a map
+     */
+    public int readMapHeader() throws IOException {
+        return (int) expect(TYPE_MAP);
+    }
+
+    /**
+     * Reads an integer.
+     *
+     * @return The value
+     * @throws IOException If the next item is not an integer
+     */
+    public long readLong() throws IOException {
+        int type = readHeader();
+        if (type == TYPE_UNSIGNED) {
+            return consume();
+        }
+        if (type == TYPE_NEGATIVE) {
+            return -1 - consume();
+        }
+        if (type == TYPE_FLOAT) {
+            return (long) Double.longBitsToDouble(consume());
+        }
+        throw new IOException("Expected an integer");
+    }
+
+    /**
+     * Reads a number as a double.
+     *
+     * @return The value
+     * @throws IOException If the next item is not a number
+     */
+    public double readDouble() throws IOException {
+        int type = readHeader();
+        if (type == TYPE_FLOAT) {
+            return Double.longBitsToDouble(consume());
+        }
+        return readLong();
+    }
+
+    /**
+     * Reads a text string or null.
+     *
+     * @return The value, or null
+     * @throws IOException If the next item is not a text string or null
+     */
+    public String readString() throws IOException {
+        if (readHeader() == TYPE_NULL) {
+            consume();
+            return null;
+        }
+        int length = (int) expect(TYPE_TEXT);
+        if (length <= CHUNK_SIZE) {
+            byte[] bytes = new byte[length];
+            readFully(bytes, length);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        // Grow with the bytes that actually arrive rather than trusting the declared length
+        ByteArrayOutputStream text = new ByteArrayOutputStream(CHUNK_SIZE);
+        byte[] chunk = new byte[CHUNK_SIZE];
+        for (int left = length; left > 0; left -= CHUNK_SIZE) {
+            int count = Math.min(left, CHUNK_SIZE);
+            readFully(chunk, count);
+            text.write(chunk, 0, count);
+        }
+        return new String(text.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Skips the next item, including any nested items.
+     *
+     * @throws IOException If the input is malformed
+     */
+    public void skip() throws IOException {
+        int type = readHeader();
+        long argument = consume();
+        if (type == TYPE_TEXT) {
+            for (long i = 0; i < argument; i++) {
+                readByte();
+            }
+            return;
+        }
+        if (type != TYPE_ARRAY && type != TYPE_MAP) {
+            return;
+        }
+        if (depth == MAX_DEPTH) {
+            throw new IOException("CBOR items nested deeper than " + MAX_DEPTH);
+        }
+        depth++;
+        try {
+            long items = type == TYPE_MAP ? argument * 2 : argument;
+            for (long i = 0; i < items; i++) {
+                skip();
+            }
+        } finally {
+            depth--;
+        }
+    }
+
+    private long expect(int type) throws IOException {
+        if (readHeader() != type) {
+            throw new IOException("Expected CBOR major type " + type + " but found " + peekedType);
+        }
+        return consume();
+    }
+
+    private long consume() {
+        peekedType = Integer.MIN_VALUE;
+        return peekedArgument;
+    }
+
+    private long readArgument(int info) throws IOException {
+        if (info < 24) {
+            return info;
+        }
+        switch (info) {
+            case 24:
+                return readByte();
+            case 25:
+                return readBytes(2);
+            case 26:
+                return readBytes(4);
+            case 27:
+                return readBytes(8);
+            default:
+                throw new IOException("Indefinite-length CBOR items are not supported");
+        }
+    }
+
+    private long readFloatBits(int info) throws IOException {
+        switch (info) {
+            case 25:
+                return Double.doubleToLongBits(halfToDouble((int) readBytes(2)));
+            case 26:
+                return Double.doubleToLongBits(Float.intBitsToFloat((int) readBytes(4)));
+            case 27:
+                return readBytes(8);
+            default:
+                throw new IOException("Unsupported CBOR simple value " + info);
+        }
+    }
+
+    private static double halfToDouble(int half) {
+        int exponent = (half >>> 10) & 0x1f;
+        int mantissa = half & 0x3ff;
+        double value;
+        if (exponent == 0) {
+            value = mantissa * Math.pow(2, -24);
+        } else if (exponent == 31) {
+            value = mantissa == 0 ? Double.POSITIVE_INFINITY : Double.NaN;
+        } else {
+            value = (mantissa + 1024) * Math.pow(2, exponent - 25);
+        }
+        return (half & 0x8000) != 0 ? -value : value;
+    }
+
+    private long readBytes(int count) throws IOException {
+        long value = 0;
+        for (int i = 0; i < count; i++) {
+            value = (value << 8) | readByte();
+        }
+        return value;
+    }
+
+    private int readByte() throws IOException {
+        if (position == limit) {
+            throw new IOException("CBOR input exceeds " + limit + " bytes");
+        }
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException("Truncated CBOR input");
+        }
+        position++;
+        return b;
+    }
+
+    private void readFully(byte[] bytes, int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            int n = in.read(bytes, read, length - read);
+            if (n < 0) {
+                throw new EOFException("Truncated CBOR text string");
+            }
+            read += n;
+        }
+        position += length;
+    }
+}
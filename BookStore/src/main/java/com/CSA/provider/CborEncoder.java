@@ -0,0 +1,160 @@
+package com.CSA.provider;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal streaming CBOR (RFC 8949) encoder for the subset the catalog formats use:
+ * integers, float64, text strings, null, and definite-length arrays and maps.
+ * Output is staged in a small reusable buffer to keep writes to the entity stream coarse.
+ */
+public class CborEncoder {
+
+    private static final int MAJOR_UNSIGNED = 0;
+    private static final int MAJOR_NEGATIVE = 1;
+    private static final int MAJOR_TEXT = 3;
+    private static final int MAJOR_ARRAY = 4;
+    private static final int MAJOR_MAP = 5;
+    private static final int FLOAT64 = 0xfb;
+    private static final int NULL = 0xf6;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[8192];
+    private int position;
+
+    /**
+     * Creates an encoder writing to a stream.
+     *
+     * @param out The stream to write to; it is not closed by this encoder
+     */
+    public CborEncoder(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes the header of an array with a known number of items.
+     *
+     * @param size The number of items that follow
+     * @throws IOException If writing fails
+     */
+    public void writeArrayHeader(int size) throws IOException {
+        writeHeader(MAJOR_ARRAY, size);
+    }
+
+    /**
+     * Writes the header of a map with a known number of key/value pairs.
+     *
+     * @param size The number of pairs that follow
+     * @throws IOException If writing fails
+     */
+    public void writeMapHeader(int size) throws IOException {
+        writeHeader(MAJOR_MAP, size);
+    }
+
+    /**
+     * Writes an integer.
+     *
+     * @param value The value
+     * @throws IOException If writing fails
+     */
+    public void writeInt(long value) throws IOException {
+        if (value >= 0) {
+            writeHeader(MAJOR_UNSIGNED, value);
+        } else {
+            writeHeader(MAJOR_NEGATIVE, -1 - value);
+        }
+    }
+
+    /**
+     * Writes a double as a float64.
+     *
+     * @param value The value
+     * @throws IOException If writing fails
+     */
+    public void writeDouble(double value) throws IOException {
+        ensure(9);
+        buffer[position++] = (byte) FLOAT64;
+        putLong(Double.doubleToLongBits(value));
+    }
+
+    /**
+     * Writes a text string, or null.
+     *
+     * @param value The value
+     * @throws IOException If writing fails
+     */
+    public void writeString(String value) throws IOException {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeHeader(MAJOR_TEXT, bytes.length);
+        if (bytes.length > buffer.length - position) {
+            flush();
+            out.write(bytes);
+        } else {
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+    }
+
+    /**
+     * Writes a null.
+     *
+     * @throws IOException If writing fails
+     */
+    public void writeNull() throws IOException {
+        ensure(1);
+        buffer[position++] = (byte) NULL;
+    }
+
+    /**
+     * Writes any staged bytes to the stream.
+     *
+     * @throws IOException If writing fails
+     */
+    public void flush() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    private void writeHeader(int major, long argument) throws IOException {
+        ensure(9);
+        int type = major << 5;
+        if (argument < 24) {
+            buffer[position++] = (byte) (type | argument);
+        } else if (argument < 0x100) {
+            buffer[position++] = (byte) (type | 24);
+            buffer[position++] = (byte) argument;
+        } else if (argument < 0x10000) {
+            buffer[position++] = (byte) (type | 25);
+            buffer[position++] = (byte) (argument >>> 8);
+            buffer[position++] = (byte) argument;
+        } else if (argument < 0x100000000L) {
+            buffer[position++] = (byte) (type | 26);
+            buffer[position++] = (byte) (argument >>> 24);
+            buffer[position++] = (byte) (argument >>> 16);
+            buffer[position++] = (byte) (argument >>> 8);
+            buffer[position++] = (byte) argument;
+        } else {
+            buffer[position++] = (byte) (type | 27);
+            putLong(argument);
+        }
+    }
+
+    private void putLong(long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[position++] = (byte) (value >>> shift);
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.length - position < bytes) {
+            flush();
+        }
+    }
+}
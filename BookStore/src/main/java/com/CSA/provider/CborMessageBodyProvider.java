@@ -0,0 +1,291 @@
+package com.CSA.provider;
+
+import com.CSA.model.Author;
+import com.CSA.model.Book;
+import com.CSA.model.Order;
+
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyReader;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes {@link Book}, {@link Author} and {@link Order}, and collections of them, as
+ * CBOR (RFC 8949) under the {@value #APPLICATION_CBOR} media type.
+ * Each entity is a CBOR map keyed by the same property names as its JSON form, with integers as
+ * CBOR integers, prices and totals as float64, order dates as ISO-8601 text and order items as a
+ * map of book ID to quantity; collections are CBOR arrays. Unknown keys are skipped on read.
+ * Resources opt in by listing {@value #APPLICATION_CBOR} in their @Produces and @Consumes, so
+ * clients select it with Accept and Content-Type while JSON stays the default. Bodies are read
+ * up to their Content-Length and at most bookstore.cbor.maxBodyKB; malformed or oversized input,
+ * including lengths that claim more than that, is a 400.
+ */
+@Provider
+@Produces(CborMessageBodyProvider.APPLICATION_CBOR)
+@Consumes(CborMessageBodyProvider.APPLICATION_CBOR)
+public class CborMessageBodyProvider implements MessageBodyWriter<Object>, MessageBodyReader<Object> {
+
+    /** The CBOR media type. */
+    public static final String APPLICATION_CBOR = "application/cbor";
+
+    private static final long MAX_BODY_BYTES = Long.getLong("bookstore.cbor.maxBodyKB", 16384L) << 10;
+
+    /** The CBOR media type. */
+    public static final MediaType APPLICATION_CBOR_TYPE = MediaType.valueOf(APPLICATION_CBOR);
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        // Resource methods returning Response are matched against Object before the entity is known,
+        // and collections lose their element type, so elements are checked as they are written
+        return isEntityType(type) || type == Object.class || Collection.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public void writeTo(Object entity, Class<?> type, Type genericType, Annotation[] annotations,
+                        MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream)
+            throws IOException {
+        CborEncoder encoder = new CborEncoder(entityStream);
+        if (entity instanceof Collection) {
+            Collection<?> items = (Collection<?>) entity;
+            encoder.writeArrayHeader(items.size());
+            for (Object item : items) {
+                writeEntity(encoder, item);
+            }
+        } else {
+            writeEntity(encoder, entity);
+        }
+        encoder.flush();
+    }
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return isEntityType(type) || elementTypeOf(type, genericType) != null;
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                           MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException {
+        CborDecoder decoder = new CborDecoder(entityStream, bodyLimit(httpHeaders));
+        try {
+            if (isEntityType(type)) {
+                return readEntity(decoder, type);
+            }
+            Class<?> elementType = elementTypeOf(type, genericType);
+            int size = decoder.readArrayHeader();
+            List<Object> items = new ArrayList<>(Math.min(size, 1024));
+            for (int i = 0; i < size; i++) {
+                items.add(readEntity(decoder, elementType));
+            }
+            return items;
+        } catch (IOException | DateTimeParseException e) {
+            throw new BadRequestException("Malformed CBOR entity: " + e.getMessage(), e);
+        }
+    }
+
+    // The declared Content-Length if it is smaller than the configured cap, so lengths are checked against it
+    private static long bodyLimit(MultivaluedMap<String, String> httpHeaders) {
+        String contentLength = httpHeaders == null ? null : httpHeaders.getFirst(HttpHeaders.CONTENT_LENGTH);
+        if (contentLength != null) {
+            try {
+                long declared = Long.parseLong(contentLength.trim());
+                if (declared >= 0 && declared < MAX_BODY_BYTES) {
+                    return declared;
+                }
+            } catch (NumberFormatException e) {
+                // Unusable; the cap still applies
+            }
+        }
+        return MAX_BODY_BYTES;
+    }
+
+    private static boolean isEntityType(Class<?> type) {
+        return type == Book.class || type == Author.class || type == Order.class;
+    }
+
+    private static Class<?> elementTypeOf(Class<?> type, Type genericType) {
+        if (!type.isAssignableFrom(ArrayList.class) || !(genericType instanceof ParameterizedType)) {
+            return null;
+        }
+        Type[] arguments = ((ParameterizedType) genericType).getActualTypeArguments();
+        if (arguments.length == 1 && arguments[0] instanceof Class && isEntityType((Class<?>) arguments[0])) {
+            return (Class<?>) arguments[0];
+        }
+        return null;
+    }
+
+    private static void writeEntity(CborEncoder encoder, Object entity) throws IOException {
+        if (entity instanceof Book) {
+            writeBook(encoder, (Book) entity);
+        } else if (entity instanceof Author) {
+            writeAuthor(encoder, (Author) entity);
+        } else if (entity instanceof Order) {
+            writeOrder(encoder, (Order) entity);
+        } else if (entity == null) {
+            encoder.writeNull();
+        } else {
+            throw new WebApplicationException("No CBOR mapping for " + entity.getClass().getSimpleName());
+        }
+    }
+
+    private static void writeBook(CborEncoder encoder, Book book) throws IOException {
+        encoder.writeMapHeader(7);
+        encoder.writeString("authorId");
+        encoder.writeInt(book.getAuthorId());
+        encoder.writeString("id");
+        encoder.writeInt(book.getId());
+        encoder.writeString("isbn");
+        encoder.writeString(book.getIsbn());
+        encoder.writeString("price");
+        encoder.writeDouble(book.getPrice());
+        encoder.writeString("publicationYear");
+        encoder.writeInt(book.getPublicationYear());
+        encoder.writeString("stockQuantity");
+        encoder.writeInt(book.getStockQuantity());
+        encoder.writeString("title");
+        encoder.writeString(book.getTitle());
+    }
+
+    private static void writeAuthor(CborEncoder encoder, Author author) throws IOException {
+        encoder.writeMapHeader(3);
+        encoder.writeString("biography");
+        encoder.writeString(author.getBiography());
+        encoder.writeString("id");
+        encoder.writeInt(author.getId());
+        encoder.writeString("name");
+        encoder.writeString(author.getName());
+    }
+
+    private static void writeOrder(CborEncoder encoder, Order order) throws IOException {
+        encoder.writeMapHeader(5);
+        encoder.writeString("customerId");
+        encoder.writeInt(order.getCustomerId());
+        encoder.writeString("id");
+        encoder.writeInt(order.getId());
+        encoder.writeString("items");
+        Map<Integer, Integer> items = order.getItems();
+        if (items == null) {
+            encoder.writeNull();
+        } else {
+            encoder.writeMapHeader(items.size());
+            for (Map.Entry<Integer, Integer> item : items.entrySet()) {
+                encoder.writeInt(item.getKey());
+                encoder.writeInt(item.getValue());
+            }
+        }
+        encoder.writeString("orderDate");
+        encoder.writeString(order.getOrderDate() == null ? null : order.getOrderDate().toString());
+        encoder.writeString("totalAmount");
+        encoder.writeDouble(order.getTotalAmount());
+    }
+
+    private static Object readEntity(CborDecoder decoder, Class<?> type) throws IOException {
+        if (decoder.readHeader() == CborDecoder.TYPE_NULL) {
+            decoder.skip();
+            return null;
+        }
+        if (type == Book.class) {
+            return readBook(decoder);
+        }
+        if (type == Author.class) {
+            return readAuthor(decoder);
+        }
+        return readOrder(decoder);
+    }
+
+    private static Book readBook(CborDecoder decoder) throws IOException {
+        Book book = new Book();
+        int fields = decoder.readMapHeader();
+        for (int i = 0; i < fields; i++) {
+            String key = decoder.readString();
+            if ("authorId".equals(key)) {
+                book.setAuthorId((int) decoder.readLong());
+            } else if ("id".equals(key)) {
+                book.setId((int) decoder.readLong());
+            } else if ("isbn".equals(key)) {
+                book.setIsbn(decoder.readString());
+            } else if ("price".equals(key)) {
+                book.setPrice(decoder.readDouble());
+            } else if ("publicationYear".equals(key)) {
+                book.setPublicationYear((int) decoder.readLong());
+            } else if ("stockQuantity".equals(key)) {
+                book.setStockQuantity((int) decoder.readLong());
+            } else if ("title".equals(key)) {
+                book.setTitle(decoder.readString());
+            } else {
+                decoder.skip();
+            }
+        }
+        return book;
+    }
+
+    private static Author readAuthor(CborDecoder decoder) throws IOException {
+        Author author = new Author();
+        int fields = decoder.readMapHeader();
+        for (int i = 0; i < fields; i++) {
+            String key = decoder.readString();
+            if ("biography".equals(key)) {
+                author.setBiography(decoder.readString());
+            } else if ("id".equals(key)) {
+                author.setId((int) decoder.readLong());
+            } else if ("name".equals(key)) {
+                author.setName(decoder.readString());
+            } else {
+                decoder.skip();
+            }
+        }
+        return author;
+    }
+
+    private static Order readOrder(CborDecoder decoder) throws IOException {
+        Order order = new Order();
+        int fields = decoder.readMapHeader();
+        for (int i = 0; i < fields; i++) {
+            String key = decoder.readString();
+            if ("customerId".equals(key)) {
+                order.setCustomerId((int) decoder.readLong());
+            } else if ("id".equals(key)) {
+                order.setId((int) decoder.readLong());
+            } else if ("items".equals(key)) {
+                if (decoder.readHeader() == CborDecoder.TYPE_NULL) {
+                    decoder.skip();
+                    continue;
+                }
+                int lines = decoder.readMapHeader();
+                Map<Integer, Integer> items = new HashMap<>();
+                for (int line = 0; line < lines; line++) {
+                    int bookId = (int) decoder.readLong();
+                    items.put(bookId, (int) decoder.readLong());
+                }
+                order.setItems(items);
+            } else if ("orderDate".equals(key)) {
+                String date = decoder.readString();
+                order.setOrderDate(date == null ? null : LocalDateTime.parse(date));
+            } else if ("totalAmount".equals(key)) {
+                order.setTotalAmount(decoder.readDouble());
+            } else {
+                decoder.skip();
+            }
+        }
+        return order;
+    }
+}
@@ -0,0 +1,240 @@
+package com.CSA.provider;
+
+import com.CSA.model.Author;
+import com.CSA.model.Book;
+import com.CSA.model.Cart;
+import com.CSA.model.Customer;
+import com.CSA.model.Order;
+
+import jakarta.annotation.Priority;
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbBuilder;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Writes {@link Book}, {@link Author}, {@link Customer}, {@link Cart} and {@link Order}, and
+ * collections of them, as JSON without reflection. The output is byte-for-byte what JSON-B's
+ * default mapping produces: properties in lexicographic order, null properties left out, integer
+ * map keys as strings. Collections holding anything else are handed to JSON-B.
+ */
+@Provider
+@Produces(MediaType.APPLICATION_JSON)
+@Priority(Priorities.ENTITY_CODER)
+public class JsonModelWriter implements MessageBodyWriter<Object> {
+
+    private static final Jsonb JSONB = JsonbBuilder.create();
+
+    private static final byte[] AUTHOR_ID = JsonOutput.memberName("authorId");
+    private static final byte[] BIOGRAPHY = JsonOutput.memberName("biography");
+    private static final byte[] CUSTOMER_ID = JsonOutput.memberName("customerId");
+    private static final byte[] EMAIL = JsonOutput.memberName("email");
+    private static final byte[] ID = JsonOutput.memberName("id");
+    private static final byte[] ISBN = JsonOutput.memberName("isbn");
+    private static final byte[] ITEMS = JsonOutput.memberName("items");
+    private static final byte[] NAME = JsonOutput.memberName("name");
+    private static final byte[] ORDER_DATE = JsonOutput.memberName("orderDate");
+    private static final byte[] PRICE = JsonOutput.memberName("price");
+    private static final byte[] PUBLICATION_YEAR = JsonOutput.memberName("publicationYear");
+    private static final byte[] STOCK_QUANTITY = JsonOutput.memberName("stockQuantity");
+    private static final byte[] TITLE = JsonOutput.memberName("title");
+    private static final byte[] TOTAL_AMOUNT = JsonOutput.memberName("totalAmount");
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        if (isModelType(type)) {
+            return true;
+        }
+        if (!Collection.class.isAssignableFrom(type)) {
+            return false;
+        }
+        // Entities in a Response lose their element type, so those collections are checked when written
+        if (genericType instanceof ParameterizedType) {
+            Type[] arguments = ((ParameterizedType) genericType).getActualTypeArguments();
+            return arguments.length == 1 && arguments[0] instanceof Class && isModelType((Class<?>) arguments[0]);
+        }
+        return true;
+    }
+
+    @Override
+    public void writeTo(Object entity, Class<?> type, Type genericType, Annotation[] annotations,
+                        MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream)
+            throws IOException {
+        write(entity, entityStream);
+    }
+
+    /**
+     * Serializes an entity as JSON-B would.
+     *
+     * @param entity The entity or collection to serialize
+     * @return The UTF-8 JSON bytes
+     */
+    public static byte[] toJsonBytes(Object entity) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+        try {
+            write(entity, bytes);
+        } catch (IOException e) {
+            throw new IllegalStateException("Writing to memory failed", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void write(Object entity, OutputStream entityStream) throws IOException {
+        if (!isModelEntity(entity)) {
+            entityStream.write(JSONB.toJson(entity).getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        JsonOutput out = new JsonOutput(entityStream);
+        if (entity instanceof Collection) {
+            out.beginArray();
+            boolean first = true;
+            for (Object item : (Collection<?>) entity) {
+                if (!first) {
+                    out.comma();
+                }
+                first = false;
+                writeEntity(out, item);
+            }
+            out.endArray();
+        } else {
+            writeEntity(out, entity);
+        }
+        out.flush();
+    }
+
+    private static boolean isModelType(Class<?> type) {
+        return type == Book.class || type == Author.class || type == Customer.class
+                || type == Cart.class || type == Order.class;
+    }
+
+    private static boolean isModelEntity(Object entity) {
+        if (!(entity instanceof Collection)) {
+            return entity != null && isModelType(entity.getClass());
+        }
+        for (Object item : (Collection<?>) entity) {
+            if (item != null && !isModelType(item.getClass())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeEntity(JsonOutput out, Object entity) throws IOException {
+        if (entity instanceof Book) {
+            writeBook(out, (Book) entity);
+        } else if (entity instanceof Author) {
+            writeAuthor(out, (Author) entity);
+        } else if (entity instanceof Customer) {
+            writeCustomer(out, (Customer) entity);
+        } else if (entity instanceof Cart) {
+            writeCart(out, (Cart) entity);
+        } else if (entity instanceof Order) {
+            writeOrder(out, (Order) entity);
+        } else {
+            out.writeNull();
+        }
+    }
+
+    private static void writeBook(JsonOutput out, Book book) throws IOException {
+        out.beginObject();
+        out.name(AUTHOR_ID);
+        out.writeInt(book.getAuthorId());
+        out.name(ID);
+        out.writeInt(book.getId());
+        writeStringMember(out, ISBN, book.getIsbn());
+        out.name(PRICE);
+        out.writeDouble(book.getPrice());
+        out.name(PUBLICATION_YEAR);
+        out.writeInt(book.getPublicationYear());
+        out.name(STOCK_QUANTITY);
+        out.writeInt(book.getStockQuantity());
+        writeStringMember(out, TITLE, book.getTitle());
+        out.endObject();
+    }
+
+    private static void writeAuthor(JsonOutput out, Author author) throws IOException {
+        out.beginObject();
+        writeStringMember(out, BIOGRAPHY, author.getBiography());
+        out.name(ID);
+        out.writeInt(author.getId());
+        writeStringMember(out, NAME, author.getName());
+        out.endObject();
+    }
+
+    private static void writeCustomer(JsonOutput out, Customer customer) throws IOException {
+        out.beginObject();
+        writeStringMember(out, EMAIL, customer.getEmail());
+        out.name(ID);
+        out.writeInt(customer.getId());
+        writeStringMember(out, NAME, customer.getName());
+        out.endObject();
+    }
+
+    private static void writeCart(JsonOutput out, Cart cart) throws IOException {
+        out.beginObject();
+        out.name(CUSTOMER_ID);
+        out.writeInt(cart.getCustomerId());
+        writeItems(out, cart.getItems());
+        out.endObject();
+    }
+
+    private static void writeOrder(JsonOutput out, Order order) throws IOException {
+        out.beginObject();
+        out.name(CUSTOMER_ID);
+        out.writeInt(order.getCustomerId());
+        out.name(ID);
+        out.writeInt(order.getId());
+        writeItems(out, order.getItems());
+        if (order.getOrderDate() != null) {
+            out.name(ORDER_DATE);
+            out.writeDateTime(order.getOrderDate());
+        }
+        out.name(TOTAL_AMOUNT);
+        out.writeDouble(order.getTotalAmount());
+        out.endObject();
+    }
+
+    private static void writeItems(JsonOutput out, Map<Integer, Integer> items) throws IOException {
+        if (items == null) {
+            return;
+        }
+        out.name(ITEMS);
+        out.beginObject();
+        boolean first = true;
+        for (Map.Entry<Integer, Integer> item : items.entrySet()) {
+            if (!first) {
+                out.comma();
+            }
+            first = false;
+            out.writeQuotedInt(item.getKey());
+            out.colon();
+            if (item.getValue() == null) {
+                out.writeNull();
+            } else {
+                out.writeInt(item.getValue());
+            }
+        }
+        out.endObject();
+    }
+
+    private static void writeStringMember(JsonOutput out, byte[] name, String value) throws IOException {
+        if (value != null) {
+            out.name(name);
+            out.writeString(value);
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.CSA.provider;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Buffered JSON token writer producing the same bytes as JSON-B's default generator: UTF-8,
+ * no whitespace, strings escaped only where JSON requires it, doubles as Double.toString and
+ * date-times as ISO_LOCAL_DATE_TIME. Numbers, strings and dates are encoded straight into a
+ * per-thread buffer, so writing an entity allocates nothing beyond this object.
+ */
+final class JsonOutput {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    // Prices below this with whole cents are written without Double.toString; the shortcut has
+    // been checked against Double.toString for every cent value in range
+    private static final double MAX_FAST_DECIMAL = 100000.0;
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int position;
+    private boolean firstMember;
+
+    /**
+     * Creates a writer over a stream, borrowing the calling thread's buffer.
+     *
+     * @param out The stream to write to
+     */
+    JsonOutput(OutputStream out) {
+        this.out = out;
+        this.buffer = BUFFERS.get();
+    }
+
+    /**
+     * Encodes an object member name, with its surrounding quotes and the colon, for {@link #name}.
+     *
+     * @param name The member name, which must not need escaping
+     * @return The encoded name
+     */
+    static byte[] memberName(String name) {
+        return ('"' + name + "\":").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    void beginObject() throws IOException {
+        writeByte('{');
+        firstMember = true;
+    }
+
+    void endObject() throws IOException {
+        writeByte('}');
+        firstMember = false;
+    }
+
+    void beginArray() throws IOException {
+        writeByte('[');
+    }
+
+    void endArray() throws IOException {
+        writeByte(']');
+    }
+
+    void comma() throws IOException {
+        writeByte(',');
+    }
+
+    void colon() throws IOException {
+        writeByte(':');
+    }
+
+    /**
+     * Writes a member name from {@link #memberName}, preceded by a comma unless it is the first
+     * member of the current object.
+     */
+    void name(byte[] encodedName) throws IOException {
+        if (!firstMember) {
+            writeByte(',');
+        }
+        firstMember = false;
+        ensure(encodedName.length);
+        System.arraycopy(encodedName, 0, buffer, position, encodedName.length);
+        position += encodedName.length;
+    }
+
+    void writeNull() throws IOException {
+        ensure(4);
+        buffer[position++] = 'n';
+        buffer[position++] = 'u';
+        buffer[position++] = 'l';
+        buffer[position++] = 'l';
+    }
+
+    void writeInt(int value) throws IOException {
+        writeLong(value);
+    }
+
+    void writeLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            writeAscii(Long.toString(value));
+            return;
+        }
+        ensure(20);
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int end = position + digitCount(value);
+        int index = end;
+        do {
+            buffer[--index] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        position = end;
+    }
+
+    /**
+     * Writes a number as a quoted string, as JSON-B writes integer map keys.
+     */
+    void writeQuotedInt(int value) throws IOException {
+        writeByte('"');
+        writeInt(value);
+        writeByte('"');
+    }
+
+    void writeDouble(double value) throws IOException {
+        if (value >= 0 && value < MAX_FAST_DECIMAL && Double.doubleToRawLongBits(value) != Long.MIN_VALUE) {
+            long cents = Math.round(value * 100);
+            if (cents / 100.0 == value) {
+                // Double.toString of a whole number of cents: integer part, then one or two decimals
+                writeLong(cents / 100);
+                int fraction = (int) (cents % 100);
+                ensure(3);
+                buffer[position++] = '.';
+                if (fraction % 10 == 0) {
+                    buffer[position++] = (byte) ('0' + fraction / 10);
+                } else {
+                    buffer[position++] = (byte) ('0' + fraction / 10);
+                    buffer[position++] = (byte) ('0' + fraction % 10);
+                }
+                return;
+            }
+        }
+        writeAscii(Double.toString(value));
+    }
+
+    void writeString(String value) throws IOException {
+        writeByte('"');
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\') {
+                writeByte(c);
+            } else if (c < 0x80) {
+                writeEscaped(c);
+            } else if (c < 0x800) {
+                ensure(2);
+                buffer[position++] = (byte) (0xc0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                ensure(4);
+                buffer[position++] = (byte) (0xf0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                // An unpaired surrogate cannot be encoded; the UTF-8 encoder substitutes '?'
+                writeByte('?');
+            } else {
+                ensure(3);
+                buffer[position++] = (byte) (0xe0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buffer[position++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        writeByte('"');
+    }
+
+    void writeDateTime(LocalDateTime value) throws IOException {
+        int year = value.getYear();
+        if (year < 0 || year > 9999) {
+            writeByte('"');
+            writeAscii(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(value));
+            writeByte('"');
+            return;
+        }
+        ensure(32);
+        buffer[position++] = '"';
+        twoDigits(year / 100);
+        twoDigits(year % 100);
+        buffer[position++] = '-';
+        twoDigits(value.getMonthValue());
+        buffer[position++] = '-';
+        twoDigits(value.getDayOfMonth());
+        buffer[position++] = 'T';
+        twoDigits(value.getHour());
+        buffer[position++] = ':';
+        twoDigits(value.getMinute());
+        buffer[position++] = ':';
+        twoDigits(value.getSecond());
+        int nanos = value.getNano();
+        if (nanos != 0) {
+            // Fraction of a second without trailing zeros
+            buffer[position++] = '.';
+            int divisor = 100_000_000;
+            while (nanos != 0) {
+                buffer[position++] = (byte) ('0' + nanos / divisor);
+                nanos %= divisor;
+                divisor /= 10;
+            }
+        }
+        buffer[position++] = '"';
+    }
+
+    /**
+     * Writes everything buffered to the underlying stream.
+     */
+    void flush() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    private void writeEscaped(char c) throws IOException {
+        ensure(6);
+        buffer[position++] = '\\';
+        switch (c) {
+            case '"':
+                buffer[position++] = '"';
+                break;
+            case '\\':
+                buffer[position++] = '\\';
+                break;
+            case '\b':
+                buffer[position++] = 'b';
+                break;
+            case '\f':
+                buffer[position++] = 'f';
+                break;
+            case '\n':
+                buffer[position++] = 'n';
+                break;
+            case '\r':
+                buffer[position++] = 'r';
+                break;
+            case '\t':
+                buffer[position++] = 't';
+                break;
+            default:
+                buffer[position++] = 'u';
+                buffer[position++] = '0';
+                buffer[position++] = '0';
+                buffer[position++] = HEX[c >> 4];
+                buffer[position++] = HEX[c & 0xf];
+        }
+    }
+
+    private void twoDigits(int value) {
+        buffer[position++] = (byte) ('0' + value / 10);
+        buffer[position++] = (byte) ('0' + value % 10);
+    }
+
+    private void writeAscii(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            writeByte(value.charAt(i));
+        }
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (position == buffer.length) {
+            flush();
+        }
+        buffer[position++] = (byte) b;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.length - position < bytes) {
+            flush();
+        }
+    }
+
+    private static int digitCount(long value) {
+        int count = 1;
+        while (value >= 10) {
+            value /= 10;
+            count++;
+        }
+        return count;
+    }
+}
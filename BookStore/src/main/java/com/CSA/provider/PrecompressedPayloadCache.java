@@ -0,0 +1,188 @@
+package com.CSA.provider;
+
+import com.CSA.filter.CompressionFilter;
+
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache of serialized JSON response bodies, stored both plain and gzip-compressed and keyed by
+ * the version of the data they were built from. While the version is unchanged a request is
+ * answered by streaming the stored bytes, with no serialization or compression work; the
+ * deflate form is built on first use. Entries are rebuilt lazily when the version moves on.
+ *
+ * @param <K> The type of the cache key, e.g. an author ID
+ */
+public class PrecompressedPayloadCache<K> {
+
+    private final String name;
+    private final int maxEntries;
+    private final ConcurrentHashMap<K, Payload> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates a cache.
+     *
+     * @param name The name reported in the statistics
+     * @param maxEntries The maximum number of keys kept
+     */
+    public PrecompressedPayloadCache(String name, int maxEntries) {
+        this.name = name;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Gets the payload for a key, building it if the cached one is missing or older than the
+     * given version.
+     *
+     * @param key The cache key
+     * @param version The current version of the underlying data, read before loading it
+     * @param loader Loads the entity to serialize; may return null if it does not exist
+     * @return The payload, or null if the loader returned null
+     */
+    public Payload get(K key, long version, Supplier<?> loader) {
+        Payload cached = entries.get(key);
+        if (cached != null && cached.version == version) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        Object entity = loader.get();
+        if (entity == null) {
+            entries.remove(key);
+            return null;
+        }
+        Payload built = new Payload(version, JsonModelWriter.toJsonBytes(entity));
+        if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            // Evict arbitrary entries; an evicted payload is simply rebuilt on its next request
+            Iterator<K> keys = entries.keySet().iterator();
+            while (entries.size() >= maxEntries && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+        // Keep whichever of two concurrent builds saw the newer version
+        return entries.merge(key, built, (old, fresh) -> old.version > fresh.version ? old : fresh);
+    }
+
+    /**
+     * Checks whether JSON is the representation a request should get, i.e. no other supported
+     * media type is preferred over it.
+     *
+     * @param headers The request headers
+     * @return true if the request should be answered with JSON
+     */
+    public static boolean prefersJson(HttpHeaders headers) {
+        for (MediaType acceptable : headers.getAcceptableMediaTypes()) {
+            if (acceptable.isCompatible(MediaType.APPLICATION_JSON_TYPE)) {
+                return true;
+            }
+            if (acceptable.isCompatible(CborMessageBodyProvider.APPLICATION_CBOR_TYPE)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets hit and miss counters and the stored byte counts.
+     *
+     * @return A map of counter names to values
+     */
+    public Map<String, Object> getStats() {
+        long plainBytes = 0;
+        long gzipBytes = 0;
+        for (Payload payload : entries.values()) {
+            plainBytes += payload.plain.length;
+            gzipBytes += payload.gzip.length;
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", name);
+        stats.put("entries", entries.size());
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("plainBytes", plainBytes);
+        stats.put("gzipBytes", gzipBytes);
+        return stats;
+    }
+
+    /**
+     * A serialized JSON body in each supported content coding.
+     */
+    public static final class Payload {
+        private final long version;
+        private final byte[] plain;
+        private final byte[] gzip;
+        private volatile byte[] deflate;
+
+        Payload(long version, byte[] plain) {
+            this.version = version;
+            this.plain = plain;
+            this.gzip = compress(plain, true);
+        }
+
+        /**
+         * Builds a 200 response with the body in the coding the client prefers.
+         *
+         * @param headers The request headers
+         * @return The response
+         */
+        public Response toResponse(HttpHeaders headers) {
+            String encoding = CompressionFilter.negotiate(headers.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+            Response.ResponseBuilder response = Response.ok().type(MediaType.APPLICATION_JSON_TYPE);
+            if (CompressionFilter.GZIP.equals(encoding)) {
+                return response.entity(gzip).header(HttpHeaders.CONTENT_ENCODING, encoding).build();
+            }
+            if (CompressionFilter.DEFLATE.equals(encoding)) {
+                byte[] body = deflate;
+                if (body == null) {
+                    body = compress(plain, false);
+                    deflate = body;
+                }
+                return response.entity(body).header(HttpHeaders.CONTENT_ENCODING, encoding).build();
+            }
+            return response.entity(plain).build();
+        }
+
+        private static byte[] compress(byte[] plain, boolean gzip) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, plain.length / 4));
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, false);
+            try (DeflaterOutputStream out = gzip
+                    ? new BestGzipOutputStream(buffer)
+                    : new DeflaterOutputStream(buffer, deflater)) {
+                out.write(plain);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                deflater.end();
+            }
+            return buffer.toByteArray();
+        }
+    }
+
+    /**
+     * gzip stream at maximum compression; stored payloads are compressed once and sent many times.
+     */
+    private static final class BestGzipOutputStream extends GZIPOutputStream {
+        BestGzipOutputStream(ByteArrayOutputStream out) throws IOException {
+            super(out);
+            def.setLevel(Deflater.BEST_COMPRESSION);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.CSA.resource;
+
+import com.CSA.filter.AdmissionControlFilter;
+import com.CSA.filter.IdempotencyFilter;
+import com.CSA.security.TokenService;
+import com.CSA.storage.CartExpiry;
+import com.CSA.storage.CustomerShards;
+import com.CSA.storage.DataStore;
+import com.CSA.storage.PackedOrder;
+
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resource class exposing operational counters for monitoring.
+ */
+@Path("/admin")
+public class AdminResource {
+
+    /**
+     * Retrieves session token verification counters, including the mean cost per request.
+     * 
+     * @return Response with the authentication counters
+     */
+    @GET
+    @Path("/auth")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getAuthStats() {
+        return Response.ok(TokenService.getStats()).build();
+    }
+
+    /**
+     * Retrieves admission control counters: admitted and rejected requests per endpoint class,
+     * current in-flight counts and concurrency limits.
+     * 
+     * @return Response with the admission counters
+     */
+    @GET
+    @Path("/admission")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getAdmissionStats() {
+        return Response.ok(AdmissionControlFilter.getStats()).build();
+    }
+
+    /**
+     * Retrieves idempotency key counters: requests executed, retries replayed or refused, and the
+     * size of the kept-response cache.
+     * 
+     * @return Response with the idempotency counters
+     */
+    @GET
+    @Path("/idempotency")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getIdempotencyStats() {
+        return Response.ok(IdempotencyFilter.getStats()).build();
+    }
+
+    /**
+     * Retrieves per-tier entry counts, sizes and hit rates of the customer and order stores.
+     * 
+     * @return Response with one entry per tiered map
+     */
+    @GET
+    @Path("/storage")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getStorageStats() {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        stats.add(DataStore.customers.getStats());
+        stats.add(DataStore.ordersByCustomer.getStats());
+        return Response.ok(stats).build();
+    }
+
+    /**
+     * Retrieves cart expiry counters: live, created, expired and rescheduled carts.
+     * 
+     * @return Response with the cart counters
+     */
+    @GET
+    @Path("/carts")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getCartStats() {
+        return Response.ok(CartExpiry.getStats()).build();
+    }
+
+    /**
+     * Retrieves queue depths and task counts of the customer shards, when shard mode is on.
+     * 
+     * @return Response with the shard counters
+     */
+    @GET
+    @Path("/shards")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getShardStats() {
+        return Response.ok(CustomerShards.getStats()).build();
+    }
+
+    /**
+     * Retrieves hit and miss counters and stored sizes of the precompressed catalog payloads.
+     * 
+     * @return Response with one entry per payload cache
+     */
+    @GET
+    @Path("/payloads")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getPayloadCacheStats() {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        stats.add(BookResource.ALL_BOOKS_PAYLOADS.getStats());
+        stats.add(AuthorResource.ALL_AUTHORS_PAYLOADS.getStats());
+        stats.add(AuthorResource.AUTHOR_BOOKS_PAYLOADS.getStats());
+        return Response.ok(stats).build();
+    }
+
+    /**
+     * Reports the heap used by stored orders in packed form against the estimated heap the
+     * same orders would use as Order objects.
+     * 
+     * @return Response with order counts and total and per-order byte estimates
+     */
+    @GET
+    @Path("/orders/footprint")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getOrderFootprint() {
+        long orders = 0;
+        long lines = 0;
+        long packedBytes = 0;
+        long unpackedBytes = 0;
+        for (PackedOrder[] customerOrders : DataStore.ordersByCustomer.values()) {
+            for (PackedOrder order : customerOrders) {
+                orders++;
+                lines += order.getLineCount();
+                packedBytes += order.estimatedHeapBytes();
+                unpackedBytes += order.estimatedUnpackedHeapBytes();
+            }
+        }
+
+        Map<String, Object> footprint = new LinkedHashMap<>();
+        footprint.put("orders", orders);
+        footprint.put("orderLines", lines);
+        footprint.put("packedBytes", packedBytes);
+        footprint.put("unpackedBytes", unpackedBytes);
+        footprint.put("packedBytesPerOrder", orders == 0 ? 0 : packedBytes / orders);
+        footprint.put("unpackedBytesPerOrder", orders == 0 ? 0 : unpackedBytes / orders);
+        footprint.put("savedBytesPerOrder", orders == 0 ? 0 : (unpackedBytes - packedBytes) / orders);
+        return Response.ok(footprint).build();
+    }
+}
@@ -0,0 +1,135 @@
+package com.CSA.resource;
+
+import com.CSA.LoggerUtil.LoggerUtil;
+import com.CSA.analytics.RevenueTotal;
+import com.CSA.analytics.SalesAnalytics;
+
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.Response.Status;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resource class for sales reports, served from views maintained as orders are placed.
+ */
+@Path("/analytics")
+public class AnalyticsResource {
+
+    private static final int MAX_DAY_RANGE = 366;
+
+    /**
+     * Retrieves total revenue across all orders.
+     * 
+     * @return Response with the overall revenue total
+     */
+    @GET
+    @Path("/revenue")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getOverallRevenue() {
+        return Response.ok(SalesAnalytics.getOverall()).build();
+    }
+
+    /**
+     * Retrieves revenue for every author with sales.
+     * 
+     * @return Response with one revenue total per author
+     */
+    @GET
+    @Path("/revenue/authors")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getRevenueByAuthors() {
+        return Response.ok(SalesAnalytics.getAllAuthors()).build();
+    }
+
+    /**
+     * Retrieves revenue attributed to one author's books.
+     * 
+     * @param authorId The ID of the author
+     * @return Response with the author's revenue total
+     */
+    @GET
+    @Path("/revenue/authors/{authorId}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getRevenueByAuthor(@PathParam("authorId") int authorId) {
+        return Response.ok(SalesAnalytics.getByAuthor(authorId)).build();
+    }
+
+    /**
+     * Retrieves revenue from one customer's orders.
+     * 
+     * @param customerId The ID of the customer
+     * @return Response with the customer's revenue total
+     */
+    @GET
+    @Path("/revenue/customers/{customerId}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getRevenueByCustomer(@PathParam("customerId") int customerId) {
+        return Response.ok(SalesAnalytics.getByCustomer(customerId)).build();
+    }
+
+    /**
+     * Retrieves daily revenue for a range of days.
+     * 
+     * @param from The first day, as yyyy-MM-dd
+     * @param to The last day, as yyyy-MM-dd (defaults to the first day)
+     * @return Response with one revenue total per day, or 400 for an invalid range
+     */
+    @GET
+    @Path("/revenue/days")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getRevenueByDays(@QueryParam("from") String from, @QueryParam("to") String to) {
+        LocalDate first;
+        LocalDate last;
+        try {
+            first = from == null ? LocalDate.now() : LocalDate.parse(from);
+            last = to == null ? first : LocalDate.parse(to);
+        } catch (DateTimeParseException e) {
+            return Response.status(Status.BAD_REQUEST)
+                .entity("{\"error\": \"Dates must be formatted as yyyy-MM-dd\"}")
+                .build();
+        }
+        if (last.isBefore(first) || first.plusDays(MAX_DAY_RANGE).isBefore(last)) {
+            return Response.status(Status.BAD_REQUEST)
+                .entity("{\"error\": \"Day range must be ascending and at most " + MAX_DAY_RANGE + " days\"}")
+                .build();
+        }
+
+        List<RevenueTotal> days = new ArrayList<>();
+        for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+            days.add(SalesAnalytics.getByDay(day));
+        }
+        return Response.ok(days).build();
+    }
+
+    /**
+     * Rebuilds all sales views from the stored orders in parallel.
+     * 
+     * @return Response with the number of orders processed and the time taken
+     */
+    @POST
+    @Path("/rebuild")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response rebuild() {
+        long start = System.nanoTime();
+        long orders = SalesAnalytics.rebuild();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        LoggerUtil.logInfo("Rebuilt sales views from " + orders + " orders in " + millis + " ms");
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("orders", orders);
+        body.put("millis", millis);
+        return Response.ok(body).build();
+    }
+}
@@ -0,0 +1,97 @@
+package com.CSA.resource;
+
+import com.CSA.LoggerUtil.LoggerUtil;
+import com.CSA.model.Customer;
+import com.CSA.security.AuthenticationFilter;
+import com.CSA.security.Credentials;
+import com.CSA.security.PasswordHasher;
+import com.CSA.security.Secured;
+import com.CSA.security.Session;
+import com.CSA.security.TokenService;
+import com.CSA.storage.DataStore;
+
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.Response.Status;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Resource class for customer login and logout.
+ * Login verifies the password hash once and issues a session token used by {@link Secured} endpoints.
+ */
+@Path("/auth")
+public class AuthResource {
+
+    /**
+     * Logs a customer in and issues a session token.
+     * 
+     * @param credentials The customer's email and password
+     * @return Response with the session token, or 401 if the credentials are wrong
+     */
+    @POST
+    @Path("/login")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response login(Credentials credentials) {
+        if (credentials == null || credentials.getEmail() == null || credentials.getPassword() == null) {
+            return Response.status(Status.BAD_REQUEST)
+                .entity("{\"error\": \"Email and password are required\"}")
+                .build();
+        }
+
+        Integer customerId = DataStore.emailToCustomerIdMap.get(DataStore.normalizeEmail(credentials.getEmail()));
+        Customer customer = customerId == null ? null : DataStore.customers.get(customerId);
+        // Without an account, still pay for one hash so timing does not tell whether the email is registered
+        boolean matches = PasswordHasher.verify(credentials.getPassword(),
+                customer == null ? PasswordHasher.UNMATCHABLE_HASH : customer.getPassword());
+        if (customer == null || !matches) {
+            LoggerUtil.logWarning("Failed login attempt for email: " + credentials.getEmail());
+            return Response.status(Status.UNAUTHORIZED)
+                .entity("{\"error\": \"Invalid email or password\"}")
+                .build();
+        }
+
+        // Upgrade legacy plaintext passwords now that we know the plaintext, unless the customer
+        // changed meanwhile; a blind put could undo a concurrent email or password change
+        if (!PasswordHasher.isHashed(customer.getPassword())) {
+            String verified = customer.getPassword();
+            String hash = PasswordHasher.hash(credentials.getPassword());
+            DataStore.customers.compute(customer.getId(), (id, current) ->
+                    current == null || !verified.equals(current.getPassword()) ? current
+                            : new Customer(current.getId(), current.getName(), current.getEmail(), hash));
+        }
+
+        String token = TokenService.issue(customer.getId());
+        LoggerUtil.logInfo("Customer logged in with ID: " + customer.getId());
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("customerId", customer.getId());
+        body.put("token", token);
+        body.put("expiresIn", TokenService.getTokenTtlMillis() / 1000);
+        return Response.ok(body).build();
+    }
+
+    /**
+     * Revokes the session token used to make this request.
+     * 
+     * @param requestContext The request context carrying the verified session
+     * @return Response with 204 No Content
+     */
+    @POST
+    @Path("/logout")
+    @Secured
+    public Response logout(@Context ContainerRequestContext requestContext) {
+        Session session = (Session) requestContext.getProperty(AuthenticationFilter.SESSION_PROPERTY);
+        TokenService.revoke(session);
+        LoggerUtil.logInfo("Customer logged out with ID: " + session.getCustomerId());
+        return Response.status(Status.NO_CONTENT).build();
+    }
+}
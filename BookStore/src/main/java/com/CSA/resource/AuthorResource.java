@@ -3,22 +3,37 @@ package com.CSA.resource;
 import com.CSA.LoggerUtil.LoggerUtil;
 import com.CSA.model.Author;
 import com.CSA.model.Book;
+import com.CSA.provider.CborMessageBodyProvider;
+import com.CSA.provider.PrecompressedPayloadCache;
+import com.CSA.storage.AuthorDeletePolicy;
+import com.CSA.storage.CatalogSnapshot;
 import com.CSA.storage.DataStore;
+import com.CSA.storage.ReferentialIntegrityException;
+import com.CSA.storage.VersionConflictException;
+import com.CSA.storage.Versioned;
 
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.PATCH;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.Response.Status;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Objects;
+import java.util.function.LongPredicate;
+import java.util.function.UnaryOperator;
 
 /**
  * Resource class for handling Author-related operations.
@@ -26,6 +41,13 @@ import java.util.stream.Collectors;
 @Path("/authors")
 public class AuthorResource {
 
+    private static final String[] AUTHOR_FIELDS = { "id", "name", "biography" };
+
+    // Serialized and gzipped author list and per-author book lists, rebuilt only after a change
+    static final PrecompressedPayloadCache<Integer> ALL_AUTHORS_PAYLOADS = new PrecompressedPayloadCache<>("authors", 1);
+    static final PrecompressedPayloadCache<Integer> AUTHOR_BOOKS_PAYLOADS = new PrecompressedPayloadCache<>(
+            "authorBooks", Integer.getInteger("bookstore.payloadCache.maxAuthors", 1000));
+
     /**
      * Adds a new author to the system.
      * 
@@ -33,13 +55,14 @@ public class AuthorResource {
      * @return Response with the newly created author
      */
     @POST
-    @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes({MediaType.APPLICATION_JSON, CborMessageBodyProvider.APPLICATION_CBOR})
+    @Produces({MediaType.APPLICATION_JSON, CborMessageBodyProvider.APPLICATION_CBOR})
     public Response addAuthor(Author author) {
         // Validate the author object
         if (author.getName() == null || author.getName().isEmpty()) {
             LoggerUtil.logWarning("Failed to add author: Name cannot be null or empty");
             return Response.status(Status.BAD_REQUEST)
+                    .type(MediaType.TEXT_PLAIN)
                     .entity("Author name cannot be null or empty")
                     .build();
         }
@@ -47,6 +70,7 @@ public class AuthorResource {
         if (author.getBiography() == null || author.getBiography().isEmpty()) {
             LoggerUtil.logWarning("Failed to add author: Biography cannot be null or empty");
             return Response.status(Status.BAD_REQUEST)
+                    .type(MediaType.TEXT_PLAIN)
                     .entity("Author biography cannot be null or empty")
                     .build();
         }
@@ -56,77 +80,158 @@ public class AuthorResource {
         author.setId(authorId);
         
         // Save the new author to DataStore
-        DataStore.authors.put(authorId, author);
+        long version = DataStore.saveAuthor(author);
         LoggerUtil.logInfo("Successfully added new author with ID: " + authorId);
         
         // Return 201 Created with the newly created author
         return Response.status(Status.CREATED)
                 .entity(author)
+                .tag(EntityTags.of(version))
                 .build();
     }
     
     /**
-     * Retrieves all authors from the system.
+     * Retrieves all authors from the system, or with ids only the listed authors. JSON responses
+     * for all authors are served from a precompressed payload that is rebuilt only after an
+     * author changes.
      * 
-     * @return Response with a list of all authors
+     * @param headers The request headers, used to negotiate the representation and encoding
+     * @param ids Comma-separated IDs of the authors to retrieve, or null for all authors
+     * @return Response with a list of authors; listed IDs with no author are left out
      */
     @GET
-    @Produces(MediaType.APPLICATION_JSON)
-    public Response getAllAuthors() {
-        // Retrieve all authors from DataStore
-        List<Author> authorList = new ArrayList<>(DataStore.authors.values());
+    @Produces({MediaType.APPLICATION_JSON, CborMessageBodyProvider.APPLICATION_CBOR})
+    public Response getAllAuthors(@Context HttpHeaders headers, @QueryParam("ids") String ids) {
+        if (ids != null) {
+            return getAuthorsByIds(ids);
+        }
         LoggerUtil.logInfo("Retrieved all authors from the system");
+        if (PrecompressedPayloadCache.prefersJson(headers)) {
+            return ALL_AUTHORS_PAYLOADS.get(0, DataStore.authors.modifiedVersion(), DataStore.authors::values)
+                    .toResponse(headers);
+        }
+
+        // Retrieve all authors from DataStore
+        List<Author> authorList = DataStore.authors.values();
         
         // Return 200 OK with the list of authors
         return Response.status(Status.OK)
                 .entity(authorList)
                 .build();
     }
+
+    /**
+     * Retrieves several authors by ID in one consistent snapshot, in the order requested.
+     * 
+     * @param ids Comma-separated author IDs
+     * @return Response with the authors found, or 400 for an invalid ID list
+     */
+    static Response getAuthorsByIds(String ids) {
+        int[] authorIds;
+        try {
+            authorIds = IdList.parse(ids);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Status.BAD_REQUEST)
+                    .type(MediaType.TEXT_PLAIN)
+                    .entity(e.getMessage())
+                    .build();
+        }
+        List<Author> found;
+        try (CatalogSnapshot snapshot = DataStore.catalogClock.openSnapshot()) {
+            found = findAuthors(authorIds, snapshot);
+        }
+        LoggerUtil.logInfo("Retrieved " + found.size() + " of " + authorIds.length + " requested authors");
+        return Response.status(Status.OK)
+                .entity(found)
+                .build();
+    }
+
+    /**
+     * Looks up authors by ID as of a snapshot.
+     * 
+     * @param authorIds The author IDs
+     * @param snapshot The pinned snapshot
+     * @return The authors found, in the order of their IDs
+     */
+    static List<Author> findAuthors(int[] authorIds, CatalogSnapshot snapshot) {
+        List<Author> found = new ArrayList<>(authorIds.length);
+        for (int authorId : authorIds) {
+            Author author = DataStore.authors.get(authorId, snapshot);
+            if (author != null) {
+                found.add(author);
+            }
+        }
+        return found;
+    }
     
     /**
-     * Retrieves a specific author by ID.
+     * Retrieves a specific author by ID, tagged with its version for use in If-Match.
      * 
      * @param id The ID of the author to retrieve
      * @return Response with the author or 404 if not found
      */
     @GET
     @Path("/{id}")
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, CborMessageBodyProvider.APPLICATION_CBOR})
     public Response getAuthorById(@PathParam("id") int id) {
         LoggerUtil.logInfo("Attempting to retrieve author with ID: " + id);
         
-        Author author = DataStore.authors.get(id);
-        if (author == null) {
+        Response response;
+        try (CatalogSnapshot snapshot = DataStore.catalogClock.openSnapshot()) {
+            response = readAuthor(id, snapshot);
+        }
+        if (response.getStatus() == Status.NOT_FOUND.getStatusCode()) {
             LoggerUtil.logWarning("Author not found with ID: " + id);
+        } else {
+            LoggerUtil.logInfo("Retrieved author with ID: " + id);
+        }
+        return response;
+    }
+
+    /**
+     * Reads an author as of a snapshot, tagged with its version.
+     * 
+     * @param id The ID of the author
+     * @param snapshot The pinned snapshot
+     * @return Response with the author or 404 if not found
+     */
+    static Response readAuthor(int id, CatalogSnapshot snapshot) {
+        Author author = DataStore.authors.get(id, snapshot);
+        if (author == null) {
             return Response.status(Status.NOT_FOUND)
+                    .type(MediaType.TEXT_PLAIN)
                     .entity("Author not found with ID: " + id)
                     .build();
         }
-        
-        LoggerUtil.logInfo("Retrieved author with ID: " + id);
         return Response.status(Status.OK)
                 .entity(author)
+                .tag(EntityTags.of(DataStore.authors.versionOf(id, snapshot)))
                 .build();
     }
     
     /**
-     * Updates an existing author's information.
+     * Updates an existing author's information. With If-Match, the update only applies if the
+     * author is still at one of the given versions, so concurrent editors cannot overwrite each other.
      * 
      * @param id The ID of the author to update
+     * @param ifMatch The entity tags the client expects the author to have, or null
      * @param updatedAuthor The updated author data
-     * @return Response with the updated author or appropriate error status
+     * @return Response with the updated author, 412 if the author changed since the client read
+     *         it, or another error status
      */
     @PUT
     @Path("/{id}")
-    @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
-    public Response updateAuthor(@PathParam("id") int id, Author updatedAuthor) {
+    @Consumes({MediaType.APPLICATION_JSON, CborMessageBodyProvider.APPLICATION_CBOR})
+    @Produces({MediaType.APPLICATION_JSON, CborMessageBodyProvider.APPLICATION_CBOR})
+    public Response updateAuthor(@PathParam("id") int id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch,
+                                 Author updatedAuthor) {
         LoggerUtil.logInfo("Attempting to update author with ID: " + id);
         
         // Check if author exists
         if (!DataStore.authors.containsKey(id)) {
             LoggerUtil.logWarning("Failed to update: Author not found with ID: " + id);
             return Response.status(Status.NOT_FOUND)
+                    .type(MediaType.TEXT_PLAIN)
                     .entity("Author not found with ID: " + id)
                     .build();
         }
@@ -135,6 +240,7 @@ public class AuthorResource {
         if (updatedAuthor.getName() == null || updatedAuthor.getName().isEmpty()) {
             LoggerUtil.logWarning("Failed to update author: Name cannot be null or empty");
             return Response.status(Status.BAD_REQUEST)
+                    .type(MediaType.TEXT_PLAIN)
                     .entity("Author name cannot be null or empty")
                     .build();
         }
@@ -142,6 +248,7 @@ public class AuthorResource {
         if (updatedAuthor.getBiography() == null || updatedAuthor.getBiography().isEmpty()) {
             LoggerUtil.logWarning("Failed to update author: Biography cannot be null or empty");
             return Response.status(Status.BAD_REQUEST)
+                    .type(MediaType.TEXT_PLAIN)
                     .entity("Author biography cannot be null or empty")
                     .build();
         }
@@ -149,67 +256,248 @@ public class AuthorResource {
         // Preserve the author ID
         updatedAuthor.setId(id);
         
-        // Update the author in DataStore
-        DataStore.authors.put(id, updatedAuthor);
+        // Update the author in DataStore, checking its version in the same transaction
+        LongPredicate expectedVersion = EntityTags.ifMatch(ifMatch);
+        long version;
+        try {
+            version = DataStore.saveAuthor(updatedAuthor, expectedVersion == null ? EntityTags.EXISTS : expectedVersion);
+        } catch (VersionConflictException e) {
+            return versionConflict(e, expectedVersion != null);
+        }
         LoggerUtil.logInfo("Successfully updated author with ID: " + id);
         
         return Response.status(Status.OK)
                 .entity(updatedAuthor)
+                .tag(EntityTags.of(version))
+                .build();
+    }
+    
+    /**
+     * Changes some fields of an author with a JSON Merge Patch, such as {@code {"biography": "..."}}.
+     * Only the fields in the patch are validated, and they are applied to the latest version of
+     * the author in one transaction. The author's books are not written, so nothing derived from
+     * them is invalidated. With If-Match, the patch only applies if the author is still at one of
+     * the given versions.
+     *
+     * @param id The ID of the author to patch
+     * @param ifMatch The entity tags the client expects the author to have, or null
+     * @param body The merge patch
+     * @return Response with the patched author, 412 if the author changed since the client read
+     *         it, or another error status
+     */
+    @PATCH
+    @Path("/{id}")
+    @Consumes({MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON})
+    @Produces({MediaType.APPLICATION_JSON, CborMessageBodyProvider.APPLICATION_CBOR})
+    public Response patchAuthor(@PathParam("id") int id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch,
+                                InputStream body) {
+        LoggerUtil.logInfo("Attempting to patch author with ID: " + id);
+
+        UnaryOperator<Author> change;
+        try {
+            change = authorPatch(id, MergePatch.read(body, AUTHOR_FIELDS));
+        } catch (IllegalArgumentException e) {
+            LoggerUtil.logWarning("Failed to patch author: " + e.getMessage());
+            return Response.status(Status.BAD_REQUEST)
+                    .type(MediaType.TEXT_PLAIN)
+                    .entity(e.getMessage())
+                    .build();
+        }
+
+        LongPredicate expectedVersion = EntityTags.ifMatch(ifMatch);
+        Versioned<Author> patched;
+        try {
+            patched = DataStore.patchAuthor(id, change, expectedVersion);
+        } catch (VersionConflictException e) {
+            return versionConflict(e, expectedVersion != null);
+        }
+        LoggerUtil.logInfo("Successfully patched author with ID: " + id);
+
+        return Response.status(Status.OK)
+                .entity(patched.getValue())
+                .tag(EntityTags.of(patched.getVersion()))
                 .build();
     }
     
     /**
      * Deletes an author from the system by ID.
+     * The policy decides what happens to the author's books: restrict (default) refuses while
+     * books remain, cascade deletes them and orphan keeps them with no author.
+     * 
+     * With If-Match, the delete only applies if the author is still at one of the given versions.
      * 
      * @param id The ID of the author to delete
-     * @return Response with 204 No Content if successful, or 404 if author not found
+     * @param policyName The delete policy: restrict, cascade or orphan
+     * @param ifMatch The entity tags the client expects the author to have, or null
+     * @return Response with 204 No Content if successful, 404 if author not found,
+     *         409 if the author still has books under the restrict policy,
+     *         or 412 if the author changed since the client read it
      */
     @DELETE
     @Path("/{id}")
-    public Response deleteAuthor(@PathParam("id") int id) {
+    public Response deleteAuthor(@PathParam("id") int id, @QueryParam("policy") String policyName,
+                                 @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
         LoggerUtil.logInfo("Attempting to delete author with ID: " + id);
         
-        if (!DataStore.authors.containsKey(id)) {
+        AuthorDeletePolicy policy;
+        try {
+            policy = AuthorDeletePolicy.fromString(policyName);
+        } catch (IllegalArgumentException e) {
+            LoggerUtil.logWarning("Failed to delete author: Unknown delete policy: " + policyName);
+            return Response.status(Status.BAD_REQUEST)
+                    .type(MediaType.TEXT_PLAIN)
+                    .entity("Unknown delete policy: " + policyName)
+                    .build();
+        }
+        
+        int affectedBooks;
+        try {
+            affectedBooks = DataStore.deleteAuthor(id, policy, EntityTags.ifMatch(ifMatch));
+        } catch (VersionConflictException e) {
+            return versionConflict(e, true);
+        } catch (ReferentialIntegrityException e) {
+            LoggerUtil.logWarning("Failed to delete author: " + e.getMessage());
+            return Response.status(Status.CONFLICT)
+                    .type(MediaType.TEXT_PLAIN)
+                    .entity(e.getMessage())
+                    .build();
+        }
+        
+        if (affectedBooks < 0) {
             LoggerUtil.logWarning("Failed to delete: Author not found with ID: " + id);
             return Response.status(Status.NOT_FOUND)
+                    .type(MediaType.TEXT_PLAIN)
                     .entity("Author not found with ID: " + id)
                     .build();
         }
         
-        DataStore.authors.remove(id);
-        LoggerUtil.logInfo("Successfully deleted author with ID: " + id);
+        LoggerUtil.logInfo("Successfully deleted author with ID: " + id + " (" + policy + ", "
+                + affectedBooks + " books affected)");
         
         return Response.status(Status.NO_CONTENT).build();
     }
     
     /**
-     * Retrieves all books written by a specific author.
+     * Retrieves all books written by a specific author. JSON responses are served from a
+     * precompressed payload that is rebuilt only after the author, its book list or one of its
+     * books changes; writes to other authors' books leave it cached.
      * 
      * @param id The ID of the author
+     * @param headers The request headers, used to negotiate the representation and encoding
      * @return Response with a list of books or appropriate error status
      */
     @GET
     @Path("/{id}/books")
-    @Produces(MediaType.APPLICATION_JSON)
-    public Response getBooksByAuthor(@PathParam("id") int id) {
+    @Produces({MediaType.APPLICATION_JSON, CborMessageBodyProvider.APPLICATION_CBOR})
+    public Response getBooksByAuthor(@PathParam("id") int id, @Context HttpHeaders headers) {
         LoggerUtil.logInfo("Attempting to retrieve books by author with ID: " + id);
-        
-        // Check if author exists
-        if (!DataStore.authors.containsKey(id)) {
-            LoggerUtil.logWarning("Failed to retrieve books: Author not found with ID: " + id);
+
+        // Read the versions first: a payload built afterwards is at least as new as they are. Only
+        // this author's versions count, so writes to other authors' books keep the payload cached
+        long version = Math.max(DataStore.authorBooksVersion(id),
+                Math.max(DataStore.authors.versionOf(id), DataStore.bookIdsByAuthor.versionOf(id)));
+        if (PrecompressedPayloadCache.prefersJson(headers)) {
+            PrecompressedPayloadCache.Payload payload =
+                    AUTHOR_BOOKS_PAYLOADS.get(id, version, () -> findBooksByAuthor(id));
+            if (payload != null) {
+                LoggerUtil.logInfo("Retrieved books for author with ID: " + id);
+                return payload.toResponse(headers);
+            }
+        } else {
+            List<Book> authorBooks = findBooksByAuthor(id);
+            if (authorBooks != null) {
+                LoggerUtil.logInfo("Retrieved " + authorBooks.size() + " books for author with ID: " + id);
+                return Response.status(Status.OK)
+                        .entity(authorBooks)
+                        .build();
+            }
+        }
+
+        LoggerUtil.logWarning("Failed to retrieve books: Author not found with ID: " + id);
+        return Response.status(Status.NOT_FOUND)
+                .type(MediaType.TEXT_PLAIN)
+                .entity("Author not found with ID: " + id)
+                .build();
+    }
+
+    /**
+     * Looks up an author's books through the reverse index within one consistent snapshot.
+     * 
+     * @param id The ID of the author
+     * @return The author's books, or null if the author does not exist
+     */
+    private static List<Book> findBooksByAuthor(int id) {
+        try (CatalogSnapshot snapshot = DataStore.catalogClock.openSnapshot()) {
+            return findBooksByAuthor(id, snapshot);
+        }
+    }
+
+    /**
+     * Looks up an author's books through the reverse index as of a snapshot.
+     * 
+     * @param id The ID of the author
+     * @param snapshot The pinned snapshot
+     * @return The author's books, or null if the author does not exist
+     */
+    static List<Book> findBooksByAuthor(int id, CatalogSnapshot snapshot) {
+        if (DataStore.authors.get(id, snapshot) == null) {
+            return null;
+        }
+        List<Book> authorBooks = new ArrayList<>();
+        int[] bookIds = DataStore.bookIdsByAuthor.get(id, snapshot);
+        if (bookIds != null) {
+            for (int bookId : bookIds) {
+                authorBooks.add(DataStore.books.get(bookId, snapshot));
+            }
+        }
+        return authorBooks;
+    }
+
+    /**
+     * Validates the fields a patch changes, by the same rules as a new author, and turns the patch
+     * into a change of the stored author.
+     *
+     * @throws IllegalArgumentException If a changed field is invalid
+     */
+    private static UnaryOperator<Author> authorPatch(int id, MergePatch patch) {
+        Integer patchedId = patch.getInt("id");
+        if (patchedId != null && patchedId != id) {
+            throw new IllegalArgumentException("Author ID cannot be changed");
+        }
+        String name = patch.getString("name");
+        if (name != null && name.isEmpty()) {
+            throw new IllegalArgumentException("Author name cannot be null or empty");
+        }
+        String biography = patch.getString("biography");
+        if (biography != null && biography.isEmpty()) {
+            throw new IllegalArgumentException("Author biography cannot be null or empty");
+        }
+
+        return author -> {
+            Author patched = new Author(author.getId(),
+                    name != null ? name : author.getName(),
+                    biography != null ? biography : author.getBiography());
+            boolean unchanged = Objects.equals(patched.getName(), author.getName())
+                    && Objects.equals(patched.getBiography(), author.getBiography());
+            return unchanged ? author : patched;
+        };
+    }
+
+    private static Response versionConflict(VersionConflictException e, boolean conditional) {
+        LoggerUtil.logWarning("Failed to write author: " + e.getMessage());
+        // Without If-Match the only precondition is that the author exists
+        if (!conditional) {
             return Response.status(Status.NOT_FOUND)
-                    .entity("Author not found with ID: " + id)
+                    .type(MediaType.TEXT_PLAIN)
+                    .entity(e.getMessage())
                     .build();
         }
-        
-        // Filter books by author ID
-        List<Book> authorBooks = DataStore.books.values().stream()
-                .filter(book -> book.getAuthorId() == id)
-                .collect(Collectors.toList());
-        
-        LoggerUtil.logInfo("Retrieved " + authorBooks.size() + " books for author with ID: " + id);
-        return Response.status(Status.OK)
-                .entity(authorBooks)
-                .build();
+        Response.ResponseBuilder response = Response.status(Status.PRECONDITION_FAILED)
+                .type(MediaType.TEXT_PLAIN)
+                .entity(e.getMessage());
+        if (e.getCurrentVersion() != 0) {
+            response.tag(EntityTags.of(e.getCurrentVersion()));
+        }
+        return response.build();
     }
 }
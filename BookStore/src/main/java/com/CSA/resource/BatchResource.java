@@ -0,0 +1,205 @@
+package com.CSA.resource;
+
+import com.CSA.LoggerUtil.LoggerUtil;
+import com.CSA.model.BatchOperation;
+import com.CSA.model.Book;
+import com.CSA.storage.CatalogSnapshot;
+import com.CSA.storage.DataStore;
+
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbBuilder;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.Response.Status;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * Resource class for running several catalog reads in one request.
+ * Sub-requests are resolved in parallel against one pinned snapshot, so together they see a
+ * single consistent catalog state, and each result is streamed back as soon as it is ready.
+ * Results therefore arrive in completion order; each carries the index and ID of its sub-request.
+ */
+@Path("/batch")
+public class BatchResource {
+
+    private static final int MAX_OPERATIONS = Integer.getInteger("bookstore.batch.maxOperations", 100);
+    private static final int PARALLELISM = Integer.getInteger("bookstore.batch.parallelism",
+            Runtime.getRuntime().availableProcessors());
+
+    private static final Jsonb JSONB = JsonbBuilder.create();
+    private static final ExecutorService readers = Executors.newFixedThreadPool(PARALLELISM, runnable -> {
+        Thread thread = new Thread(runnable, "batch-reader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Runs a list of read sub-requests and streams back a JSON array with one result per
+     * sub-request: its index and ID, HTTP status, entity tag where the single-item endpoint would
+     * send one, and body. Supported sub-requests are GET /books/{id}, GET /books?ids=...,
+     * GET /authors/{id}, GET /authors?ids=... and GET /authors/{id}/books.
+     * 
+     * @param operations The sub-requests
+     * @return Response streaming the results, or 400 if the list is missing, empty or too long
+     */
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response execute(List<BatchOperation> operations) {
+        if (operations == null || operations.isEmpty() || operations.size() > MAX_OPERATIONS) {
+            return Response.status(Status.BAD_REQUEST)
+                .entity("{\"error\": \"A batch must hold between 1 and " + MAX_OPERATIONS + " operations\"}")
+                .build();
+        }
+        LoggerUtil.logInfo("Running batch of " + operations.size() + " operations");
+        StreamingOutput results = output -> stream(operations, output);
+        return Response.ok(results).build();
+    }
+
+    private static void stream(List<BatchOperation> operations, OutputStream output) throws IOException {
+        BlockingQueue<String> completed = new LinkedBlockingQueue<>();
+        try (CatalogSnapshot snapshot = DataStore.catalogClock.openSnapshot()) {
+            for (int index = 0; index < operations.size(); index++) {
+                BatchOperation operation = operations.get(index);
+                int position = index;
+                CompletableFuture.supplyAsync(() -> resolve(operation, snapshot), readers)
+                        .handle((response, failure) -> {
+                            if (failure != null) {
+                                LoggerUtil.logSevere("Batch operation failed: " + failure.getMessage());
+                                response = Response.status(Status.INTERNAL_SERVER_ERROR)
+                                        .entity("Operation failed")
+                                        .build();
+                            }
+                            return completed.add(render(position, operation, response));
+                        });
+            }
+
+            output.write('[');
+            for (int written = 0; written < operations.size(); written++) {
+                String result;
+                try {
+                    result = completed.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for batch results", e);
+                }
+                if (written > 0) {
+                    output.write(',');
+                }
+                output.write(result.getBytes(StandardCharsets.UTF_8));
+                output.flush();
+            }
+            output.write(']');
+        }
+    }
+
+    /**
+     * Resolves one sub-request by calling the read path of the resource it names.
+     */
+    private static Response resolve(BatchOperation operation, CatalogSnapshot snapshot) {
+        if (operation.getPath() == null) {
+            return Response.status(Status.BAD_REQUEST).entity("Operation path is required").build();
+        }
+        if (!"GET".equalsIgnoreCase(operation.getMethod())) {
+            return Response.status(Status.METHOD_NOT_ALLOWED).entity("Only GET operations can be batched").build();
+        }
+        String path = operation.getPath();
+        String query = null;
+        int question = path.indexOf('?');
+        if (question >= 0) {
+            query = path.substring(question + 1);
+            path = path.substring(0, question);
+        }
+        String[] segments = path.replaceAll("^/+|/+$", "").split("/");
+        try {
+            if (segments.length == 1 && query != null) {
+                String ids = queryParam(query, "ids");
+                if (ids != null && segments[0].equals("books")) {
+                    return okOrInvalid(() -> BookResource.findBooks(IdList.parse(ids), snapshot));
+                }
+                if (ids != null && segments[0].equals("authors")) {
+                    return okOrInvalid(() -> AuthorResource.findAuthors(IdList.parse(ids), snapshot));
+                }
+            } else if (segments.length == 2 && segments[0].equals("books")) {
+                return BookResource.readBook(Integer.parseInt(segments[1]), snapshot);
+            } else if (segments.length == 2 && segments[0].equals("authors")) {
+                return AuthorResource.readAuthor(Integer.parseInt(segments[1]), snapshot);
+            } else if (segments.length == 3 && segments[0].equals("authors") && segments[2].equals("books")) {
+                int authorId = Integer.parseInt(segments[1]);
+                List<Book> books = AuthorResource.findBooksByAuthor(authorId, snapshot);
+                return books == null
+                        ? Response.status(Status.NOT_FOUND).entity("Author not found with ID: " + authorId).build()
+                        : Response.ok(books).build();
+            }
+        } catch (NumberFormatException e) {
+            return Response.status(Status.NOT_FOUND).entity("Invalid ID in path: " + operation.getPath()).build();
+        }
+        return Response.status(Status.NOT_FOUND).entity("No batchable resource at path: " + operation.getPath()).build();
+    }
+
+    private static Response okOrInvalid(Supplier<List<?>> lookup) {
+        try {
+            return Response.ok(lookup.get()).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
+    }
+
+    private static String queryParam(String query, String name) {
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0 && pair.substring(0, equals).equals(name)) {
+                try {
+                    return URLDecoder.decode(pair.substring(equals + 1), "UTF-8");
+                } catch (UnsupportedEncodingException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Renders one result object. Error messages become {"error": ...} bodies, whichever resource
+     * produced them.
+     */
+    private static String render(int index, BatchOperation operation, Response response) {
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"index\":").append(index);
+        if (operation.getId() != null) {
+            json.append(",\"id\":").append(JSONB.toJson(operation.getId()));
+        }
+        json.append(",\"status\":").append(response.getStatus());
+        EntityTag tag = response.getEntityTag();
+        if (tag != null) {
+            json.append(",\"etag\":").append(JSONB.toJson(EntityTags.format(tag)));
+        }
+        Object entity = response.getEntity();
+        if (entity instanceof String) {
+            String message = (String) entity;
+            json.append(",\"body\":").append(message.startsWith("{")
+                    ? message : ErrorBody.of(message));
+        } else if (entity != null) {
+            json.append(",\"body\":").append(JSONB.toJson(entity));
+        }
+        return json.append('}').toString();
+    }
+}
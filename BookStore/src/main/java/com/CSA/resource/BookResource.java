@@ -1,22 +1,50 @@
 package com.CSA.resource;
 
 import com.CSA.LoggerUtil.LoggerUtil;
+import com.CSA.analytics.BestsellerEntry;
+import com.CSA.analytics.Bestsellers;
+import com.CSA.analytics.CatalogStats;
+import com.CSA.analytics.CoPurchaseIndex;
 import com.CSA.model.Book;
+import com.CSA.model.BookBulkUpdate;
+import com.CSA.provider.CborMessageBodyProvider;
+import com.CSA.provider.PrecompressedPayloadCache;
+import com.CSA.storage.CatalogSnapshot;
+import com.CSA.storage.BulkUpdateResult;
 import com.CSA.storage.DataStore;
+import com.CSA.storage.InsufficientStockException;
+import com.CSA.storage.ReferentialIntegrityException;
+import com.CSA.storage.VersionConflictException;
+import com.CSA.storage.Versioned;
 
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.PATCH;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.Response.Status;
 
-import java.util.Collection;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 /**
  * Resource class for handling Book related operations.
@@ -25,6 +53,14 @@ import java.util.Collection;
 @Path("/books")
 public class BookResource {
 
+    private static final int MAX_BESTSELLERS = 100;
+    private static final String[] BOOK_FIELDS = {
+        "id", "title", "authorId", "isbn", "publicationYear", "price", "stockQuantity"
+    };
+
+    // Serialized and gzipped catalog, rebuilt only when the books map changes
+    static final PrecompressedPayloadCache<Integer> ALL_BOOKS_PAYLOADS = new PrecompressedPayloadCache<>("books", 1);
+
     /**
      * Adds a new book to the system.
      * 
@@ -32,37 +68,43 @@ public class BookResource {
      * @return Response with the created book or error message
      */
     @POST
-    @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes({MediaType.APPLICATION_JSON, CborMessageBodyProvider.APPLICATION_CBOR})
+    @Produces({MediaType.APPLICATION_JSON, CborMessageBodyProvider.APPLICATION_CBOR})
     public Response addBook(Book book) {
         // Validate the incoming book object
         if (book.getTitle() == null || book.getTitle().isEmpty()) {
             return Response.status(Status.BAD_REQUEST)
+                .type(MediaType.APPLICATION_JSON)
                 .entity("{\"error\": \"Book title is required\"}")
                 .build();
         }
         if (book.getAuthorId() <= 0) {
             return Response.status(Status.BAD_REQUEST)
+                .type(MediaType.APPLICATION_JSON)
                 .entity("{\"error\": \"Valid author ID is required\"}")
                 .build();
         }
         if (book.getIsbn() == null || book.getIsbn().isEmpty()) {
             return Response.status(Status.BAD_REQUEST)
+                .type(MediaType.APPLICATION_JSON)
                 .entity("{\"error\": \"ISBN is required\"}")
                 .build();
         }
         if (book.getPublicationYear() <= 0) {
             return Response.status(Status.BAD_REQUEST)
+                .type(MediaType.APPLICATION_JSON)
                 .entity("{\"error\": \"Valid publication year is required\"}")
                 .build();
         }
         if (book.getPrice() <= 0) {
             return Response.status(Status.BAD_REQUEST)
+                .type(MediaType.APPLICATION_JSON)
                 .entity("{\"error\": \"Valid price is required\"}")
                 .build();
         }
         if (book.getStockQuantity() < 0) {
             return Response.status(Status.BAD_REQUEST)
+                .type(MediaType.APPLICATION_JSON)
                 .entity("{\"error\": \"Stock quantity cannot be negative\"}")
                 .build();
         }
@@ -70,6 +112,7 @@ public class BookResource {
         // Check if the author exists
         if (!DataStore.authors.containsKey(book.getAuthorId())) {
             return Response.status(Status.NOT_FOUND)
+                .type(MediaType.APPLICATION_JSON)
                 .entity("{\"error\": \"Author not found with ID: " + book.getAuthorId() + "\"}")
                 .build();
         }
@@ -78,70 +121,393 @@ public class BookResource {
         int bookId = DataStore.getNextBookId();
         book.setId(bookId);
 
-        // Save the book to DataStore
-        DataStore.books.put(bookId, book);
+        // Save the book to DataStore; the author may have been deleted since the check above
+        long version;
+        try {
+            version = DataStore.saveBook(book);
+        } catch (ReferentialIntegrityException e) {
+            return Response.status(Status.NOT_FOUND)
+                .type(MediaType.APPLICATION_JSON)
+                .entity("{\"error\": \"" + e.getMessage() + "\"}")
+                .build();
+        }
 
         // Return 201 Created with the saved book
         return Response.status(Status.CREATED)
             .entity(book)
+            .tag(EntityTags.of(version))
             .build();
     }
 
     /**
-     * Retrieves all books from the system.
+     * Changes the price or stock of every book matching the given criteria in one atomic batch,
+     * such as 10% off all books of an author or a year's releases. A book must match every
+     * criterion given. Prices are rounded to whole cents, and never scaled below one cent.
      * 
-     * @return Response with the list of all books
+     * @param update The criteria and the change
+     * @return Response with the matched and updated counts, 400 for an invalid request, 404 if the
+     *         author does not exist, or 409 if stock would become negative
      */
-    @GET
+    @POST
+    @Path("/bulk")
+    @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getAllBooks() {
-        Collection<Book> allBooks = DataStore.books.values();
+    public Response bulkUpdateBooks(BookBulkUpdate update) {
+        String error = validateBulkUpdate(update);
+        if (error != null) {
+            return Response.status(Status.BAD_REQUEST)
+                .type(MediaType.APPLICATION_JSON)
+                .entity("{\"error\": \"" + error + "\"}")
+                .build();
+        }
+        Integer authorId = update.getAuthorId();
+        if (authorId != null && !DataStore.authors.containsKey(authorId)) {
+            return Response.status(Status.NOT_FOUND)
+                .type(MediaType.APPLICATION_JSON)
+                .entity("{\"error\": \"Author not found with ID: " + authorId + "\"}")
+                .build();
+        }
+
+        // The narrowest criterion picks the candidates; the filter checks the rest
+        Function<CatalogSnapshot, List<Book>> candidates;
+        if (update.getIds() != null) {
+            int[] ids = update.getIds().stream().mapToInt(Integer::intValue).distinct().toArray();
+            candidates = snapshot -> findBooks(ids, snapshot);
+        } else if (authorId != null) {
+            candidates = snapshot -> {
+                List<Book> authorBooks = AuthorResource.findBooksByAuthor(authorId, snapshot);
+                return authorBooks == null ? new ArrayList<>() : authorBooks;
+            };
+        } else {
+            candidates = DataStore.books::values;
+        }
+        int fromYear = update.getFromYear() == null ? Integer.MIN_VALUE : update.getFromYear();
+        int toYear = update.getToYear() == null ? Integer.MAX_VALUE : update.getToYear();
+        Predicate<Book> filter = book -> (authorId == null || book.getAuthorId() == authorId)
+            && book.getPublicationYear() >= fromYear && book.getPublicationYear() <= toYear;
+
+        BulkUpdateResult result;
+        try {
+            result = DataStore.bulkUpdateBooks(candidates, filter, bulkChange(update));
+        } catch (InsufficientStockException e) {
+            LoggerUtil.logWarning("Bulk update rejected: " + e.getMessage());
+            return Response.status(Status.CONFLICT)
+                .type(MediaType.APPLICATION_JSON)
+                .entity("{\"error\": \"" + e.getMessage() + "\"}")
+                .build();
+        }
+        LoggerUtil.logInfo("Bulk update matched " + result.getMatched() + " books and changed " + result.getUpdated());
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("matched", result.getMatched());
+        body.put("updated", result.getUpdated());
+        body.put("version", result.getVersion());
+        return Response.ok(body).build();
+    }
+
+    private static String validateBulkUpdate(BookBulkUpdate update) {
+        if (update == null) {
+            return "Bulk update details are required";
+        }
+        if (!Boolean.TRUE.equals(update.getAll()) && update.getAuthorId() == null && update.getFromYear() == null
+                && update.getToYear() == null && update.getIds() == null) {
+            return "Give authorId, fromYear, toYear or ids, or all: true to change every book";
+        }
+        if (update.getIds() != null) {
+            if (update.getIds().isEmpty()) {
+                return "ids cannot be empty";
+            }
+            for (Integer id : update.getIds()) {
+                if (id == null || id <= 0) {
+                    return "Invalid ID: " + id;
+                }
+            }
+        }
+        if (update.getFromYear() != null && update.getToYear() != null && update.getFromYear() > update.getToYear()) {
+            return "fromYear cannot be after toYear";
+        }
+        if (update.getSetPrice() == null && update.getScalePrice() == null && update.getAdjustStock() == null) {
+            return "Give setPrice, scalePrice or adjustStock";
+        }
+        if (update.getSetPrice() != null && update.getScalePrice() != null) {
+            return "Give setPrice or scalePrice, not both";
+        }
+        if (update.getSetPrice() != null
+                && (Math.round(update.getSetPrice() * 100) < 1 || Double.isInfinite(update.getSetPrice()))) {
+            return "setPrice must be at least 0.01";
+        }
+        if (update.getScalePrice() != null
+                && (!(update.getScalePrice() > 0) || Double.isInfinite(update.getScalePrice()))) {
+            return "scalePrice must be positive";
+        }
+        return null;
+    }
+
+    private static UnaryOperator<Book> bulkChange(BookBulkUpdate update) {
+        Double setPrice = update.getSetPrice() == null ? null : Math.round(update.getSetPrice() * 100) / 100.0;
+        Double scalePrice = update.getScalePrice();
+        Integer adjustStock = update.getAdjustStock();
+        return book -> {
+            double price = book.getPrice();
+            if (setPrice != null) {
+                price = setPrice;
+            } else if (scalePrice != null) {
+                price = Math.max(1, Math.round(price * scalePrice * 100)) / 100.0;
+            }
+            int stock = book.getStockQuantity();
+            if (adjustStock != null) {
+                // Negative results are rejected by the store; overflow saturates instead
+                stock = (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, (long) stock + adjustStock));
+            }
+            if (price == book.getPrice() && stock == book.getStockQuantity()) {
+                return book;
+            }
+            return new Book(book.getId(), book.getTitle(), book.getAuthorId(), book.getIsbn(),
+                book.getPublicationYear(), price, stock);
+        };
+    }
+
+    /**
+     * Retrieves all books from the system, or with ids only the listed books. JSON responses for
+     * the whole catalog are served from a precompressed payload that is rebuilt only after the
+     * catalog changes.
+     * 
+     * @param headers The request headers, used to negotiate the representation and encoding
+     * @param ids Comma-separated IDs of the books to retrieve, or null for all books
+     * @return Response with the list of books; listed IDs with no book are left out
+     */
+    @GET
+    @Produces({MediaType.APPLICATION_JSON, CborMessageBodyProvider.APPLICATION_CBOR})
+    public Response getAllBooks(@Context HttpHeaders headers, @QueryParam("ids") String ids) {
+        if (ids != null) {
+            return getBooksByIds(ids);
+        }
         LoggerUtil.logInfo("Retrieved all books from the system");
+        if (PrecompressedPayloadCache.prefersJson(headers)) {
+            return ALL_BOOKS_PAYLOADS.get(0, DataStore.books.modifiedVersion(), DataStore.books::values)
+                    .toResponse(headers);
+        }
+        // Copy from a pinned snapshot so serialization never sees a concurrent write
+        List<Book> allBooks = DataStore.books.values();
         return Response.ok(allBooks).build();
     }
 
     /**
-     * Retrieves a specific book by its ID.
+     * Retrieves several books by ID in one consistent snapshot, in the order requested.
+     * 
+     * @param ids Comma-separated book IDs
+     * @return Response with the books found, or 400 for an invalid ID list
+     */
+    static Response getBooksByIds(String ids) {
+        int[] bookIds;
+        try {
+            bookIds = IdList.parse(ids);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Status.BAD_REQUEST)
+                .type(MediaType.APPLICATION_JSON)
+                .entity(ErrorBody.of(e.getMessage()))
+                .build();
+        }
+        List<Book> found;
+        try (CatalogSnapshot snapshot = DataStore.catalogClock.openSnapshot()) {
+            found = findBooks(bookIds, snapshot);
+        }
+        LoggerUtil.logInfo("Retrieved " + found.size() + " of " + bookIds.length + " requested books");
+        return Response.ok(found).build();
+    }
+
+    /**
+     * Looks up books by ID as of a snapshot.
+     * 
+     * @param bookIds The book IDs
+     * @param snapshot The pinned snapshot
+     * @return The books found, in the order of their IDs
+     */
+    static List<Book> findBooks(int[] bookIds, CatalogSnapshot snapshot) {
+        List<Book> found = new ArrayList<>(bookIds.length);
+        for (int bookId : bookIds) {
+            Book book = DataStore.books.get(bookId, snapshot);
+            if (book != null) {
+                found.add(book);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Retrieves the best-selling books, maintained live as orders are placed.
+     * 
+     * @param window The time window: all (default), 1h, 24h or 7d
+     * @param k The maximum number of books to return (default 10, at most 100)
+     * @param authorId If given, the all-time bestsellers of this author only
+     * @return Response with the bestseller list or 400 for invalid parameters
+     */
+    @GET
+    @Path("/bestsellers")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getBestsellers(@QueryParam("window") @DefaultValue(Bestsellers.ALL_TIME) String window,
+                                   @QueryParam("k") @DefaultValue("10") int k,
+                                   @QueryParam("authorId") Integer authorId) {
+        if (k <= 0 || k > MAX_BESTSELLERS) {
+            return Response.status(Status.BAD_REQUEST)
+                .type(MediaType.APPLICATION_JSON)
+                .entity("{\"error\": \"k must be between 1 and " + MAX_BESTSELLERS + "\"}")
+                .build();
+        }
+        if (!Bestsellers.isKnownWindow(window)) {
+            return Response.status(Status.BAD_REQUEST)
+                .type(MediaType.APPLICATION_JSON)
+                .entity(ErrorBody.of("Unknown window: " + window))
+                .build();
+        }
+        if (authorId != null && !Bestsellers.ALL_TIME.equals(window)) {
+            return Response.status(Status.BAD_REQUEST)
+                .type(MediaType.APPLICATION_JSON)
+                .entity("{\"error\": \"Author bestsellers are only available for the all-time window\"}")
+                .build();
+        }
+
+        List<BestsellerEntry> entries = authorId != null
+            ? Bestsellers.topForAuthor(authorId, k)
+            : Bestsellers.top(window, k);
+        for (BestsellerEntry entry : entries) {
+            Book book = DataStore.books.get(entry.getBookId());
+            entry.setTitle(book == null ? null : book.getTitle());
+        }
+        LoggerUtil.logInfo("Retrieved " + entries.size() + " bestsellers for window: " + window);
+        return Response.ok(entries).build();
+    }
+
+    /**
+     * Retrieves catalog statistics: book count, total stock, inventory value, low-stock and
+     * out-of-stock counts, and books per publication year. They are maintained as books are
+     * written, so this costs the same however large the catalog is.
+     * 
+     * @param byAuthor Whether to include the book count of every author
+     * @param verify Whether to also recompute the statistics from every book and compare
+     * @return Response with the statistics, and the comparison if requested
+     */
+    @GET
+    @Path("/stats")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getCatalogStats(@QueryParam("byAuthor") @DefaultValue("false") boolean byAuthor,
+                                    @QueryParam("verify") @DefaultValue("false") boolean verify) {
+        Map<String, Object> stats = CatalogStats.get(byAuthor);
+        if (verify) {
+            Map<String, Object> verification = CatalogStats.verify();
+            if (Boolean.FALSE.equals(verification.get("consistent"))) {
+                LoggerUtil.logWarning("Catalog statistics differ from a full recompute: "
+                        + verification.get("differences"));
+            }
+            stats.put("verification", verification);
+        }
+        return Response.ok(stats).build();
+    }
+
+    /**
+     * Retrieves a specific book by its ID, tagged with its version for use in If-Match.
      * 
      * @param id The ID of the book to retrieve
      * @return Response with the book or 404 if not found
      */
     @GET
     @Path("/{id}")
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, CborMessageBodyProvider.APPLICATION_CBOR})
     public Response getBookById(@PathParam("id") int id) {
         LoggerUtil.logInfo("Attempting to retrieve book with ID: " + id);
         
-        Book book = DataStore.books.get(id);
-        if (book == null) {
+        Response response;
+        try (CatalogSnapshot snapshot = DataStore.catalogClock.openSnapshot()) {
+            response = readBook(id, snapshot);
+        }
+        if (response.getStatus() == Status.NOT_FOUND.getStatusCode()) {
             LoggerUtil.logWarning("Book not found with ID: " + id);
+        } else {
+            LoggerUtil.logInfo("Retrieved book with ID: " + id);
+        }
+        return response;
+    }
+
+    /**
+     * Reads a book as of a snapshot, tagged with its version.
+     * 
+     * @param id The ID of the book
+     * @param snapshot The pinned snapshot
+     * @return Response with the book or 404 if not found
+     */
+    static Response readBook(int id, CatalogSnapshot snapshot) {
+        Book book = DataStore.books.get(id, snapshot);
+        if (book == null) {
             return Response.status(Status.NOT_FOUND)
+                .type(MediaType.APPLICATION_JSON)
                 .entity("{\"error\": \"Book not found with ID: " + id + "\"}")
                 .build();
         }
-        
-        LoggerUtil.logInfo("Retrieved book with ID: " + id);
-        return Response.ok(book).build();
+        return Response.ok(book).tag(EntityTags.of(DataStore.books.versionOf(id, snapshot))).build();
+    }
+
+    /**
+     * Retrieves the books most often bought in the same order as a book.
+     * 
+     * @param id The ID of the book
+     * @param k The maximum number of books to return (default 5, at most 20)
+     * @return Response with the co-purchased books, strongest first, or 404 if the book is not found
+     */
+    @GET
+    @Path("/{id}/also-bought")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getAlsoBought(@PathParam("id") int id, @QueryParam("k") @DefaultValue("5") int k) {
+        if (k <= 0 || k > CoPurchaseIndex.MAX_TOP) {
+            return Response.status(Status.BAD_REQUEST)
+                .type(MediaType.APPLICATION_JSON)
+                .entity("{\"error\": \"k must be between 1 and " + CoPurchaseIndex.MAX_TOP + "\"}")
+                .build();
+        }
+
+        List<Book> alsoBought = new ArrayList<>(k);
+        try (CatalogSnapshot snapshot = DataStore.catalogClock.openSnapshot()) {
+            if (DataStore.books.get(id, snapshot) == null) {
+                LoggerUtil.logWarning("Book not found with ID: " + id);
+                return Response.status(Status.NOT_FOUND)
+                    .type(MediaType.APPLICATION_JSON)
+                    .entity("{\"error\": \"Book not found with ID: " + id + "\"}")
+                    .build();
+            }
+            // Ask for every stored neighbour so deleted books can be skipped without running short
+            for (int neighbourId : CoPurchaseIndex.alsoBought(id, CoPurchaseIndex.MAX_TOP)) {
+                Book neighbour = DataStore.books.get(neighbourId, snapshot);
+                if (neighbour != null && alsoBought.size() < k) {
+                    alsoBought.add(neighbour);
+                }
+            }
+        }
+
+        LoggerUtil.logInfo("Retrieved " + alsoBought.size() + " co-purchased books for book with ID: " + id);
+        return Response.ok(alsoBought).build();
     }
 
     /**
-     * Updates an existing book's information.
+     * Updates an existing book's information. With If-Match, the update only applies if the book
+     * is still at one of the given versions, so concurrent editors cannot overwrite each other.
      * 
      * @param id The ID of the book to update
+     * @param ifMatch The entity tags the client expects the book to have, or null
      * @param book The updated book data
-     * @return Response with the updated book or appropriate error status
+     * @return Response with the updated book, 412 if the book changed since the client read it,
+     *         or another error status
      */
     @PUT
     @Path("/{id}")
-    @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
-    public Response updateBook(@PathParam("id") int id, Book book) {
+    @Consumes({MediaType.APPLICATION_JSON, CborMessageBodyProvider.APPLICATION_CBOR})
+    @Produces({MediaType.APPLICATION_JSON, CborMessageBodyProvider.APPLICATION_CBOR})
+    public Response updateBook(@PathParam("id") int id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch, Book book) {
         LoggerUtil.logInfo("Attempting to update book with ID: " + id);
         
         // Check if book exists
         if (!DataStore.books.containsKey(id)) {
             LoggerUtil.logWarning("Failed to update: Book not found with ID: " + id);
             return Response.status(Status.NOT_FOUND)
+                .type(MediaType.APPLICATION_JSON)
                 .entity("{\"error\": \"Book not found with ID: " + id + "\"}")
                 .build();
         }
@@ -150,36 +516,42 @@ public class BookResource {
         if (book.getTitle() == null || book.getTitle().isEmpty()) {
             LoggerUtil.logWarning("Failed to update book: Title is required");
             return Response.status(Status.BAD_REQUEST)
+                .type(MediaType.APPLICATION_JSON)
                 .entity("{\"error\": \"Book title is required\"}")
                 .build();
         }
         if (book.getAuthorId() <= 0) {
             LoggerUtil.logWarning("Failed to update book: Valid author ID is required");
             return Response.status(Status.BAD_REQUEST)
+                .type(MediaType.APPLICATION_JSON)
                 .entity("{\"error\": \"Valid author ID is required\"}")
                 .build();
         }
         if (book.getIsbn() == null || book.getIsbn().isEmpty()) {
             LoggerUtil.logWarning("Failed to update book: ISBN is required");
             return Response.status(Status.BAD_REQUEST)
+                .type(MediaType.APPLICATION_JSON)
                 .entity("{\"error\": \"ISBN is required\"}")
                 .build();
         }
         if (book.getPublicationYear() <= 0) {
             LoggerUtil.logWarning("Failed to update book: Valid publication year is required");
             return Response.status(Status.BAD_REQUEST)
+                .type(MediaType.APPLICATION_JSON)
                 .entity("{\"error\": \"Valid publication year is required\"}")
                 .build();
         }
         if (book.getPrice() <= 0) {
             LoggerUtil.logWarning("Failed to update book: Valid price is required");
             return Response.status(Status.BAD_REQUEST)
+                .type(MediaType.APPLICATION_JSON)
                 .entity("{\"error\": \"Valid price is required\"}")
                 .build();
         }
         if (book.getStockQuantity() < 0) {
             LoggerUtil.logWarning("Failed to update book: Stock quantity cannot be negative");
             return Response.status(Status.BAD_REQUEST)
+                .type(MediaType.APPLICATION_JSON)
                 .entity("{\"error\": \"Stock quantity cannot be negative\"}")
                 .build();
         }
@@ -188,6 +560,7 @@ public class BookResource {
         if (!DataStore.authors.containsKey(book.getAuthorId())) {
             LoggerUtil.logWarning("Failed to update book: Author not found with ID: " + book.getAuthorId());
             return Response.status(Status.NOT_FOUND)
+                .type(MediaType.APPLICATION_JSON)
                 .entity("{\"error\": \"Author not found with ID: " + book.getAuthorId() + "\"}")
                 .build();
         }
@@ -195,34 +568,177 @@ public class BookResource {
         // Preserve the book ID
         book.setId(id);
         
-        // Update the book in DataStore
-        DataStore.books.put(id, book);
+        // Update the book in DataStore, checking its version in the same transaction
+        LongPredicate expectedVersion = EntityTags.ifMatch(ifMatch);
+        long version;
+        try {
+            version = DataStore.saveBook(book, expectedVersion == null ? EntityTags.EXISTS : expectedVersion);
+        } catch (VersionConflictException e) {
+            return versionConflict(e, expectedVersion != null);
+        } catch (ReferentialIntegrityException e) {
+            LoggerUtil.logWarning("Failed to update book: " + e.getMessage());
+            return Response.status(Status.NOT_FOUND)
+                .type(MediaType.APPLICATION_JSON)
+                .entity("{\"error\": \"" + e.getMessage() + "\"}")
+                .build();
+        }
         LoggerUtil.logInfo("Successfully updated book with ID: " + id);
         
-        return Response.ok(book).build();
+        return Response.ok(book).tag(EntityTags.of(version)).build();
+    }
+
+    /**
+     * Changes some fields of a book with a JSON Merge Patch, such as {@code {"stockQuantity": 12}}.
+     * Only the fields in the patch are validated, and they are applied to the latest version of
+     * the book in one transaction, so concurrent patches of different fields do not undo each
+     * other. Only what depends on the changed fields is invalidated. With If-Match, the patch only
+     * applies if the book is still at one of the given versions.
+     *
+     * @param id The ID of the book to patch
+     * @param ifMatch The entity tags the client expects the book to have, or null
+     * @param body The merge patch
+     * @return Response with the patched book, 412 if the book changed since the client read it,
+     *         or another error status
+     */
+    @PATCH
+    @Path("/{id}")
+    @Consumes({MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON})
+    @Produces({MediaType.APPLICATION_JSON, CborMessageBodyProvider.APPLICATION_CBOR})
+    public Response patchBook(@PathParam("id") int id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch,
+                              InputStream body) {
+        LoggerUtil.logInfo("Attempting to patch book with ID: " + id);
+
+        UnaryOperator<Book> change;
+        try {
+            change = bookPatch(id, MergePatch.read(body, BOOK_FIELDS));
+        } catch (IllegalArgumentException e) {
+            LoggerUtil.logWarning("Failed to patch book: " + e.getMessage());
+            return Response.status(Status.BAD_REQUEST)
+                .type(MediaType.APPLICATION_JSON)
+                .entity(ErrorBody.of(e.getMessage()))
+                .build();
+        }
+
+        LongPredicate expectedVersion = EntityTags.ifMatch(ifMatch);
+        Versioned<Book> patched;
+        try {
+            patched = DataStore.patchBook(id, change, expectedVersion);
+        } catch (VersionConflictException e) {
+            return versionConflict(e, expectedVersion != null);
+        } catch (ReferentialIntegrityException e) {
+            LoggerUtil.logWarning("Failed to patch book: " + e.getMessage());
+            return Response.status(Status.NOT_FOUND)
+                .type(MediaType.APPLICATION_JSON)
+                .entity(ErrorBody.of(e.getMessage()))
+                .build();
+        }
+        LoggerUtil.logInfo("Successfully patched book with ID: " + id);
+
+        return Response.ok(patched.getValue()).tag(EntityTags.of(patched.getVersion())).build();
     }
 
     /**
-     * Deletes a book from the system by its ID.
+     * Deletes a book from the system by its ID. With If-Match, the delete only applies if the
+     * book is still at one of the given versions.
      * 
      * @param id The ID of the book to delete
-     * @return Response with 204 No Content if successful, or 404 if book not found
+     * @param ifMatch The entity tags the client expects the book to have, or null
+     * @return Response with 204 No Content if successful, 404 if book not found,
+     *         or 412 if the book changed since the client read it
      */
     @DELETE
     @Path("/{id}")
-    public Response deleteBook(@PathParam("id") int id) {
+    public Response deleteBook(@PathParam("id") int id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
         LoggerUtil.logInfo("Attempting to delete book with ID: " + id);
         
-        if (!DataStore.books.containsKey(id)) {
+        Book deleted;
+        try {
+            deleted = DataStore.deleteBook(id, EntityTags.ifMatch(ifMatch));
+        } catch (VersionConflictException e) {
+            return versionConflict(e, true);
+        }
+        if (deleted == null) {
             LoggerUtil.logWarning("Failed to delete: Book not found with ID: " + id);
             return Response.status(Status.NOT_FOUND)
+                .type(MediaType.APPLICATION_JSON)
                 .entity("{\"error\": \"Book not found with ID: " + id + "\"}")
                 .build();
         }
         
-        DataStore.books.remove(id);
         LoggerUtil.logInfo("Successfully deleted book with ID: " + id);
         
         return Response.status(Status.NO_CONTENT).build();
     }
+
+    /**
+     * Validates the fields a patch changes, by the same rules as a new book, and turns the patch
+     * into a change of the stored book.
+     *
+     * @throws IllegalArgumentException If a changed field is invalid
+     */
+    private static UnaryOperator<Book> bookPatch(int id, MergePatch patch) {
+        Integer patchedId = patch.getInt("id");
+        if (patchedId != null && patchedId != id) {
+            throw new IllegalArgumentException("Book ID cannot be changed");
+        }
+        String title = patch.getString("title");
+        if (title != null && title.isEmpty()) {
+            throw new IllegalArgumentException("Book title is required");
+        }
+        Integer authorId = patch.getInt("authorId");
+        if (authorId != null && authorId <= 0) {
+            throw new IllegalArgumentException("Valid author ID is required");
+        }
+        String isbn = patch.getString("isbn");
+        if (isbn != null && isbn.isEmpty()) {
+            throw new IllegalArgumentException("ISBN is required");
+        }
+        Integer year = patch.getInt("publicationYear");
+        if (year != null && year <= 0) {
+            throw new IllegalArgumentException("Valid publication year is required");
+        }
+        Double price = patch.getDouble("price");
+        if (price != null && !(price > 0)) {
+            throw new IllegalArgumentException("Valid price is required");
+        }
+        Integer stock = patch.getInt("stockQuantity");
+        if (stock != null && stock < 0) {
+            throw new IllegalArgumentException("Stock quantity cannot be negative");
+        }
+
+        return book -> {
+            Book patched = new Book(book.getId(),
+                    title != null ? title : book.getTitle(),
+                    authorId != null ? authorId : book.getAuthorId(),
+                    isbn != null ? isbn : book.getIsbn(),
+                    year != null ? year : book.getPublicationYear(),
+                    price != null ? price : book.getPrice(),
+                    stock != null ? stock : book.getStockQuantity());
+            boolean unchanged = Objects.equals(patched.getTitle(), book.getTitle())
+                    && patched.getAuthorId() == book.getAuthorId()
+                    && Objects.equals(patched.getIsbn(), book.getIsbn())
+                    && patched.getPublicationYear() == book.getPublicationYear()
+                    && patched.getPrice() == book.getPrice()
+                    && patched.getStockQuantity() == book.getStockQuantity();
+            return unchanged ? book : patched;
+        };
+    }
+
+    private static Response versionConflict(VersionConflictException e, boolean conditional) {
+        LoggerUtil.logWarning("Failed to write book: " + e.getMessage());
+        // Without If-Match the only precondition is that the book exists
+        if (!conditional) {
+            return Response.status(Status.NOT_FOUND)
+                .type(MediaType.APPLICATION_JSON)
+                .entity("{\"error\": \"" + e.getMessage() + "\"}")
+                .build();
+        }
+        Response.ResponseBuilder response = Response.status(Status.PRECONDITION_FAILED)
+            .type(MediaType.APPLICATION_JSON)
+            .entity("{\"error\": \"" + e.getMessage() + "\"}");
+        if (e.getCurrentVersion() != 0) {
+            response.tag(EntityTags.of(e.getCurrentVersion()));
+        }
+        return response.build();
+    }
 }
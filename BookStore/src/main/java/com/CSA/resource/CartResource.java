@@ -1,5 +1,195 @@
 package com.CSA.resource;
 
+import com.CSA.LoggerUtil.LoggerUtil;
+import com.CSA.model.Book;
+import com.CSA.model.Cart;
+import com.CSA.model.CartItem;
+import com.CSA.security.Secured;
+import com.CSA.storage.DataStore;
+
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.PUT;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.Response.Status;
+import jakarta.ws.rs.core.SecurityContext;
+
+/**
+ * Resource class for handling a customer's shopping cart.
+ * Requires a session token belonging to the customer in the path.
+ */
+@Path("/customers/{customerId}/cart")
+@Secured
 public class CartResource {
 
+    @PathParam("customerId")
+    private int customerId;
+
+    @Context
+    private SecurityContext securityContext;
+
+    /**
+     * Retrieves the customer's cart.
+     * 
+     * @return Response with the cart, empty if nothing has been added yet
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getCart() {
+        Response denied = checkCustomer();
+        if (denied != null) {
+            return denied;
+        }
+
+        Cart cart = DataStore.cartSnapshot(customerId);
+        LoggerUtil.logInfo("Retrieved cart for customer with ID: " + customerId);
+        return Response.ok(cart == null ? new Cart(customerId) : cart).build();
+    }
+
+    /**
+     * Adds a book to the customer's cart, or increases its quantity.
+     * 
+     * @param item The book ID and quantity to add
+     * @return Response with the updated cart or appropriate error status
+     */
+    @POST
+    @Path("/items")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response addItem(CartItem item) {
+        Response denied = checkCustomer();
+        if (denied != null) {
+            return denied;
+        }
+        if (item == null || item.getQuantity() <= 0) {
+            return Response.status(Status.BAD_REQUEST)
+                .entity("{\"error\": \"Quantity must be positive\"}")
+                .build();
+        }
+        Book book = DataStore.books.get(item.getBookId());
+        if (book == null) {
+            LoggerUtil.logWarning("Failed to add to cart: Book not found with ID: " + item.getBookId());
+            return Response.status(Status.NOT_FOUND)
+                .entity("{\"error\": \"Book not found with ID: " + item.getBookId() + "\"}")
+                .build();
+        }
+
+        return DataStore.withCart(customerId, true, cart -> {
+            int requested = cart.getItems().getOrDefault(item.getBookId(), 0) + item.getQuantity();
+            if (requested > book.getStockQuantity()) {
+                LoggerUtil.logWarning("Failed to add to cart: Insufficient stock for book with ID: " + item.getBookId());
+                return Response.status(Status.CONFLICT)
+                    .entity("{\"error\": \"Insufficient stock for book with ID: " + item.getBookId() + "\"}")
+                    .build();
+            }
+            cart.addItem(item.getBookId(), item.getQuantity());
+            LoggerUtil.logInfo("Added book " + item.getBookId() + " to cart of customer with ID: " + customerId);
+            return Response.ok(copyOf(cart)).build();
+        });
+    }
+
+    /**
+     * Sets the quantity of a book in the customer's cart; zero removes it.
+     * 
+     * @param bookId The ID of the book to update
+     * @param item The new quantity
+     * @return Response with the updated cart or appropriate error status
+     */
+    @PUT
+    @Path("/items/{bookId}")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response updateItem(@PathParam("bookId") int bookId, CartItem item) {
+        Response denied = checkCustomer();
+        if (denied != null) {
+            return denied;
+        }
+        if (item == null || item.getQuantity() < 0) {
+            return Response.status(Status.BAD_REQUEST)
+                .entity("{\"error\": \"Quantity cannot be negative\"}")
+                .build();
+        }
+
+        return DataStore.withCart(customerId, false, cart -> {
+            if (cart == null || !cart.getItems().containsKey(bookId)) {
+                return itemNotInCart(bookId);
+            }
+            Book book = DataStore.books.get(bookId);
+            if (book != null && item.getQuantity() > book.getStockQuantity()) {
+                return Response.status(Status.CONFLICT)
+                    .entity("{\"error\": \"Insufficient stock for book with ID: " + bookId + "\"}")
+                    .build();
+            }
+            cart.updateItem(bookId, item.getQuantity());
+            LoggerUtil.logInfo("Updated book " + bookId + " in cart of customer with ID: " + customerId);
+            return Response.ok(copyOf(cart)).build();
+        });
+    }
+
+    /**
+     * Removes a book from the customer's cart.
+     * 
+     * @param bookId The ID of the book to remove
+     * @return Response with 204 No Content if successful, or 404 if the book is not in the cart
+     */
+    @DELETE
+    @Path("/items/{bookId}")
+    public Response removeItem(@PathParam("bookId") int bookId) {
+        Response denied = checkCustomer();
+        if (denied != null) {
+            return denied;
+        }
+
+        return DataStore.withCart(customerId, false, cart -> {
+            if (cart == null || !cart.getItems().containsKey(bookId)) {
+                return itemNotInCart(bookId);
+            }
+            cart.removeItem(bookId);
+            LoggerUtil.logInfo("Removed book " + bookId + " from cart of customer with ID: " + customerId);
+            return Response.status(Status.NO_CONTENT).build();
+        });
+    }
+
+    /**
+     * Checks that the customer exists and is the one the session belongs to.
+     * 
+     * @return An error response, or null if the request may proceed
+     */
+    private Response checkCustomer() {
+        if (!String.valueOf(customerId).equals(securityContext.getUserPrincipal().getName())) {
+            LoggerUtil.logWarning("Denied cart access for customer with ID: " + customerId);
+            return Response.status(Status.FORBIDDEN)
+                .entity("{\"error\": \"Access denied to cart of customer with ID: " + customerId + "\"}")
+                .build();
+        }
+        if (!DataStore.customers.containsKey(customerId)) {
+            return Response.status(Status.NOT_FOUND)
+                .entity("{\"error\": \"Customer not found with ID: " + customerId + "\"}")
+                .build();
+        }
+        return null;
+    }
+
+    private Response itemNotInCart(int bookId) {
+        LoggerUtil.logWarning("Book " + bookId + " not in cart of customer with ID: " + customerId);
+        return Response.status(Status.NOT_FOUND)
+            .entity("{\"error\": \"Book not found in cart with ID: " + bookId + "\"}")
+            .build();
+    }
+
+    /**
+     * Copies a cart while holding its lock, so serialization never races with later changes.
+     */
+    private Cart copyOf(Cart cart) {
+        Cart copy = new Cart(cart.getCustomerId());
+        copy.getItems().putAll(cart.getItems());
+        return copy;
+    }
 }
@@ -0,0 +1,212 @@
+package com.CSA.resource;
+
+import com.CSA.LoggerUtil.LoggerUtil;
+import com.CSA.storage.ChangeEvent;
+import com.CSA.storage.ChangeFeed;
+import com.CSA.storage.ChangeLog;
+import com.CSA.storage.DataStore;
+
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.Response.Status;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Resource class for the catalog change feed, for downstream caches that sync incrementally
+ * instead of re-reading the whole catalog. Changes can be pulled with a position or pushed as
+ * Server-Sent Events. A client that falls further behind than the retained log gets a resync
+ * signal and should reload the catalog, then continue from the position given with it.
+ */
+@Path("/changes")
+public class ChangeResource {
+
+    private static final int MAX_LIMIT = 1000;
+    private static final int MAX_STREAMS = Integer.getInteger("bookstore.changes.maxStreams", 1000);
+    private static final long HEARTBEAT_MILLIS = 15_000L;
+
+    private static final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private static final ExecutorService pumps = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "change-stream-pump");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final AtomicBoolean dispatcherStarted = new AtomicBoolean();
+
+    /**
+     * Retrieves the catalog changes after a position.
+     * 
+     * @param since The sequence number of the last change already applied, 0 for none
+     * @param limit The maximum number of changes to return (default 500, at most 1000)
+     * @return Response with the changes and the position for the next pull, or a resync signal
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getChanges(@QueryParam("since") @DefaultValue("0") long since,
+                               @QueryParam("limit") @DefaultValue("500") int limit) {
+        if (since < 0 || limit < 1) {
+            LoggerUtil.logWarning("Invalid change feed request: since=" + since + ", limit=" + limit);
+            return Response.status(Status.BAD_REQUEST)
+                    .entity("{\"error\": \"since must not be negative and limit must be positive\"}")
+                    .build();
+        }
+        ChangeFeed feed = DataStore.changeLog.since(since, Math.min(limit, MAX_LIMIT));
+        if (feed.isResync()) {
+            LoggerUtil.logWarning("Change feed client at " + since + " must resync");
+        }
+        return Response.ok(feed).build();
+    }
+
+    /**
+     * Streams catalog changes as Server-Sent Events named "change", each with its sequence
+     * number as the event ID, so a reconnecting client resumes through Last-Event-ID. A client
+     * that falls behind the retained log gets a "resync" event carrying the position to
+     * continue from.
+     * 
+     * @param sink The event sink of the connection
+     * @param sse The SSE context
+     * @param lastEventId The Last-Event-ID header sent on reconnect
+     * @param since The position to start after; without it or Last-Event-ID only new changes are sent
+     */
+    @GET
+    @Path("/stream")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public void streamChanges(@Context SseEventSink sink, @Context Sse sse,
+                              @HeaderParam(HttpHeaders.LAST_EVENT_ID_HEADER) String lastEventId,
+                              @QueryParam("since") Long since) {
+        long start = DataStore.changeLog.getLastSeq();
+        try {
+            if (lastEventId != null && !lastEventId.isEmpty()) {
+                start = Long.parseLong(lastEventId.trim());
+            } else if (since != null) {
+                start = since;
+            }
+        } catch (NumberFormatException e) {
+            LoggerUtil.logWarning("Ignoring invalid Last-Event-ID: " + lastEventId);
+        }
+        if (subscriptions.size() >= MAX_STREAMS) {
+            LoggerUtil.logWarning("Rejecting change stream: " + MAX_STREAMS + " streams open");
+            sink.close();
+            return;
+        }
+
+        Subscription subscription = new Subscription(sink, sse, Math.max(0, start));
+        subscriptions.add(subscription);
+        startDispatcher();
+        LoggerUtil.logInfo("Opened change stream at position " + subscription.cursor);
+        subscription.schedule();
+    }
+
+    /**
+     * Starts the thread that wakes the streams when changes are committed, and periodically
+     * so idle streams send heartbeats and closed ones are noticed.
+     */
+    private static void startDispatcher() {
+        if (!dispatcherStarted.compareAndSet(false, true)) {
+            return;
+        }
+        Thread dispatcher = new Thread(() -> {
+            ChangeLog log = DataStore.changeLog;
+            long seen = log.getLastSeq();
+            while (true) {
+                try {
+                    log.awaitAfter(seen, HEARTBEAT_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                seen = log.getLastSeq();
+                for (Subscription subscription : subscriptions) {
+                    subscription.schedule();
+                }
+            }
+        }, "change-stream-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    /**
+     * One open stream. At most one pump runs per stream, so a slow client only holds up itself.
+     */
+    private static final class Subscription {
+        private final SseEventSink sink;
+        private final Sse sse;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile long cursor;
+        private long lastSentMillis = System.currentTimeMillis();
+
+        Subscription(SseEventSink sink, Sse sse, long cursor) {
+            this.sink = sink;
+            this.sse = sse;
+            this.cursor = cursor;
+        }
+
+        void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                pumps.execute(this::pump);
+            }
+        }
+
+        private void pump() {
+            try {
+                if (sink.isClosed()) {
+                    close();
+                    return;
+                }
+                ChangeFeed feed;
+                do {
+                    feed = DataStore.changeLog.since(cursor, MAX_LIMIT);
+                    if (feed.isResync()) {
+                        send(sse.newEventBuilder().name("resync").data(String.valueOf(feed.getNextSince())).build());
+                    }
+                    for (ChangeEvent change : feed.getChanges()) {
+                        send(sse.newEventBuilder()
+                                .name("change")
+                                .id(String.valueOf(change.getSeq()))
+                                .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                                .data(ChangeEvent.class, change)
+                                .build());
+                    }
+                    cursor = feed.getNextSince();
+                } while (!feed.getChanges().isEmpty() && cursor < DataStore.changeLog.getLastSeq());
+
+                if (System.currentTimeMillis() - lastSentMillis >= HEARTBEAT_MILLIS) {
+                    send(sse.newEventBuilder().comment("heartbeat").build());
+                }
+            } catch (RuntimeException e) {
+                LoggerUtil.logWarning("Closing change stream: " + e.getMessage());
+                close();
+            } finally {
+                scheduled.set(false);
+            }
+            // A commit may have landed after the last read but before the flag was cleared
+            if (!sink.isClosed() && cursor < DataStore.changeLog.getLastSeq()) {
+                schedule();
+            }
+        }
+
+        private void send(OutboundSseEvent event) {
+            // Wait for the write so events go out in order and a stalled client stalls only this pump
+            sink.send(event).toCompletableFuture().join();
+            lastSentMillis = System.currentTimeMillis();
+        }
+
+        private void close() {
+            subscriptions.remove(this);
+            sink.close();
+        }
+    }
+}
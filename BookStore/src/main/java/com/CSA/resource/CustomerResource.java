@@ -1,5 +1,188 @@
 package com.CSA.resource;
 
+import com.CSA.LoggerUtil.LoggerUtil;
+import com.CSA.model.Customer;
+import com.CSA.security.PasswordHasher;
+import com.CSA.security.Secured;
+import com.CSA.security.TokenService;
+import com.CSA.storage.DataStore;
+import com.CSA.storage.DuplicateEmailException;
+
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.PUT;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.Response.Status;
+import jakarta.ws.rs.core.SecurityContext;
+
+/**
+ * Resource class for customer registration and account management.
+ * Registration is open; reading, changing and deleting an account require that customer's
+ * session token. Email addresses are unique regardless of case. Passwords are stored hashed
+ * and never returned.
+ */
+@Path("/customers")
 public class CustomerResource {
 
+    @Context
+    private SecurityContext securityContext;
+
+    /**
+     * Registers a new customer.
+     *
+     * @param customer The customer's name, email and password
+     * @return Response with the newly created customer, or 409 if the email is already registered
+     */
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response addCustomer(Customer customer) {
+        Response invalid = validate(customer, true);
+        if (invalid != null) {
+            return invalid;
+        }
+        Customer created;
+        try {
+            created = DataStore.registerCustomer(customer.getName(), customer.getEmail(),
+                    () -> PasswordHasher.hash(customer.getPassword()));
+        } catch (DuplicateEmailException e) {
+            return emailTaken(customer.getEmail());
+        }
+        LoggerUtil.logInfo("Successfully registered new customer with ID: " + created.getId());
+        return Response.status(Status.CREATED)
+                .entity(created)
+                .build();
+    }
+
+    /**
+     * Retrieves the customer's account.
+     *
+     * @param id The ID of the customer
+     * @return Response with the customer or appropriate error status
+     */
+    @GET
+    @Path("/{id}")
+    @Secured
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getCustomerById(@PathParam("id") int id) {
+        Response denied = checkCustomer(id);
+        if (denied != null) {
+            return denied;
+        }
+        Customer customer = DataStore.customers.get(id);
+        if (customer == null) {
+            return notFound(id);
+        }
+        LoggerUtil.logInfo("Retrieved customer with ID: " + id);
+        return Response.ok(customer).build();
+    }
+
+    /**
+     * Updates the customer's name and email, and the password if one is given.
+     *
+     * @param id The ID of the customer
+     * @param customer The new details
+     * @return Response with the updated customer, or 409 if the new email is already registered
+     */
+    @PUT
+    @Path("/{id}")
+    @Secured
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response updateCustomer(@PathParam("id") int id, Customer customer) {
+        Response denied = checkCustomer(id);
+        if (denied != null) {
+            return denied;
+        }
+        Response invalid = validate(customer, false);
+        if (invalid != null) {
+            return invalid;
+        }
+
+        String passwordHash = customer.getPassword() == null || customer.getPassword().isEmpty()
+                ? null : PasswordHasher.hash(customer.getPassword());
+        Customer updated;
+        try {
+            updated = DataStore.updateCustomer(id, customer.getName(), customer.getEmail(), passwordHash);
+        } catch (DuplicateEmailException e) {
+            return emailTaken(customer.getEmail());
+        }
+        if (updated == null) {
+            return notFound(id);
+        }
+        LoggerUtil.logInfo("Successfully updated customer with ID: " + id);
+        return Response.ok(updated).build();
+    }
+
+    /**
+     * Deletes the customer's account and ends all of its sessions.
+     *
+     * @param id The ID of the customer
+     * @return Response with 204 No Content or appropriate error status
+     */
+    @DELETE
+    @Path("/{id}")
+    @Secured
+    public Response deleteCustomer(@PathParam("id") int id) {
+        Response denied = checkCustomer(id);
+        if (denied != null) {
+            return denied;
+        }
+        if (DataStore.deleteCustomer(id) == null) {
+            return notFound(id);
+        }
+        TokenService.revokeAll(id);
+        LoggerUtil.logInfo("Successfully deleted customer with ID: " + id);
+        return Response.status(Status.NO_CONTENT).build();
+    }
+
+    private static Response validate(Customer customer, boolean passwordRequired) {
+        String error = null;
+        if (customer == null) {
+            error = "Customer details are required";
+        } else if (customer.getName() == null || customer.getName().trim().isEmpty()) {
+            error = "Customer name cannot be null or empty";
+        } else if (customer.getEmail() == null || customer.getEmail().trim().indexOf('@') < 1) {
+            error = "A valid email address is required";
+        } else if (passwordRequired && (customer.getPassword() == null || customer.getPassword().isEmpty())) {
+            error = "Password cannot be null or empty";
+        }
+        if (error == null) {
+            return null;
+        }
+        LoggerUtil.logWarning("Rejected customer details: " + error);
+        return Response.status(Status.BAD_REQUEST)
+            .entity("{\"error\": \"" + error + "\"}")
+            .build();
+    }
+
+    private Response checkCustomer(int id) {
+        if (!String.valueOf(id).equals(securityContext.getUserPrincipal().getName())) {
+            LoggerUtil.logWarning("Denied access to customer with ID: " + id);
+            return Response.status(Status.FORBIDDEN)
+                .entity("{\"error\": \"Access denied to customer with ID: " + id + "\"}")
+                .build();
+        }
+        return null;
+    }
+
+    private static Response emailTaken(String email) {
+        LoggerUtil.logWarning("Email already registered: " + email);
+        return Response.status(Status.CONFLICT)
+            .entity("{\"error\": \"Email already registered\"}")
+            .build();
+    }
+
+    private static Response notFound(int id) {
+        return Response.status(Status.NOT_FOUND)
+            .entity("{\"error\": \"Customer not found with ID: " + id + "\"}")
+            .build();
+    }
 }
@@ -0,0 +1,75 @@
+package com.CSA.resource;
+
+import jakarta.ws.rs.core.EntityTag;
+
+import java.util.function.LongPredicate;
+
+/**
+ * Maps catalog record versions to HTTP entity tags and If-Match headers to version checks.
+ * The tag of a book or author is its commit version, which changes on every write to it.
+ */
+public class EntityTags {
+
+    /** Matches any existing record; used when an update or delete has no If-Match header. */
+    public static final LongPredicate EXISTS = version -> version != 0;
+
+    /**
+     * Gets the strong entity tag for a record version.
+     *
+     * @param version The record version
+     * @return The entity tag
+     */
+    public static EntityTag of(long version) {
+        return new EntityTag(Long.toString(version));
+    }
+
+    /**
+     * Formats an entity tag as it appears in an ETag header, such as {@code "42"}.
+     *
+     * @param tag The entity tag
+     * @return The header value
+     */
+    public static String format(EntityTag tag) {
+        return (tag.isWeak() ? "W/" : "") + '"' + tag.getValue() + '"';
+    }
+
+    /**
+     * Parses an If-Match header into a check on the current record version, using strong
+     * comparison: weak tags never match, {@code *} matches any existing record.
+     *
+     * @param ifMatch The header value, or null
+     * @return The check, or null if the header is absent
+     */
+    public static LongPredicate ifMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().isEmpty()) {
+            return null;
+        }
+        if ("*".equals(ifMatch.trim())) {
+            return EXISTS;
+        }
+        String[] tags = ifMatch.split(",");
+        long[] versions = new long[tags.length];
+        int count = 0;
+        for (String tag : tags) {
+            tag = tag.trim();
+            if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+                continue;
+            }
+            try {
+                long version = Long.parseLong(tag.substring(1, tag.length() - 1));
+                versions[count++] = version;
+            } catch (NumberFormatException e) {
+                // Not a tag we issued, so it cannot match
+            }
+        }
+        int matchable = count;
+        return version -> {
+            for (int i = 0; i < matchable; i++) {
+                if (versions[i] == version && version != 0) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+}
@@ -0,0 +1,23 @@
+package com.CSA.resource;
+
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbBuilder;
+
+/**
+ * Builds {@code {"error": ...}} response bodies, escaping the message so that client input echoed
+ * in it, such as a query parameter, cannot break the JSON.
+ */
+class ErrorBody {
+
+    private static final Jsonb JSONB = JsonbBuilder.create();
+
+    /**
+     * Builds an error body.
+     *
+     * @param message The error message
+     * @return The JSON body
+     */
+    static String of(String message) {
+        return "{\"error\": " + JSONB.toJson(message) + "}";
+    }
+}
@@ -0,0 +1,55 @@
+package com.CSA.resource;
+
+import java.util.Arrays;
+
+/**
+ * Parses the comma-separated ID lists of multi-get requests such as {@code GET /books?ids=1,2,3}.
+ */
+class IdList {
+
+    /** Most IDs accepted in one multi-get, overridable with -Dbookstore.multiget.maxIds. */
+    static final int MAX_IDS = Integer.getInteger("bookstore.multiget.maxIds", 100);
+
+    /**
+     * Parses an ID list, dropping repeated IDs but keeping the order of first occurrence.
+     *
+     * @param ids The comma-separated IDs
+     * @return The distinct IDs
+     * @throws IllegalArgumentException If the list is empty, too long or holds a non-positive or
+     *         non-numeric ID
+     */
+    static int[] parse(String ids) {
+        String[] parts = ids.split(",");
+        if (parts.length > MAX_IDS) {
+            throw new IllegalArgumentException("At most " + MAX_IDS + " IDs may be requested at once");
+        }
+        int[] parsed = new int[parts.length];
+        int count = 0;
+        for (String part : parts) {
+            String trimmed = part.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int id;
+            try {
+                id = Integer.parseInt(trimmed);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid ID: " + trimmed);
+            }
+            if (id <= 0) {
+                throw new IllegalArgumentException("Invalid ID: " + trimmed);
+            }
+            boolean repeated = false;
+            for (int i = 0; i < count && !repeated; i++) {
+                repeated = parsed[i] == id;
+            }
+            if (!repeated) {
+                parsed[count++] = id;
+            }
+        }
+        if (count == 0) {
+            throw new IllegalArgumentException("At least one ID is required");
+        }
+        return Arrays.copyOf(parsed, count);
+    }
+}
@@ -0,0 +1,119 @@
+package com.CSA.resource;
+
+import jakarta.json.Json;
+import jakarta.json.JsonException;
+import jakarta.json.JsonNumber;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A JSON Merge Patch (RFC 7396) for a flat entity: each member names a field to change and holds
+ * its new value, and fields without a member keep their current values. A null member would
+ * remove the field, which entities here do not allow, so it is rejected.
+ */
+class MergePatch {
+
+    /** The media type of merge patch documents. */
+    static final String MEDIA_TYPE = "application/merge-patch+json";
+
+    private final JsonObject members;
+
+    private MergePatch(JsonObject members) {
+        this.members = members;
+    }
+
+    /**
+     * Reads a patch, checking that it is a JSON object whose members are all known, non-null fields.
+     *
+     * @param body The request body
+     * @param fields The names of the entity's fields
+     * @return The patch
+     * @throws IllegalArgumentException If the body is not such an object
+     */
+    static MergePatch read(InputStream body, String... fields) {
+        JsonValue document;
+        try (JsonReader reader = Json.createReader(body)) {
+            document = reader.readValue();
+        } catch (JsonException e) {
+            throw new IllegalArgumentException("Patch is not valid JSON");
+        }
+        if (document.getValueType() != JsonValue.ValueType.OBJECT) {
+            throw new IllegalArgumentException("Patch must be a JSON object");
+        }
+        JsonObject members = document.asJsonObject();
+        List<String> known = Arrays.asList(fields);
+        for (String name : members.keySet()) {
+            if (!known.contains(name)) {
+                throw new IllegalArgumentException("Patch may only change the fields " + String.join(", ", fields));
+            }
+            if (members.isNull(name)) {
+                throw new IllegalArgumentException("Field cannot be removed: " + name);
+            }
+        }
+        return new MergePatch(members);
+    }
+
+    /**
+     * Gets the new value of a text field.
+     *
+     * @param field The field name
+     * @return The value, or null if the patch leaves the field alone
+     * @throws IllegalArgumentException If the value is not a string
+     */
+    String getString(String field) {
+        JsonValue value = members.get(field);
+        if (value == null) {
+            return null;
+        }
+        if (value.getValueType() != JsonValue.ValueType.STRING) {
+            throw new IllegalArgumentException("Field must be a string: " + field);
+        }
+        return ((JsonString) value).getString();
+    }
+
+    /**
+     * Gets the new value of an integer field.
+     *
+     * @param field The field name
+     * @return The value, or null if the patch leaves the field alone
+     * @throws IllegalArgumentException If the value is not an integer in int range
+     */
+    Integer getInt(String field) {
+        JsonValue value = members.get(field);
+        if (value == null) {
+            return null;
+        }
+        try {
+            if (value.getValueType() == JsonValue.ValueType.NUMBER) {
+                return ((JsonNumber) value).intValueExact();
+            }
+        } catch (ArithmeticException e) {
+            // Fractional or out of range; reported below
+        }
+        throw new IllegalArgumentException("Field must be an integer: " + field);
+    }
+
+    /**
+     * Gets the new value of a numeric field.
+     *
+     * @param field The field name
+     * @return The value, or null if the patch leaves the field alone
+     * @throws IllegalArgumentException If the value is not a number
+     */
+    Double getDouble(String field) {
+        JsonValue value = members.get(field);
+        if (value == null) {
+            return null;
+        }
+        if (value.getValueType() != JsonValue.ValueType.NUMBER) {
+            throw new IllegalArgumentException("Field must be a number: " + field);
+        }
+        return ((JsonNumber) value).doubleValue();
+    }
+}
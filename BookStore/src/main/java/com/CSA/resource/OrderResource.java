@@ -1,5 +1,158 @@
 package com.CSA.resource;
 
+import com.CSA.LoggerUtil.LoggerUtil;
+import com.CSA.model.Order;
+import com.CSA.provider.CborMessageBodyProvider;
+import com.CSA.security.Secured;
+import com.CSA.storage.DataStore;
+import com.CSA.storage.InsufficientStockException;
+import com.CSA.storage.PackedOrder;
+
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.Response.Status;
+import jakarta.ws.rs.core.SecurityContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resource class for placing and viewing a customer's orders.
+ * Requires a session token belonging to the customer in the path.
+ */
+@Path("/customers/{customerId}/orders")
+@Secured
 public class OrderResource {
 
+    @PathParam("customerId")
+    private int customerId;
+
+    @Context
+    private SecurityContext securityContext;
+
+    /**
+     * Places an order for everything in the customer's cart and empties the cart.
+     * 
+     * @return Response with the created order or appropriate error status
+     */
+    @POST
+    @Produces({MediaType.APPLICATION_JSON, CborMessageBodyProvider.APPLICATION_CBOR})
+    public Response placeOrder() {
+        Response denied = checkCustomer();
+        if (denied != null) {
+            return denied;
+        }
+
+        return DataStore.withCart(customerId, false, cart -> {
+            if (cart == null || cart.getItems().isEmpty()) {
+                return emptyCart();
+            }
+            Map<Integer, Integer> items = new HashMap<>(cart.getItems());
+            Order order;
+            try {
+                order = DataStore.placeOrder(customerId, items);
+            } catch (InsufficientStockException e) {
+                LoggerUtil.logWarning("Failed to place order: " + e.getMessage());
+                return Response.status(Status.CONFLICT)
+                    .type(MediaType.APPLICATION_JSON)
+                    .entity("{\"error\": \"" + e.getMessage() + "\"}")
+                    .build();
+            }
+            cart.getItems().clear();
+
+            LoggerUtil.logInfo("Placed order with ID: " + order.getId() + " for customer with ID: " + customerId);
+            return Response.status(Status.CREATED)
+                .entity(order)
+                .build();
+        });
+    }
+
+    /**
+     * Retrieves all orders placed by the customer.
+     * 
+     * @return Response with the list of orders
+     */
+    @GET
+    @Produces({MediaType.APPLICATION_JSON, CborMessageBodyProvider.APPLICATION_CBOR})
+    public Response getOrders() {
+        Response denied = checkCustomer();
+        if (denied != null) {
+            return denied;
+        }
+
+        // Orders are stored packed and only expanded for serialization
+        PackedOrder[] packedOrders = DataStore.ordersOf(customerId);
+        List<Order> orders = new ArrayList<>(packedOrders.length);
+        for (PackedOrder packedOrder : packedOrders) {
+            orders.add(packedOrder.toOrder());
+        }
+        LoggerUtil.logInfo("Retrieved " + orders.size() + " orders for customer with ID: " + customerId);
+        return Response.ok(orders).build();
+    }
+
+    /**
+     * Retrieves one of the customer's orders by ID.
+     * 
+     * @param orderId The ID of the order
+     * @return Response with the order or 404 if not found
+     */
+    @GET
+    @Path("/{orderId}")
+    @Produces({MediaType.APPLICATION_JSON, CborMessageBodyProvider.APPLICATION_CBOR})
+    public Response getOrderById(@PathParam("orderId") int orderId) {
+        Response denied = checkCustomer();
+        if (denied != null) {
+            return denied;
+        }
+
+        for (PackedOrder order : DataStore.ordersOf(customerId)) {
+            if (order.getId() == orderId) {
+                LoggerUtil.logInfo("Retrieved order with ID: " + orderId);
+                return Response.ok(order.toOrder()).build();
+            }
+        }
+        LoggerUtil.logWarning("Order not found with ID: " + orderId);
+        return Response.status(Status.NOT_FOUND)
+            .type(MediaType.APPLICATION_JSON)
+            .entity("{\"error\": \"Order not found with ID: " + orderId + "\"}")
+            .build();
+    }
+
+    /**
+     * Checks that the customer exists and is the one the session belongs to.
+     * 
+     * @return An error response, or null if the request may proceed
+     */
+    private Response checkCustomer() {
+        if (!String.valueOf(customerId).equals(securityContext.getUserPrincipal().getName())) {
+            LoggerUtil.logWarning("Denied order access for customer with ID: " + customerId);
+            return Response.status(Status.FORBIDDEN)
+                .type(MediaType.APPLICATION_JSON)
+                .entity("{\"error\": \"Access denied to orders of customer with ID: " + customerId + "\"}")
+                .build();
+        }
+        if (!DataStore.customers.containsKey(customerId)) {
+            return Response.status(Status.NOT_FOUND)
+                .type(MediaType.APPLICATION_JSON)
+                .entity("{\"error\": \"Customer not found with ID: " + customerId + "\"}")
+                .build();
+        }
+        return null;
+    }
+
+    private Response emptyCart() {
+        LoggerUtil.logWarning("Failed to place order: Cart is empty for customer with ID: " + customerId);
+        return Response.status(Status.BAD_REQUEST)
+            .type(MediaType.APPLICATION_JSON)
+            .entity("{\"error\": \"Cart is empty\"}")
+            .build();
+    }
 }
@@ -0,0 +1,91 @@
+package com.CSA.security;
+
+import com.CSA.LoggerUtil.LoggerUtil;
+
+import jakarta.annotation.Priority;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.Response.Status;
+import jakarta.ws.rs.core.SecurityContext;
+import jakarta.ws.rs.ext.Provider;
+
+import java.security.Principal;
+
+/**
+ * Authenticates requests to {@link Secured} resources from a bearer session token.
+ * The check is an in-memory signature or cache lookup; passwords are only verified at login.
+ * The verified session is stored as the {@value #SESSION_PROPERTY} request property.
+ */
+@Secured
+@Provider
+@Priority(Priorities.AUTHENTICATION)
+public class AuthenticationFilter implements ContainerRequestFilter {
+
+    /** Request property holding the verified {@link Session}. */
+    public static final String SESSION_PROPERTY = "bookstore.session";
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        String header = requestContext.getHeaderString(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith(BEARER_PREFIX)) {
+            abort(requestContext, "Missing bearer token");
+            return;
+        }
+
+        Session session = TokenService.verify(header.substring(BEARER_PREFIX.length()).trim());
+        if (session == null) {
+            LoggerUtil.logWarning("Rejected request with invalid or expired session token");
+            abort(requestContext, "Invalid or expired session token");
+            return;
+        }
+
+        requestContext.setProperty(SESSION_PROPERTY, session);
+        boolean secure = requestContext.getSecurityContext().isSecure();
+        requestContext.setSecurityContext(new SessionSecurityContext(session, secure));
+    }
+
+    private void abort(ContainerRequestContext requestContext, String message) {
+        requestContext.abortWith(Response.status(Status.UNAUTHORIZED)
+                .header(HttpHeaders.WWW_AUTHENTICATE, "Bearer")
+                .type(MediaType.APPLICATION_JSON)
+                .entity("{\"error\": \"" + message + "\"}")
+                .build());
+    }
+
+    private static final class SessionSecurityContext implements SecurityContext {
+        private final Principal principal;
+        private final boolean secure;
+
+        SessionSecurityContext(Session session, boolean secure) {
+            String name = String.valueOf(session.getCustomerId());
+            this.principal = () -> name;
+            this.secure = secure;
+        }
+
+        @Override
+        public Principal getUserPrincipal() {
+            return principal;
+        }
+
+        @Override
+        public boolean isUserInRole(String role) {
+            return "customer".equals(role);
+        }
+
+        @Override
+        public boolean isSecure() {
+            return secure;
+        }
+
+        @Override
+        public String getAuthenticationScheme() {
+            return "Bearer";
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.CSA.security;
+
+/**
+ * Login request body carrying a customer's email and password.
+ */
+public class Credentials {
+    private String email;
+    private String password;
+
+    /**
+     * Default constructor for Credentials.
+     */
+    public Credentials() {
+    }
+
+    /**
+     * Gets the email address used to log in.
+     *
+     * @return The email address
+     */
+    public String getEmail() {
+        return email;
+    }
+
+    /**
+     * Sets the email address used to log in.
+     *
+     * @param email The email address to set
+     */
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    /**
+     * Gets the plaintext password used to log in.
+     *
+     * @return The password
+     */
+    public String getPassword() {
+        return password;
+    }
+
+    /**
+     * Sets the plaintext password used to log in.
+     *
+     * @param password The password to set
+     */
+    public void setPassword(String password) {
+        this.password = password;
+    }
+}
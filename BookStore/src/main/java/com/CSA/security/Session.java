@@ -0,0 +1,50 @@
+package com.CSA.security;
+
+/**
+ * An authenticated customer session decoded from a verified session token.
+ */
+public class Session {
+    private final int customerId;
+    private final String tokenId;
+    private final long expiresAt;
+
+    /**
+     * Creates a session.
+     *
+     * @param customerId The ID of the authenticated customer
+     * @param tokenId The unique ID of the token, used for revocation
+     * @param expiresAt The expiry time in epoch milliseconds
+     */
+    public Session(int customerId, String tokenId, long expiresAt) {
+        this.customerId = customerId;
+        this.tokenId = tokenId;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Gets the ID of the authenticated customer.
+     *
+     * @return The customer ID
+     */
+    public int getCustomerId() {
+        return customerId;
+    }
+
+    /**
+     * Gets the unique ID of the token.
+     *
+     * @return The token ID
+     */
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    /**
+     * Gets the expiry time of the session.
+     *
+     * @return The expiry time in epoch milliseconds
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+}
@@ -0,0 +1,223 @@
+package com.CSA.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Issues and verifies signed, self-validating session tokens.
+ * A token is {@code <payload>.<signature>} where the payload carries the customer ID, expiry and a
+ * random token ID, and the signature is an HMAC-SHA256 over the payload. Verifying a token needs
+ * no password hash and no store lookup; recently verified tokens are kept in a bounded cache so
+ * most requests cost a single map lookup. The cache evicts oldest first, in constant time per
+ * insertion. Revoked token IDs are kept until the token expires, as are customers whose every
+ * token was revoked, such as deleted accounts; every verification, cached or not, checks them,
+ * so revoking never has to search the cache.
+ */
+public class TokenService {
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final long TOKEN_TTL_MILLIS =
+            Long.getLong("bookstore.auth.ttlMinutes", 60L) * 60_000L;
+    private static final int CACHE_SIZE = Integer.getInteger("bookstore.auth.cacheSize", 10000);
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final byte[] SECRET = loadSecret();
+    private static final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(TokenService::newMac);
+
+    // Verified token → session; bounded, entries are dropped on expiry or revocation
+    private static final ConcurrentHashMap<String, Session> verifiedTokens = new ConcurrentHashMap<>();
+    // Cached tokens in insertion order, possibly including some already dropped; evicted from the head
+    private static final ConcurrentLinkedQueue<String> cacheOrder = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger cacheOrderSize = new AtomicInteger();
+    // Revoked token ID → token expiry, so entries can be swept once the token is dead anyway
+    private static final ConcurrentHashMap<String, Long> revokedTokenIds = new ConcurrentHashMap<>();
+    // Customer whose tokens are all revoked → time by which every token issued so far has expired
+    private static final ConcurrentHashMap<Integer, Long> revokedCustomerIds = new ConcurrentHashMap<>();
+    private static final AtomicLong lastSweep = new AtomicLong(System.nanoTime() - SWEEP_INTERVAL_NANOS);
+
+    private static final LongAdder verifications = new LongAdder();
+    private static final LongAdder cacheHits = new LongAdder();
+    private static final LongAdder rejections = new LongAdder();
+    private static final LongAdder verificationNanos = new LongAdder();
+
+    /**
+     * Issues a new session token for a customer.
+     *
+     * @param customerId The ID of the authenticated customer
+     * @return The signed token
+     */
+    public static String issue(int customerId) {
+        byte[] tokenId = new byte[12];
+        RANDOM.nextBytes(tokenId);
+        long expiresAt = System.currentTimeMillis() + TOKEN_TTL_MILLIS;
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String payload = customerId + ":" + expiresAt + ":" + encoder.encodeToString(tokenId);
+        String encodedPayload = encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return encodedPayload + "." + encoder.encodeToString(sign(encodedPayload));
+    }
+
+    /**
+     * Verifies a token and returns its session.
+     *
+     * @param token The token from the Authorization header
+     * @return The session, or null if the token is malformed, forged, expired or revoked
+     */
+    public static Session verify(String token) {
+        long start = System.nanoTime();
+        Session session = verifiedTokens.get(token);
+        if (session != null) {
+            cacheHits.increment();
+        } else {
+            session = decode(token);
+            if (session != null) {
+                cache(token, session);
+            }
+        }
+        if (session != null && (session.getExpiresAt() <= System.currentTimeMillis()
+                || revokedTokenIds.containsKey(session.getTokenId())
+                || revokedCustomerIds.containsKey(session.getCustomerId()))) {
+            verifiedTokens.remove(token);
+            session = null;
+        }
+        if (session == null) {
+            rejections.increment();
+        }
+        verifications.increment();
+        verificationNanos.add(System.nanoTime() - start);
+        return session;
+    }
+
+    /**
+     * Revokes a token so later requests carrying it are rejected.
+     *
+     * @param session The session to revoke
+     */
+    public static void revoke(Session session) {
+        revokedTokenIds.put(session.getTokenId(), session.getExpiresAt());
+        sweepRevocations();
+    }
+
+    /**
+     * Revokes every token issued to a customer so far, such as when the account is deleted.
+     * Customer IDs are never reused, so the customer's tokens stay rejected until they would have
+     * expired anyway.
+     *
+     * @param customerId The ID of the customer
+     */
+    public static void revokeAll(int customerId) {
+        revokedCustomerIds.put(customerId, System.currentTimeMillis() + TOKEN_TTL_MILLIS);
+        sweepRevocations();
+    }
+
+    /**
+     * Gets the token lifetime.
+     *
+     * @return The lifetime in milliseconds
+     */
+    public static long getTokenTtlMillis() {
+        return TOKEN_TTL_MILLIS;
+    }
+
+    /**
+     * Gets verification counters, including the mean cost of one verification.
+     *
+     * @return A map of counter names to values
+     */
+    public static Map<String, Object> getStats() {
+        long count = verifications.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("verifications", count);
+        stats.put("cacheHits", cacheHits.sum());
+        stats.put("rejections", rejections.sum());
+        stats.put("meanVerificationNanos", count == 0 ? 0 : verificationNanos.sum() / count);
+        stats.put("cachedTokens", verifiedTokens.size());
+        stats.put("revokedTokens", revokedTokenIds.size());
+        stats.put("revokedCustomers", revokedCustomerIds.size());
+        return stats;
+    }
+
+    private static Session decode(String token) {
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            return null;
+        }
+        String encodedPayload = token.substring(0, dot);
+        try {
+            byte[] signature = Base64.getUrlDecoder().decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, sign(encodedPayload))) {
+                return null;
+            }
+            String payload = new String(Base64.getUrlDecoder().decode(encodedPayload), StandardCharsets.UTF_8);
+            String[] parts = payload.split(":");
+            return new Session(Integer.parseInt(parts[0]), parts[2], Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    private static void cache(String token, Session session) {
+        if (verifiedTokens.putIfAbsent(token, session) != null) {
+            return;
+        }
+        cacheOrder.add(token);
+        // Each insertion past the bound drops the oldest one; a dropped token is simply re-verified
+        if (cacheOrderSize.incrementAndGet() > CACHE_SIZE) {
+            String oldest = cacheOrder.poll();
+            if (oldest != null) {
+                cacheOrderSize.decrementAndGet();
+                verifiedTokens.remove(oldest);
+            }
+        }
+    }
+
+    private static void sweepRevocations() {
+        // Expired revocations are harmless, so one thread sweeps them at most once per interval
+        long last = lastSweep.get();
+        long nanos = System.nanoTime();
+        if (nanos - last < SWEEP_INTERVAL_NANOS || !lastSweep.compareAndSet(last, nanos)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        revokedTokenIds.values().removeIf(expiresAt -> expiresAt <= now);
+        revokedCustomerIds.values().removeIf(expiresAt -> expiresAt <= now);
+    }
+
+    private static byte[] sign(String encodedPayload) {
+        return MAC.get().doFinal(encodedPayload.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(new SecretKeySpec(SECRET, MAC_ALGORITHM));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+
+    private static byte[] loadSecret() {
+        // A configured secret keeps tokens valid across restarts and instances
+        String configured = System.getProperty("bookstore.auth.secret");
+        if (configured != null && !configured.isEmpty()) {
+            return Base64.getDecoder().decode(configured);
+        }
+        byte[] secret = new byte[32];
+        RANDOM.nextBytes(secret);
+        return secret;
+    }
+}
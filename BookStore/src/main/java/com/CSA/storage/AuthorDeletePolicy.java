@@ -0,0 +1,27 @@
+package com.CSA.storage;
+
+/**
+ * How deleting an author treats the books that reference it.
+ */
+public enum AuthorDeletePolicy {
+    /** Delete the author's books together with the author. */
+    CASCADE,
+    /** Refuse to delete an author that still has books. */
+    RESTRICT,
+    /** Keep the books but clear their author ID. */
+    ORPHAN;
+
+    /**
+     * Parses a policy name case-insensitively.
+     *
+     * @param name The policy name, or null for the default
+     * @return The matching policy
+     * @throws IllegalArgumentException If the name is not a known policy
+     */
+    public static AuthorDeletePolicy fromString(String name) {
+        if (name == null || name.isEmpty()) {
+            return RESTRICT;
+        }
+        return valueOf(name.trim().toUpperCase());
+    }
+}
@@ -0,0 +1,46 @@
+package com.CSA.storage;
+
+/**
+ * The outcome of {@link DataStore#bulkUpdateBooks}: how many books matched, how many of them
+ * actually changed, and the catalog version the change was committed at.
+ */
+public class BulkUpdateResult {
+
+    private final int matched;
+    private final int updated;
+    private final long version;
+
+    BulkUpdateResult(int matched, int updated, long version) {
+        this.matched = matched;
+        this.updated = updated;
+        this.version = version;
+    }
+
+    /**
+     * Gets the number of books that matched the filter.
+     *
+     * @return The matched count
+     */
+    public int getMatched() {
+        return matched;
+    }
+
+    /**
+     * Gets the number of matched books the change altered; the others already had the new values.
+     *
+     * @return The updated count
+     */
+    public int getUpdated() {
+        return updated;
+    }
+
+    /**
+     * Gets the version the change was committed at, or the version it was checked against if no
+     * book changed.
+     *
+     * @return The catalog version
+     */
+    public long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,113 @@
+package com.CSA.storage;
+
+import com.CSA.LoggerUtil.LoggerUtil;
+import com.CSA.model.Cart;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Expires carts that have not been used for a configurable time.
+ * Each cart is scheduled once on a {@link TimingWheel} when it is created; using a cart only
+ * updates its last-touched time. When the deadline comes, a cart touched since is rescheduled
+ * from its last use, otherwise it is marked expired and removed. Scheduling, touching and
+ * expiring are O(1) per cart, with no scans over the store.
+ */
+public class CartExpiry {
+
+    private static final long TTL_MILLIS = Long.getLong("bookstore.carts.ttlSeconds", 1800L) * 1000L;
+    private static final long TICK_MILLIS = Long.getLong("bookstore.carts.tickMillis", 1000L);
+
+    private static final TimingWheel<Cart> wheel = new TimingWheel<>(TICK_MILLIS, System.currentTimeMillis());
+
+    private static final LongAdder created = new LongAdder();
+    private static final LongAdder expired = new LongAdder();
+    private static final LongAdder rescheduled = new LongAdder();
+
+    static {
+        ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cart-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(CartExpiry::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts tracking a newly created cart.
+     *
+     * @param cart The cart
+     */
+    static void track(Cart cart) {
+        synchronized (wheel) {
+            wheel.schedule(cart, cart.getLastTouchedMillis() + TTL_MILLIS);
+        }
+        created.increment();
+    }
+
+    /**
+     * Gets the cart lifetime after last use.
+     *
+     * @return The time-to-live in milliseconds
+     */
+    public static long getTtlMillis() {
+        return TTL_MILLIS;
+    }
+
+    /**
+     * Gets counters for live, created, expired and rescheduled carts.
+     *
+     * @return A map of counter names to values
+     */
+    public static Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("live", DataStore.carts.size());
+        stats.put("created", created.sum());
+        stats.put("expired", expired.sum());
+        stats.put("rescheduled", rescheduled.sum());
+        synchronized (wheel) {
+            stats.put("scheduled", wheel.size());
+        }
+        stats.put("ttlMillis", TTL_MILLIS);
+        return stats;
+    }
+
+    private static void tick() {
+        try {
+            long now = System.currentTimeMillis();
+            List<Cart> due;
+            synchronized (wheel) {
+                due = wheel.advanceTo(now);
+            }
+            for (Cart cart : due) {
+                // In shard mode the cart's owner expires it, so its lock is never contended
+                CustomerShards.execute(cart.getCustomerId(), () -> expireOrReschedule(cart, now));
+            }
+        } catch (RuntimeException e) {
+            // An exception would cancel the periodic task; log it and keep ticking
+            LoggerUtil.logWarning("Cart expiry tick failed: " + e.getMessage());
+        }
+    }
+
+    private static void expireOrReschedule(Cart cart, long now) {
+        synchronized (cart) {
+            long deadline = cart.getLastTouchedMillis() + TTL_MILLIS;
+            if (deadline > now) {
+                synchronized (wheel) {
+                    wheel.schedule(cart, deadline);
+                }
+                rescheduled.increment();
+                return;
+            }
+            // Requests that already hold a reference see the flag and move to a fresh cart
+            cart.markExpired();
+        }
+        DataStore.removeExpiredCart(cart);
+        expired.increment();
+    }
+}
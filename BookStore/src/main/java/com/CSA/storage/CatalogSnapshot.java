@@ -0,0 +1,38 @@
+package com.CSA.storage;
+
+/**
+ * A pinned, consistent version of the catalog.
+ * Reads through a snapshot never observe writes committed after it was opened.
+ * Use it in a try-with-resources block so the pinned version is released.
+ */
+public class CatalogSnapshot implements AutoCloseable {
+
+    private final VersionClock clock;
+    private final long version;
+    private boolean closed;
+
+    CatalogSnapshot(VersionClock clock, long version) {
+        this.clock = clock;
+        this.version = version;
+    }
+
+    /**
+     * Gets the catalog version pinned by this snapshot.
+     *
+     * @return The pinned version
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Releases the pinned version.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            clock.release(this);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.CSA.storage;
+
+/**
+ * One committed change to the catalog, as published on the change feed.
+ * Creates and updates carry the full new state of the entity and deletes carry none, so a
+ * consumer can apply events as idempotent upserts and removals; replaying events it has already
+ * seen is harmless.
+ */
+public class ChangeEvent {
+
+    /**
+     * The kind of catalog entity that changed.
+     */
+    public enum EntityType {
+        BOOK, AUTHOR
+    }
+
+    /**
+     * What happened to the entity.
+     */
+    public enum Operation {
+        CREATE, UPDATE, DELETE
+    }
+
+    private final long seq;
+    private final EntityType type;
+    private final Operation operation;
+    private final int id;
+    private final Object entity;
+
+    /**
+     * Creates a change event.
+     *
+     * @param seq The position of the event in the change log
+     * @param type The kind of entity that changed
+     * @param operation What happened to it
+     * @param id The ID of the entity
+     * @param entity The new state of the entity, or null for a delete
+     */
+    public ChangeEvent(long seq, EntityType type, Operation operation, int id, Object entity) {
+        this.seq = seq;
+        this.type = type;
+        this.operation = operation;
+        this.id = id;
+        this.entity = entity;
+    }
+
+    /**
+     * Gets the position of the event in the change log. Sequence numbers start at 1 and
+     * increase by one per event in commit order.
+     *
+     * @return The sequence number
+     */
+    public long getSeq() {
+        return seq;
+    }
+
+    /**
+     * Gets the kind of entity that changed.
+     *
+     * @return The entity type
+     */
+    public EntityType getType() {
+        return type;
+    }
+
+    /**
+     * Gets what happened to the entity.
+     *
+     * @return The operation
+     */
+    public Operation getOperation() {
+        return operation;
+    }
+
+    /**
+     * Gets the ID of the entity that changed.
+     *
+     * @return The entity ID
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Gets the new state of the entity.
+     *
+     * @return The Book or Author, or null for a delete
+     */
+    public Object getEntity() {
+        return entity;
+    }
+}
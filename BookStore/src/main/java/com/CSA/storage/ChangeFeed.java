@@ -0,0 +1,55 @@
+package com.CSA.storage;
+
+import java.util.List;
+
+/**
+ * A page of the change log returned to a polling client.
+ */
+public class ChangeFeed {
+
+    private final boolean resync;
+    private final long nextSince;
+    private final List<ChangeEvent> changes;
+
+    /**
+     * Creates a page of changes.
+     *
+     * @param resync Whether the client fell behind the retained log and must reload in full
+     * @param nextSince The sequence number to pass as since on the next pull
+     * @param changes The changes after the requested position, oldest first
+     */
+    public ChangeFeed(boolean resync, long nextSince, List<ChangeEvent> changes) {
+        this.resync = resync;
+        this.nextSince = nextSince;
+        this.changes = changes;
+    }
+
+    /**
+     * Checks whether the client must reload the full catalog. When set, the changes are empty
+     * and nextSince is the current end of the log: reading it before the full reload and pulling
+     * from it afterwards loses nothing, since replayed events are idempotent.
+     *
+     * @return true if the requested position is no longer retained
+     */
+    public boolean isResync() {
+        return resync;
+    }
+
+    /**
+     * Gets the sequence number to pass as since on the next pull.
+     *
+     * @return The sequence number of the last change returned, or of the log end on resync
+     */
+    public long getNextSince() {
+        return nextSince;
+    }
+
+    /**
+     * Gets the changes, oldest first.
+     *
+     * @return The list of changes
+     */
+    public List<ChangeEvent> getChanges() {
+        return changes;
+    }
+}
@@ -0,0 +1,141 @@
+package com.CSA.storage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, monotonically sequenced log of committed catalog changes.
+ * Events are recorded inside a catalog transaction and appended when it commits, under the
+ * commit lock, so sequence order is commit order and rolled-back writes never appear. Events live
+ * in a fixed ring; a reader asking for a position the ring has already overwritten is told to
+ * resync instead of silently missing changes. Readers never lock.
+ */
+public class ChangeLog {
+
+    private final VersionClock clock;
+    private final AtomicReferenceArray<ChangeEvent> ring;
+    private final int mask;
+
+    // Sequence number of the newest appended event; only written under the commit lock
+    private volatile long lastSeq;
+
+    /**
+     * Creates a change log.
+     *
+     * @param clock The clock of the catalog transactions that record into this log
+     * @param capacity The number of events retained, rounded up to a power of two
+     */
+    public ChangeLog(VersionClock clock, int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.clock = clock;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Records a change made by the current transaction, to be appended when it commits.
+     *
+     * @param type The kind of entity that changed
+     * @param operation What happened to it
+     * @param id The ID of the entity
+     * @param entity The new state of the entity, or null for a delete
+     * @throws IllegalStateException If called outside a write transaction
+     */
+    public void record(ChangeEvent.EntityType type, ChangeEvent.Operation operation, int id, Object entity) {
+        clock.onCommit(() -> append(type, operation, id, entity));
+    }
+
+    /**
+     * Records that the current transaction made changes too numerous to log one by one, such as
+     * a bulk load. When it commits the sequence advances past them without retaining events, so
+     * any reader positioned before the gap is told to resync.
+     *
+     * @param count The number of changes, used as the width of the gap
+     * @throws IllegalStateException If called outside a write transaction
+     */
+    public void recordGap(int count) {
+        if (count > 0) {
+            clock.onCommit(() -> skip(count));
+        }
+    }
+
+    /**
+     * Gets the sequence number of the newest event.
+     *
+     * @return The last sequence number, 0 if nothing was logged yet
+     */
+    public long getLastSeq() {
+        return lastSeq;
+    }
+
+    /**
+     * Gets the number of events the log retains.
+     *
+     * @return The ring capacity
+     */
+    public int getCapacity() {
+        return ring.length();
+    }
+
+    /**
+     * Reads the events after a position.
+     *
+     * @param since The sequence number of the last event the client has applied, 0 for none
+     * @param limit The maximum number of events to return
+     * @return The events, or a resync signal if the position is no longer (or not yet) in the log
+     */
+    public ChangeFeed since(long since, int limit) {
+        long last = lastSeq;
+        if (since > last || since < last - ring.length()) {
+            return new ChangeFeed(true, last, Collections.<ChangeEvent>emptyList());
+        }
+        long end = Math.min(last, since + limit);
+        List<ChangeEvent> changes = new ArrayList<>((int) (end - since));
+        for (long seq = since + 1; seq <= end; seq++) {
+            ChangeEvent event = ring.get((int) (seq & mask));
+            // Overwritten while we were reading: the writer lapped us
+            if (event == null || event.getSeq() != seq) {
+                return new ChangeFeed(true, lastSeq, Collections.<ChangeEvent>emptyList());
+            }
+            changes.add(event);
+        }
+        return new ChangeFeed(false, end, changes);
+    }
+
+    /**
+     * Waits until an event after a position is appended or the timeout passes.
+     *
+     * @param since The sequence number already seen
+     * @param timeoutMillis The maximum time to wait
+     * @throws InterruptedException If the waiting thread is interrupted
+     */
+    public void awaitAfter(long since, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (this) {
+            long remaining = timeoutMillis;
+            while (lastSeq <= since && remaining > 0) {
+                wait(remaining);
+                remaining = deadline - System.currentTimeMillis();
+            }
+        }
+    }
+
+    private void skip(int count) {
+        // Slots of skipped sequence numbers still hold older events, which readers treat as lapped
+        lastSeq += count;
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+
+    private void append(ChangeEvent.EntityType type, ChangeEvent.Operation operation, int id, Object entity) {
+        long seq = lastSeq + 1;
+        ring.set((int) (seq & mask), new ChangeEvent(seq, type, operation, id, entity));
+        lastSeq = seq;
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+}
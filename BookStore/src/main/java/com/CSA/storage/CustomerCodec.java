@@ -0,0 +1,70 @@
+package com.CSA.storage;
+
+import com.CSA.model.Customer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Codec for customers: the ID followed by name, email and password, each as a length-prefixed
+ * UTF-8 string with -1 marking null.
+ */
+class CustomerCodec implements EntityCodec<Customer> {
+
+    @Override
+    public ByteBuffer encode(Customer customer) {
+        byte[] name = bytesOf(customer.getName());
+        byte[] email = bytesOf(customer.getEmail());
+        byte[] password = bytesOf(customer.getPassword());
+        ByteBuffer buffer = ByteBuffer.allocate(4 + sizeOf(name) + sizeOf(email) + sizeOf(password));
+        buffer.putInt(customer.getId());
+        putString(buffer, name);
+        putString(buffer, email);
+        putString(buffer, password);
+        buffer.flip();
+        return buffer;
+    }
+
+    @Override
+    public Customer decode(ByteBuffer buffer) {
+        int id = buffer.getInt();
+        return new Customer(id, getString(buffer), getString(buffer), getString(buffer));
+    }
+
+    @Override
+    public long estimatedHeapBytes(Customer customer) {
+        // Object with an int and three references, plus each string and its byte array
+        return 24 + stringBytes(customer.getName()) + stringBytes(customer.getEmail())
+                + stringBytes(customer.getPassword());
+    }
+
+    private static long stringBytes(String value) {
+        return value == null ? 0 : 24 + ((16 + value.length() + 7) & ~7L);
+    }
+
+    private static byte[] bytesOf(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int sizeOf(byte[] bytes) {
+        return 4 + (bytes == null ? 0 : bytes.length);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,191 @@
+package com.CSA.storage;
+
+import com.CSA.LoggerUtil.LoggerUtil;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Optional single-writer ownership of per-customer state. With bookstore.storage.shards=N
+ * (default 0, off) carts and order histories are partitioned into N shards by customer ID, and
+ * each shard is owned by one thread fed by a bounded queue (bookstore.storage.shardQueue, default
+ * 1024 tasks per shard). Every cart action, cart expiry and order append for a customer runs on
+ * its shard's thread, so that state is only ever written by one thread and its locks are never
+ * contended; callers block while a shard's queue is full. Readers do not queue: they read the
+ * immutable cart copies and order arrays the owners publish.
+ *
+ * Checkout is the cross-shard operation. It runs on the customer's shard thread, and the stock it
+ * takes from books of any shard is decremented in one catalog transaction, which is the
+ * coordination point: if any book lacks stock, nothing changes, and the shard only stores the
+ * order and clears the cart after the transaction commits.
+ */
+public class CustomerShards {
+
+    private static final int SHARDS = Integer.getInteger("bookstore.storage.shards", 0);
+    private static final int QUEUE_CAPACITY = Integer.getInteger("bookstore.storage.shardQueue", 1024);
+
+    private static final Shard[] shards = new Shard[Math.max(SHARDS, 0)];
+
+    static {
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(i);
+        }
+        if (shards.length > 0) {
+            LoggerUtil.logInfo("Customer state partitioned into " + shards.length + " single-writer shards");
+        }
+    }
+
+    /**
+     * Checks whether per-customer state is partitioned into shards.
+     *
+     * @return true if shard mode is on
+     */
+    public static boolean isEnabled() {
+        return shards.length > 0;
+    }
+
+    /**
+     * Runs an action on the thread owning a customer's shard and waits for its result. Runs
+     * inline when called on that thread already, or when shard mode is off.
+     *
+     * @param customerId The ID of the customer whose state the action touches
+     * @param action The action
+     * @param <T> The result type of the action
+     * @return The result of the action
+     * @throws IllegalStateException If called from the thread of another shard, which could
+     *         deadlock two shards waiting on each other
+     */
+    public static <T> T call(int customerId, Supplier<T> action) {
+        if (!isEnabled()) {
+            return action.get();
+        }
+        Shard shard = shardOf(customerId);
+        Thread current = Thread.currentThread();
+        if (current == shard.thread) {
+            return action.get();
+        }
+        if (current instanceof ShardThread) {
+            throw new IllegalStateException(current.getName() + " cannot wait on " + shard.thread.getName());
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        shard.submit(() -> {
+            try {
+                result.complete(action.get());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + shard.thread.getName(), e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Queues an action on the thread owning a customer's shard without waiting for it. Runs
+     * inline when shard mode is off.
+     *
+     * @param customerId The ID of the customer whose state the action touches
+     * @param action The action; exceptions are logged and dropped
+     */
+    public static void execute(int customerId, Runnable action) {
+        if (!isEnabled()) {
+            action.run();
+            return;
+        }
+        shardOf(customerId).submit(action);
+    }
+
+    /**
+     * Gets queue depth and task counts per shard.
+     *
+     * @return A map with the shard count and a list of per-shard counters
+     */
+    public static Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("shards", shards.length);
+        stats.put("queueCapacity", QUEUE_CAPACITY);
+        List<Map<String, Object>> perShard = new ArrayList<>();
+        for (Shard shard : shards) {
+            Map<String, Object> shardStats = new LinkedHashMap<>();
+            shardStats.put("queued", shard.queue.size());
+            shardStats.put("executed", shard.executed.sum());
+            shardStats.put("blockedSubmits", shard.blockedSubmits.sum());
+            perShard.add(shardStats);
+        }
+        stats.put("perShard", perShard);
+        return stats;
+    }
+
+    private static Shard shardOf(int customerId) {
+        return shards[Math.floorMod(customerId, shards.length)];
+    }
+
+    private static final class Shard {
+        final BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        final ShardThread thread;
+        final LongAdder executed = new LongAdder();
+        final LongAdder blockedSubmits = new LongAdder();
+
+        Shard(int index) {
+            thread = new ShardThread("customer-shard-" + index, this::run);
+            thread.start();
+        }
+
+        void submit(Runnable task) {
+            if (queue.offer(task)) {
+                return;
+            }
+            blockedSubmits.increment();
+            try {
+                queue.put(task);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while queueing on " + thread.getName(), e);
+            }
+        }
+
+        private void run() {
+            while (true) {
+                Runnable task;
+                try {
+                    task = queue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    LoggerUtil.logWarning(thread.getName() + " task failed: " + e.getMessage());
+                }
+                executed.increment();
+            }
+        }
+    }
+
+    private static final class ShardThread extends Thread {
+        ShardThread(String name, Runnable body) {
+            super(body, name);
+            setDaemon(true);
+        }
+    }
+}
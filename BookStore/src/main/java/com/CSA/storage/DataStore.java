@@ -1,15 +1,34 @@
 package com.CSA.storage;
 
+import com.CSA.analytics.Bestsellers;
+import com.CSA.analytics.CatalogStats;
+import com.CSA.analytics.CoPurchaseIndex;
+import com.CSA.analytics.IntIntHashMap;
+import com.CSA.analytics.SalesAnalytics;
+import com.CSA.diagnostics.StorageEvent;
 import com.CSA.model.Author;
 import com.CSA.model.Book;
 import com.CSA.model.Cart;
 import com.CSA.model.Customer;
 import com.CSA.model.Order;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 /**
  * Central data store for the Bookstore application.
@@ -17,18 +36,36 @@ import java.util.Map;
  */
 public class DataStore {
     
+    // Commit clock shared by the catalog maps so one snapshot sees books and authors consistently
+    public static final VersionClock catalogClock = new VersionClock();
+
     // Static data structures to store application data
-    public static HashMap<Integer, Book> books = new HashMap<>();
-    public static HashMap<Integer, Author> authors = new HashMap<>();
-    public static HashMap<Integer, Customer> customers = new HashMap<>();
-    public static HashMap<String, Integer> emailToCustomerIdMap = new HashMap<>();
-    public static HashMap<Integer, Cart> carts = new HashMap<>();
-    public static HashMap<Integer, List<Order>> ordersByCustomer = new HashMap<>();
+    public static VersionedMap<Book> books = new VersionedMap<>("books", catalogClock);
+    public static VersionedMap<Author> authors = new VersionedMap<>("authors", catalogClock);
+    // Reverse index authorId → IDs of that author's books, versioned with the catalog
+    public static VersionedMap<int[]> bookIdsByAuthor = new VersionedMap<>("bookIdsByAuthor", catalogClock);
+    // authorId → version of the last commit that wrote one of that author's books; see authorBooksVersion
+    private static final ConcurrentHashMap<Integer, Long> authorBooksVersions = new ConcurrentHashMap<>();
+    // Committed catalog changes in commit order, for incremental sync by downstream caches
+    public static final ChangeLog changeLog = new ChangeLog(catalogClock,
+            Integer.getInteger("bookstore.changes.capacity", 65536));
+    // Customers and order histories can spill to disk when cold; see TieredMap
+    public static TieredMap<Customer> customers = new TieredMap<>("customers", new CustomerCodec(), 64);
+    // Normalized email → customer ID; an entry is the claim that makes an address unique
+    public static ConcurrentHashMap<String, Integer> emailToCustomerIdMap = new ConcurrentHashMap<>();
+    // Carts expire after a period without use; access them through withCart
+    public static ConcurrentHashMap<Integer, Cart> carts = new ConcurrentHashMap<>();
+    // In shard mode, a copy of each cart published by its owner after every change; see CustomerShards
+    private static final ConcurrentHashMap<Integer, Cart> publishedCarts = new ConcurrentHashMap<>();
+    // Each customer's orders in packed form; the array is replaced, never mutated, so readers can iterate it freely
+    public static TieredMap<PackedOrder[]> ordersByCustomer = new TieredMap<>("orders", new OrderHistoryCodec(), 256);
     
+    private static final PackedOrder[] NO_ORDERS = new PackedOrder[0];
+
     // ID counters for auto-generation
     private static int nextBookId = 1;
     private static int nextAuthorId = 1;
-    private static int nextCustomerId = 1;
+    private static final AtomicInteger nextCustomerId = new AtomicInteger(1);
     private static int nextOrderId = 1;
     
     /**
@@ -51,8 +88,8 @@ public class DataStore {
      * Returns the next available customer ID and increments the counter.
      * @return A unique customer ID
      */
-    public static synchronized int getNextCustomerId() {
-        return nextCustomerId++;
+    public static int getNextCustomerId() {
+        return nextCustomerId.getAndIncrement();
     }
     
     /**
@@ -62,6 +99,805 @@ public class DataStore {
     public static synchronized int getNextOrderId() {
         return nextOrderId++;
     }
-    
-    
+
+    /**
+     * Reserves a block of consecutive book IDs.
+     * @param count The number of IDs to reserve
+     * @return The first reserved ID
+     */
+    public static synchronized int reserveBookIds(int count) {
+        int first = nextBookId;
+        nextBookId += count;
+        return first;
+    }
+
+    /**
+     * Advances the ID counters past IDs that were assigned outside them, such as by a bulk load.
+     * @param maxBookId The highest book ID in use
+     * @param maxAuthorId The highest author ID in use
+     */
+    public static synchronized void advanceIdsPast(int maxBookId, int maxAuthorId) {
+        nextBookId = Math.max(nextBookId, maxBookId + 1);
+        nextAuthorId = Math.max(nextAuthorId, maxAuthorId + 1);
+    }
+
+    /**
+     * Normalizes an email address for use as a key in emailToCustomerIdMap.
+     * @param email The email address as entered
+     * @return The trimmed, lower-cased email address
+     */
+    public static String normalizeEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Registers a customer under a new ID. The email is claimed with one putIfAbsent on the email
+     * index, so of several concurrent signups for the same address exactly one succeeds, and
+     * signups for different addresses share no lock. The password is hashed only once the claim
+     * is won, so losing a race costs no hash.
+     *
+     * @param name The customer's name
+     * @param email The email address as entered
+     * @param passwordHash Hashes the customer's password
+     * @return The stored customer
+     * @throws DuplicateEmailException If the address is already claimed
+     */
+    public static Customer registerCustomer(String name, String email, Supplier<String> passwordHash) {
+        String claimed = normalizeEmail(email);
+        int id = getNextCustomerId();
+        if (emailToCustomerIdMap.putIfAbsent(claimed, id) != null) {
+            throw new DuplicateEmailException("Email already registered: " + email.trim());
+        }
+        Customer customer;
+        try {
+            customer = new Customer(id, name, email.trim(), passwordHash.get());
+        } catch (RuntimeException e) {
+            emailToCustomerIdMap.remove(claimed, id);
+            throw e;
+        }
+        customers.put(id, customer);
+        return customer;
+    }
+
+    /**
+     * Replaces a customer's details. A changed email is claimed before the old one is released,
+     * both under the customer's entry lock, so the customer always holds at least one of the two
+     * and no one else can take either in between.
+     *
+     * @param id The ID of the customer
+     * @param name The new name
+     * @param email The new email address as entered
+     * @param passwordHash The new hashed password, or null to keep the current one
+     * @return The updated customer, or null if the customer does not exist
+     * @throws DuplicateEmailException If the new address is claimed by another customer
+     */
+    public static Customer updateCustomer(int id, String name, String email, String passwordHash) {
+        return customers.compute(id, (key, existing) -> {
+            if (existing == null) {
+                return null;
+            }
+            String claimed = normalizeEmail(email);
+            String released = existing.getEmail() == null ? null : normalizeEmail(existing.getEmail());
+            if (!claimed.equals(released)) {
+                Integer owner = emailToCustomerIdMap.putIfAbsent(claimed, id);
+                if (owner != null && owner != id) {
+                    throw new DuplicateEmailException("Email already registered: " + email.trim());
+                }
+                if (released != null) {
+                    emailToCustomerIdMap.remove(released, id);
+                }
+            }
+            return new Customer(id, name, email.trim(),
+                    passwordHash == null ? existing.getPassword() : passwordHash);
+        });
+    }
+
+    /**
+     * Removes a customer, releases their email and drops their cart. Placed orders are kept,
+     * as they are part of the sales history.
+     *
+     * @param id The ID of the customer
+     * @return The removed customer, or null if the customer did not exist
+     */
+    public static Customer deleteCustomer(int id) {
+        Customer[] removed = new Customer[1];
+        customers.compute(id, (key, existing) -> {
+            if (existing != null && existing.getEmail() != null) {
+                emailToCustomerIdMap.remove(normalizeEmail(existing.getEmail()), id);
+            }
+            removed[0] = existing;
+            return null;
+        });
+        if (removed[0] != null) {
+            CustomerShards.call(id, () -> {
+                carts.remove(id);
+                publishedCarts.remove(id);
+                return null;
+            });
+        }
+        return removed[0];
+    }
+
+    /**
+     * Runs an action on a customer's cart while holding its lock and marks the cart as used.
+     * Carts idle for longer than the configured time-to-live are expired by {@link CartExpiry};
+     * an expired cart is never handed to an action, which sees its replacement instead. In shard
+     * mode the action runs on the thread owning the customer's shard, which then publishes a copy
+     * of the cart for {@link #cartSnapshot}.
+     *
+     * @param customerId The ID of the customer
+     * @param create Whether to create the cart if the customer has none
+     * @param action The action, given the cart or null if there is none and create is false
+     * @param <T> The result type of the action
+     * @return The result of the action
+     */
+    public static <T> T withCart(int customerId, boolean create, Function<Cart, T> action) {
+        if (!CustomerShards.isEnabled()) {
+            return withLockedCart(customerId, create, action);
+        }
+        return CustomerShards.call(customerId, () -> {
+            try {
+                return withLockedCart(customerId, create, action);
+            } finally {
+                publishCart(customerId);
+            }
+        });
+    }
+
+    /**
+     * Gets a copy of a customer's cart, which must not be modified. In shard mode this is the copy
+     * published after the cart last changed, read without waiting for the shard; otherwise the
+     * cart is read under its lock, which counts as using it.
+     *
+     * @param customerId The ID of the customer
+     * @return The cart, or null if the customer has none
+     */
+    public static Cart cartSnapshot(int customerId) {
+        if (CustomerShards.isEnabled()) {
+            return publishedCarts.get(customerId);
+        }
+        return withLockedCart(customerId, false, cart -> cart == null ? null : copyOf(cart));
+    }
+
+    /**
+     * Removes a cart expired by {@link CartExpiry}, unless it was already replaced.
+     */
+    static void removeExpiredCart(Cart cart) {
+        if (carts.remove(cart.getCustomerId(), cart)) {
+            publishedCarts.remove(cart.getCustomerId());
+        }
+    }
+
+    private static <T> T withLockedCart(int customerId, boolean create, Function<Cart, T> action) {
+        // The event covers finding the cart and acquiring its lock, not the action
+        StorageEvent event = new StorageEvent();
+        event.begin();
+        String operation = create ? "getOrCreate" : "get";
+        while (true) {
+            Cart cart = create ? carts.computeIfAbsent(customerId, DataStore::newCart) : carts.get(customerId);
+            if (cart == null) {
+                event.complete("carts", operation, customerId, 0);
+                return action.apply(null);
+            }
+            synchronized (cart) {
+                if (!cart.isExpired()) {
+                    cart.touch();
+                    event.complete("carts", operation, customerId, 1);
+                    return action.apply(cart);
+                }
+            }
+        }
+    }
+
+    private static void publishCart(int customerId) {
+        Cart cart = carts.get(customerId);
+        if (cart == null || cart.isExpired()) {
+            publishedCarts.remove(customerId);
+        } else {
+            publishedCarts.put(customerId, copyOf(cart));
+        }
+    }
+
+    private static Cart copyOf(Cart cart) {
+        Cart copy = new Cart(cart.getCustomerId());
+        copy.getItems().putAll(cart.getItems());
+        return copy;
+    }
+
+    private static Cart newCart(int customerId) {
+        Cart cart = new Cart(customerId);
+        CartExpiry.track(cart);
+        return cart;
+    }
+
+    /**
+     * Adds or replaces a book and keeps the author reverse index in step, in one transaction.
+     *
+     * @param book The book to store, with its ID already assigned
+     * @return The version of the stored book
+     * @throws ReferentialIntegrityException If the book's author does not exist
+     */
+    public static long saveBook(Book book) {
+        return saveBook(book, null);
+    }
+
+    /**
+     * Adds or replaces a book if its current version satisfies a precondition. The check and the
+     * write happen in one transaction, so no other write can slip in between.
+     *
+     * @param book The book to store, with its ID already assigned
+     * @param expectedVersion Tests the current version (0 if absent); null to write unconditionally
+     * @return The version of the stored book
+     * @throws VersionConflictException If the current version does not satisfy the precondition
+     * @throws ReferentialIntegrityException If the book's author does not exist
+     */
+    public static long saveBook(Book book, LongPredicate expectedVersion) {
+        return catalogClock.write(() -> {
+            checkVersion(books, book.getId(), expectedVersion, "Book");
+            if (!authors.containsKey(book.getAuthorId())) {
+                throw new ReferentialIntegrityException("Author not found with ID: " + book.getAuthorId());
+            }
+            Book previous = books.put(book.getId(), book);
+            bookWrites().add(previous, book);
+            changeLog.record(ChangeEvent.EntityType.BOOK,
+                    previous == null ? ChangeEvent.Operation.CREATE : ChangeEvent.Operation.UPDATE, book.getId(), book);
+            if (previous == null) {
+                indexBook(book.getAuthorId(), book.getId());
+            } else if (previous.getAuthorId() != book.getAuthorId()) {
+                unindexBook(previous.getAuthorId(), book.getId());
+                indexBook(book.getAuthorId(), book.getId());
+            }
+            return catalogClock.pendingVersion();
+        });
+    }
+
+    /**
+     * Changes some fields of a book in one transaction, computing the new version from the
+     * current one so that fields the change leaves alone keep their latest committed values. Only
+     * what depends on the changed fields is touched: the author index only if the author changes,
+     * and the catalog statistics only if a counted field changes. A change that alters nothing
+     * writes nothing.
+     *
+     * @param id The ID of the book
+     * @param change Computes the book's new version, or returns the book itself if it is unchanged
+     * @param expectedVersion Tests the current version; null to only require that the book exists
+     * @return The book as stored and its version
+     * @throws VersionConflictException If the book does not exist or its current version does not
+     *         satisfy the precondition
+     * @throws ReferentialIntegrityException If the book's new author does not exist
+     */
+    public static Versioned<Book> patchBook(int id, UnaryOperator<Book> change, LongPredicate expectedVersion) {
+        return catalogClock.write(() -> {
+            checkVersion(books, id, expectedVersion, "Book");
+            Book current = books.get(id);
+            if (current == null) {
+                throw new VersionConflictException("Book not found with ID: " + id, 0);
+            }
+            Book updated = change.apply(current);
+            if (updated == current) {
+                return new Versioned<>(current, books.versionOf(id));
+            }
+            boolean authorChanged = updated.getAuthorId() != current.getAuthorId();
+            if (authorChanged && !authors.containsKey(updated.getAuthorId())) {
+                throw new ReferentialIntegrityException("Author not found with ID: " + updated.getAuthorId());
+            }
+            books.put(id, updated);
+            bookWrites().add(current, updated);
+            changeLog.record(ChangeEvent.EntityType.BOOK, ChangeEvent.Operation.UPDATE, id, updated);
+            if (authorChanged) {
+                unindexBook(current.getAuthorId(), id);
+                indexBook(updated.getAuthorId(), id);
+            }
+            return new Versioned<>(updated, catalogClock.pendingVersion());
+        });
+    }
+
+    /**
+     * Gets the version of the last committed write to any of an author's books, including books
+     * that moved to or from the author. Together with the versions of the author and of its index
+     * entry, it changes whenever the author's book list does, but not when other authors' books
+     * change, so it can key caches of one author's books.
+     *
+     * @param authorId The ID of the author
+     * @return The version, or 0 if none of the author's books was written since it was created
+     */
+    public static long authorBooksVersion(int authorId) {
+        Long version = authorBooksVersions.get(authorId);
+        return version == null ? 0 : version;
+    }
+
+    /**
+     * Inserts or replaces a batch of authors in one transaction. Bulk writes are logged as a gap
+     * in the change feed rather than one event per entity, so feed followers resync.
+     *
+     * @param batch The authors to save
+     */
+    public static void bulkSaveAuthors(List<Author> batch) {
+        catalogClock.write(() -> {
+            for (Author author : batch) {
+                authors.put(author.getId(), author);
+            }
+            changeLog.recordGap(batch.size());
+        });
+    }
+
+    /**
+     * Inserts or replaces a batch of books in one transaction, author index included, so readers
+     * never see a book its author's index does not list. New books are appended to the index with
+     * one write per author instead of copying the index array once per book. Rolls back if any
+     * author is missing.
+     *
+     * @param batch The books to save
+     * @return The number of books that were new
+     * @throws ReferentialIntegrityException If a book's author does not exist
+     */
+    public static int bulkSaveBooks(List<Book> batch) {
+        return catalogClock.write(() -> {
+            long[] added = new long[batch.size()];
+            int addedCount = 0;
+            BookWrites writes = bookWrites();
+            for (Book book : batch) {
+                if (!authors.containsKey(book.getAuthorId())) {
+                    throw new ReferentialIntegrityException("Author not found with ID: " + book.getAuthorId());
+                }
+                Book previous = books.put(book.getId(), book);
+                writes.add(previous, book);
+                if (previous == null) {
+                    added[addedCount++] = (long) book.getAuthorId() << 32 | book.getId();
+                } else if (previous.getAuthorId() != book.getAuthorId()) {
+                    unindexBook(previous.getAuthorId(), book.getId());
+                    indexBook(book.getAuthorId(), book.getId());
+                }
+            }
+            long[] pairs = Arrays.copyOf(added, addedCount);
+            // Sorting packed (author, book) pairs groups each author's new books, in ID order
+            Arrays.sort(pairs);
+            appendToIndex(pairs);
+            changeLog.recordGap(batch.size());
+            return addedCount;
+        });
+    }
+
+    /**
+     * Changes every book that matches a filter, in one transaction. Candidates are filtered and
+     * their new versions computed in parallel against a snapshot, outside the commit lock, so
+     * other writes are not held up; the transaction then only installs them. If any book was
+     * written after the snapshot, the work is redone inside the transaction instead, so the change
+     * always applies to one consistent catalog state. Changes keep the author, so the author index
+     * is unaffected. Small batches are logged book by book, larger ones as a gap in the change feed.
+     *
+     * @param candidates Looks up the books that may match as of a snapshot
+     * @param filter Selects the books to change; must be safe to call from several threads
+     * @param change Computes a book's new version, or returns the book itself if it is unchanged;
+     *               must be safe to call from several threads
+     * @return The matched and updated counts and the committed version
+     * @throws InsufficientStockException If the change would leave a book with negative stock;
+     *         nothing is changed then
+     */
+    public static BulkUpdateResult bulkUpdateBooks(Function<CatalogSnapshot, List<Book>> candidates,
+                                                   Predicate<Book> filter, UnaryOperator<Book> change) {
+        List<Book[]> planned;
+        long plannedVersion;
+        try (CatalogSnapshot snapshot = catalogClock.openSnapshot()) {
+            planned = planBulkUpdate(candidates.apply(snapshot), filter, change);
+            plannedVersion = snapshot.version();
+        }
+        if (countChanged(planned) == 0) {
+            return new BulkUpdateResult(planned.size(), 0, plannedVersion);
+        }
+        return catalogClock.write(() -> {
+            List<Book[]> changes = planned;
+            if (books.modifiedVersion() > plannedVersion) {
+                // Inside the transaction the latest committed state cannot move, so this plan holds
+                try (CatalogSnapshot snapshot = catalogClock.openSnapshot()) {
+                    changes = planBulkUpdate(candidates.apply(snapshot), filter, change);
+                }
+            }
+            int updated = countChanged(changes);
+            boolean logEach = updated <= changeLog.getCapacity() / 2;
+            BookWrites writes = bookWrites();
+            for (Book[] pair : changes) {
+                Book previous = pair[0];
+                Book next = pair[1];
+                if (next == previous) {
+                    continue;
+                }
+                books.put(next.getId(), next);
+                writes.add(previous, next);
+                if (logEach) {
+                    changeLog.record(ChangeEvent.EntityType.BOOK, ChangeEvent.Operation.UPDATE, next.getId(), next);
+                }
+            }
+            if (!logEach) {
+                changeLog.recordGap(updated);
+            }
+            return new BulkUpdateResult(changes.size(), updated, catalogClock.pendingVersion());
+        });
+    }
+
+    /**
+     * Removes a book and its reverse index entry in one transaction.
+     *
+     * @param id The ID of the book to remove
+     * @return The removed book, or null if it did not exist
+     */
+    public static Book deleteBook(int id) {
+        return deleteBook(id, null);
+    }
+
+    /**
+     * Removes a book if its current version satisfies a precondition, checked in the same
+     * transaction as the delete.
+     *
+     * @param id The ID of the book to remove
+     * @param expectedVersion Tests the current version (0 if absent); null to delete unconditionally
+     * @return The removed book, or null if it did not exist
+     * @throws VersionConflictException If the current version does not satisfy the precondition
+     */
+    public static Book deleteBook(int id, LongPredicate expectedVersion) {
+        return catalogClock.write(() -> {
+            checkVersion(books, id, expectedVersion, "Book");
+            Book removed = books.remove(id);
+            if (removed != null) {
+                bookWrites().add(removed, null);
+                unindexBook(removed.getAuthorId(), id);
+                changeLog.record(ChangeEvent.EntityType.BOOK, ChangeEvent.Operation.DELETE, id, null);
+            }
+            return removed;
+        });
+    }
+
+    /**
+     * Adds or replaces an author.
+     *
+     * @param author The author to store, with its ID already assigned
+     * @return The version of the stored author
+     */
+    public static long saveAuthor(Author author) {
+        return saveAuthor(author, null);
+    }
+
+    /**
+     * Adds or replaces an author if its current version satisfies a precondition, checked in the
+     * same transaction as the write.
+     *
+     * @param author The author to store, with its ID already assigned
+     * @param expectedVersion Tests the current version (0 if absent); null to write unconditionally
+     * @return The version of the stored author
+     * @throws VersionConflictException If the current version does not satisfy the precondition
+     */
+    public static long saveAuthor(Author author, LongPredicate expectedVersion) {
+        return catalogClock.write(() -> {
+            checkVersion(authors, author.getId(), expectedVersion, "Author");
+            Author previous = authors.put(author.getId(), author);
+            changeLog.record(ChangeEvent.EntityType.AUTHOR,
+                    previous == null ? ChangeEvent.Operation.CREATE : ChangeEvent.Operation.UPDATE, author.getId(), author);
+            return catalogClock.pendingVersion();
+        });
+    }
+
+    /**
+     * Changes some fields of an author in one transaction, computing the new version from the
+     * current one. Books are not written, so nothing derived from them is touched. A change that
+     * alters nothing writes nothing.
+     *
+     * @param id The ID of the author
+     * @param change Computes the author's new version, or returns the author itself if it is unchanged
+     * @param expectedVersion Tests the current version; null to only require that the author exists
+     * @return The author as stored and its version
+     * @throws VersionConflictException If the author does not exist or its current version does
+     *         not satisfy the precondition
+     */
+    public static Versioned<Author> patchAuthor(int id, UnaryOperator<Author> change, LongPredicate expectedVersion) {
+        return catalogClock.write(() -> {
+            checkVersion(authors, id, expectedVersion, "Author");
+            Author current = authors.get(id);
+            if (current == null) {
+                throw new VersionConflictException("Author not found with ID: " + id, 0);
+            }
+            Author updated = change.apply(current);
+            if (updated == current) {
+                return new Versioned<>(current, authors.versionOf(id));
+            }
+            authors.put(id, updated);
+            changeLog.record(ChangeEvent.EntityType.AUTHOR, ChangeEvent.Operation.UPDATE, id, updated);
+            return new Versioned<>(updated, catalogClock.pendingVersion());
+        });
+    }
+
+    /**
+     * Removes an author and applies the given policy to the author's books, in one transaction.
+     * Concurrent readers see either the author with all its books or the completed delete.
+     * Costs O(k) for an author with k books.
+     *
+     * @param id The ID of the author to remove
+     * @param policy What to do with books that reference the author
+     * @return The number of books deleted or orphaned, or -1 if the author did not exist
+     * @throws ReferentialIntegrityException If the policy is RESTRICT and the author has books
+     */
+    public static int deleteAuthor(int id, AuthorDeletePolicy policy) {
+        return deleteAuthor(id, policy, null);
+    }
+
+    /**
+     * Deletes an author, as {@link #deleteAuthor(int, AuthorDeletePolicy)}, if its current version
+     * satisfies a precondition checked in the same transaction.
+     *
+     * @param id The ID of the author to remove
+     * @param policy What to do with books that reference the author
+     * @param expectedVersion Tests the current version (0 if absent); null to delete unconditionally
+     * @return The number of books deleted or orphaned, or -1 if the author did not exist
+     * @throws VersionConflictException If the current version does not satisfy the precondition
+     * @throws ReferentialIntegrityException If the policy is RESTRICT and the author has books
+     */
+    public static int deleteAuthor(int id, AuthorDeletePolicy policy, LongPredicate expectedVersion) {
+        return catalogClock.write(() -> {
+            checkVersion(authors, id, expectedVersion, "Author");
+            if (authors.remove(id) == null) {
+                return -1;
+            }
+            changeLog.record(ChangeEvent.EntityType.AUTHOR, ChangeEvent.Operation.DELETE, id, null);
+            int[] bookIds = bookIdsByAuthor.remove(id);
+            if (bookIds == null) {
+                catalogClock.onCommit(() -> authorBooksVersions.remove(id));
+                return 0;
+            }
+            if (policy == AuthorDeletePolicy.RESTRICT) {
+                throw new ReferentialIntegrityException(
+                        "Author with ID " + id + " still has " + bookIds.length + " books");
+            }
+            BookWrites writes = bookWrites();
+            for (int bookId : bookIds) {
+                if (policy == AuthorDeletePolicy.CASCADE) {
+                    writes.add(books.remove(bookId), null);
+                    changeLog.record(ChangeEvent.EntityType.BOOK, ChangeEvent.Operation.DELETE, bookId, null);
+                } else {
+                    // Versions are immutable, so orphan a copy rather than the stored book
+                    Book book = books.get(bookId);
+                    Book orphaned = new Book(book.getId(), book.getTitle(), 0, book.getIsbn(),
+                            book.getPublicationYear(), book.getPrice(), book.getStockQuantity());
+                    books.put(bookId, orphaned);
+                    writes.add(book, orphaned);
+                    changeLog.record(ChangeEvent.EntityType.BOOK, ChangeEvent.Operation.UPDATE, bookId, orphaned);
+                }
+            }
+            // Commit actions run in order, so this comes after the book writes have recorded the author
+            catalogClock.onCommit(() -> authorBooksVersions.remove(id));
+            return bookIds.length;
+        });
+    }
+
+    /**
+     * Places an order: checks and decrements stock for every line in one catalog transaction,
+     * stores the order and updates the sales views, bestseller lists and co-purchase counts.
+     *
+     * @param customerId The ID of the ordering customer
+     * @param items The ordered book IDs and quantities
+     * @return The placed order
+     * @throws InsufficientStockException If a book is missing or does not have enough stock
+     */
+    public static Order placeOrder(int customerId, Map<Integer, Integer> items) {
+        // The books as priced at checkout, before their stock is decremented
+        Map<Integer, Book> orderedBooks = new HashMap<>();
+        double totalAmount = catalogClock.write(() -> {
+            double total = 0;
+            BookWrites writes = bookWrites();
+            for (Map.Entry<Integer, Integer> line : items.entrySet()) {
+                int bookId = line.getKey();
+                int quantity = line.getValue();
+                Book book = books.get(bookId);
+                if (book == null) {
+                    throw new InsufficientStockException(bookId, "Book not found with ID: " + bookId);
+                }
+                if (book.getStockQuantity() < quantity) {
+                    throw new InsufficientStockException(bookId, "Insufficient stock for book with ID: " + bookId);
+                }
+                // Author and index are unchanged, so the new version goes straight into the map
+                Book updated = new Book(book.getId(), book.getTitle(), book.getAuthorId(), book.getIsbn(),
+                        book.getPublicationYear(), book.getPrice(), book.getStockQuantity() - quantity);
+                books.put(bookId, updated);
+                writes.add(book, updated);
+                changeLog.record(ChangeEvent.EntityType.BOOK, ChangeEvent.Operation.UPDATE, bookId, updated);
+                orderedBooks.put(bookId, book);
+                total += book.getPrice() * quantity;
+            }
+            return total;
+        });
+
+        // Orders are stored packed: millisecond timestamps and whole cents round-trip exactly
+        long totalCents = Math.round(totalAmount * 100);
+        LocalDateTime orderDate = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        PackedOrder order = PackedOrder.pack(
+                new Order(getNextOrderId(), customerId, items, totalCents / 100.0, orderDate));
+        // In shard mode only the customer's shard appends to their history; checkout is already on it
+        CustomerShards.call(customerId, () -> {
+            SalesAnalytics.storeAndRecord(() -> ordersByCustomer.merge(customerId, new PackedOrder[] { order },
+                    (existing, added) -> {
+                        PackedOrder[] orders = Arrays.copyOf(existing, existing.length + 1);
+                        orders[existing.length] = added[0];
+                        return orders;
+                    }), order, orderedBooks::get);
+            return null;
+        });
+        Bestsellers.record(order, orderedBooks);
+        CoPurchaseIndex.record(order);
+        return order.toOrder();
+    }
+
+    /**
+     * Gets a customer's stored orders, oldest first.
+     *
+     * @param customerId The ID of the customer
+     * @return The packed orders, empty if the customer has none
+     */
+    public static PackedOrder[] ordersOf(int customerId) {
+        PackedOrder[] orders = ordersByCustomer.get(customerId);
+        return orders == null ? NO_ORDERS : orders;
+    }
+
+    private static void indexBook(int authorId, int bookId) {
+        int[] current = bookIdsByAuthor.get(authorId);
+        int[] updated;
+        if (current == null) {
+            updated = new int[] { bookId };
+        } else {
+            updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = bookId;
+        }
+        bookIdsByAuthor.put(authorId, updated);
+    }
+
+    private static void appendToIndex(long[] pairs) {
+        int run = 0;
+        while (run < pairs.length) {
+            int authorId = (int) (pairs[run] >>> 32);
+            int runEnd = run;
+            while (runEnd < pairs.length && (int) (pairs[runEnd] >>> 32) == authorId) {
+                runEnd++;
+            }
+            int[] current = bookIdsByAuthor.get(authorId);
+            int offset = current == null ? 0 : current.length;
+            int[] updated = current == null ? new int[runEnd - run] : Arrays.copyOf(current, offset + runEnd - run);
+            for (int i = run; i < runEnd; i++) {
+                updated[offset + i - run] = (int) pairs[i];
+            }
+            bookIdsByAuthor.put(authorId, updated);
+            run = runEnd;
+        }
+    }
+
+    private static void unindexBook(int authorId, int bookId) {
+        int[] current = bookIdsByAuthor.get(authorId);
+        if (current == null) {
+            return;
+        }
+        int position = 0;
+        while (position < current.length && current[position] != bookId) {
+            position++;
+        }
+        if (position == current.length) {
+            return;
+        }
+        int[] updated = new int[current.length - 1];
+        System.arraycopy(current, 0, updated, 0, position);
+        System.arraycopy(current, position + 1, updated, position, updated.length - position);
+        if (updated.length == 0) {
+            bookIdsByAuthor.remove(authorId);
+        } else {
+            bookIdsByAuthor.put(authorId, updated);
+        }
+    }
+
+    private static List<Book[]> planBulkUpdate(List<Book> candidates, Predicate<Book> filter, UnaryOperator<Book> change) {
+        List<Book[]> planned = ForkJoinPool.commonPool().invoke(
+                new BulkUpdatePlan(candidates, 0, candidates.size(), filter, change));
+        for (Book[] pair : planned) {
+            if (pair[1].getStockQuantity() < 0) {
+                throw new InsufficientStockException(pair[0].getId(),
+                        "Stock of book with ID " + pair[0].getId() + " would become negative");
+            }
+        }
+        return planned;
+    }
+
+    private static int countChanged(List<Book[]> planned) {
+        int changed = 0;
+        for (Book[] pair : planned) {
+            if (pair[1] != pair[0]) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Starts collecting the current transaction's book writes for what is derived from them: the
+     * catalog statistics and the per-author book versions, both updated when (and only if) the
+     * transaction commits.
+     */
+    private static BookWrites bookWrites() {
+        BookWrites writes = new BookWrites();
+        catalogClock.onCommit(() -> writes.apply(catalogClock.committedVersion()));
+        return writes;
+    }
+
+    private static void checkVersion(VersionedMap<?> map, int id, LongPredicate expectedVersion, String entityName) {
+        if (expectedVersion == null) {
+            return;
+        }
+        long current = map.versionOf(id);
+        if (!expectedVersion.test(current)) {
+            throw new VersionConflictException(current == 0 ? entityName + " not found with ID: " + id
+                    : entityName + " with ID " + id + " has been modified (current version " + current + ")", current);
+        }
+    }
+
+    /**
+     * The book writes of one transaction: a statistics delta and the authors whose books changed,
+     * on either side of the write.
+     */
+    private static final class BookWrites {
+        private final CatalogStats.Delta stats = new CatalogStats.Delta();
+        private final IntIntHashMap authorIds = new IntIntHashMap(4);
+
+        void add(Book previous, Book updated) {
+            stats.add(previous, updated);
+            if (previous != null && previous.getAuthorId() > 0) {
+                authorIds.addTo(previous.getAuthorId(), 1);
+            }
+            if (updated != null && updated.getAuthorId() > 0) {
+                authorIds.addTo(updated.getAuthorId(), 1);
+            }
+        }
+
+        void apply(long committedVersion) {
+            stats.apply(committedVersion);
+            for (int authorId : authorIds.keys()) {
+                authorBooksVersions.put(authorId, committedVersion);
+            }
+        }
+    }
+
+    /**
+     * Filters a range of candidate books and computes their new versions, as (previous, next)
+     * pairs, splitting until ranges are small.
+     */
+    private static final class BulkUpdatePlan extends RecursiveTask<List<Book[]>> {
+        private static final int LEAF_SIZE = 2048;
+
+        private final List<Book> candidates;
+        private final int from;
+        private final int to;
+        private final Predicate<Book> filter;
+        private final UnaryOperator<Book> change;
+
+        BulkUpdatePlan(List<Book> candidates, int from, int to, Predicate<Book> filter, UnaryOperator<Book> change) {
+            this.candidates = candidates;
+            this.from = from;
+            this.to = to;
+            this.filter = filter;
+            this.change = change;
+        }
+
+        @Override
+        protected List<Book[]> compute() {
+            if (to - from <= LEAF_SIZE) {
+                List<Book[]> pairs = new ArrayList<>();
+                for (int i = from; i < to; i++) {
+                    Book book = candidates.get(i);
+                    if (book != null && filter.test(book)) {
+                        pairs.add(new Book[] { book, change.apply(book) });
+                    }
+                }
+                return pairs;
+            }
+            int middle = (from + to) >>> 1;
+            BulkUpdatePlan left = new BulkUpdatePlan(candidates, from, middle, filter, change);
+            left.fork();
+            List<Book[]> right = new BulkUpdatePlan(candidates, middle, to, filter, change).compute();
+            List<Book[]> pairs = left.join();
+            pairs.addAll(right);
+            return pairs;
+        }
+    }
 }
@@ -0,0 +1,17 @@
+package com.CSA.storage;
+
+/**
+ * Thrown when a customer would be registered with, or changed to, an email address already
+ * claimed by another customer.
+ */
+public class DuplicateEmailException extends RuntimeException {
+
+    /**
+     * Creates the exception with a message naming the contested address.
+     *
+     * @param message The detail message
+     */
+    public DuplicateEmailException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,36 @@
+package com.CSA.storage;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts stored values to and from the binary form kept in the on-disk tier of a
+ * {@link TieredMap}, and estimates the heap they retain in the in-memory tier.
+ *
+ * @param <V> The type of the values
+ */
+public interface EntityCodec<V> {
+
+    /**
+     * Encodes a value.
+     *
+     * @param value The value
+     * @return A buffer holding the encoded value, positioned at 0 with its limit at the end
+     */
+    ByteBuffer encode(V value);
+
+    /**
+     * Decodes a value written by {@link #encode(Object)}.
+     *
+     * @param buffer The encoded value
+     * @return The value
+     */
+    V decode(ByteBuffer buffer);
+
+    /**
+     * Estimates the heap retained by a value.
+     *
+     * @param value The value
+     * @return The estimated size in bytes
+     */
+    long estimatedHeapBytes(V value);
+}
@@ -0,0 +1,30 @@
+package com.CSA.storage;
+
+/**
+ * Thrown when an order asks for more copies of a book than are in stock, or for a book
+ * that no longer exists. Throwing it inside a write transaction rolls the transaction back.
+ */
+public class InsufficientStockException extends RuntimeException {
+
+    private final int bookId;
+
+    /**
+     * Creates the exception for the book that could not be supplied.
+     *
+     * @param bookId The ID of the book
+     * @param message The detail message
+     */
+    public InsufficientStockException(int bookId, String message) {
+        super(message);
+        this.bookId = bookId;
+    }
+
+    /**
+     * Gets the ID of the book that could not be supplied.
+     *
+     * @return The book ID
+     */
+    public int getBookId() {
+        return bookId;
+    }
+}
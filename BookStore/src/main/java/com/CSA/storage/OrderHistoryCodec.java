@@ -0,0 +1,43 @@
+package com.CSA.storage;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Codec for a customer's order history: an order count followed by each order in the
+ * {@link PackedOrder#encode(ByteBuffer)} layout.
+ */
+class OrderHistoryCodec implements EntityCodec<PackedOrder[]> {
+
+    @Override
+    public ByteBuffer encode(PackedOrder[] orders) {
+        int size = 4;
+        for (PackedOrder order : orders) {
+            size += order.encodedSize();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(orders.length);
+        for (PackedOrder order : orders) {
+            order.encode(buffer);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    @Override
+    public PackedOrder[] decode(ByteBuffer buffer) {
+        PackedOrder[] orders = new PackedOrder[buffer.getInt()];
+        for (int i = 0; i < orders.length; i++) {
+            orders[i] = PackedOrder.decode(buffer);
+        }
+        return orders;
+    }
+
+    @Override
+    public long estimatedHeapBytes(PackedOrder[] orders) {
+        long bytes = (16 + 4L * orders.length + 7) & ~7L;
+        for (PackedOrder order : orders) {
+            bytes += order.estimatedHeapBytes();
+        }
+        return bytes;
+    }
+}
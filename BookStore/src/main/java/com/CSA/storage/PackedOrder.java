@@ -0,0 +1,249 @@
+package com.CSA.storage;
+
+import com.CSA.model.Order;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact immutable storage form of a placed {@link Order}.
+ * Items are held as parallel int arrays, the order date as epoch milliseconds and the total as
+ * cents, so a stored order is three objects instead of a map of boxed entries and a date-time
+ * object graph. The JSON-facing {@link Order} is rebuilt only when it is serialized.
+ */
+public final class PackedOrder {
+
+    // Sizes assume a 64-bit JVM with compressed references: 12-byte headers, 4-byte references
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+
+    private final int id;
+    private final int customerId;
+    private final int[] bookIds;
+    private final int[] quantities;
+    private final long orderEpochMillis;
+    private final long totalCents;
+
+    /**
+     * Creates a packed order.
+     *
+     * @param id The order ID
+     * @param customerId The ID of the ordering customer
+     * @param bookIds The ordered book IDs
+     * @param quantities The quantity of each book, parallel to bookIds
+     * @param orderEpochMillis The order date and time as UTC epoch milliseconds
+     * @param totalCents The order total in cents
+     */
+    public PackedOrder(int id, int customerId, int[] bookIds, int[] quantities, long orderEpochMillis, long totalCents) {
+        this.id = id;
+        this.customerId = customerId;
+        this.bookIds = bookIds;
+        this.quantities = quantities;
+        this.orderEpochMillis = orderEpochMillis;
+        this.totalCents = totalCents;
+    }
+
+    /**
+     * Packs an order. The order date keeps millisecond precision.
+     *
+     * @param order The order to pack
+     * @return The packed order
+     */
+    public static PackedOrder pack(Order order) {
+        Map<Integer, Integer> items = order.getItems();
+        int[] bookIds = new int[items.size()];
+        int[] quantities = new int[items.size()];
+        int line = 0;
+        for (Map.Entry<Integer, Integer> item : items.entrySet()) {
+            bookIds[line] = item.getKey();
+            quantities[line] = item.getValue();
+            line++;
+        }
+        long epochMillis = order.getOrderDate().toInstant(ZoneOffset.UTC).toEpochMilli();
+        return new PackedOrder(order.getId(), order.getCustomerId(), bookIds, quantities, epochMillis,
+                Math.round(order.getTotalAmount() * 100));
+    }
+
+    /**
+     * Restores the JSON-facing order.
+     *
+     * @return A new Order equal to the one that was packed
+     */
+    public Order toOrder() {
+        Map<Integer, Integer> items = new HashMap<>(bookIds.length * 4 / 3 + 1);
+        for (int line = 0; line < bookIds.length; line++) {
+            items.put(bookIds[line], quantities[line]);
+        }
+        return new Order(id, customerId, items, getTotalAmount(), getOrderDate());
+    }
+
+    /**
+     * Gets the ID of the order.
+     *
+     * @return The order ID
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Gets the ID of the ordering customer.
+     *
+     * @return The customer ID
+     */
+    public int getCustomerId() {
+        return customerId;
+    }
+
+    /**
+     * Gets the number of order lines.
+     *
+     * @return The line count
+     */
+    public int getLineCount() {
+        return bookIds.length;
+    }
+
+    /**
+     * Gets the book ID of an order line.
+     *
+     * @param line The line index
+     * @return The book ID
+     */
+    public int getBookId(int line) {
+        return bookIds[line];
+    }
+
+    /**
+     * Gets the quantity of an order line.
+     *
+     * @param line The line index
+     * @return The quantity
+     */
+    public int getQuantity(int line) {
+        return quantities[line];
+    }
+
+    /**
+     * Gets the order date as UTC epoch milliseconds.
+     *
+     * @return The order time
+     */
+    public long getOrderEpochMillis() {
+        return orderEpochMillis;
+    }
+
+    /**
+     * Gets the order date and time.
+     *
+     * @return The order date and time
+     */
+    public LocalDateTime getOrderDate() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(orderEpochMillis), ZoneOffset.UTC);
+    }
+
+    /**
+     * Gets the order total in cents.
+     *
+     * @return The total in cents
+     */
+    public long getTotalCents() {
+        return totalCents;
+    }
+
+    /**
+     * Gets the order total.
+     *
+     * @return The total amount
+     */
+    public double getTotalAmount() {
+        return totalCents / 100.0;
+    }
+
+    /**
+     * Gets the number of bytes {@link #encode(ByteBuffer)} writes.
+     *
+     * @return The encoded size
+     */
+    public int encodedSize() {
+        return 4 + 4 + 8 + 8 + 4 + bookIds.length * 8;
+    }
+
+    /**
+     * Writes the order to a buffer in a fixed little-overhead layout:
+     * id, customerId, epoch millis, cents, line count, then bookId/quantity pairs.
+     *
+     * @param buffer The buffer to write to
+     */
+    public void encode(ByteBuffer buffer) {
+        buffer.putInt(id).putInt(customerId).putLong(orderEpochMillis).putLong(totalCents).putInt(bookIds.length);
+        for (int line = 0; line < bookIds.length; line++) {
+            buffer.putInt(bookIds[line]).putInt(quantities[line]);
+        }
+    }
+
+    /**
+     * Reads an order written by {@link #encode(ByteBuffer)}.
+     *
+     * @param buffer The buffer to read from
+     * @return The decoded order
+     */
+    public static PackedOrder decode(ByteBuffer buffer) {
+        int id = buffer.getInt();
+        int customerId = buffer.getInt();
+        long epochMillis = buffer.getLong();
+        long cents = buffer.getLong();
+        int lines = buffer.getInt();
+        int[] bookIds = new int[lines];
+        int[] quantities = new int[lines];
+        for (int line = 0; line < lines; line++) {
+            bookIds[line] = buffer.getInt();
+            quantities[line] = buffer.getInt();
+        }
+        return new PackedOrder(id, customerId, bookIds, quantities, epochMillis, cents);
+    }
+
+    /**
+     * Estimates the heap retained by this packed order.
+     *
+     * @return The estimated size in bytes
+     */
+    public long estimatedHeapBytes() {
+        long self = align(OBJECT_HEADER + 4 + 4 + REFERENCE + REFERENCE + 8 + 8);
+        return self + 2 * align(ARRAY_HEADER + 4L * bookIds.length);
+    }
+
+    /**
+     * Estimates the heap an unpacked {@link Order} with the same lines retains: the order, its
+     * LocalDateTime with date and time parts, and a HashMap of boxed entries.
+     *
+     * @return The estimated size in bytes
+     */
+    public long estimatedUnpackedHeapBytes() {
+        long order = align(OBJECT_HEADER + 4 + 4 + REFERENCE + 8 + REFERENCE);
+        long dateTime = align(OBJECT_HEADER + 2 * REFERENCE)
+                + align(OBJECT_HEADER + 4 + 2 + 2)
+                + align(OBJECT_HEADER + 3 + 4);
+        int lines = bookIds.length;
+        long tableSize = Math.max(1, Integer.highestOneBit(Math.max(1, lines * 4 / 3 + 1) * 2 - 1));
+        long map = align(OBJECT_HEADER + 4 * REFERENCE + 4 * 4)
+                + align(ARRAY_HEADER + REFERENCE * tableSize)
+                + lines * align(OBJECT_HEADER + 4 + 3 * REFERENCE);
+        // Integers outside the -128..127 cache are separate boxes
+        long boxes = 0;
+        for (int line = 0; line < lines; line++) {
+            boxes += bookIds[line] > 127 ? 16 : 0;
+            boxes += quantities[line] > 127 ? 16 : 0;
+        }
+        return order + dateTime + map + boxes;
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
@@ -0,0 +1,18 @@
+package com.CSA.storage;
+
+/**
+ * Thrown when a catalog write would leave a book pointing at a missing author,
+ * or when a restricted author delete still has books referencing it.
+ * Throwing it inside a write transaction rolls the transaction back.
+ */
+public class ReferentialIntegrityException extends RuntimeException {
+
+    /**
+     * Creates the exception with a message describing the violated reference.
+     *
+     * @param message The detail message
+     */
+    public ReferentialIntegrityException(String message) {
+        super(message);
+    }
+}
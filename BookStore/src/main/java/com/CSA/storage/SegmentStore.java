@@ -0,0 +1,252 @@
+package com.CSA.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only store of records in fixed-size segment files, read and written through NIO
+ * positional channel I/O. Each record is a length prefix followed by its bytes. Records are
+ * never updated in place: a replaced or removed record is released, and sealed segments whose
+ * live bytes fall below a quarter of their size are offered for compaction, after which the
+ * remaining live records are copied forward and the file is deleted. Files are scratch space for
+ * the running process and are removed when the store is closed or the JVM exits.
+ */
+class SegmentStore {
+
+    private static final int HEADER_BYTES = 4;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final CopyOnWriteArrayList<Segment> segments = new CopyOnWriteArrayList<>();
+    private int nextSegmentId;
+    // Guarded by this
+    private Segment active;
+
+    /**
+     * Creates a store.
+     *
+     * @param directory The directory for segment files; created if missing
+     * @param segmentBytes The size at which a segment is sealed and a new one started
+     */
+    SegmentStore(Path directory, long segmentBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create segment directory " + directory, e);
+        }
+        directory.toFile().deleteOnExit();
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @param key The key the record belongs to, remembered for compaction
+     * @param payload The record bytes, from position to limit
+     * @return A reference to the record
+     */
+    synchronized Ref append(int key, ByteBuffer payload) {
+        int length = payload.remaining();
+        if (active == null || active.size + HEADER_BYTES + length > segmentBytes && active.size > 0) {
+            if (active != null) {
+                active.sealed = true;
+            }
+            active = openSegment();
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(0, length);
+        long offset = active.size;
+        try {
+            writeFully(active.channel, header, offset);
+            writeFully(active.channel, payload, offset + HEADER_BYTES);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write to segment " + active.path, e);
+        }
+        active.size += HEADER_BYTES + length;
+        active.liveBytes.addAndGet(HEADER_BYTES + length);
+        active.addKey(key);
+        return new Ref(active, offset, length);
+    }
+
+    /**
+     * Reads a record.
+     *
+     * @param ref The record reference
+     * @return A buffer holding the record bytes
+     */
+    ByteBuffer read(Ref ref) {
+        ByteBuffer buffer = ByteBuffer.allocate(ref.length);
+        long position = ref.offset + HEADER_BYTES;
+        try {
+            while (buffer.hasRemaining()) {
+                int read = ref.segment.channel.read(buffer, position + buffer.position());
+                if (read < 0) {
+                    throw new IOException("Unexpected end of segment");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read from segment " + ref.segment.path, e);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Marks a record as no longer needed.
+     *
+     * @param ref The record reference
+     */
+    void release(Ref ref) {
+        ref.segment.liveBytes.addAndGet(-(HEADER_BYTES + ref.length));
+    }
+
+    /**
+     * Gets the sealed segments worth compacting.
+     *
+     * @return Segments with less than a quarter of their bytes live
+     */
+    List<Segment> compactionCandidates() {
+        List<Segment> candidates = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (segment.sealed && segment.liveBytes.get() * 4 < segment.size) {
+                candidates.add(segment);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Deletes a sealed segment once no live record remains in it.
+     *
+     * @param segment The segment
+     * @return true if the segment was deleted
+     */
+    boolean deleteIfEmpty(Segment segment) {
+        if (!segment.sealed || segment.liveBytes.get() > 0) {
+            return false;
+        }
+        segments.remove(segment);
+        try {
+            segment.channel.close();
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot delete segment " + segment.path, e);
+        }
+        return true;
+    }
+
+    /**
+     * Gets the bytes held in segment files.
+     *
+     * @return The total file size
+     */
+    long diskBytes() {
+        long total = 0;
+        for (Segment segment : segments) {
+            total += segment.size;
+        }
+        return total;
+    }
+
+    /**
+     * Gets the bytes of records still in use.
+     *
+     * @return The live byte count
+     */
+    long liveBytes() {
+        long total = 0;
+        for (Segment segment : segments) {
+            total += segment.liveBytes.get();
+        }
+        return total;
+    }
+
+    /**
+     * Gets the number of segment files.
+     *
+     * @return The segment count
+     */
+    int segmentCount() {
+        return segments.size();
+    }
+
+    private Segment openSegment() {
+        Path path = directory.resolve(String.format("segment-%06d.dat", nextSegmentId++));
+        try {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+            path.toFile().deleteOnExit();
+            Segment segment = new Segment(path, channel);
+            segments.add(segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create segment " + path, e);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+    }
+
+    /**
+     * One segment file.
+     */
+    static final class Segment {
+        final Path path;
+        final FileChannel channel;
+        final AtomicLong liveBytes = new AtomicLong();
+        // Written under the store's lock; read by compaction once the segment is sealed
+        volatile long size;
+        volatile boolean sealed;
+        private int[] keys = new int[64];
+        private int keyCount;
+
+        Segment(Path path, FileChannel channel) {
+            this.path = path;
+            this.channel = channel;
+        }
+
+        private void addKey(int key) {
+            if (keyCount == keys.length) {
+                keys = Arrays.copyOf(keys, keys.length * 2);
+            }
+            keys[keyCount++] = key;
+        }
+
+        /**
+         * Gets the keys of every record appended to this segment, live or not. Complete once
+         * the segment is sealed, since appends happen before the sealed flag is written.
+         */
+        int[] keys() {
+            return Arrays.copyOf(keys, keyCount);
+        }
+    }
+
+    /**
+     * Location of one record.
+     */
+    static final class Ref {
+        final Segment segment;
+        final long offset;
+        final int length;
+
+        Ref(Segment segment, long offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,516 @@
+package com.CSA.storage;
+
+import com.CSA.LoggerUtil.LoggerUtil;
+import com.CSA.diagnostics.StorageEvent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+/**
+ * Map keyed by entity ID whose values live in heap while in use and on disk when cold.
+ * With tiered storage enabled (bookstore.storage.tiered=true), values untouched for
+ * bookstore.storage.idleSeconds, and the least recently used values whenever the heap tier
+ * exceeds its budget, are encoded into a {@link SegmentStore} and dropped from heap. Reading a
+ * cold value faults it back into heap transparently. Without tiering the map is purely in-memory.
+ * Writes and tier moves for a key are serialized by a striped lock; hot reads take no lock.
+ *
+ * @param <V> The type of the stored values; stored values must not be mutated in place
+ */
+public class TieredMap<V> {
+
+    private static final boolean TIERED = Boolean.getBoolean("bookstore.storage.tiered");
+    private static final long IDLE_MILLIS = Long.getLong("bookstore.storage.idleSeconds", 600L) * 1000L;
+    private static final long MAINTENANCE_MILLIS = Long.getLong("bookstore.storage.maintenanceSeconds", 5L) * 1000L;
+    private static final long SEGMENT_BYTES = Long.getLong("bookstore.storage.segmentMB", 64L) << 20;
+    // Map node, boxed key and entry holder in the heap tier
+    private static final long ENTRY_OVERHEAD = 32 + 16 + 32;
+    private static final int STRIPES = 64;
+
+    private static ScheduledExecutorService maintenanceExecutor;
+
+    private final String name;
+    private final EntityCodec<V> codec;
+    private final long heapBudgetBytes;
+    private final SegmentStore store;
+
+    private final ConcurrentHashMap<Integer, HotEntry<V>> hot = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, SegmentStore.Ref> cold = new ConcurrentHashMap<>();
+    private final Object[] stripes = new Object[STRIPES];
+    private final AtomicLong hotBytes = new AtomicLong();
+    private final AtomicBoolean maintenanceQueued = new AtomicBoolean();
+
+    private final LongAdder hotHits = new LongAdder();
+    private final LongAdder coldHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder spills = new LongAdder();
+    private final LongAdder compactedRecords = new LongAdder();
+
+    /**
+     * Creates a map. The heap budget can be overridden with bookstore.storage.&lt;name&gt;.heapBudgetMB.
+     *
+     * @param name The name used for the segment directory, configuration and statistics
+     * @param codec The codec for the on-disk tier
+     * @param defaultHeapBudgetMB The heap tier budget when not configured
+     */
+    public TieredMap(String name, EntityCodec<V> codec, long defaultHeapBudgetMB) {
+        this.name = name;
+        this.codec = codec;
+        this.heapBudgetBytes = Long.getLong("bookstore.storage." + name + ".heapBudgetMB", defaultHeapBudgetMB) << 20;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+        if (TIERED) {
+            store = new SegmentStore(segmentDirectory(name), SEGMENT_BYTES);
+            scheduleMaintenance(this);
+        } else {
+            store = null;
+        }
+    }
+
+    /**
+     * Gets the value for a key, faulting it in from disk if it is cold.
+     *
+     * @param key The entity ID
+     * @return The value, or null if absent
+     */
+    public V get(Integer key) {
+        StorageEvent event = new StorageEvent();
+        event.begin();
+        HotEntry<V> entry = hot.get(key);
+        if (entry != null) {
+            entry.lastAccessMillis = System.currentTimeMillis();
+            hotHits.increment();
+            event.complete(name, "get", key, 1, "hot");
+            return entry.value;
+        }
+        if (store == null || !cold.containsKey(key)) {
+            misses.increment();
+            event.complete(name, "get", key, 0, "miss");
+            return null;
+        }
+        V value;
+        synchronized (stripe(key)) {
+            value = getLocked(key);
+            if (value == null) {
+                misses.increment();
+            }
+        }
+        event.complete(name, "get", key, value == null ? 0 : 1, value == null ? "miss" : "cold");
+        return value;
+    }
+
+    /**
+     * Checks whether a key has a value in either tier, without faulting it in.
+     *
+     * @param key The entity ID
+     * @return true if present
+     */
+    public boolean containsKey(Integer key) {
+        return hot.containsKey(key) || cold.containsKey(key);
+    }
+
+    /**
+     * Stores a value in the heap tier, replacing any value in either tier.
+     *
+     * @param key The entity ID
+     * @param value The value
+     */
+    public void put(Integer key, V value) {
+        StorageEvent event = new StorageEvent();
+        event.begin();
+        synchronized (stripe(key)) {
+            putLocked(key, value);
+        }
+        requestMaintenanceIfOverBudget();
+        event.complete(name, "put", key, 1);
+    }
+
+    /**
+     * Stores a value unless the key already has one.
+     *
+     * @param key The entity ID
+     * @param value The value
+     * @return The existing value, or null if the value was stored
+     */
+    public V putIfAbsent(Integer key, V value) {
+        StorageEvent event = new StorageEvent();
+        event.begin();
+        V existing;
+        synchronized (stripe(key)) {
+            existing = getLocked(key);
+            if (existing == null) {
+                putLocked(key, value);
+            }
+        }
+        requestMaintenanceIfOverBudget();
+        event.complete(name, "putIfAbsent", key, existing == null ? 1 : 0);
+        return existing;
+    }
+
+    /**
+     * Combines a value with the existing one, as {@link Map#merge}, atomically for the key.
+     *
+     * @param key The entity ID
+     * @param value The value to store or combine
+     * @param remapping Combines the existing value with the given one
+     * @return The stored value
+     */
+    public V merge(Integer key, V value, BiFunction<? super V, ? super V, ? extends V> remapping) {
+        StorageEvent event = new StorageEvent();
+        event.begin();
+        V merged;
+        synchronized (stripe(key)) {
+            V existing = getLocked(key);
+            merged = existing == null ? value : remapping.apply(existing, value);
+            putLocked(key, merged);
+        }
+        requestMaintenanceIfOverBudget();
+        event.complete(name, "merge", key, 1);
+        return merged;
+    }
+
+    /**
+     * Removes a key from both tiers.
+     *
+     * @param key The entity ID
+     * @return The removed value, or null if absent
+     */
+    public V remove(Integer key) {
+        StorageEvent event = new StorageEvent();
+        event.begin();
+        V removed;
+        synchronized (stripe(key)) {
+            removed = removeLocked(key);
+        }
+        event.complete(name, "remove", key, removed == null ? 0 : 1);
+        return removed;
+    }
+
+    /**
+     * Replaces or removes the value of a key, as {@link Map#compute}, atomically for the key.
+     * The remapping runs under the key's stripe lock, so it must be short; if it throws, the
+     * value is left unchanged.
+     *
+     * @param key The entity ID
+     * @param remapping Computes the new value from the existing one (null if absent); returning
+     *                  null removes the key
+     * @return The new value, or null if the key is now absent
+     */
+    public V compute(Integer key, BiFunction<? super Integer, ? super V, ? extends V> remapping) {
+        StorageEvent event = new StorageEvent();
+        event.begin();
+        V updated;
+        synchronized (stripe(key)) {
+            V existing = getLocked(key);
+            updated = remapping.apply(key, existing);
+            if (updated != null) {
+                putLocked(key, updated);
+            } else if (existing != null) {
+                removeLocked(key);
+            }
+        }
+        requestMaintenanceIfOverBudget();
+        event.complete(name, "compute", key, updated == null ? 0 : 1);
+        return updated;
+    }
+
+    /**
+     * Gets the number of keys in both tiers.
+     *
+     * @return The key count
+     */
+    public int size() {
+        return hot.size() + cold.size();
+    }
+
+    /**
+     * Visits every entry in both tiers exactly once. Cold values are read from disk but not
+     * faulted in, so a scan does not displace the working set.
+     *
+     * @param action The action applied to each key and value
+     */
+    public void forEach(BiConsumer<Integer, V> action) {
+        StorageEvent event = new StorageEvent();
+        event.begin();
+        int[] visited = new int[1];
+        scan((key, value) -> {
+            visited[0]++;
+            action.accept(key, value);
+        });
+        event.complete(name, "scan", StorageEvent.NO_KEY, visited[0]);
+    }
+
+    private void scan(BiConsumer<Integer, V> action) {
+        if (store == null) {
+            hot.forEach((key, entry) -> action.accept(key, entry.value));
+            return;
+        }
+        // Entries can move between tiers while we scan; visit hot, then cold, then hot again
+        Set<Integer> seen = new HashSet<>();
+        hot.forEach((key, entry) -> {
+            seen.add(key);
+            action.accept(key, entry.value);
+        });
+        for (Integer key : cold.keySet()) {
+            if (seen.contains(key)) {
+                continue;
+            }
+            V value = null;
+            synchronized (stripe(key)) {
+                SegmentStore.Ref ref = cold.get(key);
+                if (ref != null) {
+                    value = codec.decode(store.read(ref));
+                }
+            }
+            if (value != null) {
+                seen.add(key);
+                action.accept(key, value);
+            }
+        }
+        hot.forEach((key, entry) -> {
+            if (seen.add(key)) {
+                action.accept(key, entry.value);
+            }
+        });
+    }
+
+    /**
+     * Copies all values from both tiers.
+     *
+     * @return A list of values
+     */
+    public List<V> values() {
+        List<V> result = new ArrayList<>(size());
+        forEach((key, value) -> result.add(value));
+        return result;
+    }
+
+    /**
+     * Gets entry counts, sizes and hit rates of each tier.
+     *
+     * @return A map of counter names to values
+     */
+    public Map<String, Object> getStats() {
+        long hotHitCount = hotHits.sum();
+        long coldHitCount = coldHits.sum();
+        long lookups = hotHitCount + coldHitCount + misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", name);
+        stats.put("tiered", store != null);
+        stats.put("hotEntries", hot.size());
+        stats.put("coldEntries", cold.size());
+        stats.put("hotBytes", hotBytes.get());
+        stats.put("heapBudgetBytes", heapBudgetBytes);
+        stats.put("hotHits", hotHitCount);
+        stats.put("coldHits", coldHitCount);
+        stats.put("misses", misses.sum());
+        stats.put("hotHitRate", lookups == 0 ? 0.0 : (double) hotHitCount / lookups);
+        stats.put("coldHitRate", lookups == 0 ? 0.0 : (double) coldHitCount / lookups);
+        stats.put("spills", spills.sum());
+        if (store != null) {
+            stats.put("segments", store.segmentCount());
+            stats.put("diskBytes", store.diskBytes());
+            stats.put("liveDiskBytes", store.liveBytes());
+            stats.put("compactedRecords", compactedRecords.sum());
+        }
+        return stats;
+    }
+
+    /**
+     * Moves idle and, while over budget, least recently used values to disk, then compacts
+     * mostly dead segments. Runs periodically and when a write pushes the heap tier over budget.
+     */
+    void maintain() {
+        maintenanceQueued.set(false);
+        StorageEvent event = new StorageEvent();
+        event.begin();
+        long movedBefore = spills.sum() + compactedRecords.sum();
+        long now = System.currentTimeMillis();
+        List<Candidate<V>> candidates = new ArrayList<>();
+        for (Map.Entry<Integer, HotEntry<V>> entry : hot.entrySet()) {
+            HotEntry<V> hotEntry = entry.getValue();
+            if (now - hotEntry.lastAccessMillis >= IDLE_MILLIS) {
+                spill(entry.getKey(), hotEntry);
+            } else {
+                candidates.add(new Candidate<>(entry.getKey(), hotEntry, hotEntry.lastAccessMillis));
+            }
+        }
+
+        if (hotBytes.get() > heapBudgetBytes) {
+            // Access times are copied into the candidates, so concurrent reads cannot upset the sort
+            candidates.sort((a, b) -> Long.compare(a.lastAccessMillis, b.lastAccessMillis));
+            long target = heapBudgetBytes - heapBudgetBytes / 10;
+            for (Candidate<V> candidate : candidates) {
+                if (hotBytes.get() <= target) {
+                    break;
+                }
+                spill(candidate.key, candidate.entry);
+            }
+        }
+
+        for (SegmentStore.Segment segment : store.compactionCandidates()) {
+            compact(segment);
+        }
+        event.complete(name, "maintain", StorageEvent.NO_KEY,
+                (int) (spills.sum() + compactedRecords.sum() - movedBefore));
+    }
+
+    private V getLocked(Integer key) {
+        HotEntry<V> entry = hot.get(key);
+        if (entry != null) {
+            entry.lastAccessMillis = System.currentTimeMillis();
+            hotHits.increment();
+            return entry.value;
+        }
+        SegmentStore.Ref ref = store == null ? null : cold.get(key);
+        if (ref == null) {
+            return null;
+        }
+        V value = codec.decode(store.read(ref));
+        HotEntry<V> faulted = new HotEntry<>(value, codec.estimatedHeapBytes(value) + ENTRY_OVERHEAD);
+        // Add to the new tier before leaving the old one, so lock-free readers always find the key
+        hot.put(key, faulted);
+        cold.remove(key);
+        store.release(ref);
+        hotBytes.addAndGet(faulted.bytes);
+        coldHits.increment();
+        return value;
+    }
+
+    private void putLocked(Integer key, V value) {
+        HotEntry<V> entry = new HotEntry<>(value, codec.estimatedHeapBytes(value) + ENTRY_OVERHEAD);
+        HotEntry<V> previous = hot.put(key, entry);
+        hotBytes.addAndGet(entry.bytes - (previous == null ? 0 : previous.bytes));
+        SegmentStore.Ref ref = store == null ? null : cold.remove(key);
+        if (ref != null) {
+            store.release(ref);
+        }
+    }
+
+    private V removeLocked(Integer key) {
+        V removed = null;
+        HotEntry<V> entry = hot.remove(key);
+        if (entry != null) {
+            hotBytes.addAndGet(-entry.bytes);
+            removed = entry.value;
+        }
+        SegmentStore.Ref ref = store == null ? null : cold.remove(key);
+        if (ref != null) {
+            removed = codec.decode(store.read(ref));
+            store.release(ref);
+        }
+        return removed;
+    }
+
+    private void spill(Integer key, HotEntry<V> expected) {
+        synchronized (stripe(key)) {
+            // Skip entries replaced or removed since they were picked
+            if (hot.get(key) != expected) {
+                return;
+            }
+            SegmentStore.Ref ref = store.append(key, codec.encode(expected.value));
+            cold.put(key, ref);
+            hot.remove(key);
+            hotBytes.addAndGet(-expected.bytes);
+            spills.increment();
+        }
+    }
+
+    private void compact(SegmentStore.Segment segment) {
+        for (int key : segment.keys()) {
+            synchronized (stripe(key)) {
+                SegmentStore.Ref ref = cold.get(key);
+                if (ref != null && ref.segment == segment) {
+                    cold.put(key, store.append(key, store.read(ref)));
+                    store.release(ref);
+                    compactedRecords.increment();
+                }
+            }
+        }
+        store.deleteIfEmpty(segment);
+    }
+
+    private void requestMaintenanceIfOverBudget() {
+        if (store != null && hotBytes.get() > heapBudgetBytes && maintenanceQueued.compareAndSet(false, true)) {
+            maintenanceExecutor.execute(() -> runMaintenance(this));
+        }
+    }
+
+    private Object stripe(Integer key) {
+        return stripes[(key ^ (key >>> 16)) & (STRIPES - 1)];
+    }
+
+    private static Path segmentDirectory(String name) {
+        String configured = System.getProperty("bookstore.storage.dir");
+        try {
+            Path base = configured != null ? Paths.get(configured) : Files.createTempDirectory("bookstore-storage");
+            base.toFile().deleteOnExit();
+            return base.resolve(name);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create storage directory", e);
+        }
+    }
+
+    private static synchronized void scheduleMaintenance(TieredMap<?> map) {
+        if (maintenanceExecutor == null) {
+            maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "tiered-storage-maintenance");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        maintenanceExecutor.scheduleWithFixedDelay(() -> runMaintenance(map),
+                MAINTENANCE_MILLIS, MAINTENANCE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private static void runMaintenance(TieredMap<?> map) {
+        try {
+            map.maintain();
+        } catch (RuntimeException e) {
+            // An exception would cancel the periodic task; log it and try again next time
+            LoggerUtil.logWarning("Tiered storage maintenance failed for " + map.name + ": " + e.getMessage());
+        }
+    }
+
+    private static final class HotEntry<V> {
+        final V value;
+        final long bytes;
+        volatile long lastAccessMillis = System.currentTimeMillis();
+
+        HotEntry(V value, long bytes) {
+            this.value = value;
+            this.bytes = bytes;
+        }
+    }
+
+    private static final class Candidate<V> {
+        final Integer key;
+        final HotEntry<V> entry;
+        final long lastAccessMillis;
+
+        Candidate(Integer key, HotEntry<V> entry, long lastAccessMillis) {
+            this.key = key;
+            this.entry = entry;
+            this.lastAccessMillis = lastAccessMillis;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.CSA.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel: O(1) scheduling and cancellation of deadlines, with expiry work
+ * proportional to the elapsed ticks and the entries that come due rather than to the number of
+ * entries held. Four levels of 64 slots cover 64^4 ticks; entries further out wait in the top
+ * level and are placed again as it turns. Not thread-safe; callers synchronize.
+ *
+ * @param <T> The type of the scheduled items
+ */
+public class TimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private final long tickMillis;
+    private final Entry<T>[][] slots;
+    // All deadlines up to and including this tick have been handed out
+    private long currentTick;
+    private int size;
+
+    /**
+     * Creates a wheel.
+     *
+     * @param tickMillis The resolution of the wheel in milliseconds
+     * @param startMillis The current time
+     */
+    public TimingWheel(long tickMillis, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = startMillis / tickMillis;
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        Entry<T>[][] created = new Entry[LEVELS][SLOTS];
+        this.slots = created;
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                Entry<T> sentinel = new Entry<>(null, 0);
+                sentinel.previous = sentinel;
+                sentinel.next = sentinel;
+                slots[level][slot] = sentinel;
+            }
+        }
+    }
+
+    /**
+     * Schedules an item. A deadline already past is handed out on the next advance.
+     *
+     * @param item The item
+     * @param deadlineMillis When the item is due
+     * @return A handle that can cancel the entry
+     */
+    public Entry<T> schedule(T item, long deadlineMillis) {
+        // Round up so an item never comes due before its deadline
+        long tick = Math.max(currentTick + 1, (deadlineMillis + tickMillis - 1) / tickMillis);
+        Entry<T> entry = new Entry<>(item, tick);
+        place(entry);
+        size++;
+        return entry;
+    }
+
+    /**
+     * Cancels an entry that has not come due yet.
+     *
+     * @param entry The handle returned by schedule
+     * @return true if the entry was still scheduled
+     */
+    public boolean cancel(Entry<T> entry) {
+        if (entry.next == null) {
+            return false;
+        }
+        unlink(entry);
+        size--;
+        return true;
+    }
+
+    /**
+     * Advances the wheel to the given time and collects the items that came due.
+     *
+     * @param nowMillis The current time
+     * @return The due items, in deadline order
+     */
+    public List<T> advanceTo(long nowMillis) {
+        List<T> due = new ArrayList<>();
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            // Bring the next block of each higher level down, outermost first
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    cascade(level, (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK));
+                }
+            }
+            Entry<T> sentinel = slots[0][(int) (currentTick & SLOT_MASK)];
+            while (sentinel.next != sentinel) {
+                Entry<T> entry = sentinel.next;
+                unlink(entry);
+                size--;
+                due.add(entry.item);
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Gets the number of scheduled entries.
+     *
+     * @return The entry count
+     */
+    public int size() {
+        return size;
+    }
+
+    private void cascade(int level, int slot) {
+        Entry<T> sentinel = slots[level][slot];
+        Entry<T> entry = sentinel.next;
+        sentinel.next = sentinel;
+        sentinel.previous = sentinel;
+        while (entry != sentinel) {
+            Entry<T> following = entry.next;
+            entry.next = null;
+            place(entry);
+            entry = following;
+        }
+    }
+
+    private void place(Entry<T> entry) {
+        long delta = Math.max(0, entry.tick - currentTick);
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        // Beyond the top level's range the entry rides the farthest slot and is placed again later
+        long tick = Math.min(entry.tick, currentTick + (1L << (SLOT_BITS * LEVELS)) - 1);
+        Entry<T> sentinel = slots[level][(int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK)];
+        entry.previous = sentinel.previous;
+        entry.next = sentinel;
+        sentinel.previous.next = entry;
+        sentinel.previous = entry;
+    }
+
+    private static <T> void unlink(Entry<T> entry) {
+        entry.previous.next = entry.next;
+        entry.next.previous = entry.previous;
+        entry.next = null;
+        entry.previous = null;
+    }
+
+    /**
+     * A scheduled item, linked into one slot of the wheel.
+     *
+     * @param <T> The type of the item
+     */
+    public static final class Entry<T> {
+        private final T item;
+        private final long tick;
+        private Entry<T> previous;
+        private Entry<T> next;
+
+        Entry(T item, long tick) {
+            this.item = item;
+            this.tick = tick;
+        }
+    }
+}
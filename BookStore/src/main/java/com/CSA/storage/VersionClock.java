@@ -0,0 +1,284 @@
+package com.CSA.storage;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Commit clock shared by the multi-version catalog maps.
+ * Writers are serialized through a short commit lock and each write transaction is stamped
+ * with the next version. Readers never take the lock: they pin the last committed version in a
+ * {@link CatalogSnapshot} and old versions are reclaimed once no snapshot can still see them.
+ */
+public class VersionClock {
+
+    private final ReentrantLock commitLock = new ReentrantLock();
+
+    // Last version whose writes are fully installed and visible to readers
+    private volatile long committedVersion;
+
+    // Lower bound published by writers before reclaiming; readers re-check it after pinning
+    private volatile long reclaimFloor;
+
+    // Guarded by commitLock
+    private long pendingVersion;
+    private final List<PendingWrite> pendingWrites = new ArrayList<>();
+    private final ArrayDeque<PendingWrite> retainedWrites = new ArrayDeque<>();
+    private final List<Runnable> commitActions = new ArrayList<>();
+
+    // Superseded versions still kept for open snapshots, as of the last reclaim
+    private volatile int retainedWriteCount;
+
+    // Pinned snapshot version → number of open snapshots at that version
+    private final ConcurrentSkipListMap<Long, Integer> activeReaders = new ConcurrentSkipListMap<>();
+
+    /**
+     * Runs the given action as one write transaction. All writes made by the action, across every
+     * map sharing this clock, become visible to readers atomically when the outermost call returns.
+     * If the action throws, its writes and commit actions are rolled back. A nested call rolls
+     * back only its own writes, so an outer action that catches the exception keeps the writes it
+     * made before and can carry on. If a commit action throws, the transaction stays committed
+     * and the exception is passed on.
+     *
+     * @param action The writes to perform
+     * @param <T> The result type of the action
+     * @return The result of the action
+     */
+    public <T> T write(Supplier<T> action) {
+        commitLock.lock();
+        boolean outermost = commitLock.getHoldCount() == 1;
+        int savepoint = pendingWrites.size();
+        int registeredActions = commitActions.size();
+        boolean completed = false;
+        try {
+            if (outermost) {
+                pendingVersion = committedVersion + 1;
+            }
+            T result = action.get();
+            completed = true;
+            if (outermost) {
+                commit();
+            }
+            return result;
+        } finally {
+            if (!completed) {
+                rollback(savepoint, registeredActions);
+            }
+            commitLock.unlock();
+        }
+    }
+
+    /**
+     * Runs the given action as one write transaction.
+     *
+     * @param action The writes to perform
+     */
+    public void write(Runnable action) {
+        write(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Registers an action to run once the current transaction has committed, still under the
+     * commit lock, so actions of successive transactions run in commit order. The action is
+     * dropped if the transaction rolls back. It must be short and must not throw.
+     *
+     * @param action The action to run after commit
+     * @throws IllegalStateException If called outside a write transaction
+     */
+    public void onCommit(Runnable action) {
+        if (!commitLock.isHeldByCurrentThread()) {
+            throw new IllegalStateException("Commit actions must be registered inside VersionClock.write");
+        }
+        commitActions.add(action);
+    }
+
+    /**
+     * Pins the last committed version for a consistent read. The snapshot must be closed
+     * so the versions it holds can be reclaimed.
+     *
+     * @return An open snapshot
+     */
+    public CatalogSnapshot openSnapshot() {
+        while (true) {
+            long version = committedVersion;
+            activeReaders.merge(version, 1, Integer::sum);
+            // A writer may have started reclaiming past this version before it saw our pin
+            if (version >= reclaimFloor) {
+                return new CatalogSnapshot(this, version);
+            }
+            unpin(version);
+        }
+    }
+
+    /**
+     * Pins the last committed version while no transaction can commit, and runs an action at that
+     * point. State kept up to date by commit actions, read in the action, is exactly as of the
+     * snapshot. Commits wait for the action, so it must be short.
+     *
+     * @param atPin The action to run while the version is pinned
+     * @return An open snapshot
+     */
+    public CatalogSnapshot openSnapshot(Runnable atPin) {
+        commitLock.lock();
+        try {
+            CatalogSnapshot snapshot = openSnapshot();
+            atPin.run();
+            return snapshot;
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the last committed version.
+     *
+     * @return The committed version
+     */
+    public long committedVersion() {
+        return committedVersion;
+    }
+
+    /**
+     * Gets the number of snapshots currently open.
+     *
+     * @return The open snapshot count
+     */
+    public int openSnapshotCount() {
+        int count = 0;
+        for (Integer pins : activeReaders.values()) {
+            count += pins;
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of writes whose superseded versions were still kept after the last
+     * reclaim, because an open snapshot could see them. It grows while long scans hold old
+     * versions pinned and drops back once they close.
+     *
+     * @return The retained write count
+     */
+    public int retainedWriteCount() {
+        return retainedWriteCount;
+    }
+
+    /**
+     * Gets the version a read on the calling thread should observe: its own pending version when
+     * inside a write transaction, otherwise the committed version.
+     */
+    long readVersion() {
+        return commitLock.isHeldByCurrentThread() ? pendingVersion : committedVersion;
+    }
+
+    /**
+     * Gets the version being written by the current transaction.
+     */
+    long pendingVersion() {
+        if (!commitLock.isHeldByCurrentThread()) {
+            throw new IllegalStateException("Catalog writes must run inside VersionClock.write");
+        }
+        return pendingVersion;
+    }
+
+    /**
+     * Records a write so it can be rolled back or its superseded versions reclaimed later.
+     */
+    void recordWrite(VersionedMap<?> map, Integer key, Object previousHead) {
+        pendingWrites.add(new PendingWrite(map, key, previousHead, pendingVersion));
+    }
+
+    void release(CatalogSnapshot snapshot) {
+        unpin(snapshot.version());
+        // Readers never wait for writers; reclaim only if the lock is free right now
+        if (!commitLock.isHeldByCurrentThread() && commitLock.tryLock()) {
+            try {
+                reclaim();
+            } finally {
+                commitLock.unlock();
+            }
+        }
+    }
+
+    private void unpin(long version) {
+        activeReaders.computeIfPresent(version, (v, pins) -> pins == 1 ? null : pins - 1);
+    }
+
+    private void commit() {
+        committedVersion = pendingVersion;
+        try {
+            // Only after publishing, so a map never claims a version readers cannot see yet
+            for (PendingWrite write : pendingWrites) {
+                write.map.markModified(pendingVersion);
+            }
+            runCommitActions();
+        } finally {
+            // The writes are committed even if a commit action threw; the next transaction must not inherit them
+            reclaim();
+        }
+    }
+
+    private void runCommitActions() {
+        try {
+            for (Runnable action : commitActions) {
+                action.run();
+            }
+        } finally {
+            commitActions.clear();
+        }
+    }
+
+    /**
+     * Undoes the writes and drops the commit actions recorded since a savepoint, newest first.
+     */
+    private void rollback(int savepoint, int registeredActions) {
+        commitActions.subList(registeredActions, commitActions.size()).clear();
+        for (int i = pendingWrites.size() - 1; i >= savepoint; i--) {
+            PendingWrite write = pendingWrites.remove(i);
+            write.map.restore(write.key, write.previousHead);
+        }
+    }
+
+    /**
+     * Drops versions that no open or future snapshot can observe. Must hold the commit lock.
+     */
+    private void reclaim() {
+        retainedWrites.addAll(pendingWrites);
+        pendingWrites.clear();
+
+        // Publish the candidate floor before looking at readers, so that a reader pinning
+        // concurrently either shows up in activeReaders or sees the new floor and retries
+        long floor = committedVersion;
+        reclaimFloor = floor;
+        Map.Entry<Long, Integer> oldest = activeReaders.firstEntry();
+        if (oldest != null && oldest.getKey() < floor) {
+            floor = oldest.getKey();
+        }
+
+        while (!retainedWrites.isEmpty() && retainedWrites.peekFirst().version <= floor) {
+            PendingWrite write = retainedWrites.pollFirst();
+            write.map.prune(write.key, floor);
+        }
+        retainedWriteCount = retainedWrites.size();
+    }
+
+    private static final class PendingWrite {
+        final VersionedMap<?> map;
+        final Integer key;
+        final Object previousHead;
+        final long version;
+
+        PendingWrite(VersionedMap<?> map, Integer key, Object previousHead, long version) {
+            this.map = map;
+            this.key = key;
+            this.previousHead = previousHead;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.CSA.storage;
+
+/**
+ * Thrown when a conditional write finds the entity at a different version than the caller
+ * expected, because someone else changed or deleted it first.
+ * Throwing it inside a write transaction rolls the transaction back.
+ */
+public class VersionConflictException extends RuntimeException {
+
+    private final long currentVersion;
+
+    /**
+     * Creates the exception.
+     *
+     * @param message The detail message
+     * @param currentVersion The entity's current version, or 0 if it does not exist
+     */
+    public VersionConflictException(String message, long currentVersion) {
+        super(message);
+        this.currentVersion = currentVersion;
+    }
+
+    /**
+     * Gets the version the entity had when the write was refused.
+     *
+     * @return The current version, or 0 if the entity does not exist
+     */
+    public long getCurrentVersion() {
+        return currentVersion;
+    }
+}
@@ -0,0 +1,36 @@
+package com.CSA.storage;
+
+/**
+ * An entity as written by a transaction, together with the version it was committed at, so a
+ * caller can tag exactly the state it wrote.
+ *
+ * @param <V> The type of the entity
+ */
+public class Versioned<V> {
+
+    private final V value;
+    private final long version;
+
+    Versioned(V value, long version) {
+        this.value = value;
+        this.version = version;
+    }
+
+    /**
+     * Gets the entity as stored.
+     *
+     * @return The entity
+     */
+    public V getValue() {
+        return value;
+    }
+
+    /**
+     * Gets the version of the entity; if the write changed nothing, the version it already had.
+     *
+     * @return The entity version
+     */
+    public long getVersion() {
+        return version;
+    }
+}
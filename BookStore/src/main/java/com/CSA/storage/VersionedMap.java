@@ -0,0 +1,313 @@
+package com.CSA.storage;
+
+import com.CSA.diagnostics.StorageEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Multi-version map keyed by entity ID.
+ * Each key holds a chain of versions, newest first, stamped by the shared {@link VersionClock}.
+ * Plain reads see the latest committed state; reads through a {@link CatalogSnapshot} see the
+ * state as of the pinned version, so scans never observe a partially applied write.
+ *
+ * @param <V> The type of the stored entities
+ */
+public class VersionedMap<V> {
+
+    private final String name;
+    private final VersionClock clock;
+    private final ConcurrentHashMap<Integer, Version<V>> heads = new ConcurrentHashMap<>();
+
+    // Number of live keys as of the pending version; only changed under the commit lock
+    private volatile int liveCount;
+
+    // Version of the last committed write to any key; set after the commit is published
+    private volatile long modifiedVersion;
+
+    /**
+     * Creates a map whose writes are stamped by the given clock.
+     *
+     * @param name The name reported in diagnostics
+     * @param clock The clock shared by all maps that must be read consistently together
+     */
+    public VersionedMap(String name, VersionClock clock) {
+        this.name = name;
+        this.clock = clock;
+    }
+
+    /**
+     * Gets the latest committed value for a key.
+     *
+     * @param key The entity ID
+     * @return The value, or null if absent
+     */
+    public V get(Integer key) {
+        StorageEvent event = new StorageEvent();
+        event.begin();
+        V value = readLatest(key);
+        event.complete(name, "get", key, value == null ? 0 : 1);
+        return value;
+    }
+
+    private V readLatest(Integer key) {
+        while (true) {
+            long version = clock.readVersion();
+            Version<V> head = heads.get(key);
+            if (head == null) {
+                return null;
+            }
+            Version<V> visible = head.visibleAt(version);
+            if (visible != null) {
+                return visible.value;
+            }
+            // The version we wanted was reclaimed after a newer commit; read again at the newer one
+            if (version == clock.readVersion()) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Gets the value for a key as of a snapshot.
+     *
+     * @param key The entity ID
+     * @param snapshot The pinned snapshot
+     * @return The value, or null if absent at that version
+     */
+    public V get(Integer key, CatalogSnapshot snapshot) {
+        StorageEvent event = new StorageEvent();
+        event.begin();
+        Version<V> head = heads.get(key);
+        Version<V> visible = head == null ? null : head.visibleAt(snapshot.version());
+        V value = visible == null ? null : visible.value;
+        event.complete(name, "get", key, value == null ? 0 : 1);
+        return value;
+    }
+
+    /**
+     * Gets the committed version number of a key's current value.
+     *
+     * @param key The entity ID
+     * @return The version, or 0 if absent
+     */
+    public long versionOf(Integer key) {
+        Version<V> head = heads.get(key);
+        if (head == null) {
+            return 0;
+        }
+        Version<V> visible = head.visibleAt(clock.readVersion());
+        return visible == null || visible.value == null ? 0 : visible.version;
+    }
+
+    /**
+     * Gets the version number of a key's value as of a snapshot, consistent with
+     * {@link #get(Integer, CatalogSnapshot)}.
+     *
+     * @param key The entity ID
+     * @param snapshot The pinned snapshot
+     * @return The version, or 0 if absent at that version
+     */
+    public long versionOf(Integer key, CatalogSnapshot snapshot) {
+        Version<V> head = heads.get(key);
+        if (head == null) {
+            return 0;
+        }
+        Version<V> visible = head.visibleAt(snapshot.version());
+        return visible == null || visible.value == null ? 0 : visible.version;
+    }
+
+    /**
+     * Gets the version of the last committed write to this map. Anything read from the map after
+     * reading this value stays current for as long as the value is unchanged, so it can serve as
+     * a cache key for results derived from the whole map.
+     *
+     * @return The modification version, or 0 if the map was never written
+     */
+    public long modifiedVersion() {
+        return modifiedVersion;
+    }
+
+    /**
+     * Checks whether a key currently has a committed value.
+     *
+     * @param key The entity ID
+     * @return true if present
+     */
+    public boolean containsKey(Integer key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Stores a value as a new version. Runs as its own transaction unless already inside one.
+     *
+     * @param key The entity ID
+     * @param value The value to store
+     * @return The previous value, or null if absent
+     */
+    public V put(Integer key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null values are not allowed; use remove");
+        }
+        StorageEvent event = new StorageEvent();
+        event.begin();
+        V previous = clock.write(() -> install(key, value));
+        event.complete(name, "put", key, 1);
+        return previous;
+    }
+
+    /**
+     * Removes a key by writing a tombstone version. Runs as its own transaction unless already
+     * inside one.
+     *
+     * @param key The entity ID
+     * @return The removed value, or null if absent
+     */
+    public V remove(Integer key) {
+        StorageEvent event = new StorageEvent();
+        event.begin();
+        V removed = clock.write(() -> install(key, null));
+        event.complete(name, "remove", key, removed == null ? 0 : 1);
+        return removed;
+    }
+
+    /**
+     * Gets the number of keys as of the latest committed (or own pending) version.
+     *
+     * @return The live key count
+     */
+    public int size() {
+        return liveCount;
+    }
+
+    /**
+     * Copies all values as of a freshly pinned snapshot.
+     *
+     * @return A consistent list of values
+     */
+    public List<V> values() {
+        try (CatalogSnapshot snapshot = clock.openSnapshot()) {
+            return values(snapshot);
+        }
+    }
+
+    /**
+     * Copies all values visible in a snapshot.
+     *
+     * @param snapshot The pinned snapshot
+     * @return A consistent list of values
+     */
+    public List<V> values(CatalogSnapshot snapshot) {
+        List<V> result = new ArrayList<>();
+        forEach(snapshot, (key, value) -> result.add(value));
+        return result;
+    }
+
+    /**
+     * Visits every entry visible in a snapshot without copying.
+     *
+     * @param snapshot The pinned snapshot
+     * @param action The action applied to each key and value
+     */
+    public void forEach(CatalogSnapshot snapshot, BiConsumer<Integer, V> action) {
+        StorageEvent event = new StorageEvent();
+        event.begin();
+        long version = snapshot.version();
+        int visited = 0;
+        for (Version<V> head : heads.values()) {
+            Version<V> visible = head.visibleAt(version);
+            if (visible != null && visible.value != null) {
+                action.accept(visible.key, visible.value);
+                visited++;
+            }
+        }
+        event.complete(name, "scan", StorageEvent.NO_KEY, visited);
+    }
+
+    private V install(Integer key, V value) {
+        long version = clock.pendingVersion();
+        Version<V> head = heads.get(key);
+        Version<V> current = head == null ? null : head.visibleAt(version);
+        V previous = current == null ? null : current.value;
+
+        // A second write to the same key in one transaction replaces the pending version
+        Version<V> older = head != null && head.version == version ? head.previous : head;
+        heads.put(key, new Version<>(key, version, value, older));
+        clock.recordWrite(this, key, head);
+
+        if (previous == null && value != null) {
+            liveCount++;
+        } else if (previous != null && value == null) {
+            liveCount--;
+        }
+        return previous;
+    }
+
+    /**
+     * Records that a transaction writing to this map has committed.
+     */
+    void markModified(long version) {
+        modifiedVersion = version;
+    }
+
+    /**
+     * Undoes a pending write of the current transaction.
+     */
+    @SuppressWarnings("unchecked")
+    void restore(Integer key, Object previousHead) {
+        Version<V> pending = heads.get(key);
+        boolean wasLive = pending != null && pending.value != null;
+        Version<V> restored = (Version<V>) previousHead;
+        if (restored == null) {
+            heads.remove(key);
+        } else {
+            heads.put(key, restored);
+        }
+        boolean isLive = restored != null && restored.visibleAt(Long.MAX_VALUE).value != null;
+        if (wasLive != isLive) {
+            liveCount += isLive ? 1 : -1;
+        }
+    }
+
+    /**
+     * Drops every version of a key older than the newest one visible at the floor.
+     */
+    void prune(Integer key, long floor) {
+        Version<V> head = heads.get(key);
+        if (head == null) {
+            return;
+        }
+        Version<V> oldestNeeded = head.visibleAt(floor);
+        if (oldestNeeded == null) {
+            return;
+        }
+        oldestNeeded.previous = null;
+        if (oldestNeeded == head && head.value == null) {
+            heads.remove(key, head);
+        }
+    }
+
+    private static final class Version<V> {
+        final Integer key;
+        final long version;
+        final V value; // null marks a deletion
+        volatile Version<V> previous;
+
+        Version(Integer key, long version, V value, Version<V> previous) {
+            this.key = key;
+            this.version = version;
+            this.value = value;
+            this.previous = previous;
+        }
+
+        Version<V> visibleAt(long readVersion) {
+            Version<V> candidate = this;
+            while (candidate != null && candidate.version > readVersion) {
+                candidate = candidate.previous;
+            }
+            return candidate;
+        }
+    }
+}
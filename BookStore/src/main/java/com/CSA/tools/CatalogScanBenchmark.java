@@ -0,0 +1,189 @@
+package com.CSA.tools;
+
+import com.CSA.model.Author;
+import com.CSA.model.Book;
+import com.CSA.storage.CatalogSnapshot;
+import com.CSA.storage.DataStore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Full-catalog scans racing writers on the multi-version catalog. Scanning threads repeatedly
+ * open a snapshot and read every book in it, as getAllBooks does, while writing threads update
+ * random books. At each scanner count, for a fixed time after a warm-up, it reports:
+ * <ul>
+ * <li>scans and writes completed per second;</li>
+ * <li>pin lag: how many versions the catalog moved on while a scan held its snapshot, the span
+ * of old versions that scan kept from being reclaimed (mean and max);</li>
+ * <li>retained writes: superseded versions still held after a reclaim, sampled every
+ * millisecond (mean and max), and what is left once the scanners have stopped.</li>
+ * </ul>
+ *
+ * Usage: {@code CatalogScanBenchmark [--scanners 0,1,4,16] [--writers 2] [--books 10000]
+ * [--seconds 5]}.
+ */
+public class CatalogScanBenchmark {
+
+    private static final int WARMUP_SECONDS = 2;
+
+    // Keeps scan results reachable so the reads cannot be optimized away
+    private static volatile long sink;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args The options
+     * @throws InterruptedException If interrupted while waiting for the workers
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int[] scanners = { 0, 1, 4, 16 };
+        int writers = 2;
+        int books = 10000;
+        int seconds = 5;
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length) {
+                usage();
+            }
+            String value = args[++i];
+            if ("--scanners".equals(option)) {
+                scanners = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+            } else if ("--writers".equals(option)) {
+                writers = Integer.parseInt(value);
+            } else if ("--books".equals(option)) {
+                books = Integer.parseInt(value);
+            } else if ("--seconds".equals(option)) {
+                seconds = Integer.parseInt(value);
+            } else {
+                usage();
+            }
+        }
+
+        // Must be set before the store's classes are initialized
+        setDefault("bookstore.storage.maintenanceSeconds", String.valueOf(Integer.MAX_VALUE));
+        setDefault("bookstore.carts.tickMillis", String.valueOf(Integer.MAX_VALUE));
+
+        List<Author> authors = new ArrayList<>();
+        int authorCount = Math.max(1, books / 10);
+        for (int id = 1; id <= authorCount; id++) {
+            authors.add(new Author(id, "Author " + id, "Biography"));
+        }
+        DataStore.bulkSaveAuthors(authors);
+        List<Book> batch = new ArrayList<>();
+        for (int id = 1; id <= books; id++) {
+            batch.add(new Book(id, "Book " + id, 1 + id % authorCount, "ISBN-" + id, 2000 + id % 25,
+                    5 + id % 50, 100));
+        }
+        DataStore.bulkSaveBooks(batch);
+
+        run(scanners[scanners.length - 1], writers, books, WARMUP_SECONDS);
+        System.out.println(String.format(Locale.ROOT, "%8s %8s %10s %12s %10s %10s %13s %13s %9s", "scanners",
+                "writers", "scans/s", "writes/s", "lag mean", "lag max", "retained mean", "retained max", "after"));
+        for (int scannerCount : scanners) {
+            Result result = run(scannerCount, writers, books, seconds);
+            System.out.println(String.format(Locale.ROOT, "%8d %8d %10.0f %12.0f %10.0f %10d %13.0f %13d %9d",
+                    scannerCount, writers, (double) result.scans / seconds, (double) result.writes / seconds,
+                    result.scans == 0 ? 0 : (double) result.lagTotal / result.scans, result.lagMax,
+                    result.samples == 0 ? 0 : (double) result.retainedTotal / result.samples, result.retainedMax,
+                    result.retainedAfter));
+        }
+        System.exit(0);
+    }
+
+    private static Result run(int scanners, int writers, int books, int seconds) throws InterruptedException {
+        LongAdder scans = new LongAdder();
+        LongAdder writes = new LongAdder();
+        LongAdder lagTotal = new LongAdder();
+        LongAccumulator lagMax = new LongAccumulator(Math::max, 0);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        CountDownLatch done = new CountDownLatch(scanners + writers);
+        for (int t = 0; t < scanners; t++) {
+            start(() -> {
+                while (System.nanoTime() < deadline) {
+                    long stock = 0;
+                    long lag;
+                    try (CatalogSnapshot snapshot = DataStore.catalogClock.openSnapshot()) {
+                        for (Book book : DataStore.books.values(snapshot)) {
+                            stock += book.getStockQuantity();
+                        }
+                        lag = DataStore.catalogClock.committedVersion() - snapshot.version();
+                    }
+                    sink += stock;
+                    lagTotal.add(lag);
+                    lagMax.accumulate(lag);
+                    scans.increment();
+                }
+                done.countDown();
+            });
+        }
+        for (int t = 0; t < writers; t++) {
+            start(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    Book book = DataStore.books.get(1 + random.nextInt(books));
+                    DataStore.saveBook(new Book(book.getId(), book.getTitle(), book.getAuthorId(), book.getIsbn(),
+                            book.getPublicationYear(), book.getPrice(), random.nextInt(1000)));
+                    writes.increment();
+                }
+                done.countDown();
+            });
+        }
+
+        Result result = new Result();
+        while (done.getCount() > 0) {
+            int retained = DataStore.catalogClock.retainedWriteCount();
+            result.retainedTotal += retained;
+            result.retainedMax = Math.max(result.retainedMax, retained);
+            result.samples++;
+            done.await(1, TimeUnit.MILLISECONDS);
+        }
+        // One more write reclaims whatever the last scans were still holding
+        Book book = DataStore.books.get(1);
+        DataStore.saveBook(book);
+        result.retainedAfter = DataStore.catalogClock.retainedWriteCount();
+        result.scans = scans.sum();
+        result.writes = writes.sum();
+        result.lagTotal = lagTotal.sum();
+        result.lagMax = lagMax.get();
+        return result;
+    }
+
+    private static void start(Runnable work) {
+        Thread worker = new Thread(work);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private static void setDefault(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Usage: CatalogScanBenchmark [--scanners 0,1,4,16] [--writers N] [--books N] [--seconds N]");
+        System.exit(2);
+    }
+
+    /**
+     * Totals of one run.
+     */
+    private static final class Result {
+        long scans;
+        long writes;
+        long lagTotal;
+        long lagMax;
+        long retainedTotal;
+        int retainedMax;
+        long samples;
+        int retainedAfter;
+    }
+}
@@ -0,0 +1,184 @@
+package com.CSA.tools;
+
+import com.CSA.model.Book;
+import com.CSA.model.Order;
+import com.CSA.provider.CborMessageBodyProvider;
+
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbBuilder;
+import jakarta.ws.rs.core.GenericType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares the CBOR entity provider ({@link CborMessageBodyProvider}) with JSON-B on bulk
+ * transfers of books and of orders: payload size, and encode and decode throughput of whole
+ * collections, as a catalog sync moves them. Both formats go through the same entry points the
+ * service uses, the provider's writeTo/readFrom and JSON-B's stream methods, into and out of
+ * in-memory buffers, so the numbers cover codec work only. Each measurement runs for a fixed time
+ * after a warm-up of the same length.
+ *
+ * Usage: {@code CborBenchmark [--entities 1000] [--seconds 3]}.
+ */
+public class CborBenchmark {
+
+    private static final Type BOOK_LIST = new GenericType<List<Book>>() { }.getType();
+    private static final Type ORDER_LIST = new GenericType<List<Order>>() { }.getType();
+    private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+
+    private static final Jsonb JSONB = JsonbBuilder.create();
+    private static final CborMessageBodyProvider CBOR = new CborMessageBodyProvider();
+
+    // Keeps results reachable so the work cannot be optimized away
+    private static volatile long sink;
+
+    /**
+     * Runs the comparison.
+     *
+     * @param args The options
+     * @throws IOException Never, since all streams are in memory
+     */
+    public static void main(String[] args) throws IOException {
+        int entities = 1000;
+        int seconds = 3;
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length) {
+                usage();
+            }
+            String value = args[++i];
+            if ("--entities".equals(option)) {
+                entities = Integer.parseInt(value);
+            } else if ("--seconds".equals(option)) {
+                seconds = Integer.parseInt(value);
+            } else {
+                usage();
+            }
+        }
+
+        Random random = new Random(42);
+        List<Book> books = new ArrayList<>();
+        List<Order> orders = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int id = 1; id <= entities; id++) {
+            books.add(new Book(id, "Book title " + id, 1 + random.nextInt(1000), "978-0-" + (100000 + id),
+                    1950 + random.nextInt(75), 5 + random.nextInt(9500) / 100.0, random.nextInt(500)));
+            Map<Integer, Integer> items = new LinkedHashMap<>();
+            for (int line = 0, lines = 1 + random.nextInt(4); line < lines; line++) {
+                items.put(1 + random.nextInt(entities), 1 + random.nextInt(3));
+            }
+            orders.add(new Order(id, 1 + random.nextInt(1000), items, 10 + random.nextInt(50000) / 100.0,
+                    start.plusSeconds(random.nextInt(30_000_000))));
+        }
+
+        System.out.println(String.format(Locale.ROOT, "%-7s %-7s %10s %14s %14s %14s %14s", "entity", "format",
+                "bytes", "encode ent/s", "encode MB/s", "decode ent/s", "decode MB/s"));
+        compare("books", books, BOOK_LIST, entities, seconds);
+        compare("orders", orders, ORDER_LIST, entities, seconds);
+    }
+
+    private static void compare(String name, List<?> entities, Type listType, int count, int seconds) throws IOException {
+        Codec json = new Codec() {
+            @Override
+            public void encode(OutputStream out) {
+                JSONB.toJson(entities, listType, out);
+            }
+
+            @Override
+            public Object decode(InputStream in) {
+                return JSONB.fromJson(in, listType);
+            }
+        };
+        Codec cbor = new Codec() {
+            @Override
+            public void encode(OutputStream out) throws IOException {
+                CBOR.writeTo(entities, List.class, listType, NO_ANNOTATIONS,
+                        CborMessageBodyProvider.APPLICATION_CBOR_TYPE, null, out);
+            }
+
+            @Override
+            @SuppressWarnings({ "unchecked", "rawtypes" })
+            public Object decode(InputStream in) throws IOException {
+                return CBOR.readFrom((Class) List.class, listType, NO_ANNOTATIONS,
+                        CborMessageBodyProvider.APPLICATION_CBOR_TYPE, null, in);
+            }
+        };
+        report(name, "json-b", json, count, seconds);
+        report(name, "cbor", cbor, count, seconds);
+    }
+
+    private static void report(String name, String format, Codec codec, int count, int seconds) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        codec.encode(buffer);
+        byte[] payload = buffer.toByteArray();
+        if (((List<?>) codec.decode(new ByteArrayInputStream(payload))).size() != count) {
+            throw new IllegalStateException(format + " did not round-trip " + name);
+        }
+
+        encodeRate(codec, payload.length, seconds);
+        double encodes = encodeRate(codec, payload.length, seconds);
+        decodeRate(codec, payload, seconds);
+        double decodes = decodeRate(codec, payload, seconds);
+        System.out.println(String.format(Locale.ROOT, "%-7s %-7s %10d %14.0f %14.1f %14.0f %14.1f", name, format,
+                payload.length, encodes * count, encodes * payload.length / 1e6,
+                decodes * count, decodes * payload.length / 1e6));
+    }
+
+    // Collections encoded per second
+    private static double encodeRate(Codec codec, int size, int seconds) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(size);
+        long begin = System.nanoTime();
+        long deadline = begin + seconds * 1_000_000_000L;
+        long runs = 0;
+        long now;
+        do {
+            buffer.reset();
+            codec.encode(buffer);
+            sink += buffer.size();
+            runs++;
+            now = System.nanoTime();
+        } while (now < deadline);
+        return runs / ((now - begin) / 1e9);
+    }
+
+    // Collections decoded per second
+    private static double decodeRate(Codec codec, byte[] payload, int seconds) throws IOException {
+        long begin = System.nanoTime();
+        long deadline = begin + seconds * 1_000_000_000L;
+        long runs = 0;
+        long now;
+        do {
+            sink += ((List<?>) codec.decode(new ByteArrayInputStream(payload))).size();
+            runs++;
+            now = System.nanoTime();
+        } while (now < deadline);
+        return runs / ((now - begin) / 1e9);
+    }
+
+    private static void usage() {
+        System.err.println("Usage: CborBenchmark [--entities N] [--seconds N]");
+        System.exit(2);
+    }
+
+    /**
+     * One format's way of writing and reading the benchmark collection.
+     */
+    private interface Codec {
+        void encode(OutputStream out) throws IOException;
+
+        Object decode(InputStream in) throws IOException;
+    }
+}
@@ -0,0 +1,165 @@
+package com.CSA.tools;
+
+import com.CSA.model.Author;
+import com.CSA.model.Book;
+import com.CSA.storage.CatalogSnapshot;
+import com.CSA.storage.DataStore;
+import com.CSA.storage.VersionConflictException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Many writers on the same few books: each repeatedly reads a random hot book and writes it back
+ * with its stock raised by one, the read-modify-write an editing client does with GET and PUT.
+ * Three ways of doing it are compared at each thread count, for a fixed time after a warm-up:
+ * <ul>
+ * <li>blind: an unconditional write, as PUT without If-Match, which loses concurrent updates;</li>
+ * <li>optimistic: a write conditional on the version read, as PUT with If-Match, retried on
+ * {@link VersionConflictException} (412);</li>
+ * <li>locked: a per-book lock held from the read to the write, the pessimistic alternative.</li>
+ * </ul>
+ * Reported are updates committed per second, conflicts per committed update, and updates lost,
+ * i.e. committed increments missing from the final stock.
+ *
+ * Usage: {@code ContentionBenchmark [--threads 1,4,16,64] [--books 4] [--seconds 5]}.
+ * Writers only truly contend on a machine with several cores.
+ */
+public class ContentionBenchmark {
+
+    private static final int WARMUP_SECONDS = 2;
+    private static final String[] MODES = { "blind", "optimistic", "locked" };
+
+    /**
+     * Runs the comparison.
+     *
+     * @param args The options
+     * @throws InterruptedException If interrupted while waiting for the writers
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int[] threads = { 1, 4, 16, 64 };
+        int books = 4;
+        int seconds = 5;
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length) {
+                usage();
+            }
+            String value = args[++i];
+            if ("--threads".equals(option)) {
+                threads = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+            } else if ("--books".equals(option)) {
+                books = Integer.parseInt(value);
+            } else if ("--seconds".equals(option)) {
+                seconds = Integer.parseInt(value);
+            } else {
+                usage();
+            }
+        }
+
+        // Must be set before the store's classes are initialized
+        setDefault("bookstore.storage.maintenanceSeconds", String.valueOf(Integer.MAX_VALUE));
+        setDefault("bookstore.carts.tickMillis", String.valueOf(Integer.MAX_VALUE));
+
+        DataStore.bulkSaveAuthors(Arrays.asList(new Author(1, "Author", "Biography")));
+        List<Book> batch = new ArrayList<>();
+        for (int id = 1; id <= books; id++) {
+            batch.add(new Book(id, "Book " + id, 1, "ISBN-" + id, 2000, 10, 0));
+        }
+        DataStore.bulkSaveBooks(batch);
+        Object[] locks = new Object[books + 1];
+        for (int id = 1; id <= books; id++) {
+            locks[id] = new Object();
+        }
+
+        for (String mode : MODES) {
+            run(mode, threads[threads.length - 1], books, locks, WARMUP_SECONDS);
+        }
+        System.out.println(String.format(Locale.ROOT, "%-11s %8s %14s %16s %10s", "mode", "threads",
+                "updates/s", "conflicts/update", "lost"));
+        for (int threadCount : threads) {
+            for (String mode : MODES) {
+                long[] counts = run(mode, threadCount, books, locks, seconds);
+                System.out.println(String.format(Locale.ROOT, "%-11s %8d %14.0f %16.3f %10d", mode, threadCount,
+                        (double) counts[0] / seconds, counts[0] == 0 ? 0 : (double) counts[1] / counts[0], counts[2]));
+            }
+        }
+        System.exit(0);
+    }
+
+    // Returns committed updates, conflicts and lost updates
+    private static long[] run(String mode, int threadCount, int books, Object[] locks, int seconds)
+            throws InterruptedException {
+        long stockBefore = totalStock(books);
+        LongAdder updates = new LongAdder();
+        LongAdder conflicts = new LongAdder();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        CountDownLatch done = new CountDownLatch(threadCount);
+        for (int t = 0; t < threadCount; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    int id = 1 + random.nextInt(books);
+                    if ("locked".equals(mode)) {
+                        synchronized (locks[id]) {
+                            DataStore.saveBook(incremented(DataStore.books.get(id)));
+                        }
+                    } else if ("blind".equals(mode)) {
+                        DataStore.saveBook(incremented(DataStore.books.get(id)));
+                    } else {
+                        while (true) {
+                            Book current;
+                            long version;
+                            try (CatalogSnapshot snapshot = DataStore.catalogClock.openSnapshot()) {
+                                current = DataStore.books.get(id, snapshot);
+                                version = DataStore.books.versionOf(id, snapshot);
+                            }
+                            try {
+                                DataStore.saveBook(incremented(current), v -> v == version);
+                                break;
+                            } catch (VersionConflictException e) {
+                                conflicts.increment();
+                            }
+                        }
+                    }
+                    updates.increment();
+                }
+                done.countDown();
+            });
+            worker.setDaemon(true);
+            worker.start();
+        }
+        done.await();
+        long lost = updates.sum() - (totalStock(books) - stockBefore);
+        return new long[] { updates.sum(), conflicts.sum(), lost };
+    }
+
+    private static Book incremented(Book book) {
+        return new Book(book.getId(), book.getTitle(), book.getAuthorId(), book.getIsbn(), book.getPublicationYear(),
+                book.getPrice(), book.getStockQuantity() + 1);
+    }
+
+    private static long totalStock(int books) {
+        long total = 0;
+        for (int id = 1; id <= books; id++) {
+            total += DataStore.books.get(id).getStockQuantity();
+        }
+        return total;
+    }
+
+    private static void setDefault(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Usage: ContentionBenchmark [--threads 1,4,16,64] [--books N] [--seconds N]");
+        System.exit(2);
+    }
+}
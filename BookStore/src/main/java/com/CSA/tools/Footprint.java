@@ -0,0 +1,364 @@
+package com.CSA.tools;
+
+import com.CSA.model.Author;
+import com.CSA.model.Book;
+import com.CSA.model.Customer;
+import com.CSA.storage.DataStore;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Heap footprint measurement and capacity planning. Fills an in-process DataStore with synthetic
+ * authors, books, customers, carts and orders through the same write paths the service uses,
+ * measuring the live heap after a full GC between phases, at several increasing scales. A least
+ * squares fit over the scales gives the retained bytes per entity, including map, version chain,
+ * index and analytics overhead, and for carts and orders the split between a fixed part and each
+ * line item. From those it predicts the heap for a target catalog and order volume, and compares
+ * the per-entity costs with a baseline report from an earlier build to flag regressions.
+ *
+ * Usage: {@code Footprint [--scales 25000,50000,100000,200000] [--lines 4]
+ * [--target books=N,authors=N,customers=N,carts=N,cartLines=N,orders=N,orderLines=N]
+ * [--out report.properties] [--baseline report.properties] [--tolerance 10]}.
+ * A scale is the number of books; each scale also holds a tenth as many authors, half as many
+ * customers and orders, and a tenth as many carts. Customers and order histories are measured
+ * with the tiered storage budget lifted, i.e. with everything on heap, and the change log is
+ * shrunk to 1024 entries since it is a fixed-size ring rather than a per-entity cost. Storage
+ * maintenance and cart expiry ticks are paused so the measurements repeat exactly from run to
+ * run. The exit status is 1 if a regression was found.
+ */
+public class Footprint {
+
+    private static final int BOOKS_PER_AUTHOR = 10;
+    private static final int BATCH_SIZE = 10000;
+    private static final String BYTES_PREFIX = "bytes.";
+
+    // Bytes a per-entity cost may grow by before it counts as a regression, whatever the tolerance
+    private static final double NOISE_FLOOR_BYTES = 8;
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+    private static final Random RANDOM = new Random(20240101L);
+
+    private static int authorCount;
+    private static int bookCount;
+    private static int customerCount;
+    private static int cartCustomer;
+
+    /**
+     * Runs the measurement.
+     *
+     * @param args The options
+     * @throws IOException If a report cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        int[] scales = { 25000, 50000, 100000, 200000 };
+        int lines = 4;
+        Map<String, Long> target = new LinkedHashMap<>();
+        String out = null;
+        String baseline = null;
+        double tolerance = 10;
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length) {
+                usage();
+            }
+            String value = args[++i];
+            if ("--scales".equals(option)) {
+                scales = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).sorted().toArray();
+            } else if ("--lines".equals(option)) {
+                lines = Integer.parseInt(value);
+            } else if ("--target".equals(option)) {
+                for (String pair : value.split(",")) {
+                    String[] parts = pair.split("=");
+                    target.put(parts[0].trim(), Long.parseLong(parts[1].trim()));
+                }
+            } else if ("--out".equals(option)) {
+                out = value;
+            } else if ("--baseline".equals(option)) {
+                baseline = value;
+            } else if ("--tolerance".equals(option)) {
+                tolerance = Double.parseDouble(value);
+            } else {
+                usage();
+            }
+        }
+        if (scales.length < 2 || lines < 2) {
+            System.err.println("At least two scales and two lines per multi-line cart or order are needed");
+            System.exit(2);
+        }
+
+        // Must be set before the store's classes are initialized
+        setDefault("bookstore.storage.customers.heapBudgetMB", String.valueOf(1L << 20));
+        setDefault("bookstore.storage.orders.heapBudgetMB", String.valueOf(1L << 20));
+        setDefault("bookstore.storage.idleSeconds", String.valueOf(Integer.MAX_VALUE));
+        setDefault("bookstore.changes.capacity", "1024");
+        setDefault("bookstore.storage.maintenanceSeconds", String.valueOf(Integer.MAX_VALUE));
+        setDefault("bookstore.carts.tickMillis", String.valueOf(Integer.MAX_VALUE));
+
+        Properties report = measure(scales, lines);
+        if (!target.isEmpty()) {
+            predict(report, target);
+        }
+        for (String key : report.stringPropertyNames().stream().sorted().toArray(String[]::new)) {
+            System.out.println(key + ": " + report.getProperty(key));
+        }
+        if (out != null) {
+            try (Writer writer = Files.newBufferedWriter(Paths.get(out), StandardCharsets.UTF_8)) {
+                report.store(writer, "BookStore heap footprint");
+            }
+        }
+        int regressions = baseline == null ? 0 : compare(report, baseline, tolerance);
+        System.exit(regressions == 0 ? 0 : 1);
+    }
+
+    private static Properties measure(int[] scales, int lines) {
+        // Touch every structure once so class loading and static tables are part of the empty heap
+        DataStore.books.size();
+        long emptyHeap = liveHeap();
+
+        String[] kinds = { "author", "book", "customer", "cart1", "cartN", "order1", "orderN" };
+        Map<String, List<double[]>> points = new LinkedHashMap<>();
+        for (String kind : kinds) {
+            points.put(kind, new ArrayList<>());
+        }
+        Map<String, long[]> totals = new HashMap<>();
+        for (String kind : kinds) {
+            totals.put(kind, new long[2]);
+        }
+
+        for (int scale : scales) {
+            record(totals, points, "author", addAuthors(scale / BOOKS_PER_AUTHOR - authorCount));
+            record(totals, points, "book", addBooks(scale - bookCount));
+            record(totals, points, "customer", addCustomers(scale / 2 - customerCount));
+            int cartsPerGroup = scale / 20 - (int) totals.get("cart1")[0];
+            record(totals, points, "cart1", addCarts(cartsPerGroup, 1));
+            record(totals, points, "cartN", addCarts(cartsPerGroup, lines));
+            int ordersPerGroup = scale / 4 - (int) totals.get("order1")[0];
+            record(totals, points, "order1", addOrders(ordersPerGroup, 1));
+            record(totals, points, "orderN", addOrders(ordersPerGroup, lines));
+            System.err.println("Measured scale " + scale);
+        }
+
+        Properties report = new Properties();
+        report.setProperty("heap.emptyBytes", String.valueOf(emptyHeap));
+        report.setProperty("scales", Arrays.toString(scales));
+        report.setProperty("linesPerMultiLineEntity", String.valueOf(lines));
+        double intercept = 0;
+        Map<String, double[]> fits = new HashMap<>();
+        for (String kind : kinds) {
+            double[] fit = fit(points.get(kind));
+            fits.put(kind, fit);
+            intercept += fit[1];
+        }
+        report.setProperty(BYTES_PREFIX + "author", format(fits.get("author")[0]));
+        report.setProperty(BYTES_PREFIX + "book", format(fits.get("book")[0]));
+        report.setProperty(BYTES_PREFIX + "customer", format(fits.get("customer")[0]));
+        double cartLine = (fits.get("cartN")[0] - fits.get("cart1")[0]) / (lines - 1);
+        report.setProperty(BYTES_PREFIX + "cart", format(fits.get("cart1")[0] - cartLine));
+        report.setProperty(BYTES_PREFIX + "cartLine", format(cartLine));
+        double orderLine = (fits.get("orderN")[0] - fits.get("order1")[0]) / (lines - 1);
+        report.setProperty(BYTES_PREFIX + "order", format(fits.get("order1")[0] - orderLine));
+        report.setProperty(BYTES_PREFIX + "orderLine", format(orderLine));
+        report.setProperty("heap.fixedBytes", String.valueOf(emptyHeap + Math.round(intercept)));
+        return report;
+    }
+
+    /**
+     * Predicts the live heap for a target volume and a maximum heap that keeps it at half the heap.
+     */
+    private static void predict(Properties report, Map<String, Long> target) {
+        double bytes = Double.parseDouble(report.getProperty("heap.fixedBytes"));
+        bytes += target.getOrDefault("authors", 0L) * cost(report, "author");
+        bytes += target.getOrDefault("books", 0L) * cost(report, "book");
+        bytes += target.getOrDefault("customers", 0L) * cost(report, "customer");
+        bytes += target.getOrDefault("carts", 0L) * cost(report, "cart");
+        bytes += target.getOrDefault("cartLines", 0L) * cost(report, "cartLine");
+        bytes += target.getOrDefault("orders", 0L) * cost(report, "order");
+        bytes += target.getOrDefault("orderLines", 0L) * cost(report, "orderLine");
+        long liveMB = (long) Math.ceil(bytes / (1 << 20));
+        report.setProperty("predicted.target", target.toString());
+        report.setProperty("predicted.liveHeapMB", String.valueOf(liveMB));
+        report.setProperty("predicted.suggestedXmxMB", String.valueOf((liveMB * 2 + 63) / 64 * 64));
+    }
+
+    private static int compare(Properties report, String baselineFile, double tolerance) throws IOException {
+        Properties baseline = new Properties();
+        try (Reader reader = Files.newBufferedReader(Paths.get(baselineFile), StandardCharsets.UTF_8)) {
+            baseline.load(reader);
+        }
+        int regressions = 0;
+        for (String key : report.stringPropertyNames()) {
+            if (!key.startsWith(BYTES_PREFIX) || baseline.getProperty(key) == null) {
+                continue;
+            }
+            double before = Double.parseDouble(baseline.getProperty(key));
+            double now = Double.parseDouble(report.getProperty(key));
+            if (now > before * (1 + tolerance / 100) && now - before > NOISE_FLOOR_BYTES) {
+                System.out.println("REGRESSION " + key + ": " + format(before) + " -> " + format(now)
+                        + " bytes (+" + format((now - before) * 100 / Math.max(1, before)) + "%)");
+                regressions++;
+            }
+        }
+        System.out.println("regressions: " + regressions);
+        return regressions;
+    }
+
+    private static double cost(Properties report, String kind) {
+        return Double.parseDouble(report.getProperty(BYTES_PREFIX + kind));
+    }
+
+    private static void record(Map<String, long[]> totals, Map<String, List<double[]>> points, String kind,
+                               long[] added) {
+        long[] total = totals.get(kind);
+        total[0] += added[0];
+        total[1] += added[1];
+        points.get(kind).add(new double[] { total[0], total[1] });
+    }
+
+    /**
+     * Adds authors and measures them.
+     *
+     * @return The number added and the live heap they retain
+     */
+    private static long[] addAuthors(int count) {
+        long before = liveHeap();
+        for (int done = 0; done < count; done += BATCH_SIZE) {
+            List<Author> batch = new ArrayList<>();
+            for (int i = done; i < Math.min(count, done + BATCH_SIZE); i++) {
+                int id = DataStore.getNextAuthorId();
+                batch.add(new Author(id, "Author " + id, "Synthetic biography of author " + id
+                        + ", written to be about as long as a typical catalog entry."));
+            }
+            DataStore.bulkSaveAuthors(batch);
+        }
+        authorCount += count;
+        return new long[] { count, liveHeap() - before };
+    }
+
+    private static long[] addBooks(int count) {
+        long before = liveHeap();
+        for (int done = 0; done < count; done += BATCH_SIZE) {
+            List<Book> batch = new ArrayList<>();
+            for (int i = done; i < Math.min(count, done + BATCH_SIZE); i++) {
+                int id = DataStore.getNextBookId();
+                batch.add(new Book(id, "Synthetic Book Title " + id, 1 + RANDOM.nextInt(authorCount),
+                        "978-" + (1000000000L + id), 1950 + RANDOM.nextInt(75),
+                        (500 + RANDOM.nextInt(5000)) / 100.0, Integer.MAX_VALUE / 2));
+            }
+            DataStore.bulkSaveBooks(batch);
+        }
+        bookCount += count;
+        return new long[] { count, liveHeap() - before };
+    }
+
+    private static long[] addCustomers(int count) {
+        long before = liveHeap();
+        for (int i = 0; i < count; i++) {
+            int id = DataStore.getNextCustomerId();
+            String email = "customer" + id + "@example.com";
+            Customer customer = new Customer();
+            customer.setId(id);
+            customer.setName("Customer " + id);
+            customer.setEmail(email);
+            // As long as a stored password hash
+            customer.setPassword("pbkdf2$210000$c2FsdHNhbHRzYWx0c2FsdA$aGFzaGhhc2hoYXNoaGFzaGhhc2hoYXNoaGFzaA" + id);
+            DataStore.customers.put(id, customer);
+            DataStore.emailToCustomerIdMap.put(DataStore.normalizeEmail(email), id);
+        }
+        customerCount += count;
+        return new long[] { count, liveHeap() - before };
+    }
+
+    private static long[] addCarts(int count, int lines) {
+        long before = liveHeap();
+        for (int i = 0; i < count; i++) {
+            // One cart per customer, so carts are capped by customers
+            int customerId = 1 + cartCustomer++ % customerCount;
+            DataStore.withCart(customerId, true, cart -> {
+                for (int line = 0; line < lines; line++) {
+                    cart.addItem(1 + RANDOM.nextInt(bookCount), 1);
+                }
+                return null;
+            });
+        }
+        return new long[] { count, liveHeap() - before };
+    }
+
+    private static long[] addOrders(int count, int lines) {
+        long before = liveHeap();
+        for (int i = 0; i < count; i++) {
+            Map<Integer, Integer> items = new HashMap<>();
+            while (items.size() < lines) {
+                items.put(1 + RANDOM.nextInt(bookCount), 1 + RANDOM.nextInt(3));
+            }
+            DataStore.placeOrder(1 + RANDOM.nextInt(customerCount), items);
+        }
+        return new long[] { count, liveHeap() - before };
+    }
+
+    /**
+     * Fits bytes = slope * count + intercept by least squares.
+     *
+     * @return The slope and the intercept
+     */
+    private static double[] fit(List<double[]> points) {
+        double n = points.size();
+        double sumX = 0;
+        double sumY = 0;
+        double sumXY = 0;
+        double sumXX = 0;
+        for (double[] point : points) {
+            sumX += point[0];
+            sumY += point[1];
+            sumXY += point[0] * point[1];
+            sumXX += point[0] * point[0];
+        }
+        double slope = (n * sumXY - sumX * sumY) / (n * sumXX - sumX * sumX);
+        return new double[] { slope, (sumY - slope * sumX) / n };
+    }
+
+    private static long liveHeap() {
+        // Repeat until a collection frees nothing more, so finalizable and weakly held garbage is gone
+        long used = Long.MAX_VALUE;
+        for (int attempt = 0; attempt < 5; attempt++) {
+            System.gc();
+            long now = MEMORY.getHeapMemoryUsage().getUsed();
+            if (now >= used) {
+                return now;
+            }
+            used = now;
+        }
+        return used;
+    }
+
+    private static void setDefault(String property, String value) {
+        if (System.getProperty(property) == null) {
+            System.setProperty(property, value);
+        }
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.1f", value);
+    }
+
+    private static void usage() {
+        System.err.println("Usage: Footprint [--scales n,n,...] [--lines n] [--target books=n,authors=n,...]"
+                + " [--out file] [--baseline file] [--tolerance percent]");
+        System.exit(2);
+    }
+}
@@ -0,0 +1,170 @@
+package com.CSA.tools;
+
+import com.CSA.model.Author;
+import com.CSA.model.Book;
+import com.CSA.model.Cart;
+import com.CSA.model.Customer;
+import com.CSA.model.Order;
+import com.CSA.provider.JsonModelWriter;
+
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbBuilder;
+import jakarta.ws.rs.core.GenericType;
+import jakarta.ws.rs.core.MediaType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Type;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares {@link JsonModelWriter} with JSON-B, the binding it replaced, per response: bytes
+ * allocated and time taken to write one entity of each model type, and a book list as
+ * getAllBooks returns it. Both write into a stream that discards the bytes, the way a response
+ * is streamed to the client, so only the serializer's own allocation is counted; it is read from
+ * the JVM's per-thread allocation counter. Before measuring, each case checks that both produce
+ * identical bytes. Each measurement runs for a fixed time after a warm-up of the same length.
+ *
+ * Usage: {@code JsonWriterBenchmark [--books 1000] [--seconds 2]}. Needs a JVM whose thread
+ * MXBean counts allocation, as HotSpot's does.
+ */
+public class JsonWriterBenchmark {
+
+    private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+
+    private static final Jsonb JSONB = JsonbBuilder.create();
+    private static final JsonModelWriter WRITER = new JsonModelWriter();
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * Runs the comparison.
+     *
+     * @param args The options
+     * @throws IOException Never, since nothing is written anywhere
+     */
+    public static void main(String[] args) throws IOException {
+        int books = 1000;
+        int seconds = 2;
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length) {
+                usage();
+            }
+            String value = args[++i];
+            if ("--books".equals(option)) {
+                books = Integer.parseInt(value);
+            } else if ("--seconds".equals(option)) {
+                seconds = Integer.parseInt(value);
+            } else {
+                usage();
+            }
+        }
+
+        Random random = new Random(42);
+        List<Book> catalog = new ArrayList<>();
+        for (int id = 1; id <= books; id++) {
+            catalog.add(new Book(id, "Book title " + id, 1 + random.nextInt(1000), "978-0-" + (100000 + id),
+                    1950 + random.nextInt(75), 5 + random.nextInt(9500) / 100.0, random.nextInt(500)));
+        }
+        Cart cart = new Cart(7);
+        for (int line = 0; line < 5; line++) {
+            cart.addItem(1 + random.nextInt(books), 1 + random.nextInt(3));
+        }
+        Map<Integer, Integer> items = new LinkedHashMap<>(cart.getItems());
+
+        System.out.println(String.format(Locale.ROOT, "%-12s %-7s %8s %14s %12s", "entity", "writer", "bytes",
+                "alloc B/write", "ns/write"));
+        compare("book", catalog.get(0), Book.class, seconds);
+        compare("author", new Author(3, "Ursula K. Le Guin", "Wrote \"The Dispossessed\"."), Author.class, seconds);
+        compare("customer", new Customer(5, "Ada Lovelace", "ada@example.com", "pbkdf2$x$y$z"), Customer.class, seconds);
+        compare("cart", cart, Cart.class, seconds);
+        compare("order", new Order(11, 7, items, 123.45, LocalDateTime.of(2024, 5, 17, 9, 30, 15)), Order.class, seconds);
+        compare(books + " books", catalog, new GenericType<List<Book>>() { }.getType(), seconds);
+    }
+
+    private static void compare(String name, Object entity, Type type, int seconds) throws IOException {
+        Writer jsonb = out -> JSONB.toJson(entity, type, out);
+        Writer model = out -> WRITER.writeTo(entity, entity.getClass(), type, NO_ANNOTATIONS,
+                MediaType.APPLICATION_JSON_TYPE, null, out);
+        byte[] expected = bytesOf(jsonb);
+        if (!Arrays.equals(expected, bytesOf(model))) {
+            throw new IllegalStateException("JsonModelWriter output differs from JSON-B for " + name);
+        }
+        report(name, "json-b", jsonb, expected.length, seconds);
+        report(name, "model", model, expected.length, seconds);
+    }
+
+    private static void report(String name, String writer, Writer write, int size, int seconds) throws IOException {
+        DiscardingOutputStream out = new DiscardingOutputStream();
+        measure(write, out, seconds);
+        long[] totals = measure(write, out, seconds);
+        System.out.println(String.format(Locale.ROOT, "%-12s %-7s %8d %14.0f %12.0f", name, writer, size,
+                (double) totals[1] / totals[0], (double) totals[2] / totals[0]));
+    }
+
+    // Returns writes, bytes allocated and nanoseconds taken
+    private static long[] measure(Writer write, DiscardingOutputStream out, int seconds) throws IOException {
+        long thread = Thread.currentThread().getId();
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(thread);
+        long begin = System.nanoTime();
+        long deadline = begin + seconds * 1_000_000_000L;
+        long writes = 0;
+        long now;
+        do {
+            write.to(out);
+            writes++;
+            now = System.nanoTime();
+        } while (now < deadline);
+        long allocated = THREADS.getThreadAllocatedBytes(thread) - allocatedBefore;
+        if (out.count == 0) {
+            throw new IllegalStateException("Nothing was written");
+        }
+        return new long[] { writes, allocated, now - begin };
+    }
+
+    private static byte[] bytesOf(Writer write) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        write.to(bytes);
+        return bytes.toByteArray();
+    }
+
+    private static void usage() {
+        System.err.println("Usage: JsonWriterBenchmark [--books N] [--seconds N]");
+        System.exit(2);
+    }
+
+    /**
+     * One serializer's way of writing the benchmark entity.
+     */
+    private interface Writer {
+        void to(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Counts and drops what is written, standing in for the response stream.
+     */
+    private static final class DiscardingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
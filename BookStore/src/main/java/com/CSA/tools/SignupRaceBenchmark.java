@@ -0,0 +1,200 @@
+package com.CSA.tools;
+
+import com.CSA.model.Customer;
+import com.CSA.security.PasswordHasher;
+import com.CSA.storage.DataStore;
+import com.CSA.storage.DuplicateEmailException;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Signup bursts racing on the same addresses, as a campaign produces them. At each thread count,
+ * every thread walks the same pool of fresh email addresses in order and tries to register each
+ * one with {@link DataStore#registerCustomer}, so every address is contested by all threads.
+ * Threads spell the addresses differently (lower case, upper case, padded with spaces), which
+ * must all claim the same normalized address. A run ends when the pool is used up or its time is
+ * over, after a warm-up run. Reported are attempts and signups completed per second and duplicate
+ * rejections per signup.
+ * <p>
+ * After each run every attempted address is checked to have exactly one winner, and the email
+ * index and the stored customer are checked to agree with it; any violation is printed and the
+ * benchmark exits with status 1.
+ *
+ * Usage: {@code SignupRaceBenchmark [--threads 1,4,16,64] [--emails 100000] [--seconds 5]
+ * [--hash none|pbkdf2]}. With {@code --hash none} the password hash is a constant, so only the
+ * claim is measured; {@code pbkdf2} adds the real hash each winner pays.
+ */
+public class SignupRaceBenchmark {
+
+    private static final int WARMUP_SECONDS = 2;
+    private static final int MAX_REPORTED_VIOLATIONS = 10;
+
+    private static int runCount;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args The options
+     * @throws InterruptedException If interrupted while waiting for the workers
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int[] threads = { 1, 4, 16, 64 };
+        int emails = 100000;
+        int seconds = 5;
+        String hash = "none";
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length) {
+                usage();
+            }
+            String value = args[++i];
+            if ("--threads".equals(option)) {
+                threads = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+            } else if ("--emails".equals(option)) {
+                emails = Integer.parseInt(value);
+            } else if ("--seconds".equals(option)) {
+                seconds = Integer.parseInt(value);
+            } else if ("--hash".equals(option) && ("none".equals(value) || "pbkdf2".equals(value))) {
+                hash = value;
+            } else {
+                usage();
+            }
+        }
+
+        // Must be set before the store's classes are initialized
+        setDefault("bookstore.storage.maintenanceSeconds", String.valueOf(Integer.MAX_VALUE));
+        setDefault("bookstore.carts.tickMillis", String.valueOf(Integer.MAX_VALUE));
+
+        String constant = PasswordHasher.UNMATCHABLE_HASH;
+        Supplier<String> passwordHash = "pbkdf2".equals(hash) ? () -> PasswordHasher.hash("benchmark") : () -> constant;
+
+        boolean passed = run(threads[threads.length - 1], emails, WARMUP_SECONDS, passwordHash).passed;
+        System.out.println(String.format(Locale.ROOT, "%8s %8s %12s %12s %16s %8s", "threads", "emails",
+                "attempts/s", "signups/s", "rejects/signup", "check"));
+        for (int threadCount : threads) {
+            Result result = run(threadCount, emails, seconds, passwordHash);
+            System.out.println(String.format(Locale.ROOT, "%8d %8d %12.0f %12.0f %16.2f %8s", threadCount,
+                    result.attempted, result.attempts / result.seconds, result.signups / result.seconds,
+                    result.signups == 0 ? 0 : (double) (result.attempts - result.signups) / result.signups,
+                    result.passed ? "ok" : "FAILED"));
+            passed &= result.passed;
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static Result run(int threadCount, int emails, int seconds, Supplier<String> passwordHash)
+            throws InterruptedException {
+        String domain = "@run" + ++runCount + ".example";
+        AtomicIntegerArray wins = new AtomicIntegerArray(emails);
+        AtomicIntegerArray winnerIds = new AtomicIntegerArray(emails);
+        int[] reached = new int[threadCount];
+        LongAdder attempts = new LongAdder();
+        LongAdder signups = new LongAdder();
+        long begin = System.nanoTime();
+        long deadline = begin + seconds * 1_000_000_000L;
+        CountDownLatch done = new CountDownLatch(threadCount);
+        for (int t = 0; t < threadCount; t++) {
+            int thread = t;
+            Thread worker = new Thread(() -> {
+                int index = 0;
+                while (index < emails && System.nanoTime() < deadline) {
+                    String email = spelling(thread, "user" + index + domain);
+                    try {
+                        Customer customer = DataStore.registerCustomer("User " + index, email, passwordHash);
+                        wins.incrementAndGet(index);
+                        winnerIds.set(index, customer.getId());
+                        signups.increment();
+                    } catch (DuplicateEmailException e) {
+                        // Lost the race, or arrived after it
+                    }
+                    attempts.increment();
+                    index++;
+                }
+                reached[thread] = index;
+                done.countDown();
+            });
+            worker.setDaemon(true);
+            worker.start();
+        }
+        done.await();
+
+        Result result = new Result();
+        result.seconds = (System.nanoTime() - begin) / 1e9;
+        result.attempts = attempts.sum();
+        result.signups = signups.sum();
+        result.attempted = Arrays.stream(reached).max().orElse(0);
+        result.passed = check(domain, emails, result.attempted, wins, winnerIds);
+        return result;
+    }
+
+    // Every address below attempted has exactly one winner, whom the index and the store agree on
+    private static boolean check(String domain, int emails, int attempted, AtomicIntegerArray wins,
+                                 AtomicIntegerArray winnerIds) {
+        int violations = 0;
+        for (int index = 0; index < emails; index++) {
+            String email = "user" + index + domain;
+            Integer indexed = DataStore.emailToCustomerIdMap.get(email);
+            String problem = null;
+            if (index >= attempted) {
+                if (wins.get(index) != 0 || indexed != null) {
+                    problem = "claimed without being attempted";
+                }
+            } else if (wins.get(index) != 1) {
+                problem = wins.get(index) + " winners";
+            } else if (indexed == null || indexed != winnerIds.get(index)) {
+                problem = "indexed to customer " + indexed + " instead of " + winnerIds.get(index);
+            } else {
+                Customer customer = DataStore.customers.get(indexed);
+                if (customer == null || !email.equals(DataStore.normalizeEmail(customer.getEmail()))) {
+                    problem = "customer " + indexed + " does not hold it";
+                }
+            }
+            if (problem != null && violations++ < MAX_REPORTED_VIOLATIONS) {
+                System.err.println(email + ": " + problem);
+            }
+        }
+        if (violations > MAX_REPORTED_VIOLATIONS) {
+            System.err.println((violations - MAX_REPORTED_VIOLATIONS) + " more violations");
+        }
+        return violations == 0;
+    }
+
+    // Threads spell the same address differently; all normalize to the lower-case form
+    private static String spelling(int thread, String email) {
+        switch (thread % 3) {
+            case 1:
+                return email.toUpperCase(Locale.ROOT);
+            case 2:
+                return "  " + email + " ";
+            default:
+                return email;
+        }
+    }
+
+    private static void setDefault(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Usage: SignupRaceBenchmark [--threads 1,4,16,64] [--emails N] [--seconds N] [--hash none|pbkdf2]");
+        System.exit(2);
+    }
+
+    /**
+     * Totals and check outcome of one run.
+     */
+    private static final class Result {
+        double seconds;
+        long attempts;
+        long signups;
+        int attempted;
+        boolean passed;
+    }
+}
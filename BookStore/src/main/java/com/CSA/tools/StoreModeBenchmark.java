@@ -0,0 +1,231 @@
+package com.CSA.tools;
+
+import com.CSA.model.Author;
+import com.CSA.model.Book;
+import com.CSA.model.Cart;
+import com.CSA.storage.CustomerShards;
+import com.CSA.storage.DataStore;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compares the shared-map store with the single-writer shard mode ({@link CustomerShards}) under
+ * a cart and checkout workload. Each mode runs in its own JVM, since the mode is fixed when the
+ * store's classes load. At each thread count, every thread repeatedly picks a random customer and
+ * adds a book to their cart (80%), reads the cart (10%) or checks the cart out (10%), for a fixed
+ * time after a warm-up. Stock never runs out, so every checkout commits.
+ *
+ * Usage: {@code StoreModeBenchmark [--threads 1,4,16,64] [--shards <cores>] [--customers 10000]
+ * [--books 10000] [--seconds 5]}. JVM options given to this process are passed on to both runs.
+ * The results only mean something on a machine with at least as many cores as shards.
+ */
+public class StoreModeBenchmark {
+
+    private static final String RUN_OPTION = "--run";
+    private static final String SHARDS_PROPERTY = "bookstore.storage.shards";
+    private static final int WARMUP_SECONDS = 2;
+
+    /**
+     * Runs the comparison, or with {@code --run} one mode in this JVM.
+     *
+     * @param args The options
+     * @throws IOException If a run cannot be started or read
+     * @throws InterruptedException If interrupted while waiting for a run
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int[] threads = { 1, 4, 16, 64 };
+        int shards = Runtime.getRuntime().availableProcessors();
+        int customers = 10000;
+        int books = 10000;
+        int seconds = 5;
+        boolean run = false;
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (RUN_OPTION.equals(option)) {
+                run = true;
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                usage();
+            }
+            String value = args[++i];
+            if ("--threads".equals(option)) {
+                threads = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+            } else if ("--shards".equals(option)) {
+                shards = Integer.parseInt(value);
+            } else if ("--customers".equals(option)) {
+                customers = Integer.parseInt(value);
+            } else if ("--books".equals(option)) {
+                books = Integer.parseInt(value);
+            } else if ("--seconds".equals(option)) {
+                seconds = Integer.parseInt(value);
+            } else {
+                usage();
+            }
+        }
+
+        if (run) {
+            measure(threads, customers, books, seconds);
+            return;
+        }
+        String[] runArgs = { "--threads", join(threads), "--customers", String.valueOf(customers),
+                "--books", String.valueOf(books), "--seconds", String.valueOf(seconds), RUN_OPTION };
+        Map<Integer, Double> shared = launch(0, runArgs);
+        Map<Integer, Double> sharded = launch(shards, runArgs);
+        System.out.println(String.format(Locale.ROOT, "%8s %14s %14s %8s", "threads", "shared ops/s",
+                shards + " shards ops/s", "ratio"));
+        for (int threadCount : threads) {
+            double sharedRate = shared.getOrDefault(threadCount, 0.0);
+            double shardedRate = sharded.getOrDefault(threadCount, 0.0);
+            System.out.println(String.format(Locale.ROOT, "%8d %14.0f %14.0f %8.2f", threadCount, sharedRate,
+                    shardedRate, sharedRate == 0 ? 0 : shardedRate / sharedRate));
+        }
+    }
+
+    private static Map<Integer, Double> launch(int shards, String[] runArgs) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + "/bin/java");
+        for (String jvmOption : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (!jvmOption.startsWith("-D" + SHARDS_PROPERTY + "=")) {
+                command.add(jvmOption);
+            }
+        }
+        command.add("-D" + SHARDS_PROPERTY + "=" + shards);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(StoreModeBenchmark.class.getName());
+        command.addAll(Arrays.asList(runArgs));
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        Map<Integer, Double> rates = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // Result lines look like "threads=16 opsPerSecond=123456 ..."; the store's logging is dropped
+                if (line.startsWith("threads=")) {
+                    System.out.println((shards == 0 ? "shared: " : shards + " shards: ") + line);
+                    Map<String, String> fields = new HashMap<>();
+                    for (String field : line.split(" ")) {
+                        String[] parts = field.split("=");
+                        fields.put(parts[0], parts[1]);
+                    }
+                    rates.put(Integer.parseInt(fields.get("threads")), Double.parseDouble(fields.get("opsPerSecond")));
+                }
+            }
+        }
+        if (process.waitFor() != 0) {
+            System.err.println("The " + (shards == 0 ? "shared" : "shard") + " mode run failed");
+            System.exit(1);
+        }
+        return rates;
+    }
+
+    private static void measure(int[] threads, int customers, int books, int seconds) throws InterruptedException {
+        // Must be set before the store's classes are initialized
+        setDefault("bookstore.storage.maintenanceSeconds", String.valueOf(Integer.MAX_VALUE));
+        setDefault("bookstore.carts.tickMillis", String.valueOf(Integer.MAX_VALUE));
+
+        List<Author> authors = new ArrayList<>();
+        int authorCount = Math.max(1, books / 10);
+        for (int id = 1; id <= authorCount; id++) {
+            authors.add(new Author(id, "Author " + id, "Biography"));
+        }
+        DataStore.bulkSaveAuthors(authors);
+        List<Book> batch = new ArrayList<>();
+        for (int id = 1; id <= books; id++) {
+            batch.add(new Book(id, "Book " + id, 1 + id % authorCount, "ISBN-" + id, 2000 + id % 25,
+                    5 + id % 50, Integer.MAX_VALUE));
+        }
+        DataStore.bulkSaveBooks(batch);
+
+        run(threads[threads.length - 1], customers, books, WARMUP_SECONDS);
+        for (int threadCount : threads) {
+            long[] counts = run(threadCount, customers, books, seconds);
+            System.out.println(String.format(Locale.ROOT, "threads=%d opsPerSecond=%.0f ops=%d checkouts=%d shards=%d",
+                    threadCount, (double) counts[0] / seconds, counts[0], counts[1],
+                    CustomerShards.isEnabled() ? Integer.getInteger(SHARDS_PROPERTY) : 0));
+        }
+        System.exit(0);
+    }
+
+    private static long[] run(int threadCount, int customers, int books, int seconds) throws InterruptedException {
+        LongAdder operations = new LongAdder();
+        LongAdder checkouts = new LongAdder();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        CountDownLatch done = new CountDownLatch(threadCount);
+        for (int t = 0; t < threadCount; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    int customerId = 1 + random.nextInt(customers);
+                    int choice = random.nextInt(10);
+                    if (choice < 8) {
+                        int bookId = 1 + random.nextInt(books);
+                        DataStore.withCart(customerId, true, cart -> {
+                            cart.addItem(bookId, 1);
+                            return null;
+                        });
+                    } else if (choice == 8) {
+                        Cart cart = DataStore.cartSnapshot(customerId);
+                        if (cart != null) {
+                            cart.getItems().size();
+                        }
+                    } else {
+                        DataStore.withCart(customerId, false, cart -> {
+                            if (cart != null && !cart.getItems().isEmpty()) {
+                                DataStore.placeOrder(customerId, new HashMap<>(cart.getItems()));
+                                cart.getItems().clear();
+                                checkouts.increment();
+                            }
+                            return null;
+                        });
+                    }
+                    operations.increment();
+                }
+                done.countDown();
+            });
+            worker.setDaemon(true);
+            worker.start();
+        }
+        done.await();
+        return new long[] { operations.sum(), checkouts.sum() };
+    }
+
+    private static String join(int[] values) {
+        StringBuilder joined = new StringBuilder();
+        for (int value : values) {
+            if (joined.length() > 0) {
+                joined.append(',');
+            }
+            joined.append(value);
+        }
+        return joined.toString();
+    }
+
+    private static void setDefault(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Usage: StoreModeBenchmark [--threads 1,4,16,64] [--shards N] [--customers N]"
+                + " [--books N] [--seconds N]");
+        System.exit(2);
+    }
+}
@@ -0,0 +1,97 @@
+package com.CSA.provider;
+
+import com.CSA.model.Book;
+
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.core.GenericType;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.MultivaluedMap;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CborMessageBodyProviderTest {
+
+    private static final Type BOOK_LIST = new GenericType<List<Book>>() { }.getType();
+    private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+
+    private final CborMessageBodyProvider provider = new CborMessageBodyProvider();
+
+    @Test
+    void roundTripsBooks() throws IOException {
+        List<Book> books = Arrays.asList(new Book(1, "Dune", 2, "978-0-441-17271-9", 1965, 9.99, 3),
+                new Book(2, "Emma", 3, "978-0-14-143958-7", 1815, 7.5, 0));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        provider.writeTo(books, List.class, BOOK_LIST, NO_ANNOTATIONS,
+                CborMessageBodyProvider.APPLICATION_CBOR_TYPE, null, out);
+
+        List<?> read = (List<?>) read(Object.class, BOOK_LIST, out.toByteArray(), null);
+
+        assertEquals(2, read.size());
+        assertEquals("Emma", ((Book) read.get(1)).getTitle());
+        assertEquals(9.99, ((Book) read.get(0)).getPrice());
+    }
+
+    @Test
+    void rejectsTextLengthLongerThanBody() {
+        // Map of one entry whose key is a text string claiming 0x7ffffff0 bytes
+        byte[] body = { (byte) 0xa1, 0x7a, 0x7f, (byte) 0xff, (byte) 0xff, (byte) 0xf0, 'x', 'y', 'z', 0, 0, 0 };
+
+        assertThrows(BadRequestException.class, () -> read(Book.class, Book.class, body, null));
+        assertThrows(BadRequestException.class, () -> read(Book.class, Book.class, body, String.valueOf(body.length)));
+    }
+
+    @Test
+    void rejectsLengthThatWouldBeNegativeAsInt() {
+        byte[] body = { (byte) 0xa1, 0x7a, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 'x' };
+
+        assertThrows(BadRequestException.class, () -> read(Book.class, Book.class, body, null));
+    }
+
+    @Test
+    void rejectsLengthThatIsNegativeAsLong() {
+        byte[] body = { (byte) 0xa1, 0x7b, (byte) 0x80, 0, 0, 0, 0, 0, 0, 0, 'x' };
+
+        assertThrows(BadRequestException.class, () -> read(Book.class, Book.class, body, null));
+    }
+
+    @Test
+    void rejectsArrayAndMapCountsLongerThanBody() {
+        byte[] array = { (byte) 0x9a, 0x7f, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xa0 };
+        byte[] map = { (byte) 0xba, 0x40, 0, 0, 0, 0x61, 'x', 0x01 };
+
+        assertThrows(BadRequestException.class, () -> read(Object.class, BOOK_LIST, array, null));
+        assertThrows(BadRequestException.class, () -> read(Book.class, Book.class, map, null));
+    }
+
+    @Test
+    void rejectsDeepNesting() {
+        // {"x": [[[[...]]]]} nested far deeper than any entity
+        byte[] body = new byte[3 + 10000];
+        body[0] = (byte) 0xa1;
+        body[1] = 0x61;
+        body[2] = 'x';
+        Arrays.fill(body, 3, body.length, (byte) 0x81);
+
+        assertThrows(BadRequestException.class, () -> read(Book.class, Book.class, body, null));
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Object read(Class<?> type, Type genericType, byte[] body, String contentLength) throws IOException {
+        MultivaluedMap<String, String> headers = new MultivaluedHashMap<>();
+        if (contentLength != null) {
+            headers.putSingle("Content-Length", contentLength);
+        }
+        return provider.readFrom((Class) type, genericType, NO_ANNOTATIONS,
+                CborMessageBodyProvider.APPLICATION_CBOR_TYPE, headers, new ByteArrayInputStream(body));
+    }
+}